@@ -27,18 +27,23 @@ import com.hellokaton.blade.mvc.BladeConst;
 import com.hellokaton.blade.mvc.handler.DefaultExceptionHandler;
 import com.hellokaton.blade.mvc.handler.ExceptionHandler;
 import com.hellokaton.blade.mvc.handler.RouteHandler;
+import com.hellokaton.blade.mvc.handler.SessionHandler;
 import com.hellokaton.blade.mvc.hook.WebHook;
 import com.hellokaton.blade.mvc.hook.WebHookOptions;
 import com.hellokaton.blade.mvc.http.HttpMethod;
 import com.hellokaton.blade.mvc.http.session.SessionManager;
+import com.hellokaton.blade.mvc.http.session.SessionStore;
 import com.hellokaton.blade.mvc.route.RouteMatcher;
 import com.hellokaton.blade.mvc.ui.template.DefaultEngine;
 import com.hellokaton.blade.mvc.ui.template.TemplateEngine;
 import com.hellokaton.blade.options.CorsOptions;
+import com.hellokaton.blade.options.EventOptions;
 import com.hellokaton.blade.options.HttpOptions;
 import com.hellokaton.blade.options.StaticOptions;
 import com.hellokaton.blade.server.NettyServer;
 import com.hellokaton.blade.server.Server;
+import com.hellokaton.blade.server.ServerCounters;
+import io.netty.channel.ChannelHandler;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
@@ -51,6 +56,8 @@ import java.nio.file.*;
 import java.util.*;
 import java.util.concurrent.CountDownLatch;
 import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static com.hellokaton.blade.mvc.BladeConst.ENV_KEY_FAVICON_DIR;
@@ -74,6 +81,16 @@ public class Blade {
      */
     private final List<BladeLoader> loaders = new ArrayList<>();
 
+    /**
+     * Channel handlers created for every connection, they see the http request before it is decoded
+     */
+    private final List<Supplier<? extends ChannelHandler>> channelHandlers = new ArrayList<>();
+
+    /**
+     * Runs on each io worker thread when it starts
+     */
+    private IntConsumer workerThreadHook;
+
     /**
      * All need to be scanned by the package, when you do not set the time will scan com.hellokaton.blade.plugin package
      */
@@ -99,6 +116,11 @@ public class Blade {
      */
     private SessionManager sessionManager = new SessionManager(eventManager);
 
+    /**
+     * Reads and writes the session of the requests, created on first use
+     */
+    private volatile SessionHandler sessionHandler;
+
     /**
      * Used to wait for the start to complete the lock
      */
@@ -109,6 +131,11 @@ public class Blade {
      */
     private final Server server = new NettyServer();
 
+    /**
+     * Connection and request counters of the web server
+     */
+    private final ServerCounters serverCounters = new ServerCounters();
+
     /**
      * A route matcher that matches whether a route exists
      */
@@ -121,7 +148,12 @@ public class Blade {
     /**
      * Blade environment, which stores the parameters of the application.properties configuration file
      */
-    private Environment environment = Environment.empty();
+    private volatile Environment environment = Environment.empty();
+
+    /**
+     * Parsed settings of the environment, rebuilt when the environment changes
+     */
+    private volatile EnvironmentSnapshot snapshot;
 
     /**
      * Exception handling, it will output some logs when the error is initiated
@@ -398,7 +430,7 @@ public class Blade {
      * @return return true is developer mode, else not.
      */
     public boolean devMode() {
-        return this.environment.getBoolean(BladeConst.ENV_KEY_DEV_MODE, true);
+        return this.snapshot().isDevMode();
     }
 
     /**
@@ -470,9 +502,26 @@ public class Blade {
 
     public Blade environment(Environment environment) {
         this.environment = environment;
+        this.snapshot = EnvironmentSnapshot.of(environment);
         return this;
     }
 
+    /**
+     * Return the parsed settings of the environment, read this instead of the
+     * environment where a setting is needed for every request.
+     *
+     * @return EnvironmentSnapshot
+     */
+    public EnvironmentSnapshot snapshot() {
+        Environment environment = this.environment;
+        EnvironmentSnapshot snapshot = this.snapshot;
+        if (null == snapshot || !snapshot.isCurrent(environment)) {
+            snapshot = EnvironmentSnapshot.of(environment);
+            this.snapshot = snapshot;
+        }
+        return snapshot;
+    }
+
     /**
      * Get application environment information.
      *
@@ -535,6 +584,18 @@ public class Blade {
         return this;
     }
 
+    /**
+     * Also listen on a unix domain socket, e.g. for a proxy on the same host.
+     * Needs the epoll transport
+     *
+     * @param path socket file path
+     * @return blade
+     */
+    public Blade listenUnixSocket(@NonNull String path) {
+        this.environment.set(BladeConst.ENV_KEY_SERVER_UNIX_SOCKET, path);
+        return this;
+    }
+
     /**
      * Use of multiple middleware
      *
@@ -588,6 +649,21 @@ public class Blade {
         return this;
     }
 
+    /**
+     * Add a event watcher invoked as described by the options,
+     * e.g. asynchronously so that it does not delay the request
+     *
+     * @param eventType     event type
+     * @param eventListener event watcher
+     * @param eventOptions  event options
+     * @return blade
+     */
+    public Blade on(@NonNull EventType eventType, @NonNull com.hellokaton.blade.event.EventListener eventListener,
+                    @NonNull EventOptions eventOptions) {
+        this.eventManager.addEventListener(eventType, eventListener, eventOptions);
+        return this;
+    }
+
     /**
      * Add blade loader
      *
@@ -603,6 +679,42 @@ public class Blade {
         return this.loaders;
     }
 
+    /**
+     * Add a channel handler in front of the request decoder, e.g. a protocol upgrade.
+     * The supplier is called once per connection, the handler must pass on
+     * the messages it doesn't handle.
+     *
+     * @param channelHandler creates the handler of a connection
+     * @return Blade
+     */
+    public Blade addChannelHandler(@NonNull Supplier<? extends ChannelHandler> channelHandler) {
+        this.channelHandlers.add(channelHandler);
+        return this;
+    }
+
+    public List<Supplier<? extends ChannelHandler>> channelHandlers() {
+        return this.channelHandlers;
+    }
+
+    /**
+     * Run code on each io worker thread when it starts, with the index of the
+     * thread starting at 0. E.g. pin the workers to cpus with an affinity library:
+     * <pre>
+     * blade.workerThreadHook(index -&gt; Affinity.setAffinity(index % cpus));
+     * </pre>
+     *
+     * @param workerThreadHook receives the worker index on the worker thread
+     * @return Blade
+     */
+    public Blade workerThreadHook(IntConsumer workerThreadHook) {
+        this.workerThreadHook = workerThreadHook;
+        return this;
+    }
+
+    public IntConsumer workerThreadHook() {
+        return this.workerThreadHook;
+    }
+
     /**
      * Get EventManager
      *
@@ -612,6 +724,15 @@ public class Blade {
         return this.eventManager;
     }
 
+    /**
+     * Get the connection and request counters of the web server
+     *
+     * @return return ServerCounters
+     */
+    public ServerCounters serverCounters() {
+        return this.serverCounters;
+    }
+
     /**
      * Get SessionManager
      *
@@ -621,6 +742,34 @@ public class Blade {
         return this.sessionManager;
     }
 
+    /**
+     * Get the SessionHandler, created on first use when session is enabled
+     *
+     * @return return SessionHandler, null when session is disabled
+     */
+    public SessionHandler sessionHandler() {
+        if (null == this.sessionHandler && this.httpOptions.isEnableSession()) {
+            synchronized (this) {
+                if (null == this.sessionHandler) {
+                    this.sessionHandler = new SessionHandler(this);
+                }
+            }
+        }
+        return this.sessionHandler;
+    }
+
+    /**
+     * Persist sessions in a SessionStore, e.g. {@link com.hellokaton.blade.mvc.http.session.FileSessionStore},
+     * the in-memory sessions are kept as a near cache in front of it.
+     *
+     * @param sessionStore session store
+     * @return return blade instance
+     */
+    public Blade sessionStore(@NonNull SessionStore sessionStore) {
+        this.sessionManager = new SessionManager(eventManager, sessionStore);
+        return this;
+    }
+
     /**
      * Disable session, default is open
      *
@@ -747,6 +896,7 @@ public class Blade {
         this.eventManager.fireEvent(EventType.SERVER_STOPPING, new Event().attribute("blade", this));
         this.server.stopAndWait();
         this.eventManager.fireEvent(EventType.SERVER_STOPPED, new Event().attribute("blade", this));
+        this.eventManager.shutdown();
     }
 
     /**
@@ -57,6 +57,11 @@ public class Environment {
      */
     private Properties props = new Properties();
 
+    /**
+     * Incremented by every write, tells {@link EnvironmentSnapshot} it is stale
+     */
+    private volatile int modCount;
+
     /**
      * Create an empty environment
      *
@@ -217,6 +222,7 @@ public class Environment {
     public Environment set(@NonNull String key, @NonNull Object value) {
         props.remove(key);
         props.put(key, value.toString());
+        modCount++;
         return this;
     }
 
@@ -239,11 +245,13 @@ public class Environment {
      */
     public Environment addAll(@NonNull Map<String, String> map) {
         map.forEach((key, value) -> this.props.setProperty(key, value));
+        modCount++;
         return this;
     }
 
     public Environment addAll(@NonNull Properties props) {
         props.forEach((key, value) -> this.props.setProperty(key.toString(), value.toString()));
+        modCount++;
         return this;
     }
 
@@ -255,6 +263,7 @@ public class Environment {
      */
     public Environment load(@NonNull Environment environment) {
         this.props.putAll(environment.toMap());
+        modCount++;
         return this;
     }
 
@@ -385,8 +394,16 @@ public class Environment {
         return props.containsValue(value);
     }
 
+    /**
+     * A copy of the properties, changes to it are not seen by the environment,
+     * use {@link #set(String, Object)} instead
+     *
+     * @return copy of the properties
+     */
     public Properties props() {
-        return props;
+        Properties copy = new Properties();
+        copy.putAll(props);
+        return copy;
     }
 
     public int size() {
@@ -397,4 +414,8 @@ public class Environment {
         return props.isEmpty();
     }
 
+    int modCount() {
+        return modCount;
+    }
+
 }
@@ -0,0 +1,181 @@
+package com.hellokaton.blade;
+
+import com.hellokaton.blade.options.HttpOptions;
+import com.hellokaton.blade.options.StaticOptions;
+import com.hellokaton.blade.server.Transport;
+import lombok.Getter;
+
+import static com.hellokaton.blade.mvc.BladeConst.*;
+
+/**
+ * The {@code BladeConst.ENV_KEY_*} settings of an {@link Environment}, parsed once.
+ * <p>
+ * A snapshot never changes, {@link Blade#snapshot()} builds a new one when the
+ * environment is written to or replaced, so request handling reads typed fields
+ * instead of parsing properties. Defaults are the ones used where the settings
+ * are read, a string setting without default is null.
+ */
+@Getter
+public final class EnvironmentSnapshot {
+
+    private final Environment environment;
+    private final int modCount;
+
+    private final boolean devMode;
+    private final String appName;
+    private final String appEnv;
+    private final String threadName;
+    private final boolean watchEnv;
+    private final String scanIndex;
+    private final boolean componentIndex;
+    private final boolean i18nPreload;
+    private final String bannerPath;
+    private final int taskThreadCount;
+    private final String contextPath;
+    private final boolean requestLog;
+    private final String faviconDir;
+    private final String autoRefreshDir;
+
+    private final int maxContentSize;
+    private final boolean gzipEnabled;
+    private final int gzipThreshold;
+    private final int gzipLevel;
+    private final boolean sessionEnabled;
+    private final String sessionKey;
+    private final int sessionTimeout;
+    private final int sessionFlushInterval;
+    private final int sessionNearCacheIdle;
+    private final String sessionSecrets;
+    private final boolean requestCost;
+    private final int readIdleTimeout;
+    private final int writeIdleTimeout;
+    private final int maxConnections;
+    private final int maxConnectionsPerIp;
+    private final int maxInitialLineLength;
+    private final int maxHeaderSize;
+    private final int requestTimeout;
+    private final String uploadDir;
+    /**
+     * -1 when not limited
+     */
+    private final long maxFileSize;
+    /**
+     * -1 when not configured, the max content size applies
+     */
+    private final long maxMultipartSize;
+
+    private final String page404;
+    private final String page500;
+    private final String templatePath;
+    private final boolean staticShowList;
+    private final int staticCacheSeconds;
+
+    private final String serverAddress;
+    private final int serverPort;
+    private final String unixSocket;
+    private final boolean performance;
+    private final boolean ssl;
+    private final String sslCert;
+    private final String sslPrivateKey;
+    private final String sslPrivateKeyPass;
+    private final boolean tcpNoDelay;
+    private final boolean soKeepAlive;
+    /**
+     * -1 when not configured
+     */
+    private final int soBacklog;
+    private final int acceptThreadCount;
+    private final int ioThreadCount;
+    private final String transport;
+    /**
+     * false when not configured, SO_REUSEPORT is then left off
+     */
+    private final boolean reusePort;
+    /**
+     * -1 when not configured
+     */
+    private final int tcpFastOpen;
+    /**
+     * -1 when not configured
+     */
+    private final int tcpDeferAccept;
+
+    private EnvironmentSnapshot(Environment environment) {
+        this.environment = environment;
+        // read before the values, a write while building makes the snapshot stale
+        this.modCount = environment.modCount();
+
+        this.devMode = environment.getBoolean(ENV_KEY_DEV_MODE, true);
+        this.appName = environment.get(ENV_KEY_APP_NAME, "Blade");
+        this.appEnv = environment.get(ENV_KEY_APP_ENV, "default");
+        this.threadName = environment.getOrNull(ENV_KEY_APP_THREAD_NAME);
+        this.watchEnv = environment.getBoolean(ENV_KEY_APP_WATCH_ENV, false);
+        this.scanIndex = environment.getOrNull(ENV_KEY_APP_SCAN_INDEX);
+        this.componentIndex = environment.getBoolean(ENV_KEY_APP_COMPONENT_INDEX, true);
+        this.i18nPreload = environment.getBoolean(ENV_KEY_APP_I18N_PRELOAD, true);
+        this.bannerPath = environment.getOrNull(ENV_KEY_BANNER_PATH);
+        this.taskThreadCount = environment.getInt(ENV_KEY_TASK_THREAD_COUNT, Runtime.getRuntime().availableProcessors() + 1);
+        this.contextPath = environment.get(ENV_KEY_CONTEXT_PATH, "/");
+        this.requestLog = environment.getBoolean(ENV_KEY_REQUEST_LOG, true);
+        this.faviconDir = environment.get(ENV_KEY_FAVICON_DIR, "/static");
+        this.autoRefreshDir = environment.getOrNull(ENV_KEY_AUTO_REFRESH_DIR);
+
+        this.maxContentSize = environment.getInt(ENV_KEY_HTTP_MAX_CONTENT, HttpOptions.DEFAULT_MAX_CONTENT_SIZE);
+        this.gzipEnabled = environment.getBoolean(ENV_KEY_GZIP_ENABLE, false);
+        this.gzipThreshold = environment.getInt(ENV_KEY_GZIP_THRESHOLD, HttpOptions.DEFAULT_COMPRESSION_THRESHOLD);
+        this.gzipLevel = environment.getInt(ENV_KEY_GZIP_LEVEL, HttpOptions.DEFAULT_COMPRESSION_LEVEL);
+        this.sessionEnabled = environment.getBoolean(ENV_KEY_SESSION_ENABLED, false);
+        this.sessionKey = environment.get(ENV_KEY_SESSION_KEY, HttpOptions.DEFAULT_SESSION_KEY);
+        this.sessionTimeout = environment.getInt(ENV_KEY_SESSION_TIMEOUT, HttpOptions.DEFAULT_SESSION_TIMEOUT);
+        this.sessionFlushInterval = environment.getInt(ENV_KEY_SESSION_FLUSH_INTERVAL, DEFAULT_SESSION_FLUSH_INTERVAL);
+        this.sessionNearCacheIdle = environment.getInt(ENV_KEY_SESSION_NEAR_CACHE_IDLE, DEFAULT_SESSION_NEAR_CACHE_IDLE);
+        this.sessionSecrets = environment.getOrNull(ENV_KEY_SESSION_SECRETS);
+        this.requestCost = environment.getBoolean(ENV_KEY_HTTP_REQUEST_COST, false);
+        this.readIdleTimeout = environment.getInt(ENV_KEY_HTTP_READ_IDLE_TIMEOUT, 0);
+        this.writeIdleTimeout = environment.getInt(ENV_KEY_HTTP_WRITE_IDLE_TIMEOUT, 0);
+        this.maxConnections = environment.getInt(ENV_KEY_HTTP_MAX_CONNECTIONS, 0);
+        this.maxConnectionsPerIp = environment.getInt(ENV_KEY_HTTP_MAX_CONNECTIONS_PER_IP, 0);
+        this.maxInitialLineLength = environment.getInt(ENV_KEY_HTTP_MAX_INITIAL_LINE_LENGTH, HttpOptions.DEFAULT_MAX_INITIAL_LINE_LENGTH);
+        this.maxHeaderSize = environment.getInt(ENV_KEY_HTTP_MAX_HEADER_SIZE, HttpOptions.DEFAULT_MAX_HEADER_SIZE);
+        this.requestTimeout = environment.getInt(ENV_KEY_HTTP_REQUEST_TIMEOUT, 0);
+        this.uploadDir = environment.getOrNull(ENV_KEY_HTTP_UPLOAD_DIR);
+        this.maxFileSize = environment.getLong(ENV_KEY_HTTP_MAX_FILE_SIZE, -1);
+        this.maxMultipartSize = environment.getLong(ENV_KEY_HTTP_MAX_MULTIPART_SIZE, -1);
+
+        this.page404 = environment.getOrNull(ENV_KEY_PAGE_404);
+        this.page500 = environment.getOrNull(ENV_KEY_PAGE_500);
+        this.templatePath = environment.get(ENV_KEY_TEMPLATE_PATH, DEFAULT_TEMPLATE_PATH);
+        this.staticShowList = environment.getBoolean(ENV_KEY_STATIC_LIST, false);
+        this.staticCacheSeconds = environment.getInt(ENV_KEY_STATIC_CACHE_SECONDS, StaticOptions.DEFAULT_CACHE_SECONDS);
+
+        this.serverAddress = environment.get(ENV_KEY_SERVER_ADDRESS, DEFAULT_SERVER_ADDRESS);
+        this.serverPort = environment.getInt(ENV_KEY_SERVER_PORT, DEFAULT_SERVER_PORT);
+        this.unixSocket = environment.getOrNull(ENV_KEY_SERVER_UNIX_SOCKET);
+        this.performance = environment.getBoolean(ENV_KEY_PERFORMANCE, false);
+        this.ssl = environment.getBoolean(ENV_KEY_SSL, false);
+        this.sslCert = environment.getOrNull(ENV_KEY_SSL_CERT);
+        this.sslPrivateKey = environment.getOrNull(ENV_KEY_SSL_PRIVATE_KEY);
+        this.sslPrivateKeyPass = environment.getOrNull(ENV_KEY_SSL_PRIVATE_KEY_PASS);
+        this.tcpNoDelay = environment.getBoolean(ENV_KEY_NETTY_TCP_NODELAY, true);
+        this.soKeepAlive = environment.getBoolean(ENV_KEY_NETTY_SO_KEEPALIVE, true);
+        this.soBacklog = environment.getInt(ENV_KEY_NETTY_SO_BACKLOG, -1);
+        this.acceptThreadCount = environment.getInt(ENV_KEY_NETTY_ACCEPT_THREAD_COUNT, 1);
+        this.ioThreadCount = environment.getInt(ENV_KEY_NETTY_IO_THREAD_COUNT, 0);
+        this.transport = environment.get(ENV_KEY_NETTY_TRANSPORT, Transport.AUTO);
+        this.reusePort = environment.getBoolean(ENV_KEY_NETTY_REUSE_PORT, false);
+        this.tcpFastOpen = environment.getInt(ENV_KEY_NETTY_TCP_FASTOPEN, -1);
+        this.tcpDeferAccept = environment.getInt(ENV_KEY_NETTY_TCP_DEFER_ACCEPT, -1);
+    }
+
+    public static EnvironmentSnapshot of(Environment environment) {
+        return new EnvironmentSnapshot(environment);
+    }
+
+    /**
+     * Whether the snapshot still describes the environment
+     */
+    public boolean isCurrent(Environment environment) {
+        return this.environment == environment && this.modCount == environment.modCount();
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.hellokaton.blade.event;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Listener receiving the events of a coalescing registration as one batch
+ */
+@FunctionalInterface
+public interface BatchEventListener extends EventListener {
+
+    /**
+     * @param events events fired since the last delivery, oldest first
+     */
+    void trigger(List<Event> events);
+
+    @Override
+    default void trigger(Event e) {
+        trigger(Collections.singletonList(e));
+    }
+
+}
@@ -16,36 +16,288 @@
 package com.hellokaton.blade.event;
 
 import com.hellokaton.blade.ioc.bean.OrderComparator;
+import com.hellokaton.blade.kit.BladeKit;
+import com.hellokaton.blade.kit.NamedThreadFactory;
+import com.hellokaton.blade.options.EventOptions;
+import lombok.extern.slf4j.Slf4j;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Event manager
+ * <p>
+ * The listeners of an event type are kept sorted in an array that is replaced
+ * on registration, so firing an event neither sorts nor locks. Async listeners
+ * are delivered on the event threads, each one receives its events in order.
+ * Firing never runs an async listener on the caller: events beyond
+ * {@link EventOptions#getMaxPending()} are discarded and counted in
+ * {@link #dropped()}, or the oldest is dropped by a coalescing listener. Only a
+ * listener registered with {@link EventOptions#blockOnOverflow()} makes callers
+ * wait, and not those on a netty event loop.
  *
  * @author biezhi
  * @date 2017/9/18
  */
+@Slf4j
 public class EventManager {
 
-    private Map<EventType, List<EventListener>> listenerMap;
-    private OrderComparator<EventListener>      comparator = new OrderComparator<>();
+    private static final Listener[] EMPTY = new Listener[0];
+
+    /**
+     * Set while an event thread delivers events
+     */
+    private static final ThreadLocal<Boolean> DELIVERING = new ThreadLocal<>();
+
+    private final OrderComparator<EventListener> comparator = new OrderComparator<>();
+    private final int                            threads;
+    private final LongAdder                      dropped = new LongAdder();
+    private volatile Listener[][]                listeners;
+    private volatile ThreadPoolExecutor          executor;
 
     public EventManager() {
-        this.listenerMap = Stream.of(EventType.values()).collect(Collectors.toMap(v -> v, v -> new LinkedList<>()));
+        this(Math.min(4, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * @param threads threads delivering async events
+     */
+    public EventManager(int threads) {
+        this.threads = threads;
+        this.listeners = new Listener[EventType.values().length][];
+        Arrays.fill(listeners, EMPTY);
     }
 
     public <T> void addEventListener(EventType type, EventListener listener) {
-        listenerMap.get(type).add(listener);
+        this.addEventListener(type, listener, null);
+    }
+
+    public synchronized void addEventListener(EventType type, EventListener listener, EventOptions options) {
+        Listener registration = new Listener(listener, options);
+        if (registration.async) {
+            this.executor();
+        }
+        Listener[] current = listeners[type.ordinal()];
+        Listener[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = registration;
+        // stable, listeners with the same order keep the registration order
+        Arrays.sort(updated, (a, b) -> comparator.compare(a.listener, b.listener));
+
+        Listener[][] all = listeners.clone();
+        all[type.ordinal()] = updated;
+        this.listeners = all;
+    }
+
+    public boolean hasListeners(EventType type) {
+        return listeners[type.ordinal()].length > 0;
     }
 
     public <T> void fireEvent(EventType type, Event event) {
-        listenerMap.get(type).stream()
-                .sorted(comparator)
-                .forEach(listener -> listener.trigger(event));
+        for (Listener listener : listeners[type.ordinal()]) {
+            if (listener.async) {
+                listener.offer(event);
+            } else {
+                listener.listener.trigger(event);
+            }
+        }
+    }
+
+    /**
+     * Events async listeners did not receive because they were too far behind
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Deliver the pending async events and stop the event threads
+     */
+    public void shutdown() {
+        ThreadPoolExecutor executor = this.executor;
+        if (null != executor) {
+            executor.shutdown();
+        }
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        ThreadPoolExecutor executor = this.executor;
+        return null == executor || executor.awaitTermination(timeout, unit);
+    }
+
+    private ThreadPoolExecutor executor() {
+        if (null == executor) {
+            // a listener is queued at most once, the queue is bounded by the listeners
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), new NamedThreadFactory("event-"),
+                    (task, pool) -> ((Listener) task).rejected());
+            executor.allowCoreThreadTimeOut(true);
+            this.executor = executor;
+        }
+        return executor;
+    }
+
+    private final class Listener implements Runnable {
+
+        private final EventListener listener;
+        private final boolean       async;
+        private final boolean       coalesce;
+        private final boolean       blockOnOverflow;
+        private final int           maxPending;
+
+        private final ConcurrentLinkedQueue<Event> pending   = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger                size      = new AtomicInteger();
+        private final AtomicBoolean                scheduled = new AtomicBoolean();
+
+        /**
+         * Room left in the queue of a listener that blocks on overflow
+         */
+        private final Semaphore room;
+
+        Listener(EventListener listener, EventOptions options) {
+            this.listener = listener;
+            this.async = null != options && options.isAsync();
+            this.coalesce = null != options && options.isCoalesce();
+            this.blockOnOverflow = null != options && options.isBlockOnOverflow();
+            this.maxPending = null != options ? options.getMaxPending() : EventOptions.DEFAULT_MAX_PENDING;
+            this.room = async && !coalesce && blockOnOverflow ? new Semaphore(maxPending) : null;
+        }
+
+        void offer(Event event) {
+            if (null != room) {
+                if (!room.tryAcquire() && !this.awaitRoom()) {
+                    return;
+                }
+            } else if (size.incrementAndGet() > maxPending) {
+                size.decrementAndGet();
+                if (coalesce) {
+                    // keep the latest events
+                    if (null != pending.poll()) {
+                        size.decrementAndGet();
+                        dropped.increment();
+                    }
+                    size.incrementAndGet();
+                } else {
+                    this.discard();
+                    return;
+                }
+            }
+            pending.offer(event);
+            this.schedule();
+        }
+
+        /**
+         * Backpressure, the caller waits until the listener takes an event. An event
+         * thread can not wait, the listener it waits for may need that thread, and
+         * an event loop would stall its connections.
+         */
+        private boolean awaitRoom() {
+            if (null != DELIVERING.get() || BladeKit.isEventLoop()) {
+                this.discard();
+                return false;
+            }
+            try {
+                room.acquire();
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.discard();
+                return false;
+            }
+        }
+
+        private void discard() {
+            dropped.increment();
+            if (log.isDebugEnabled()) {
+                log.debug("Event listener {} is {} events behind, event discarded", listener, maxPending);
+            }
+        }
+
+        /**
+         * The executor was shut down: the events are delivered on the caller, unless
+         * it is an event loop
+         */
+        private void rejected() {
+            if (!BladeKit.isEventLoop()) {
+                this.run();
+                return;
+            }
+            while (null != pending.poll()) {
+                this.taken();
+                dropped.increment();
+            }
+            scheduled.set(false);
+        }
+
+        private void taken() {
+            if (null != room) {
+                room.release();
+            } else {
+                size.decrementAndGet();
+            }
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            DELIVERING.set(Boolean.TRUE);
+            try {
+                if (coalesce) {
+                    List<Event> events = new ArrayList<>();
+                    Event event;
+                    while ((event = pending.poll()) != null) {
+                        this.taken();
+                        events.add(event);
+                    }
+                    if (listener instanceof BatchEventListener) {
+                        this.trigger(events);
+                    } else if (!events.isEmpty()) {
+                        this.trigger(events.get(events.size() - 1));
+                    }
+                } else {
+                    Event event;
+                    while ((event = pending.poll()) != null) {
+                        this.taken();
+                        this.trigger(event);
+                    }
+                }
+            } finally {
+                DELIVERING.remove();
+                scheduled.set(false);
+                // an event offered after the last poll but before the flag was cleared
+                if (!pending.isEmpty()) {
+                    this.schedule();
+                }
+            }
+        }
+
+        private void trigger(Event event) {
+            try {
+                listener.trigger(event);
+            } catch (Exception e) {
+                log.error("Event listener {} error", listener, e);
+            }
+        }
+
+        private void trigger(List<Event> events) {
+            if (events.isEmpty()) {
+                return;
+            }
+            try {
+                ((BatchEventListener) listener).trigger(events);
+            } catch (Exception e) {
+                log.error("Event listener {} error", listener, e);
+            }
+        }
     }
 
-}
\ No newline at end of file
+}
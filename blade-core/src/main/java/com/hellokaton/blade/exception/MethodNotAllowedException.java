@@ -26,8 +26,11 @@ public class MethodNotAllowedException extends BladeException {
     public static final  int    STATUS = 405;
     private static final String NAME   = "Method Not Allowed";
 
+    /**
+     * Thrown for every unmatched request, so no stack trace is captured
+     */
     public MethodNotAllowedException(String message) {
-        super(STATUS, NAME, message);
+        super(STATUS, NAME, message, false);
     }
 
 }
\ No newline at end of file
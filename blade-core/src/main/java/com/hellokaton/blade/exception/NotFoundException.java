@@ -26,8 +26,11 @@ public class NotFoundException extends BladeException {
     public static final  int    STATUS = 404;
     private static final String NAME   = "Not Found";
 
+    /**
+     * Thrown for every unmatched request, so no stack trace is captured
+     */
     public NotFoundException(String message) {
-        super(STATUS, NAME, message);
+        super(STATUS, NAME, message, false);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,280 @@
+package com.hellokaton.blade.ioc;
+
+import com.hellokaton.blade.mvc.http.HttpMethod;
+import com.hellokaton.blade.mvc.route.Route;
+import com.hellokaton.blade.mvc.ui.ResponseType;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Component index generated at compile time by the blade-processor module.
+ * <p>
+ * Every line of {@link #LOCATION} is a tab separated record that starts with
+ * the record kind and the binary class name:
+ * <pre>
+ * class     name
+ * route     name  method  parameterTypes  httpMethod  responseType  path
+ * inject    name  field
+ * value     name  field   key
+ * schedule  name  method  parameterTypes
+ * </pre>
+ * An indexed class lists all of its routes, injected fields and tasks, so they
+ * are resolved directly instead of reflecting over every member.
+ * <p>
+ * The index replaces scanning a package only when every classpath location of
+ * the package is a jar carrying an index. An incremental compile rewrites the
+ * index of a class directory with just the classes it compiled, so directories
+ * are always scanned.
+ */
+@Slf4j
+public class ComponentIndex {
+
+    public static final String LOCATION = "META-INF/blade/components.idx";
+
+    static final String KIND_CLASS = "class";
+    static final String KIND_ROUTE = "route";
+    static final String KIND_INJECT = "inject";
+    static final String KIND_VALUE = "value";
+    static final String KIND_SCHEDULE = "schedule";
+
+    private static final Map<String, Class<?>> PRIMITIVE_TYPES = new HashMap<>(16);
+
+    static {
+        for (Class<?> type : new Class<?>[]{boolean.class, byte.class, char.class, short.class,
+                int.class, long.class, float.class, double.class}) {
+            PRIMITIVE_TYPES.put(type.getName(), type);
+        }
+    }
+
+    private final ClassLoader classLoader;
+    private final Map<String, List<String[]>> records = new LinkedHashMap<>();
+    private final Set<String> indexedJars = new HashSet<>();
+
+    public ComponentIndex(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * Load every index on the classpath
+     *
+     * @param classLoader class loader
+     * @return the merged index, null if there is no index
+     */
+    public static ComponentIndex load(ClassLoader classLoader) {
+        try {
+            Enumeration<URL> urls = classLoader.getResources(LOCATION);
+            if (!urls.hasMoreElements()) {
+                return null;
+            }
+            ComponentIndex index = new ComponentIndex(classLoader);
+            while (urls.hasMoreElements()) {
+                URL url = urls.nextElement();
+                if (isJar(url)) {
+                    index.indexedJars.add(jarRoot(url));
+                }
+                try (Reader reader = new InputStreamReader(url.openStream(), StandardCharsets.UTF_8)) {
+                    index.read(reader);
+                }
+            }
+            return index;
+        } catch (IOException e) {
+            log.warn("Load component index error, fallback to scanning", e);
+            return null;
+        }
+    }
+
+    public void read(Reader reader) throws IOException {
+        BufferedReader bufferedReader = new BufferedReader(reader);
+        String line;
+        while ((line = bufferedReader.readLine()) != null) {
+            if (line.isEmpty() || line.charAt(0) == '#') {
+                continue;
+            }
+            String[] record = line.split("\t", -1);
+            if (record.length < 2) {
+                continue;
+            }
+            records.computeIfAbsent(record[1], key -> new ArrayList<>()).add(record);
+        }
+    }
+
+    /**
+     * Whether the class was indexed, an indexed class is fully described by the index
+     */
+    public boolean contains(Class<?> type) {
+        return records.containsKey(type.getName());
+    }
+
+    /**
+     * Whether the index has components under the package
+     */
+    public boolean hasPackage(String packageName) {
+        String prefix = packageName + '.';
+        return records.keySet().stream().anyMatch(name -> name.startsWith(prefix));
+    }
+
+    /**
+     * Whether the index can replace scanning the package, every classpath location
+     * of the package must be a jar carrying an index
+     */
+    public boolean covers(String packageName) {
+        if (!this.hasPackage(packageName)) {
+            return false;
+        }
+        try {
+            Enumeration<URL> urls = classLoader.getResources(packageName.replace('.', '/'));
+            while (urls.hasMoreElements()) {
+                URL url = urls.nextElement();
+                if (!isJar(url) || !indexedJars.contains(jarRoot(url))) {
+                    log.debug("Package {} is not fully indexed at {}, scan it", packageName, url);
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            log.warn("Find package {} error, fallback to scanning", packageName, e);
+            return false;
+        }
+    }
+
+    /**
+     * Indexed component classes under the package, loaded without being initialized
+     */
+    public List<Class<?>> classes(String packageName) {
+        String prefix = packageName + '.';
+        List<Class<?>> classes = new ArrayList<>();
+        records.forEach((name, list) -> {
+            if (name.startsWith(prefix) && list.stream().anyMatch(record -> KIND_CLASS.equals(record[0]))) {
+                Class<?> type = this.loadClass(name);
+                if (null != type) {
+                    classes.add(type);
+                }
+            }
+        });
+        return classes;
+    }
+
+    public List<Route> routes(Class<?> type) {
+        List<Route> routes = new ArrayList<>();
+        for (String[] record : this.records(type, KIND_ROUTE, 7)) {
+            Method method = this.method(type, record[2], record[3], true);
+            if (null == method) {
+                continue;
+            }
+            routes.add(Route.builder()
+                    .targetType(type)
+                    .action(method)
+                    .httpMethod(HttpMethod.valueOf(record[4]))
+                    .responseType(ResponseType.valueOf(record[5]))
+                    .path(record[6])
+                    .build());
+        }
+        return routes;
+    }
+
+    public List<Field> injectFields(Class<?> type) {
+        List<Field> fields = new ArrayList<>();
+        for (String[] record : this.records(type, KIND_INJECT, 3)) {
+            Field field = this.field(type, record[2]);
+            if (null != field) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * @return field and its configuration key
+     */
+    public Map<Field, String> valueFields(Class<?> type) {
+        Map<Field, String> fields = new LinkedHashMap<>();
+        for (String[] record : this.records(type, KIND_VALUE, 4)) {
+            Field field = this.field(type, record[2]);
+            if (null != field) {
+                fields.put(field, record[3]);
+            }
+        }
+        return fields;
+    }
+
+    public List<Method> scheduleMethods(Class<?> type) {
+        List<Method> methods = new ArrayList<>();
+        for (String[] record : this.records(type, KIND_SCHEDULE, 4)) {
+            Method method = this.method(type, record[2], record[3], false);
+            if (null != method) {
+                methods.add(method);
+            }
+        }
+        return methods;
+    }
+
+    private List<String[]> records(Class<?> type, String kind, int length) {
+        List<String[]> list = records.getOrDefault(type.getName(), Collections.emptyList());
+        List<String[]> result = new ArrayList<>(list.size());
+        for (String[] record : list) {
+            if (kind.equals(record[0]) && record.length >= length) {
+                result.add(record);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isJar(URL url) {
+        return ("jar".equals(url.getProtocol()) || "wsjar".equals(url.getProtocol()))
+                && url.toString().contains("!/");
+    }
+
+    private static String jarRoot(URL url) {
+        String location = url.toString();
+        return location.substring(0, location.indexOf("!/") + 2);
+    }
+
+    private Class<?> loadClass(String name) {
+        Class<?> primitive = PRIMITIVE_TYPES.get(name);
+        if (null != primitive) {
+            return primitive;
+        }
+        try {
+            return Class.forName(name, false, classLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            log.warn("Indexed class {} can not be loaded: {}", name, e.toString());
+            return null;
+        }
+    }
+
+    private Method method(Class<?> type, String name, String parameterTypes, boolean declared) {
+        String[] names = parameterTypes.isEmpty() ? new String[0] : parameterTypes.split(",");
+        Class<?>[] types = new Class<?>[names.length];
+        for (int i = 0; i < names.length; i++) {
+            types[i] = this.loadClass(names[i]);
+            if (null == types[i]) {
+                return null;
+            }
+        }
+        try {
+            return declared ? type.getDeclaredMethod(name, types) : type.getMethod(name, types);
+        } catch (NoSuchMethodException e) {
+            log.warn("Indexed method {}.{} not found, the component index is stale", type.getName(), name);
+            return null;
+        }
+    }
+
+    private Field field(Class<?> type, String name) {
+        try {
+            return type.getDeclaredField(name);
+        } catch (NoSuchFieldException e) {
+            log.warn("Indexed field {}.{} not found, the component index is stale", type.getName(), name);
+            return null;
+        }
+    }
+
+}
@@ -2,13 +2,16 @@ package com.hellokaton.blade.ioc;
 
 import com.hellokaton.blade.ioc.bean.ClassInfo;
 import com.hellokaton.blade.ioc.bean.Scanner;
+import com.hellokaton.blade.ioc.reader.AsmClassReader;
 import com.hellokaton.blade.ioc.reader.ClassPathClassReader;
 import com.hellokaton.blade.ioc.reader.JarReaderImpl;
 import com.hellokaton.blade.kit.StringKit;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.lang.annotation.Annotation;
 import java.net.URL;
+import java.nio.file.Paths;
 import java.util.Enumeration;
 import java.util.Set;
 import java.util.stream.Stream;
@@ -25,6 +28,7 @@ public final class DynamicContext {
 
     private static final ClassReader classpathReader = new ClassPathClassReader();
     private static final ClassReader jarReader       = new JarReaderImpl();
+    private static final ClassReader asmReader       = new AsmClassReader();
     private static final String      SUFFIX_JAR      = ".jar";
 
     private static boolean isJarContext = false;
@@ -42,6 +46,22 @@ public final class DynamicContext {
         return classInfos.stream();
     }
 
+    /**
+     * Find the concrete classes annotated with one of the annotations, the class files
+     * are only parsed, never loaded unless they match.
+     *
+     * @param packageName    package name
+     * @param indexDirectory directory of the scan index, null to always scan
+     * @param annotations    class annotations
+     * @return matched classes
+     */
+    public static Stream<ClassInfo> findAnnotatedClasses(String packageName, String indexDirectory,
+                                                         Set<Class<? extends Annotation>> annotations) {
+        Scanner scanner = Scanner.builder().packageName(packageName).recursive(true).annotations(annotations).build();
+        ClassReader classReader = StringKit.isBlank(indexDirectory) ? asmReader : new AsmClassReader(Paths.get(indexDirectory));
+        return classReader.readClasses(scanner).stream();
+    }
+
     public static ClassReader getClassReader(String packageName) {
         if (isJarPackage(packageName)) {
             return jarReader;
@@ -4,6 +4,7 @@ import lombok.Builder;
 import lombok.Data;
 
 import java.lang.annotation.Annotation;
+import java.util.Set;
 
 /**
  * @author biezhi
@@ -13,8 +14,9 @@ import java.lang.annotation.Annotation;
 @Builder
 public class Scanner {
 
-    private String                      packageName;
-    private boolean                     recursive;
-    private Class<?>                    parent;
-    private Class<? extends Annotation> annotation;
+    private String                           packageName;
+    private boolean                          recursive;
+    private Class<?>                         parent;
+    private Class<? extends Annotation>      annotation;
+    private Set<Class<? extends Annotation>> annotations;
 }
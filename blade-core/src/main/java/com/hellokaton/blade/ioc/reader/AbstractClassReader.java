@@ -61,7 +61,7 @@ public abstract class AbstractClassReader implements ClassReader {
                 } else {
                     // If the java class file is removed later. Class only leave the class name
                     String   className = file.getName().substring(0, file.getName().length() - 6);
-                    Class<?> clazz     = Class.forName(packageName + '.' + className);
+                    Class<?> clazz     = Class.forName(packageName + '.' + className, false, this.getClass().getClassLoader());
                     if (null != parent && null != annotation) {
                         if (null != clazz.getSuperclass() && clazz.getSuperclass().equals(parent) &&
                                 null != clazz.getAnnotation(annotation)) {
@@ -0,0 +1,381 @@
+package com.hellokaton.blade.ioc.reader;
+
+import com.hellokaton.blade.ioc.ClassReader;
+import com.hellokaton.blade.ioc.bean.ClassInfo;
+import com.hellokaton.blade.ioc.bean.Scanner;
+import com.hellokaton.blade.kit.EncryptKit;
+import lombok.extern.slf4j.Slf4j;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Modifier;
+import java.net.JarURLConnection;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+
+/**
+ * Read the class headers with ASM instead of loading every class.
+ * <p>
+ * Directories and jars are traversed in parallel on the common ForkJoinPool,
+ * only concrete classes annotated with one of {@link Scanner#getAnnotations()}
+ * are loaded, and they are loaded without being initialized.
+ * <p>
+ * When an index directory is given, the matched class names of every jar are
+ * stored in an index file keyed by the jar size and modification time, a later
+ * boot with the same jar reads the index and skips parsing it. Class directories
+ * change with every build and are always scanned.
+ * <p>
+ * The bundled ASM reads class files up to Java 11. The header parsed here kept
+ * its format in later releases, newer class files are read as Java 11 ones, and
+ * only a class file ASM still rejects is loaded and checked by reflection.
+ */
+@Slf4j
+public class AsmClassReader implements ClassReader {
+
+    private static final String INDEX_HEADER = "# blade scan index v1";
+    private static final String CLASS_SUFFIX = ".class";
+    private static final int PARSING_OPTIONS = org.objectweb.asm.ClassReader.SKIP_CODE
+            | org.objectweb.asm.ClassReader.SKIP_DEBUG | org.objectweb.asm.ClassReader.SKIP_FRAMES;
+    private static final int MAX_CLASS_VERSION = Opcodes.V11;
+    private static final int NOT_NORMAL_CLASS = Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT
+            | Opcodes.ACC_ANNOTATION | Opcodes.ACC_ENUM;
+
+    private static final AtomicBoolean NEWER_CLASS_VERSION = new AtomicBoolean();
+
+    private final Path indexDirectory;
+
+    public AsmClassReader() {
+        this(null);
+    }
+
+    /**
+     * @param indexDirectory directory to keep the scan index in, null disables the index
+     */
+    public AsmClassReader(Path indexDirectory) {
+        this.indexDirectory = indexDirectory;
+    }
+
+    @Override
+    public Set<ClassInfo> readClasses(Scanner scanner) {
+        ClassLoader classLoader = classLoader();
+        Set<String> descriptors = new HashSet<>();
+        if (null != scanner.getAnnotations()) {
+            scanner.getAnnotations().forEach(annotation -> descriptors.add(Type.getDescriptor(annotation)));
+        }
+        if (null != scanner.getAnnotation()) {
+            descriptors.add(Type.getDescriptor(scanner.getAnnotation()));
+        }
+
+        String packageDirName = scanner.getPackageName().replace('.', '/');
+        List<URL> urls = new ArrayList<>();
+        try {
+            urls.addAll(Collections.list(classLoader.getResources(packageDirName)));
+        } catch (IOException e) {
+            log.error(e.getMessage(), e);
+            return new HashSet<>();
+        }
+
+        List<String> classNames = new ArrayList<>();
+        for (URL url : urls) {
+            Path indexFile = this.indexFile(scanner, descriptors, url);
+            List<String> urlClassNames = null != indexFile ? readIndex(indexFile) : null;
+            if (null == urlClassNames) {
+                urlClassNames = this.scan(url, packageDirName, scanner.isRecursive(), descriptors, classLoader);
+                if (null != indexFile) {
+                    Collections.sort(urlClassNames);
+                    writeIndex(indexFile, urlClassNames);
+                }
+            }
+            classNames.addAll(urlClassNames);
+        }
+        Collections.sort(classNames);
+
+        Set<ClassInfo> classes = new LinkedHashSet<>(classNames.size());
+        for (String className : classNames) {
+            try {
+                Class<?> clazz = Class.forName(className, false, classLoader);
+                if (null == scanner.getParent() || scanner.getParent().isAssignableFrom(clazz)) {
+                    classes.add(new ClassInfo(clazz));
+                }
+            } catch (ClassNotFoundException | LinkageError e) {
+                log.warn("Load class {} error: {}", className, e.toString());
+            }
+        }
+        return classes;
+    }
+
+    private List<String> scan(URL url, String packageDirName, boolean recursive,
+                              Set<String> descriptors, ClassLoader classLoader) {
+        String protocol = url.getProtocol();
+        try {
+            if ("file".equals(protocol)) {
+                File dir = new File(new URI(url.toString()));
+                if (!dir.isDirectory()) {
+                    return Collections.emptyList();
+                }
+                return ForkJoinPool.commonPool().invoke(
+                        new DirectoryTask(dir, packageDirName, recursive, descriptors, classLoader));
+            }
+            if ("jar".equals(protocol) || "wsjar".equals(protocol)) {
+                JarFile jarFile = ((JarURLConnection) url.openConnection()).getJarFile();
+                List<JarEntry> entries = Collections.list(jarFile.entries()).stream()
+                        .filter(entry -> !entry.isDirectory())
+                        .filter(entry -> isClassFile(entry.getName(), packageDirName, recursive))
+                        .collect(Collectors.toList());
+
+                return ForkJoinPool.commonPool().submit(() -> entries.parallelStream()
+                        .map(entry -> {
+                            try (InputStream in = jarFile.getInputStream(entry)) {
+                                return match(in, entry.getName(), descriptors, classLoader);
+                            } catch (IOException e) {
+                                log.warn("Read class {} error", entry.getName(), e);
+                                return null;
+                            }
+                        })
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList())).join();
+            }
+            log.warn("Unsupported classpath resource: {}", url);
+        } catch (IOException | URISyntaxException e) {
+            log.error("Scan classpath resource {} error", url, e);
+        }
+        return Collections.emptyList();
+    }
+
+    private static boolean isClassFile(String name, String packageDirName, boolean recursive) {
+        if (name.charAt(0) == '/') {
+            name = name.substring(1);
+        }
+        if (!name.endsWith(CLASS_SUFFIX) || !name.startsWith(packageDirName)) {
+            return false;
+        }
+        if (!packageDirName.isEmpty() && name.charAt(packageDirName.length()) != '/') {
+            return false;
+        }
+        return recursive || name.indexOf('/', packageDirName.length() + 1) == -1;
+    }
+
+    /**
+     * Parse the class header, returns the class name when it is a concrete class
+     * annotated with one of the descriptors
+     *
+     * @param resourceName path of the class file, e.g. com/example/Foo.class
+     */
+    private static String match(InputStream in, String resourceName, Set<String> descriptors,
+                                ClassLoader classLoader) throws IOException {
+        byte[] bytes = readBytes(in);
+        int majorVersion = bytes.length > 7 ? (bytes[6] & 0xFF) << 8 | (bytes[7] & 0xFF) : 0;
+        if (majorVersion > MAX_CLASS_VERSION) {
+            if (NEWER_CLASS_VERSION.compareAndSet(false, true)) {
+                log.debug("Read class files newer than version {} as version {}", MAX_CLASS_VERSION, MAX_CLASS_VERSION);
+            }
+            bytes[6] = (byte) (MAX_CLASS_VERSION >>> 8);
+            bytes[7] = (byte) MAX_CLASS_VERSION;
+        }
+        HeaderVisitor visitor = new HeaderVisitor(descriptors);
+        try {
+            new org.objectweb.asm.ClassReader(bytes).accept(visitor, PARSING_OPTIONS);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            // a constant pool entry ASM does not know
+            String className = resourceName.substring(resourceName.charAt(0) == '/' ? 1 : 0,
+                    resourceName.length() - CLASS_SUFFIX.length()).replace('/', '.');
+            log.debug("Can not parse class {} ({}), load it instead", className, e.toString());
+            return matchLoaded(className, descriptors, classLoader);
+        }
+        if (descriptors.isEmpty() || visitor.annotated) {
+            if ((visitor.access & NOT_NORMAL_CLASS) == 0 && !visitor.className.endsWith("package-info")) {
+                return visitor.className.replace('/', '.');
+            }
+        }
+        return null;
+    }
+
+    private static byte[] readBytes(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static String matchLoaded(String className, Set<String> descriptors, ClassLoader classLoader) {
+        try {
+            Class<?> clazz = Class.forName(className, false, classLoader);
+            if (clazz.isInterface() || clazz.isEnum() || Modifier.isAbstract(clazz.getModifiers())
+                    || className.endsWith("package-info")) {
+                return null;
+            }
+            if (descriptors.isEmpty()) {
+                return className;
+            }
+            for (Annotation annotation : clazz.getDeclaredAnnotations()) {
+                if (descriptors.contains(Type.getDescriptor(annotation.annotationType()))) {
+                    return className;
+                }
+            }
+        } catch (ClassNotFoundException | LinkageError e) {
+            log.warn("Load class {} error: {}", className, e.toString());
+        }
+        return null;
+    }
+
+    /**
+     * The index file of a jar, null for class directories or without an index directory
+     */
+    private Path indexFile(Scanner scanner, Set<String> descriptors, URL url) {
+        if (null == indexDirectory || (!"jar".equals(url.getProtocol()) && !"wsjar".equals(url.getProtocol()))) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder(scanner.getPackageName())
+                .append('|').append(scanner.isRecursive())
+                .append('|').append(new TreeSet<>(descriptors))
+                .append('|').append(url);
+        try {
+            URL jarUrl = ((JarURLConnection) url.openConnection()).getJarFileURL();
+            if (!"file".equals(jarUrl.getProtocol())) {
+                return null;
+            }
+            File jar = new File(jarUrl.toURI());
+            key.append(':').append(jar.length()).append(':').append(jar.lastModified());
+        } catch (IOException | URISyntaxException e) {
+            log.warn("Read jar {} error, skip the scan index", url, e);
+            return null;
+        }
+        return indexDirectory.resolve("blade-scan-" + EncryptKit.md5(key.toString()) + ".idx");
+    }
+
+    private static List<String> readIndex(Path indexFile) {
+        if (!Files.isRegularFile(indexFile)) {
+            return null;
+        }
+        try {
+            List<String> lines = Files.readAllLines(indexFile, StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !INDEX_HEADER.equals(lines.get(0))) {
+                return null;
+            }
+            log.debug("Read scan index {}", indexFile);
+            return new ArrayList<>(lines.subList(1, lines.size()));
+        } catch (IOException e) {
+            log.warn("Read scan index {} error", indexFile, e);
+            return null;
+        }
+    }
+
+    private static void writeIndex(Path indexFile, List<String> classNames) {
+        List<String> lines = new ArrayList<>(classNames.size() + 1);
+        lines.add(INDEX_HEADER);
+        lines.addAll(classNames);
+        try {
+            Files.createDirectories(indexFile.getParent());
+            Path tmp = Files.createTempFile(indexFile.getParent(), "blade-scan", ".tmp");
+            Files.write(tmp, lines, StandardCharsets.UTF_8);
+            Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Write scan index {} error", indexFile, e);
+        }
+    }
+
+    private static ClassLoader classLoader() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return null != classLoader ? classLoader : AsmClassReader.class.getClassLoader();
+    }
+
+    private static class DirectoryTask extends RecursiveTask<List<String>> {
+
+        private final File dir;
+        private final String packageDirName;
+        private final boolean recursive;
+        private final Set<String> descriptors;
+        private final ClassLoader classLoader;
+
+        DirectoryTask(File dir, String packageDirName, boolean recursive, Set<String> descriptors, ClassLoader classLoader) {
+            this.dir = dir;
+            this.packageDirName = packageDirName;
+            this.recursive = recursive;
+            this.descriptors = descriptors;
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        protected List<String> compute() {
+            File[] files = dir.listFiles();
+            if (null == files) {
+                return Collections.emptyList();
+            }
+            String prefix = packageDirName.isEmpty() ? "" : packageDirName + "/";
+            List<DirectoryTask> tasks = new ArrayList<>();
+            List<String> classNames = new ArrayList<>();
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    if (recursive) {
+                        DirectoryTask task = new DirectoryTask(file, prefix + file.getName(), true, descriptors, classLoader);
+                        task.fork();
+                        tasks.add(task);
+                    }
+                } else if (file.getName().endsWith(CLASS_SUFFIX)) {
+                    try (InputStream in = Files.newInputStream(file.toPath())) {
+                        String className = match(in, prefix + file.getName(), descriptors, classLoader);
+                        if (null != className) {
+                            classNames.add(className);
+                        }
+                    } catch (IOException e) {
+                        log.warn("Read class {} error", file, e);
+                    }
+                }
+            }
+            for (DirectoryTask task : tasks) {
+                classNames.addAll(task.join());
+            }
+            return classNames;
+        }
+    }
+
+    private static class HeaderVisitor extends ClassVisitor {
+
+        private final Set<String> descriptors;
+        private String className;
+        private int access;
+        private boolean annotated;
+
+        HeaderVisitor(Set<String> descriptors) {
+            super(Opcodes.ASM6);
+            this.descriptors = descriptors;
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            this.className = name;
+            this.access = access;
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            if (visible && descriptors.contains(descriptor)) {
+                annotated = true;
+            }
+            return null;
+        }
+    }
+
+}
@@ -91,7 +91,7 @@ public class JarReaderImpl extends AbstractClassReader implements ClassReader {
                     // Remove the following ".class" to get the real class name
                     String className = name.substring(packageName.length() + 1, name.length() - 6);
                     // Add to classes
-                    Class<?> clazz = Class.forName(packageName + '.' + className);
+                    Class<?> clazz = Class.forName(packageName + '.' + className, false, this.getClass().getClassLoader());
                     if (null != parent && null != annotation) {
                         if (null != clazz.getSuperclass() &&
                                 clazz.getSuperclass().equals(parent) && null != clazz.getAnnotation(annotation)) {
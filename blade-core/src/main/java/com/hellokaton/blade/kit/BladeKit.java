@@ -21,6 +21,8 @@ import com.hellokaton.blade.mvc.http.HttpMethod;
 import com.hellokaton.blade.mvc.route.Route;
 import com.hellokaton.blade.task.TaskStruct;
 import com.hellokaton.blade.task.annotation.Schedule;
+import io.netty.channel.EventLoop;
+import io.netty.util.internal.ThreadExecutorMap;
 import lombok.experimental.UtilityClass;
 import org.slf4j.Logger;
 
@@ -76,7 +78,11 @@ public class BladeKit {
     }
 
     public static List<TaskStruct> getTasks(Class<?> type, Environment environment) {
-        return Arrays.stream(type.getMethods())
+        return getTasks(type, Arrays.asList(type.getMethods()), environment);
+    }
+
+    public static List<TaskStruct> getTasks(Class<?> type, List<Method> methods, Environment environment) {
+        return methods.stream()
                 .filter(m -> null != m.getAnnotation(Schedule.class))
                 .map(m -> {
                     TaskStruct taskStruct = new TaskStruct();
@@ -123,6 +129,14 @@ public class BladeKit {
         }
     }
 
+    /**
+     * Whether the current thread is a netty event loop, which serves many
+     * connections and must neither block nor run slow work
+     */
+    public static boolean isEventLoop() {
+        return ThreadExecutorMap.currentExecutor() instanceof EventLoop;
+    }
+
     public static <T> void okThen(T value, Predicate<T> predicate, Consumer<T> consumer) {
         if (predicate.test(value)) {
             consumer.accept(value);
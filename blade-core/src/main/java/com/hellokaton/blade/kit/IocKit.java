@@ -30,6 +30,7 @@ import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -101,9 +102,24 @@ public class IocKit {
     }
 
     public static void initInjection(Ioc ioc, BeanDefine beanDefine) {
-        ClassDefine         classDefine    = ClassDefine.create(beanDefine.getType());
-        List<FieldInjector> fieldInjectors = getInjectFields(ioc, classDefine);
+        ClassDefine classDefine = ClassDefine.create(beanDefine.getType());
+        initInjection(beanDefine, getInjectFields(ioc, classDefine));
+    }
+
+    /**
+     * Inject the fields listed by the component index
+     *
+     * @param ioc          ioc container
+     * @param beanDefine   bean define
+     * @param injectFields @Inject annotated fields
+     */
+    public static void initInjection(Ioc ioc, BeanDefine beanDefine, List<Field> injectFields) {
+        List<FieldInjector> fieldInjectors = new ArrayList<>(injectFields.size());
+        injectFields.forEach(field -> fieldInjectors.add(new FieldInjector(ioc, field)));
+        initInjection(beanDefine, fieldInjectors);
+    }
 
+    private static void initInjection(BeanDefine beanDefine, List<FieldInjector> fieldInjectors) {
         Object bean = beanDefine.getBean();
 
         AtomicBoolean hasPrototypeField = new AtomicBoolean(false);
@@ -128,6 +144,18 @@ public class IocKit {
         valueFields.forEach(fieldInjector -> fieldInjector.injection(bean));
     }
 
+    /**
+     * Inject the configuration values listed by the component index
+     *
+     * @param environment environment
+     * @param beanDefine  bean define
+     * @param valueFields field and its configuration key
+     */
+    public static void injectionValue(Environment environment, BeanDefine beanDefine, Map<Field, String> valueFields) {
+        Object bean = beanDefine.getBean();
+        valueFields.forEach((field, key) -> new ValueInjector(environment, field, key).injection(bean));
+    }
+
     public static boolean isSingleton(Class<?> type) {
         return true;
     }
@@ -29,6 +29,9 @@ public interface BladeConst {
 
     int DEFAULT_SERVER_PORT = 9000;
     String DEFAULT_SERVER_ADDRESS = "0.0.0.0";
+    String DEFAULT_TEMPLATE_PATH = "templates";
+    int DEFAULT_SESSION_FLUSH_INTERVAL = 1000;
+    int DEFAULT_SESSION_NEAR_CACHE_IDLE = 600;
     String LOCAL_IP_ADDRESS = "127.0.0.1";
     String VERSION = "2.1.2.RELEASE";
     String WEB_JARS = "/webjars/";
@@ -46,6 +49,9 @@ public interface BladeConst {
     String ENV_KEY_APP_ENV = "app.env";
     String ENV_KEY_APP_THREAD_NAME = "app.thread-name";
     String ENV_KEY_APP_WATCH_ENV = "app.watch-env";
+    String ENV_KEY_APP_SCAN_INDEX = "app.scan-index";
+    String ENV_KEY_APP_COMPONENT_INDEX = "app.component-index";
+    String ENV_KEY_APP_I18N_PRELOAD = "app.i18n-preload";
     String ENV_KEY_BANNER_PATH = "app.banner-path";
     String ENV_KEY_TASK_THREAD_COUNT = "app.task.thread-count";
     String ENV_KEY_CONTEXT_PATH = "app.context-path";
@@ -53,10 +59,25 @@ public interface BladeConst {
     String ENV_KEY_FAVICON_DIR = "app.favicon-dir";
     String ENV_KEY_HTTP_MAX_CONTENT = "http.max-content-size";
     String ENV_KEY_GZIP_ENABLE = "http.gzip.enabled";
+    String ENV_KEY_GZIP_THRESHOLD = "http.gzip.threshold";
+    String ENV_KEY_GZIP_LEVEL = "http.gzip.level";
     String ENV_KEY_SESSION_ENABLED = "http.session.enabled";
     String ENV_KEY_SESSION_KEY = "http.session.key";
     String ENV_KEY_SESSION_TIMEOUT = "http.session.timeout";
+    String ENV_KEY_SESSION_FLUSH_INTERVAL = "http.session.flush-interval";
+    String ENV_KEY_SESSION_NEAR_CACHE_IDLE = "http.session.near-cache-idle";
+    String ENV_KEY_SESSION_SECRETS = "http.session.secrets";
     String ENV_KEY_HTTP_REQUEST_COST = "http.request.cost";
+    String ENV_KEY_HTTP_READ_IDLE_TIMEOUT = "http.read-idle-timeout";
+    String ENV_KEY_HTTP_WRITE_IDLE_TIMEOUT = "http.write-idle-timeout";
+    String ENV_KEY_HTTP_MAX_CONNECTIONS = "http.max-connections";
+    String ENV_KEY_HTTP_MAX_CONNECTIONS_PER_IP = "http.max-connections-per-ip";
+    String ENV_KEY_HTTP_MAX_INITIAL_LINE_LENGTH = "http.max-initial-line-length";
+    String ENV_KEY_HTTP_MAX_HEADER_SIZE = "http.max-header-size";
+    String ENV_KEY_HTTP_REQUEST_TIMEOUT = "http.request-timeout";
+    String ENV_KEY_HTTP_UPLOAD_DIR = "http.upload-dir";
+    String ENV_KEY_HTTP_MAX_FILE_SIZE = "http.max-file-size";
+    String ENV_KEY_HTTP_MAX_MULTIPART_SIZE = "http.max-multipart-size";
     String ENV_KEY_PAGE_404 = "mvc.view.404";
     String ENV_KEY_PAGE_500 = "mvc.view.500";
     String ENV_KEY_STATIC_LIST = "static.show-list";
@@ -64,6 +85,7 @@ public interface BladeConst {
     String ENV_KEY_TEMPLATE_PATH = "mvc.template.path";
     String ENV_KEY_SERVER_ADDRESS = "server.address";
     String ENV_KEY_SERVER_PORT = "server.port";
+    String ENV_KEY_SERVER_UNIX_SOCKET = "server.unix-socket";
     String ENV_KEY_PERFORMANCE = "server.performance";
     String ENV_KEY_SSL = "server.ssl.enable";
     String ENV_KEY_SSL_CERT = "server.ssl.cert-path";
@@ -72,8 +94,12 @@ public interface BladeConst {
     String ENV_KEY_NETTY_TCP_NODELAY = "server.netty.tcp-nodelay";
     String ENV_KEY_NETTY_SO_KEEPALIVE = "server.netty.so-keepalive";
     String ENV_KEY_NETTY_SO_BACKLOG = "server.netty.so-backlog";
+    String ENV_KEY_NETTY_REUSE_PORT = "server.netty.reuse-port";
+    String ENV_KEY_NETTY_TCP_FASTOPEN = "server.netty.tcp-fastopen";
+    String ENV_KEY_NETTY_TCP_DEFER_ACCEPT = "server.netty.tcp-defer-accept";
     String ENV_KEY_NETTY_ACCEPT_THREAD_COUNT = "server.netty.accept-thread-count";
     String ENV_KEY_NETTY_IO_THREAD_COUNT = "server.netty.io-thread-count";
+    String ENV_KEY_NETTY_TRANSPORT = "server.netty.transport";
 
     String ENV_KEY_BOOT_CONF = "boot_conf";
     String ENV_KEY_AUTO_REFRESH_DIR = "app.auto.refresh.dir";
@@ -85,6 +111,11 @@ public interface BladeConst {
 
     String REQUEST_TO_STATIC_ATTR = "_to_static";
 
+    /**
+     * Set when the cookie session has to be sent to the client again.
+     */
+    String REQUEST_SESSION_RENEW_ATTR = "_session_renew";
+
     String FAVICON_PATH = "/favicon.ico";
     String NEW_LINE = "\r\n";
 
@@ -10,7 +10,10 @@ public interface HttpConst {
 
     String HEADER_LOCATION = "Location";
 
+    String HEADER_ACCEPT = "Accept";
     String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+    String HEADER_ACCEPT_LANGUAGE = "Accept-Language";
+    String HEADER_CONTENT_ENCODING = "Content-Encoding";
 
     String HEADER_IF_MODIFIED_SINCE ="If-Modified-Since";
 
@@ -24,8 +24,6 @@ import java.util.Optional;
 
 import static com.hellokaton.blade.kit.BladeKit.log404;
 import static com.hellokaton.blade.kit.BladeKit.log405;
-import static com.hellokaton.blade.mvc.BladeConst.ENV_KEY_PAGE_404;
-import static com.hellokaton.blade.mvc.BladeConst.ENV_KEY_PAGE_500;
 import static com.hellokaton.blade.mvc.BladeConst.INTERNAL_SERVER_ERROR_HTML;
 
 /**
@@ -99,7 +97,7 @@ public class DefaultExceptionHandler implements ExceptionHandler {
             if (request.isJsonRequest()) {
                 response.json(RestResponse.fail(NotFoundException.STATUS, "Not Found [" + request.uri() + "]"));
             } else {
-                var page404 = Optional.ofNullable(blade.environment().get(ENV_KEY_PAGE_404, null));
+                var page404 = Optional.ofNullable(blade.snapshot().getPage404());
                 if (page404.isPresent()) {
                     modelAndView.setView(page404.get());
                     renderPage(response, modelAndView);
@@ -127,7 +125,7 @@ public class DefaultExceptionHandler implements ExceptionHandler {
 
     protected void render500(Request request, Response response) {
         var blade   = WebContext.blade();
-        var page500 = Optional.ofNullable(blade.environment().get(ENV_KEY_PAGE_500, null));
+        var page500 = Optional.ofNullable(blade.snapshot().getPage500());
 
         if (page500.isPresent()) {
             this.renderPage(response, new ModelAndView(page500.get()));
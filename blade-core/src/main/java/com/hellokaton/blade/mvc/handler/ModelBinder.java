@@ -0,0 +1,184 @@
+package com.hellokaton.blade.mvc.handler;
+
+import com.hellokaton.blade.kit.ReflectKit;
+import com.hellokaton.blade.kit.StringKit;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Binds request parameters to the fields of a model class.
+ * <p>
+ * The fields, their converters and setter handles are resolved once per class,
+ * the parameter keys once per prefix, so binding a request is one loop over the
+ * fields.
+ */
+final class ModelBinder<T> {
+
+    private static final Map<Class<?>, ModelBinder<?>> BINDERS = new ConcurrentHashMap<>();
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /**
+     * Field#set, final fields have no setter handle but are still bound
+     */
+    private static final MethodHandle FIELD_SET;
+
+    static {
+        try {
+            FIELD_SET = MethodHandles.lookup().findVirtual(Field.class, "set", SETTER_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Class<T> type;
+    private final MethodHandle constructor;
+    private final String[] names;
+    private final MethodHandle[] setters;
+    private final Function<String, Object>[] converters;
+    private final Map<String, String[]> prefixedNames = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    static <T> ModelBinder<T> of(Class<T> type) {
+        ModelBinder<?> binder = BINDERS.get(type);
+        if (null == binder) {
+            binder = BINDERS.computeIfAbsent(type, ModelBinder::new);
+        }
+        return (ModelBinder<T>) binder;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ModelBinder(Class<T> type) {
+        this.type = type;
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        this.constructor = constructor(lookup, type);
+
+        List<String> names = new ArrayList<>();
+        List<MethodHandle> setters = new ArrayList<>();
+        List<Function<String, Object>> converters = new ArrayList<>();
+        for (Field field : ReflectKit.loopFields(type)) {
+            if ("serialVersionUID".equals(field.getName()) || Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            field.setAccessible(true);
+            MethodHandle setter;
+            try {
+                setter = lookup.unreflectSetter(field);
+            } catch (IllegalAccessException e) {
+                setter = FIELD_SET.bindTo(field);
+            }
+            setters.add(setter.asType(SETTER_TYPE));
+            names.add(field.getName());
+            converters.add(converter(field.getType()));
+        }
+        this.names = names.toArray(new String[0]);
+        this.setters = setters.toArray(new MethodHandle[0]);
+        this.converters = converters.toArray(new Function[0]);
+    }
+
+    private static MethodHandle constructor(MethodHandles.Lookup lookup, Class<?> type) {
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return lookup.unreflectConstructor(constructor).asType(CONSTRUCTOR_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException | SecurityException e) {
+            // ReflectKit reports it when a request binds the model
+            return null;
+        }
+    }
+
+    private static Function<String, Object> converter(Class<?> type) {
+        if (type == String.class) {
+            return value -> value;
+        }
+        if (type == int.class || type == Integer.class) {
+            return Integer::valueOf;
+        }
+        if (type == long.class || type == Long.class) {
+            return Long::valueOf;
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return Boolean::valueOf;
+        }
+        if (type == double.class || type == Double.class) {
+            return Double::valueOf;
+        }
+        return value -> ReflectKit.convert(type, value);
+    }
+
+    /**
+     * Create the model and set the fields present in the parameters
+     *
+     * @param params request parameters
+     * @param prefix the parameters are named prefix[field] when it is not blank
+     * @return the model
+     */
+    T bind(Map<String, List<String>> params, String prefix) {
+        T model = this.newInstance();
+        String[] keys = StringKit.isBlank(prefix) ? names : this.prefixedNames(prefix);
+        for (int i = 0; i < keys.length; i++) {
+            List<String> values = params.get(keys[i]);
+            if (null == values || values.isEmpty()) {
+                continue;
+            }
+            String value = values.get(0);
+            if (StringKit.isBlank(value)) {
+                continue;
+            }
+            Object converted = converters[i].apply(value);
+            if (null != converted) {
+                this.set(i, model, converted);
+            }
+        }
+        return model;
+    }
+
+    private String[] prefixedNames(String prefix) {
+        String[] keys = prefixedNames.get(prefix);
+        if (null != keys) {
+            return keys;
+        }
+        keys = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            keys[i] = prefix + "[" + names[i] + "]";
+        }
+        prefixedNames.putIfAbsent(prefix, keys);
+        return keys;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T newInstance() {
+        if (null == constructor) {
+            return ReflectKit.newInstance(type);
+        }
+        try {
+            return (T) (Object) constructor.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void set(int index, Object model, Object value) {
+        try {
+            setters[index].invokeExact(model, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -282,32 +282,50 @@ public final class RouteActionArguments {
     }
 
     public static <T> T parseModel(Class<T> argType, Request request, String name) {
+        return ModelBinder.of(argType).bind(request.queryParams(), name);
+    }
 
-        T obj = ReflectKit.newInstance(argType);
-
-        List<Field> fields = ReflectKit.loopFields(argType);
-
-        for (Field field : fields) {
-            if ("serialVersionUID".equals(field.getName())) {
+    /**
+     * Resolve the model binders of the route method parameters, so the first
+     * request does not pay for it
+     *
+     * @param actionMethod route method, null for a lambda route
+     */
+    public static void prepare(Method actionMethod) {
+        if (null == actionMethod) {
+            return;
+        }
+        for (Parameter parameter : actionMethod.getParameters()) {
+            if (parameter.getAnnotation(PathParam.class) != null || parameter.getAnnotation(Header.class) != null ||
+                    parameter.getAnnotation(Body.class) != null || parameter.getAnnotation(Cookie.class) != null ||
+                    parameter.getAnnotation(Multipart.class) != null) {
                 continue;
             }
-            Object value = null;
-
-            Optional<String> fieldValue = request.query(field.getName());
-
-            if (StringKit.isNotBlank(name)) {
-                String fieldName = name + "[" + field.getName() + "]";
-                fieldValue = request.query(fieldName);
-            }
-
-            if (fieldValue.isPresent() && StringKit.isNotBlank(fieldValue.get())) {
-                value = ReflectKit.convert(field.getType(), fieldValue.get());
+            Type argType = parameter.getParameterizedType();
+            if (argType instanceof ParameterizedType && ((ParameterizedType) argType).getRawType() == Optional.class) {
+                argType = ((ParameterizedType) argType).getActualTypeArguments()[0];
             }
-            if (null != value) {
-                ReflectKit.setFieldValue(field, obj, value);
+            if (isModelType(argType)) {
+                try {
+                    ModelBinder.of((Class<?>) argType);
+                } catch (RuntimeException e) {
+                    // reported when a request binds the model
+                }
             }
         }
-        return obj;
+    }
+
+    private static boolean isModelType(Type argType) {
+        if (!(argType instanceof Class)) {
+            return false;
+        }
+        Class<?> cls = (Class<?>) argType;
+        return !ReflectKit.isBasicType(cls) && !ReflectKit.isArray(cls) && !cls.isArray()
+                && !cls.isEnum() && !cls.isInterface() && !Modifier.isAbstract(cls.getModifiers())
+                && !cls.getName().startsWith("java.")
+                && cls != RouteContext.class && cls != FileItem.class && cls != ModelAndView.class
+                && !Request.class.isAssignableFrom(cls) && !Response.class.isAssignableFrom(cls)
+                && !Session.class.isAssignableFrom(cls);
     }
 
     private static Object getParameterizedTypeValues(List<String> values, Type argType) {
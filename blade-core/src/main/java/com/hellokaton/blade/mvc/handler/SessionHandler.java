@@ -18,18 +18,20 @@ package com.hellokaton.blade.mvc.handler;
 import com.hellokaton.blade.Blade;
 import com.hellokaton.blade.Environment;
 import com.hellokaton.blade.exception.InternalErrorException;
+import com.hellokaton.blade.kit.IdGenerator;
 import com.hellokaton.blade.kit.ReflectKit;
 import com.hellokaton.blade.kit.StringKit;
-import com.hellokaton.blade.kit.UUID;
-import com.hellokaton.blade.mvc.http.Request;
-import com.hellokaton.blade.mvc.http.Session;
+import com.hellokaton.blade.mvc.http.*;
+import com.hellokaton.blade.mvc.http.session.CookieSessionCodec;
 import com.hellokaton.blade.mvc.http.session.SessionManager;
 import com.hellokaton.blade.options.HttpOptions;
+import lombok.extern.slf4j.Slf4j;
 
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.stream.Collectors;
 
-import static com.hellokaton.blade.mvc.BladeConst.ENV_KEY_SESSION_KEY;
-import static com.hellokaton.blade.mvc.BladeConst.ENV_KEY_SESSION_TIMEOUT;
+import static com.hellokaton.blade.mvc.BladeConst.*;
 
 /**
  * session handler
@@ -37,33 +39,37 @@ import static com.hellokaton.blade.mvc.BladeConst.ENV_KEY_SESSION_TIMEOUT;
  * @author biezhi
  * 2017/6/3
  */
+@Slf4j
 public class SessionHandler {
 
     private final Class<? extends Session> sessionType;
     private final SessionManager sessionManager;
+    private final IdGenerator idGenerator;
     private int timeout;
     private String sessionKey;
 
+    /**
+     * Not null when sessions are stored in the client cookie
+     */
+    private CookieSessionCodec cookieSessionCodec;
+
     public SessionHandler(Blade blade) {
         this.sessionType = blade.httpOptions().getSessionType();
         this.sessionManager = blade.sessionManager();
+        this.idGenerator = blade.httpOptions().getSessionIdGenerator();
 
         this.initOptions(blade.httpOptions(), blade.environment());
     }
 
     public Session createSession(Request request) {
+        if (null != cookieSessionCodec) {
+            return this.createCookieSession(request);
+        }
         Session session = getSession(request);
 
         long now = Instant.now().getEpochSecond();
         if (null == session) {
-            long expired = now + timeout;
-            session = ReflectKit.newInstance(sessionType);
-            if (null == session) {
-                throw new InternalErrorException("Unable to create session object :(");
-            }
-            session.id(UUID.UU32());
-            session.created(now);
-            session.expired(expired);
+            session = this.newSession(now);
             sessionManager.createSession(session);
             return session;
         } else {
@@ -78,6 +84,89 @@ public class SessionHandler {
         return session;
     }
 
+    /**
+     * Send the session cookie if the client doesn't hold the current one
+     *
+     * @param request  current request
+     * @param response current response
+     */
+    public void handleResponse(Request request, Response response) {
+        Session session = request.session();
+        if (null == session) {
+            return;
+        }
+        String cookieValue;
+        if (null != cookieSessionCodec) {
+            if (null == request.attribute(REQUEST_SESSION_RENEW_ATTR) && !isChanged(session)) {
+                return;
+            }
+            cookieValue = cookieSessionCodec.encode(session);
+            if (null == cookieValue) {
+                return;
+            }
+        } else {
+            if (null != sessionManager) {
+                sessionManager.commit(session);
+            }
+            // the browser already holds this session cookie, don't encode it again
+            if (session.id().equals(request.cookie(sessionKey))) {
+                return;
+            }
+            cookieValue = session.id();
+        }
+        Cookie cookie = new Cookie();
+        cookie.name(sessionKey);
+        cookie.value(cookieValue);
+        cookie.httpOnly(true);
+        cookie.secure(request.isSecure());
+        response.cookie(cookie);
+    }
+
+    public boolean isCookieSession() {
+        return null != cookieSessionCodec;
+    }
+
+    /**
+     * The cookie session lives in the client, it is re-issued when its attributes
+     * change, when half of its lifetime has passed or when the secret was rotated.
+     */
+    private Session createCookieSession(Request request) {
+        long now = Instant.now().getEpochSecond();
+        String cookieValue = request.cookie(this.sessionKey);
+
+        Session session = null;
+        if (StringKit.isNotEmpty(cookieValue)) {
+            session = cookieSessionCodec.decode(cookieValue, sessionType);
+        }
+        if (null == session || session.expired() < now) {
+            request.attribute(REQUEST_SESSION_RENEW_ATTR, true);
+            return this.newSession(now);
+        }
+        if (session.expired() - now < timeout / 2 || !cookieSessionCodec.isPrimaryKey(cookieValue)) {
+            session.expired(now + timeout);
+            request.attribute(REQUEST_SESSION_RENEW_ATTR, true);
+        }
+        return session;
+    }
+
+    private Session newSession(long now) {
+        Session session = ReflectKit.newInstance(sessionType);
+        if (null == session) {
+            throw new InternalErrorException("Unable to create session object :(");
+        }
+        session.id(idGenerator.nextId());
+        session.created(now);
+        session.expired(now + timeout);
+        return session;
+    }
+
+    private boolean isChanged(Session session) {
+        if (session instanceof HttpSession) {
+            return !((HttpSession) session).drainChangedAttributes().isEmpty();
+        }
+        return true;
+    }
+
     private Session getSession(Request request) {
         String cookieHeader = request.cookie(this.sessionKey);
         if (StringKit.isEmpty(cookieHeader)) {
@@ -102,6 +191,17 @@ public class SessionHandler {
             this.sessionKey = environment.get(ENV_KEY_SESSION_KEY, HttpOptions.DEFAULT_SESSION_KEY);
             httpOptions.setSessionKey(this.sessionKey);
         }
+
+        if (null == httpOptions.getSessionSecrets()) {
+            environment.get(ENV_KEY_SESSION_SECRETS)
+                    .filter(StringKit::isNotBlank)
+                    .map(secrets -> Arrays.stream(secrets.split(",")).map(String::trim).collect(Collectors.toList()))
+                    .ifPresent(httpOptions::setSessionSecrets);
+        }
+        if (httpOptions.isCookieSession()) {
+            this.cookieSessionCodec = new CookieSessionCodec(httpOptions.getSessionSecrets());
+            log.info("Session is stored in the encrypted cookie '{}'", this.sessionKey);
+        }
     }
 
 }
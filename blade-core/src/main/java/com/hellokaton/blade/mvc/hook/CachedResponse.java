@@ -0,0 +1,43 @@
+package com.hellokaton.blade.mvc.hook;
+
+import java.util.Map;
+
+/**
+ * An encoded response kept by the {@link ResponseCache}, immutable except for
+ * the time it was last read.
+ */
+final class CachedResponse {
+
+    /**
+     * Bytes counted for the object headers and the fields
+     */
+    private static final int OVERHEAD = 96;
+
+    final int status;
+    final Map<String, String> headers;
+    final byte[] body;
+    final String etag;
+    final long expiresAt;
+    final long weight;
+
+    volatile long lastAccess;
+
+    CachedResponse(String key, int status, Map<String, String> headers, byte[] body, String etag, long expiresAt) {
+        this.status = status;
+        this.headers = headers;
+        this.body = body;
+        this.etag = etag;
+        this.expiresAt = expiresAt;
+
+        long weight = OVERHEAD + key.length() * 2L + body.length;
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            weight += (header.getKey().length() + header.getValue().length()) * 2L;
+        }
+        this.weight = weight;
+    }
+
+    boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+
+}
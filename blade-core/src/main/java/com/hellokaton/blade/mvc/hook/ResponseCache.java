@@ -0,0 +1,319 @@
+package com.hellokaton.blade.mvc.hook;
+
+import com.hellokaton.blade.mvc.HttpConst;
+import com.hellokaton.blade.mvc.RouteContext;
+import com.hellokaton.blade.mvc.WebContext;
+import com.hellokaton.blade.mvc.http.*;
+import com.hellokaton.blade.options.ResponseCacheOptions;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.handler.codec.http.HttpResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.StringWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches the encoded responses of GET requests.
+ * <p>
+ * The response is taken after the route ran: status, headers and the encoded body
+ * (text, json, bytes or a rendered view) are kept in a size bounded store for the
+ * configured ttl, keyed by the url and the configured vary headers. A hit answers
+ * from the store without running the route, or with 304 when the If-None-Match
+ * header carries the ETag of the response. When the route sets no ETag one is
+ * computed from the body.
+ * <p>
+ * Only 200 responses without cookies, without a private, no-cache or no-store
+ * Cache-Control and without a Vary header beyond the vary headers are cached.
+ * Requests with an Authorization header or Cache-Control: no-store bypass the
+ * cache. Register it with {@link WebHookOptions} includes for the cacheable paths:
+ * <pre>
+ * blade.use(new ResponseCache(ResponseCacheOptions.create().ttlSeconds(30)),
+ *         new WebHookOptions().addIncludes("/api/articles/**"));
+ * </pre>
+ */
+@Slf4j
+public class ResponseCache implements WebHook {
+
+    private static final String KEY_ATTR = "_blade_response_cache_key";
+
+    private static final String HEADER_ETAG = "ETag";
+    private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+    private static final String HEADER_CACHE_CONTROL = "Cache-Control";
+    private static final String HEADER_VARY = "Vary";
+    private static final String HEADER_AUTHORIZATION = "Authorization";
+
+    private final ResponseCacheOptions options;
+    private final String[] varyHeaders;
+    private final ResponseCacheStore store;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ResponseCache() {
+        this(ResponseCacheOptions.create());
+    }
+
+    public ResponseCache(ResponseCacheOptions options) {
+        this.options = options;
+        this.varyHeaders = options.getVaryHeaders().toArray(new String[0]);
+        this.store = new ResponseCacheStore(options.getMaxBytes());
+    }
+
+    @Override
+    public boolean before(RouteContext context) {
+        Request request = context.request();
+        if (!isCacheable(request)) {
+            return true;
+        }
+        String key = this.key(request);
+        CachedResponse cached = store.get(key, System.currentTimeMillis());
+        if (null == cached) {
+            misses.increment();
+            request.attribute(KEY_ATTR, key);
+            return true;
+        }
+        hits.increment();
+        this.send(cached, request, context.response());
+        return false;
+    }
+
+    @Override
+    public boolean after(RouteContext context) {
+        Request request = context.request();
+        String key = request.attribute(KEY_ATTR);
+        if (null == key) {
+            return true;
+        }
+        this.store(key, request, context.response());
+        return true;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return store.size();
+    }
+
+    public void clear() {
+        store.clear();
+    }
+
+    private void store(String key, Request request, Response response) {
+        if (response.statusCode() != 200 || !response.cookiesRaw().isEmpty() || !isCacheable(response)) {
+            return;
+        }
+        byte[] body = encode(response);
+        if (null == body) {
+            return;
+        }
+        // the original body may have been consumed
+        response.body(ByteBody.of(body));
+        if (body.length > options.getMaxEntryBytes()) {
+            return;
+        }
+
+        String etag = header(response.headers(), HEADER_ETAG);
+        if (null == etag) {
+            etag = etag(body);
+            response.header(HEADER_ETAG, etag);
+        }
+        Map<String, String> headers = new LinkedHashMap<>(response.headers().size());
+        response.headers().forEach((name, value) -> {
+            if (null != value) {
+                headers.put(name, value);
+            }
+        });
+        long now = System.currentTimeMillis();
+        CachedResponse cached = new CachedResponse(key, 200, headers, body, etag,
+                now + TimeUnit.SECONDS.toMillis(options.getTtlSeconds()));
+        store.put(key, cached, now);
+
+        if (notModified(request, etag)) {
+            response.status(304);
+            response.body(EmptyBody.empty());
+        }
+    }
+
+    private void send(CachedResponse cached, Request request, Response response) {
+        response.status(cached.status);
+        cached.headers.forEach(response::header);
+        if (notModified(request, cached.etag)) {
+            response.status(304);
+            response.body(EmptyBody.empty());
+        } else {
+            response.body(ByteBody.of(cached.body));
+        }
+    }
+
+    private boolean isCacheable(Request request) {
+        if (!HttpMethod.GET.name().equals(request.method()) || !request.header(HEADER_AUTHORIZATION).isEmpty()) {
+            return false;
+        }
+        return !request.header(HEADER_CACHE_CONTROL).contains("no-store");
+    }
+
+    private boolean isCacheable(Response response) {
+        Map<String, String> headers = response.headers();
+        String cacheControl = header(headers, HEADER_CACHE_CONTROL);
+        if (null != cacheControl && (cacheControl.contains("no-store")
+                || cacheControl.contains("private") || cacheControl.contains("no-cache"))) {
+            return false;
+        }
+        String vary = header(headers, HEADER_VARY);
+        if (null == vary) {
+            return true;
+        }
+        for (String name : vary.split(",")) {
+            name = name.trim();
+            if (!name.isEmpty() && !this.isVaryHeader(name)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isVaryHeader(String name) {
+        for (String varyHeader : varyHeaders) {
+            if (varyHeader.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String key(Request request) {
+        if (varyHeaders.length == 0) {
+            return request.url();
+        }
+        StringBuilder key = new StringBuilder(request.url());
+        for (String name : varyHeaders) {
+            key.append('\n').append(name).append(':').append(request.header(name));
+        }
+        return key.toString();
+    }
+
+    private static boolean notModified(Request request, String etag) {
+        String ifNoneMatch = request.header(HEADER_IF_NONE_MATCH);
+        if (ifNoneMatch.isEmpty()) {
+            return false;
+        }
+        String opaque = opaque(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if ("*".equals(candidate) || opaque.equals(opaque(candidate))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * If-None-Match compares weakly, W/"a" matches "a"
+     */
+    private static String opaque(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static String header(Map<String, String> headers, String name) {
+        String value = headers.get(name);
+        if (null != value) {
+            return value;
+        }
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 64 bit FNV-1a hash of the body
+     */
+    private static String etag(byte[] body) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : body) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return "\"" + Long.toHexString(hash) + "-" + Integer.toHexString(body.length) + "\"";
+    }
+
+    /**
+     * Encode the response body, null when it is streamed (files, static files,
+     * raw netty responses) and can not be cached
+     */
+    private static byte[] encode(Response response) {
+        EncodeWriter writer = new EncodeWriter(response);
+        response.body().write(writer);
+        return writer.bytes;
+    }
+
+    private static final class EncodeWriter implements BodyWriter {
+
+        private final Response response;
+        private byte[] bytes;
+
+        EncodeWriter(Response response) {
+            this.response = response;
+        }
+
+        @Override
+        public ByteBufAllocator allocator() {
+            return UnpooledByteBufAllocator.DEFAULT;
+        }
+
+        @Override
+        public HttpResponse onByteBuf(ByteBuf byteBuf) {
+            if (null != byteBuf) {
+                bytes = ByteBufUtil.getBytes(byteBuf);
+                byteBuf.release();
+            }
+            return null;
+        }
+
+        @Override
+        public HttpResponse onView(ViewBody body) {
+            try {
+                StringWriter writer = new StringWriter();
+                WebContext.blade().templateEngine().render(body.modelAndView(), writer);
+                response.contentType(HttpConst.CONTENT_TYPE_HTML);
+                bytes = writer.toString().getBytes(StandardCharsets.UTF_8);
+            } catch (Exception e) {
+                // rendered again, and reported, when the response is written
+                log.debug("Render view error", e);
+            }
+            return null;
+        }
+
+        @Override
+        public HttpResponse onStatic(StaticFileBody body) {
+            return null;
+        }
+
+        @Override
+        public HttpResponse onRawBody(RawBody body) {
+            return null;
+        }
+
+        @Override
+        public HttpResponse onByteBuf(String fileName, FileChannel channel) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.hellokaton.blade.mvc.hook;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded in-memory store of encoded responses.
+ * <p>
+ * Entries are weighted by their size in bytes. Expired entries are dropped when
+ * read, a write that takes the total weight beyond the limit drops every expired
+ * entry and then the least recently read ones until a tenth of the limit is free,
+ * so eviction runs once per batch of writes instead of on every write.
+ */
+final class ResponseCacheStore {
+
+    private final long maxBytes;
+    private final Map<String, CachedResponse> entries = new ConcurrentHashMap<>();
+    private final AtomicLong weight = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    ResponseCacheStore(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    CachedResponse get(String key, long now) {
+        CachedResponse response = entries.get(key);
+        if (null == response) {
+            return null;
+        }
+        if (response.isExpired(now)) {
+            this.remove(key, response);
+            return null;
+        }
+        response.lastAccess = now;
+        return response;
+    }
+
+    void put(String key, CachedResponse response, long now) {
+        if (response.weight > maxBytes) {
+            return;
+        }
+        response.lastAccess = now;
+        CachedResponse previous = entries.put(key, response);
+        long total = weight.addAndGet(response.weight - (null != previous ? previous.weight : 0));
+        if (total > maxBytes) {
+            this.evict(now);
+        }
+    }
+
+    void remove(String key, CachedResponse response) {
+        if (entries.remove(key, response)) {
+            weight.addAndGet(-response.weight);
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    long weight() {
+        return weight.get();
+    }
+
+    void clear() {
+        entries.forEach(this::remove);
+    }
+
+    private void evict(long now) {
+        // one thread evicts, the others keep serving
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            List<Candidate> live = new ArrayList<>(entries.size());
+            for (Map.Entry<String, CachedResponse> entry : entries.entrySet()) {
+                if (entry.getValue().isExpired(now)) {
+                    this.remove(entry.getKey(), entry.getValue());
+                } else {
+                    live.add(new Candidate(entry.getKey(), entry.getValue()));
+                }
+            }
+            long target = maxBytes - maxBytes / 10;
+            if (weight.get() <= target) {
+                return;
+            }
+            live.sort(Comparator.comparingLong(candidate -> candidate.lastAccess));
+            for (Candidate candidate : live) {
+                if (weight.get() <= target) {
+                    break;
+                }
+                this.remove(candidate.key, candidate.response);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * An entry with its last read time copied, concurrent reads keep updating
+     * the entry while it is sorted
+     */
+    private static final class Candidate {
+
+        private final String key;
+        private final CachedResponse response;
+        private final long lastAccess;
+
+        Candidate(String key, CachedResponse response) {
+            this.key = key;
+            this.response = response;
+            this.lastAccess = response.lastAccess;
+        }
+    }
+
+}
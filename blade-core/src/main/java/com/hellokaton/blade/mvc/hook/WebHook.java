@@ -31,4 +31,15 @@ public interface WebHook {
         return true;
     }
 
+    /**
+     * Called in place of {@link #after(RouteContext)} on a middleware whose before
+     * returned true, when the request did not complete: a later middleware or hook
+     * interrupted it, or the route threw
+     *
+     * @param context the current route context
+     * @param cause   the exception of the route, null when interrupted
+     */
+    default void abort(RouteContext context, Exception cause) {
+    }
+
 }
@@ -1,6 +1,7 @@
 package com.hellokaton.blade.mvc.http;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.handler.codec.http.HttpResponse;
 
 import java.nio.channels.FileChannel;
@@ -17,4 +18,14 @@ public interface BodyWriter {
 
     HttpResponse onByteBuf(String fileName, FileChannel channel);
 
-}
\ No newline at end of file
+    /**
+     * The allocator used by bodies to create their content buffer,
+     * the server returns the channel's (pooled) allocator.
+     *
+     * @return ByteBufAllocator
+     */
+    default ByteBufAllocator allocator() {
+        return ByteBufAllocator.DEFAULT;
+    }
+
+}
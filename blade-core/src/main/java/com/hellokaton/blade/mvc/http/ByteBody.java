@@ -1,7 +1,6 @@
 package com.hellokaton.blade.mvc.http;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.HttpResponse;
 
 import java.io.File;
@@ -17,6 +16,7 @@ import java.nio.file.Paths;
 public class ByteBody implements Body {
 
     private ByteBuf      byteBuf = null;
+    private byte[]       bytes;
     private File         file;
     private OutputStream outputStream;
 
@@ -27,7 +27,7 @@ public class ByteBody implements Body {
     public ByteBody(File file) {
         try {
             this.file = file;
-            this.byteBuf = Unpooled.copiedBuffer(Files.readAllBytes(Paths.get(file.toURI())));
+            this.bytes = Files.readAllBytes(Paths.get(file.toURI()));
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -47,7 +47,7 @@ public class ByteBody implements Body {
 
     public static ByteBody of(byte[] bytes) {
         ByteBody byteBody = new ByteBody();
-        byteBody.byteBuf = Unpooled.copiedBuffer(bytes);
+        byteBody.bytes = bytes;
         return byteBody;
     }
 
@@ -62,6 +62,9 @@ public class ByteBody implements Body {
         if (null != outputStream) {
             return writer.onByteBuf((ByteBuf) null);
         }
+        if (null != bytes) {
+            return writer.onByteBuf(writer.allocator().buffer(bytes.length).writeBytes(bytes));
+        }
         return writer.onByteBuf(byteBuf);
     }
 
@@ -15,7 +15,7 @@ public class EmptyBody implements Body {
 
     @Override
     public HttpResponse write(BodyWriter writer) {
-        return writer.onByteBuf( Unpooled.buffer(0));
+        return writer.onByteBuf(Unpooled.EMPTY_BUFFER);
     }
 
-}
\ No newline at end of file
+}
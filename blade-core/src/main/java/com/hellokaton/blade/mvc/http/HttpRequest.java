@@ -21,9 +21,9 @@ import com.hellokaton.blade.kit.PathKit;
 import com.hellokaton.blade.kit.StringKit;
 import com.hellokaton.blade.mvc.HttpConst;
 import com.hellokaton.blade.mvc.WebContext;
-import com.hellokaton.blade.mvc.handler.SessionHandler;
 import com.hellokaton.blade.mvc.http.session.SessionManager;
 import com.hellokaton.blade.mvc.multipart.FileItem;
+import com.hellokaton.blade.server.decode.MultipartRequest;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.FullHttpRequest;
@@ -54,17 +54,8 @@ import static com.hellokaton.blade.mvc.HttpConst.HEADER_HOST;
 @NoArgsConstructor
 public class HttpRequest implements Request {
 
-    static final HttpDataFactory HTTP_DATA_FACTORY =
-            new DefaultHttpDataFactory(DefaultHttpDataFactory.MINSIZE); // Disk if size exceed
+    static final HttpDataFactory HTTP_DATA_FACTORY = newHttpDataFactory(null, -1); // Disk if size exceed
 
-    static SessionHandler SESSION_HANDLER = null;
-
-    static {
-        DiskFileUpload.deleteOnExitTemporaryFile = true; // should delete file
-        DiskFileUpload.baseDirectory = null;             // system temp directory
-        DiskAttribute.deleteOnExitTemporaryFile = true;  // should delete file on
-        DiskAttribute.baseDirectory = null;              // system temp directory
-    }
 
     private ByteBuf body = Unpooled.EMPTY_BUFFER;
     private String remoteAddress;
@@ -85,6 +76,11 @@ public class HttpRequest implements Request {
     private Map<String, Cookie> cookies = Collections.emptyMap();
     private Map<String, FileItem> fileItems = Collections.emptyMap();
 
+    /**
+     * Holds the multipart data until the request ends, see {@link #cleanup()}
+     */
+    private HttpPostMultipartRequestDecoder multipartDecoder;
+
     public HttpRequest(Request request) {
         this.pathParams = request.pathParams();
         this.cookies = request.cookies();
@@ -192,7 +188,43 @@ public class HttpRequest implements Request {
         if (StringKit.isEmpty(acceptEncoding)) {
             return false;
         }
-        return acceptEncoding.contains("gzip");
+        return acceptsEncoding(acceptEncoding, "gzip");
+    }
+
+    /**
+     * Whether an Accept-Encoding header accepts the encoding, either by name or
+     * by *, and without q=0
+     */
+    static boolean acceptsEncoding(String acceptEncoding, String encoding) {
+        boolean accepted = false;
+        for (String token : acceptEncoding.split(",")) {
+            int semicolon = token.indexOf(';');
+            String name = (semicolon < 0 ? token : token.substring(0, semicolon)).trim();
+            boolean exact = name.equalsIgnoreCase(encoding);
+            if (!exact && !"*".equals(name)) {
+                continue;
+            }
+            boolean rejected = semicolon >= 0 && isZeroQuality(token.substring(semicolon + 1));
+            if (exact) {
+                return !rejected;
+            }
+            accepted = !rejected;
+        }
+        return accepted;
+    }
+
+    private static boolean isZeroQuality(String params) {
+        for (String param : params.split(";")) {
+            int eq = param.indexOf('=');
+            if (eq > 0 && "q".equalsIgnoreCase(param.substring(0, eq).trim())) {
+                try {
+                    return Double.parseDouble(param.substring(eq + 1).trim()) <= 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
     }
 
     @Override
@@ -286,12 +318,9 @@ public class HttpRequest implements Request {
         this.parseCookie();
 
         if (WebContext.blade().httpOptions().isEnableSession()) {
-            if (null == SESSION_HANDLER) {
-                SESSION_HANDLER = new SessionHandler(WebContext.blade());
-            }
             SessionManager sessionManager = WebContext.blade().sessionManager();
             if (null != sessionManager) {
-                this.session = SESSION_HANDLER.createSession(this);
+                this.session = WebContext.blade().sessionHandler().createSession(this);
             }
         }
 
@@ -308,18 +337,17 @@ public class HttpRequest implements Request {
         }
 
         try {
+            // streamed to the upload directory while the body arrived
+            if (fullHttpRequest instanceof MultipartRequest) {
+                this.decodeMultipart(((MultipartRequest) fullHttpRequest).decoder());
+                return;
+            }
+
             this.body = fullHttpRequest.content().copy();
 
             // if request is multipart/form-data
             if (HttpConst.CONTENT_TYPE_MULTIPART.equals(this.contentType)) {
-                this.isMultipart = true;
-                this.formParams = new HashMap<>(8);
-                this.fileItems = new HashMap<>(8);
-                HttpPostMultipartRequestDecoder decoder = new HttpPostMultipartRequestDecoder(HTTP_DATA_FACTORY, fullHttpRequest);
-                while (decoder.hasNext()) {
-                    InterfaceHttpData httpData = decoder.next();
-                    this.writeHttpData(httpData);
-                }
+                this.decodeMultipart(new HttpPostMultipartRequestDecoder(HTTP_DATA_FACTORY, fullHttpRequest));
             } else {
                 String paramString = fullHttpRequest.content().toString(StandardCharsets.UTF_8);
                 QueryStringDecoder queryDecoder = new QueryStringDecoder(paramString, false);
@@ -333,6 +361,44 @@ public class HttpRequest implements Request {
         }
     }
 
+    /**
+     * Create the data factory of multipart requests, parts larger than 16KB are
+     * written to disk
+     *
+     * @param uploadDir   directory of the temp files, null is the system temp directory
+     * @param maxFileSize largest part in bytes, -1 is unlimited
+     * @return data factory
+     */
+    public static HttpDataFactory newHttpDataFactory(String uploadDir, long maxFileSize) {
+        DefaultHttpDataFactory factory = new DefaultHttpDataFactory(DefaultHttpDataFactory.MINSIZE);
+        factory.setBaseDir(uploadDir);
+        factory.setMaxLimit(maxFileSize);
+        // the files are deleted by cleanup when the request ends
+        factory.setDeleteOnExit(false);
+        return factory;
+    }
+
+    /**
+     * Release the multipart data of the request, the temp files not moved by
+     * {@link FileItem#moveTo(java.nio.file.Path)} are deleted
+     */
+    public void cleanup() {
+        if (null != multipartDecoder) {
+            multipartDecoder.destroy();
+            multipartDecoder = null;
+        }
+    }
+
+    private void decodeMultipart(HttpPostMultipartRequestDecoder decoder) {
+        this.isMultipart = true;
+        this.formParams = new HashMap<>(8);
+        this.fileItems = new HashMap<>(8);
+        this.multipartDecoder = decoder;
+        for (InterfaceHttpData httpData : decoder.getBodyHttpDatas()) {
+            this.writeHttpData(httpData);
+        }
+    }
+
     private void putHeaderValues(Map.Entry<String, String> header) {
         String headerName = header.getKey();
         String headerValue = header.getValue();
@@ -372,7 +438,6 @@ public class HttpRequest implements Request {
     }
 
     private void writeHttpData(InterfaceHttpData data) {
-        boolean canRelease = false;
         try {
             if (null == data) {
                 return;
@@ -380,16 +445,11 @@ public class HttpRequest implements Request {
             InterfaceHttpData.HttpDataType dataType = data.getHttpDataType();
             if (dataType == InterfaceHttpData.HttpDataType.Attribute) {
                 parseAttribute((Attribute) data);
-                canRelease = true;
             } else if (dataType == InterfaceHttpData.HttpDataType.FileUpload) {
                 parseFileUpload((FileUpload) data);
             }
         } catch (IOException e) {
             log.error("Parse request parameter error", e);
-        } finally {
-            if (canRelease) {
-                data.release();
-            }
         }
     }
 
@@ -420,23 +480,8 @@ public class HttpRequest implements Request {
         if (!fileUpload.isCompleted()) {
             return;
         }
-        FileItem fileItem = new FileItem();
-        fileItem.setName(fileUpload.getName());
-        fileItem.setFileName(fileUpload.getFilename());
-        fileItem.setContentType(fileUpload.getContentType());
-        fileItem.setLength(fileUpload.length());
-
-        // Upload the file is moved to the specified temporary file,
-        // because FileUpload will be release after completion of the analysis.
-        // tmpFile will be deleted automatically if they are used.
-        if (fileUpload.isInMemory()) {
-            fileItem.setInMemory(true);
-            fileItem.setData(fileUpload.get());
-        } else {
-            fileItem.setFile(fileUpload.getFile());
-            fileItem.setPath(fileUpload.getFile().getPath());
-            fileItem.setInMemory(false);
-        }
+        // the upload keeps its temp file until the request ends
+        FileItem fileItem = FileItem.of(fileUpload);
         fileItems.put(fileItem.getName(), fileItem);
     }
 
@@ -2,8 +2,8 @@ package com.hellokaton.blade.mvc.http;
 
 import lombok.Setter;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * HttpSession
@@ -13,7 +13,12 @@ import java.util.Map;
  */
 public class HttpSession implements Session {
 
-    private Map<String, Object> attributes = new HashMap<>();
+    private final SessionAttributes attributes = new SessionAttributes();
+
+    /**
+     * Attribute version last written to the SessionStore
+     */
+    private final AtomicLong persistedVersion = new AtomicLong();
 
     @Setter
     private String id = null;
@@ -59,7 +64,7 @@ public class HttpSession implements Session {
     }
 
     @Override
-    public Map<String, Object> attributes() {
+    public SessionAttributes attributes() {
         return attributes;
     }
 
@@ -68,6 +73,25 @@ public class HttpSession implements Session {
         this.attributes.remove(name);
     }
 
+    /**
+     * Take the attribute names set or removed since the last call.
+     *
+     * @return changed attribute names
+     */
+    public Set<String> drainChangedAttributes() {
+        long current = attributes.version();
+        long since = persistedVersion.getAndAccumulate(current, Math::max);
+        return attributes.changedSince(since);
+    }
+
+    /**
+     * Treat the current attributes as written to the SessionStore, used after
+     * loading a stored session.
+     */
+    public void markPersisted() {
+        persistedVersion.accumulateAndGet(attributes.version(), Math::max);
+    }
+
     @Override
     public long created() {
         return this.created;
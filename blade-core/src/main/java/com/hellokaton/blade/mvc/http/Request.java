@@ -1,5 +1,6 @@
 package com.hellokaton.blade.mvc.http;
 
+import com.hellokaton.blade.kit.I18nKit;
 import com.hellokaton.blade.kit.JsonKit;
 import com.hellokaton.blade.kit.StringKit;
 import com.hellokaton.blade.kit.WebKit;
@@ -389,6 +390,15 @@ public interface Request {
         return "XMLHttpRequest".equals(header("X-Requested-With")) || "XMLHttpRequest".equals(header("x-requested-with"));
     }
 
+    /**
+     * Get the i18n bundle matching the Accept-Language header
+     *
+     * @return the best matching bundle, null if no bundle matches
+     */
+    default I18nKit.ResourceHolder i18n() {
+        return I18nKit.getInstanceByAcceptLanguage(header(HttpConst.HEADER_ACCEPT_LANGUAGE));
+    }
+
     /**
      * Determine if this request is a json request
      * <p>
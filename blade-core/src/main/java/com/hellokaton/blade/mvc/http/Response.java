@@ -94,6 +94,16 @@ public interface Response {
      */
     Response header(String name, String value);
 
+    /**
+     * Send the response uncompressed when gzip is enabled, e.g. for bodies that
+     * are compressed already or must not be altered
+     *
+     * @return Return Response
+     */
+    default Response noCompression() {
+        return header(HttpConst.HEADER_CONTENT_ENCODING, "identity");
+    }
+
     /**
      * Get current response cookies
      *
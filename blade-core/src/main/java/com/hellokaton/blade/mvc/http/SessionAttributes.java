@@ -0,0 +1,320 @@
+package com.hellokaton.blade.mvc.http;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * The attributes of a session, safe to read and write from concurrent requests.
+ * <p>
+ * Up to {@link #SMALL_SIZE} attributes are kept in two arrays replaced as a whole
+ * on every write, reads scan them without a lock. A session holding more moves
+ * to a ConcurrentHashMap and stays there. Writes are serialized on the instance,
+ * reads never lock.
+ * <p>
+ * Every change takes the next value of a version counter, the attribute keeps the
+ * version of its last change and removed names are remembered with the version
+ * of their removal. The counter is published after the change, so a reader that
+ * saw a version sees every change up to it. {@link #changedSince(long)} tells a
+ * SessionStore which names to write without copying or diffing the attributes.
+ */
+public final class SessionAttributes extends AbstractMap<String, Object> {
+
+    static final int SMALL_SIZE = 8;
+
+    private volatile long version;
+
+    private volatile Small small = Small.EMPTY;
+
+    /**
+     * Not null once the attributes outgrow the arrays
+     */
+    private volatile ConcurrentHashMap<String, Attribute> large;
+
+    /**
+     * Removed names and the version of their removal, created by the first removal
+     */
+    private volatile ConcurrentHashMap<String, Long> removed;
+
+    /**
+     * The version of the last change, 0 if nothing was ever set
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * The version of the last change of an attribute
+     *
+     * @param name attribute name
+     * @return the version, 0 if the attribute is not present
+     */
+    public long version(String name) {
+        Attribute attribute = this.attribute(name);
+        return null != attribute ? attribute.version : 0;
+    }
+
+    /**
+     * The names set or removed after a version
+     *
+     * @param since a value of {@link #version()}
+     * @return changed attribute names
+     */
+    public Set<String> changedSince(long since) {
+        Set<String> changed = new HashSet<>();
+        if (since >= version) {
+            return changed;
+        }
+        ConcurrentHashMap<String, Attribute> large = this.large;
+        if (null != large) {
+            large.forEach((name, attribute) -> {
+                if (attribute.version > since) {
+                    changed.add(name);
+                }
+            });
+        } else {
+            Small small = this.small;
+            for (int i = 0; i < small.names.length; i++) {
+                if (small.attributes[i].version > since) {
+                    changed.add(small.names[i]);
+                }
+            }
+        }
+        ConcurrentHashMap<String, Long> removed = this.removed;
+        if (null != removed) {
+            removed.forEach((name, removedAt) -> {
+                if (removedAt > since) {
+                    changed.add(name);
+                }
+            });
+        }
+        return changed;
+    }
+
+    @Override
+    public Object get(Object key) {
+        Attribute attribute = this.attribute(key);
+        return null != attribute ? attribute.value : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return null != this.attribute(key);
+    }
+
+    @Override
+    public int size() {
+        ConcurrentHashMap<String, Attribute> large = this.large;
+        return null != large ? large.size() : small.names.length;
+    }
+
+    @Override
+    public synchronized Object put(String name, Object value) {
+        Objects.requireNonNull(name, "name");
+        long next = version + 1;
+        Attribute attribute = new Attribute(value, next);
+        if (null != removed) {
+            removed.remove(name);
+        }
+        Object previous = null != large ? valueOf(large.put(name, attribute)) : this.putSmall(name, attribute);
+        this.version = next;
+        return previous;
+    }
+
+    private Object putSmall(String name, Attribute attribute) {
+        Small small = this.small;
+        int index = small.indexOf(name);
+        if (index >= 0) {
+            Attribute[] attributes = small.attributes.clone();
+            attributes[index] = attribute;
+            this.small = new Small(small.names, attributes);
+            return small.attributes[index].value;
+        }
+        int size = small.names.length;
+        if (size < SMALL_SIZE) {
+            String[] names = Arrays.copyOf(small.names, size + 1);
+            Attribute[] attributes = Arrays.copyOf(small.attributes, size + 1);
+            names[size] = name;
+            attributes[size] = attribute;
+            this.small = new Small(names, attributes);
+            return null;
+        }
+        ConcurrentHashMap<String, Attribute> large = new ConcurrentHashMap<>(SMALL_SIZE * 4);
+        for (int i = 0; i < size; i++) {
+            large.put(small.names[i], small.attributes[i]);
+        }
+        large.put(name, attribute);
+        // the last arrays stay for readers that saw no map yet
+        this.large = large;
+        return null;
+    }
+
+    @Override
+    public synchronized Object remove(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        String name = (String) key;
+        Attribute previous = null != large ? large.remove(name) : this.removeSmall(name);
+        if (null != previous) {
+            long next = version + 1;
+            if (null == removed) {
+                removed = new ConcurrentHashMap<>(4);
+            }
+            removed.put(name, next);
+            this.version = next;
+        }
+        return valueOf(previous);
+    }
+
+    private Attribute removeSmall(String name) {
+        Small small = this.small;
+        int index = small.indexOf(name);
+        if (index < 0) {
+            return null;
+        }
+        int size = small.names.length;
+        String[] names = new String[size - 1];
+        Attribute[] attributes = new Attribute[size - 1];
+        System.arraycopy(small.names, 0, names, 0, index);
+        System.arraycopy(small.attributes, 0, attributes, 0, index);
+        System.arraycopy(small.names, index + 1, names, index, size - index - 1);
+        System.arraycopy(small.attributes, index + 1, attributes, index, size - index - 1);
+        this.small = new Small(names, attributes);
+        return small.attributes[index];
+    }
+
+    @Override
+    public synchronized void clear() {
+        for (String name : new ArrayList<>(this.keySet())) {
+            this.remove(name);
+        }
+    }
+
+    /**
+     * Visit the attributes without copying them
+     */
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Object> action) {
+        ConcurrentHashMap<String, Attribute> large = this.large;
+        if (null != large) {
+            large.forEach((name, attribute) -> action.accept(name, attribute.value));
+            return;
+        }
+        Small small = this.small;
+        for (int i = 0; i < small.names.length; i++) {
+            action.accept(small.names[i], small.attributes[i].value);
+        }
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return SessionAttributes.this.size();
+            }
+        };
+    }
+
+    private Attribute attribute(Object key) {
+        ConcurrentHashMap<String, Attribute> large = this.large;
+        if (null != large) {
+            return null != key ? large.get(key) : null;
+        }
+        Small small = this.small;
+        int index = small.indexOf(key);
+        return index >= 0 ? small.attributes[index] : null;
+    }
+
+    private static Object valueOf(Attribute attribute) {
+        return null != attribute ? attribute.value : null;
+    }
+
+    private static final class Attribute {
+
+        private final Object value;
+        private final long version;
+
+        Attribute(Object value, long version) {
+            this.value = value;
+            this.version = version;
+        }
+    }
+
+    private static final class Small {
+
+        static final Small EMPTY = new Small(new String[0], new Attribute[0]);
+
+        private final String[] names;
+        private final Attribute[] attributes;
+
+        Small(String[] names, Attribute[] attributes) {
+            this.names = names;
+            this.attributes = attributes;
+        }
+
+        int indexOf(Object name) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Iterates a snapshot of the arrays, or the map once the attributes outgrew them
+     */
+    private final class EntryIterator implements Iterator<Entry<String, Object>> {
+
+        private final Small small;
+        private final Iterator<Map.Entry<String, Attribute>> large;
+        private int index;
+        private String last;
+
+        EntryIterator() {
+            ConcurrentHashMap<String, Attribute> large = SessionAttributes.this.large;
+            this.small = null != large ? null : SessionAttributes.this.small;
+            this.large = null != large ? large.entrySet().iterator() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return null != large ? large.hasNext() : index < small.names.length;
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            Object value;
+            if (null != large) {
+                Map.Entry<String, Attribute> entry = large.next();
+                last = entry.getKey();
+                value = entry.getValue().value;
+            } else {
+                if (index >= small.names.length) {
+                    throw new NoSuchElementException();
+                }
+                last = small.names[index];
+                value = small.attributes[index++].value;
+            }
+            return new SimpleImmutableEntry<>(last, value);
+        }
+
+        @Override
+        public void remove() {
+            if (null == last) {
+                throw new IllegalStateException();
+            }
+            SessionAttributes.this.remove(last);
+            last = null;
+        }
+    }
+
+}
@@ -1,16 +1,15 @@
 package com.hellokaton.blade.mvc.http;
 
-import io.netty.buffer.Unpooled;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.handler.codec.http.HttpResponse;
 
-import java.nio.charset.StandardCharsets;
-
 public class StringBody implements Body {
 
-    private final byte[] bytes;
+    private final String content;
 
     public StringBody(final String content) {
-        this.bytes = content.getBytes(StandardCharsets.UTF_8);
+        this.content = content;
     }
 
     public static StringBody of(String content) {
@@ -19,7 +18,10 @@ public class StringBody implements Body {
 
     @Override
     public HttpResponse write(BodyWriter writer) {
-        return writer.onByteBuf(Unpooled.copiedBuffer(bytes));
+        // encode straight into the (pooled) buffer, no intermediate byte[]
+        ByteBuf byteBuf = writer.allocator().buffer(ByteBufUtil.utf8Bytes(content));
+        ByteBufUtil.writeUtf8(byteBuf, content);
+        return writer.onByteBuf(byteBuf);
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,244 @@
+package com.hellokaton.blade.mvc.http.session;
+
+import com.hellokaton.blade.kit.EncryptKit;
+import com.hellokaton.blade.kit.ReflectKit;
+import com.hellokaton.blade.mvc.http.HttpSession;
+import com.hellokaton.blade.mvc.http.Session;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.*;
+
+/**
+ * CookieSessionCodec
+ * <p>
+ * Encodes a whole session into an encrypted, authenticated cookie value, so the
+ * server keeps no session state. The value is {@code kid.base64url(iv|ciphertext)},
+ * encrypted with AES-GCM under a key derived from each secret with HMAC-SHA256.
+ * The first secret encrypts, the others are still accepted for decryption, which
+ * lets secrets be rotated without logging users out.
+ */
+@Slf4j
+public class CookieSessionCodec {
+
+    /**
+     * Browsers drop cookies larger than 4KB
+     */
+    public static final int MAX_COOKIE_SIZE = 4000;
+
+    private static final byte VERSION = 1;
+    private static final int IV_LENGTH = 12;
+
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_BOOLEAN = 4;
+    private static final byte TYPE_DOUBLE = 5;
+    private static final byte TYPE_SERIALIZABLE = 9;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Map<String, byte[]> keys = new LinkedHashMap<>();
+    private final String primaryKid;
+
+    public CookieSessionCodec(List<String> secrets) {
+        if (null == secrets || secrets.isEmpty()) {
+            throw new IllegalArgumentException("Cookie session requires at least one secret");
+        }
+        for (String secret : secrets) {
+            byte[] secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+            byte[] key = Arrays.copyOf(EncryptKit.hmacSHA256ToByte(
+                    "blade-session-key".getBytes(StandardCharsets.UTF_8), secretBytes), 16);
+            String kid = EncryptKit.hmacSHA256("blade-session-kid".getBytes(StandardCharsets.UTF_8), secretBytes)
+                    .substring(0, 8);
+            keys.putIfAbsent(kid, key);
+        }
+        this.primaryKid = keys.keySet().iterator().next();
+    }
+
+    /**
+     * Encode the session into a cookie value
+     *
+     * @param session session instance
+     * @return cookie value, null if the session is too large for a cookie
+     */
+    public String encode(Session session) {
+        byte[] payload = this.writePayload(session);
+        if (null == payload) {
+            return null;
+        }
+        byte[] iv = new byte[IV_LENGTH];
+        RANDOM.nextBytes(iv);
+        byte[] encrypted = EncryptKit.encryptAESGCM(payload, keys.get(primaryKid), iv,
+                primaryKid.getBytes(StandardCharsets.US_ASCII));
+        if (null == encrypted) {
+            return null;
+        }
+        byte[] value = new byte[IV_LENGTH + encrypted.length];
+        System.arraycopy(iv, 0, value, 0, IV_LENGTH);
+        System.arraycopy(encrypted, 0, value, IV_LENGTH, encrypted.length);
+
+        String cookieValue = primaryKid + '.' + Base64.getUrlEncoder().withoutPadding().encodeToString(value);
+        if (cookieValue.length() > MAX_COOKIE_SIZE) {
+            log.warn("Session {} is too large for a cookie: {} bytes", session.id(), cookieValue.length());
+            return null;
+        }
+        return cookieValue;
+    }
+
+    /**
+     * Decode a cookie value
+     *
+     * @param cookieValue cookie value
+     * @param sessionType session implementation type
+     * @return session instance, null if the value was tampered with or its key is unknown
+     */
+    public Session decode(String cookieValue, Class<? extends Session> sessionType) {
+        int pos = cookieValue.indexOf('.');
+        if (pos <= 0) {
+            return null;
+        }
+        String kid = cookieValue.substring(0, pos);
+        byte[] key = keys.get(kid);
+        if (null == key) {
+            return null;
+        }
+        byte[] value;
+        try {
+            value = Base64.getUrlDecoder().decode(cookieValue.substring(pos + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (value.length <= IV_LENGTH) {
+            return null;
+        }
+        byte[] iv = Arrays.copyOf(value, IV_LENGTH);
+        byte[] encrypted = Arrays.copyOfRange(value, IV_LENGTH, value.length);
+        byte[] payload = EncryptKit.decryptAESGCM(encrypted, key, iv, kid.getBytes(StandardCharsets.US_ASCII));
+        if (null == payload) {
+            return null;
+        }
+        return this.readPayload(payload, sessionType);
+    }
+
+    /**
+     * Whether the cookie value was encrypted with the current (first) secret
+     *
+     * @param cookieValue cookie value
+     * @return false if the cookie should be re-issued with the current secret
+     */
+    public boolean isPrimaryKey(String cookieValue) {
+        return null != cookieValue && cookieValue.startsWith(primaryKid)
+                && cookieValue.length() > primaryKid.length() && cookieValue.charAt(primaryKid.length()) == '.';
+    }
+
+    private byte[] writePayload(Session session) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(VERSION);
+            out.writeUTF(session.id());
+            out.writeUTF(null != session.ip() ? session.ip() : "");
+            out.writeLong(session.created());
+            out.writeLong(session.expired());
+
+            Map<String, Object> attributes = session.attributes();
+            out.writeShort(attributes.size());
+            for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+                out.writeUTF(entry.getKey());
+                writeValue(out, entry.getKey(), entry.getValue());
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            log.warn("Encode cookie session {} error", session.id(), e);
+            return null;
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, String name, Object value) throws IOException {
+        if (value instanceof String) {
+            out.writeByte(TYPE_STRING);
+            out.writeUTF((String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(TYPE_INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Double) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Serializable) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            try (ObjectOutputStream objectOut = new ObjectOutputStream(bytes)) {
+                objectOut.writeObject(value);
+            }
+            out.writeByte(TYPE_SERIALIZABLE);
+            out.writeInt(bytes.size());
+            bytes.writeTo(out);
+        } else {
+            throw new NotSerializableException("Session attribute " + name + " is not serializable");
+        }
+    }
+
+    private Session readPayload(byte[] payload, Class<? extends Session> sessionType) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            if (in.readByte() != VERSION) {
+                return null;
+            }
+            Session session = ReflectKit.newInstance(sessionType);
+            if (null == session) {
+                return null;
+            }
+            session.id(in.readUTF());
+            String ip = in.readUTF();
+            session.ip(ip.isEmpty() ? null : ip);
+            session.created(in.readLong());
+            session.expired(in.readLong());
+
+            int size = in.readUnsignedShort();
+            for (int i = 0; i < size; i++) {
+                String name = in.readUTF();
+                session.attributes().put(name, readValue(in));
+            }
+            if (session instanceof HttpSession) {
+                ((HttpSession) session).markPersisted();
+            }
+            return session;
+        } catch (IOException | ClassNotFoundException e) {
+            log.warn("Decode cookie session error", e);
+            return null;
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException, ClassNotFoundException {
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_STRING:
+                return in.readUTF();
+            case TYPE_INT:
+                return in.readInt();
+            case TYPE_LONG:
+                return in.readLong();
+            case TYPE_BOOLEAN:
+                return in.readBoolean();
+            case TYPE_DOUBLE:
+                return in.readDouble();
+            case TYPE_SERIALIZABLE:
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                try (ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return objectIn.readObject();
+                }
+            default:
+                throw new IOException("Unknown session attribute type " + type);
+        }
+    }
+
+}
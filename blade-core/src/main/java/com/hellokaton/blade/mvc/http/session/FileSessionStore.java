@@ -0,0 +1,408 @@
+package com.hellokaton.blade.mvc.http.session;
+
+import com.hellokaton.blade.kit.ReflectKit;
+import com.hellokaton.blade.mvc.http.HttpSession;
+import com.hellokaton.blade.mvc.http.Session;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * FileSessionStore
+ * <p>
+ * Keeps sessions in an append-only log file. On startup the log is replayed
+ * through a memory-mapped buffer into an index of serialized sessions, values
+ * are only deserialized when a session is read. Records are buffered until
+ * {@link #flush()} and the log is compacted once most of it is garbage.
+ * <p>
+ * Session attribute values must be {@link Serializable}.
+ */
+@Slf4j
+public class FileSessionStore implements SessionStore {
+
+    public static final String LOG_FILE_NAME = "sessions.log";
+
+    private static final byte META = 1;
+    private static final byte ATTRIBUTE = 2;
+    private static final byte REMOVE_ATTRIBUTE = 3;
+    private static final byte DELETE = 4;
+
+    private static final int COMPACT_MIN_RECORDS = 10000;
+
+    private final Path logPath;
+    private final Class<? extends Session> sessionType;
+    private final Map<String, StoredSession> sessions = new HashMap<>();
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream(8192);
+
+    private FileChannel channel;
+    private long records;
+    private long garbageRecords;
+
+    public FileSessionStore(Path directory) throws IOException {
+        this(directory, HttpSession.class);
+    }
+
+    public FileSessionStore(Path directory, Class<? extends Session> sessionType) throws IOException {
+        Files.createDirectories(directory);
+        this.logPath = directory.resolve(LOG_FILE_NAME);
+        this.sessionType = sessionType;
+        this.channel = FileChannel.open(logPath, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.replay();
+    }
+
+    @Override
+    public Session read(String id) {
+        String ip;
+        long created, expired;
+        Map<String, byte[]> attributes;
+        synchronized (this) {
+            StoredSession stored = sessions.get(id);
+            if (null == stored || stored.expired < Instant.now().getEpochSecond()) {
+                return null;
+            }
+            ip = stored.ip;
+            created = stored.created;
+            expired = stored.expired;
+            attributes = new HashMap<>(stored.attributes);
+        }
+
+        Session session = ReflectKit.newInstance(sessionType);
+        if (null == session) {
+            return null;
+        }
+        session.id(id);
+        session.ip(ip);
+        session.created(created);
+        session.expired(expired);
+        attributes.forEach((name, value) -> {
+            Object object = deserialize(value);
+            if (null != object) {
+                session.attributes().put(name, object);
+            }
+        });
+        // these values are already stored
+        if (session instanceof HttpSession) {
+            ((HttpSession) session).markPersisted();
+        }
+        return session;
+    }
+
+    @Override
+    public synchronized void write(Session session, Set<String> changedAttributes) {
+        String id = session.id();
+        StoredSession stored = sessions.get(id);
+        if (null != stored && null == changedAttributes) {
+            appendDelete(id);
+            stored = null;
+        }
+        if (null == stored) {
+            stored = new StoredSession();
+            sessions.put(id, stored);
+            changedAttributes = null;
+        }
+
+        // a renewal moves the expiry, most batches only change attributes
+        if (stored.records == 0 || stored.created != session.created() || stored.expired != session.expired()
+                || !Objects.equals(stored.ip, session.ip())) {
+            stored.ip = session.ip();
+            stored.created = session.created();
+            stored.expired = session.expired();
+            appendMeta(id, stored);
+        }
+
+        Map<String, Object> attributes = session.attributes();
+        Iterable<String> names = null == changedAttributes ? attributes.keySet() : changedAttributes;
+        for (String name : names) {
+            Object value = attributes.get(name);
+            byte[] bytes = null != value ? serialize(name, value) : null;
+            if (null != bytes) {
+                appendAttribute(id, stored, name, bytes);
+            } else if (stored.attributes.containsKey(name)) {
+                appendRemoveAttribute(id, stored, name);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void delete(String id) {
+        if (sessions.containsKey(id)) {
+            appendDelete(id);
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        try {
+            if (pending.size() > 0) {
+                channel.write(ByteBuffer.wrap(pending.toByteArray()));
+                pending.reset();
+            }
+            if (records > COMPACT_MIN_RECORDS && garbageRecords * 2 > records) {
+                this.compact();
+            }
+        } catch (IOException e) {
+            log.error("Flush session log {} error", logPath, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!channel.isOpen()) {
+            return;
+        }
+        this.flush();
+        try {
+            channel.force(true);
+            channel.close();
+        } catch (IOException e) {
+            log.error("Close session log {} error", logPath, e);
+        }
+    }
+
+    public synchronized int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Rewrite the log with only the live sessions
+     */
+    private void compact() throws IOException {
+        long now = Instant.now().getEpochSecond();
+        Path compactPath = logPath.resolveSibling(LOG_FILE_NAME + ".compact");
+
+        records = 0;
+        garbageRecords = 0;
+        sessions.values().removeIf(stored -> stored.expired < now);
+
+        try (FileChannel out = FileChannel.open(compactPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Map.Entry<String, StoredSession> entry : sessions.entrySet()) {
+                String id = entry.getKey();
+                StoredSession stored = entry.getValue();
+                stored.records = 0;
+                appendMeta(id, stored);
+                for (Map.Entry<String, byte[]> attribute : stored.attributes.entrySet()) {
+                    appendRecord(ATTRIBUTE, id, attribute.getKey(), attribute.getValue());
+                    stored.records++;
+                }
+                if (pending.size() > 65536) {
+                    out.write(ByteBuffer.wrap(pending.toByteArray()));
+                    pending.reset();
+                }
+            }
+            out.write(ByteBuffer.wrap(pending.toByteArray()));
+            pending.reset();
+            out.force(true);
+        }
+
+        channel.close();
+        Files.move(compactPath, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        log.debug("Compacted session log {}, {} sessions", logPath, sessions.size());
+    }
+
+    /**
+     * Rebuild the index from the log file, a truncated record at the end
+     * of the file (e.g. after a crash) is dropped.
+     */
+    private void replay() throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Session log " + logPath + " is too large: " + size);
+        }
+        int valid = 0;
+        if (size > 0) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            while (buffer.remaining() >= 4) {
+                int length = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break;
+                }
+                int next = buffer.position() + length;
+                this.applyRecord(buffer);
+                buffer.position(next);
+                valid = next;
+            }
+        }
+        if (valid < size) {
+            log.warn("Session log {} has a truncated record at {}, dropped", logPath, valid);
+            channel.truncate(valid);
+        }
+        channel.position(valid);
+        log.debug("Restored {} sessions from {}", sessions.size(), logPath);
+    }
+
+    private void applyRecord(ByteBuffer buffer) {
+        byte type = buffer.get();
+        String id = getString(buffer);
+        StoredSession stored = sessions.get(id);
+        records++;
+        switch (type) {
+            case META:
+                if (null == stored) {
+                    stored = new StoredSession();
+                    sessions.put(id, stored);
+                } else {
+                    garbageRecords++;
+                }
+                stored.ip = getString(buffer);
+                stored.created = buffer.getLong();
+                stored.expired = buffer.getLong();
+                stored.records++;
+                break;
+            case ATTRIBUTE:
+                if (null == stored) {
+                    garbageRecords++;
+                    break;
+                }
+                String name = getString(buffer);
+                byte[] value = new byte[buffer.getInt()];
+                buffer.get(value);
+                if (null != stored.attributes.put(name, value)) {
+                    garbageRecords++;
+                }
+                stored.records++;
+                break;
+            case REMOVE_ATTRIBUTE:
+                if (null != stored && null != stored.attributes.remove(getString(buffer))) {
+                    garbageRecords++;
+                }
+                garbageRecords++;
+                break;
+            case DELETE:
+                if (null != stored) {
+                    sessions.remove(id);
+                    garbageRecords += stored.records;
+                }
+                garbageRecords++;
+                break;
+            default:
+                garbageRecords++;
+                break;
+        }
+    }
+
+    private void appendMeta(String id, StoredSession stored) {
+        if (stored.records > 0) {
+            garbageRecords++;
+        }
+        stored.records++;
+        appendRecord(META, id, stored.ip, stored.created, stored.expired);
+    }
+
+    private void appendAttribute(String id, StoredSession stored, String name, byte[] value) {
+        if (null != stored.attributes.put(name, value)) {
+            garbageRecords++;
+        }
+        stored.records++;
+        appendRecord(ATTRIBUTE, id, name, value);
+    }
+
+    private void appendRemoveAttribute(String id, StoredSession stored, String name) {
+        stored.attributes.remove(name);
+        garbageRecords += 2;
+        appendRecord(REMOVE_ATTRIBUTE, id, name);
+    }
+
+    private void appendDelete(String id) {
+        StoredSession stored = sessions.remove(id);
+        garbageRecords += null != stored ? stored.records + 1 : 1;
+        appendRecord(DELETE, id);
+    }
+
+    private void appendRecord(byte type, String id, Object... fields) {
+        try {
+            ByteArrayOutputStream record = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(record);
+            out.writeByte(type);
+            putString(out, id);
+            for (Object field : fields) {
+                if (field instanceof byte[]) {
+                    byte[] bytes = (byte[]) field;
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                } else if (field instanceof Long) {
+                    out.writeLong((Long) field);
+                } else {
+                    putString(out, (String) field);
+                }
+            }
+            DataOutputStream pendingOut = new DataOutputStream(pending);
+            pendingOut.writeInt(record.size());
+            record.writeTo(pendingOut);
+            records++;
+        } catch (IOException e) {
+            // ByteArrayOutputStream does not throw
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void putString(DataOutputStream out, String value) throws IOException {
+        if (null == value) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] serialize(String name, Object value) {
+        if (!(value instanceof Serializable)) {
+            log.warn("Session attribute {} is not serializable, skip storing it", name);
+            return null;
+        }
+        try (ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+             ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            log.warn("Serialize session attribute {} error", name, e);
+            return null;
+        }
+    }
+
+    private static Object deserialize(byte[] value) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(value))) {
+            return in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            log.warn("Deserialize session attribute error", e);
+            return null;
+        }
+    }
+
+    private static class StoredSession {
+        private String ip;
+        private long created;
+        private long expired;
+        private int records;
+        private final Map<String, byte[]> attributes = new HashMap<>(8);
+    }
+
+}
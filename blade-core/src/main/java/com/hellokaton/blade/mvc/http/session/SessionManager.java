@@ -18,21 +18,37 @@ package com.hellokaton.blade.mvc.http.session;
 import com.hellokaton.blade.event.Event;
 import com.hellokaton.blade.event.EventManager;
 import com.hellokaton.blade.event.EventType;
+import com.hellokaton.blade.mvc.http.HttpSession;
 import com.hellokaton.blade.mvc.http.Session;
+import lombok.extern.slf4j.Slf4j;
 
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * SessionManager
  * <p>
- * This class manages all session instances, including additions and deletions
+ * This class manages all session instances, including additions and deletions.
+ * When a {@link SessionStore} is configured the in-memory sessions act as a near
+ * cache in front of it, and changes are written behind in batches by {@link #flush()}.
+ * Sessions idle in the near cache are dropped by {@link #evictIdle(long)} and read
+ * from the store again on their next request.
  *
  * @author biezhi
  * 2017/6/3
  */
+@Slf4j
 public class SessionManager {
 
+    /**
+     * Marks a pending write that has to store every attribute
+     */
+    private static final Set<String> ALL_ATTRIBUTES = Collections.unmodifiableSet(new HashSet<>());
+
     private final EventManager eventManager;
 
     /**
@@ -40,12 +56,34 @@ public class SessionManager {
      */
     private final Map<String, Session> sessionMap;
 
+    private final SessionStore sessionStore;
+
+    /**
+     * Session id to the attribute names changed since the last flush
+     */
+    private final Map<String, Set<String>> pendingWrites;
+
+    /**
+     * Session id to the epoch second of its last use, only with a SessionStore
+     */
+    private final Map<String, Long> accessTimes;
+
     /**
      * Create SessionManager
      */
     public SessionManager(EventManager eventManager) {
+        this(eventManager, null);
+    }
+
+    /**
+     * Create SessionManager backed by a SessionStore
+     */
+    public SessionManager(EventManager eventManager, SessionStore sessionStore) {
         this.sessionMap = new ConcurrentHashMap<>(16);
+        this.pendingWrites = new ConcurrentHashMap<>(16);
+        this.accessTimes = new ConcurrentHashMap<>(16);
         this.eventManager = eventManager;
+        this.sessionStore = sessionStore;
     }
 
     /**
@@ -55,7 +93,20 @@ public class SessionManager {
      * @return Session instance
      */
     public Session getSession(String id) {
-        return sessionMap.get(id);
+        Session session = sessionMap.get(id);
+        if (null == sessionStore) {
+            return session;
+        }
+        if (null == session) {
+            session = sessionStore.read(id);
+            if (null == session) {
+                return null;
+            }
+            Session exists = sessionMap.putIfAbsent(id, session);
+            session = null != exists ? exists : session;
+        }
+        this.touch(id);
+        return session;
     }
 
     /**
@@ -65,17 +116,107 @@ public class SessionManager {
      */
     public void createSession(Session session) {
         sessionMap.put(session.id(), session);
+        if (null != sessionStore) {
+            pendingWrites.put(session.id(), ALL_ATTRIBUTES);
+            this.touch(session.id());
+        }
+        if (!eventManager.hasListeners(EventType.SESSION_CREATED)) {
+            return;
+        }
         Event event = new Event();
         event.attribute("session", session);
 
         eventManager.fireEvent(EventType.SESSION_CREATED, event);
     }
 
+    /**
+     * Mark the session as used by the current request, its changes are
+     * written to the SessionStore with the next batch.
+     *
+     * @param session session instance
+     */
+    public void commit(Session session) {
+        if (null == sessionStore) {
+            return;
+        }
+        Set<String> changed = session instanceof HttpSession ?
+                ((HttpSession) session).drainChangedAttributes() : ALL_ATTRIBUTES;
+
+        pendingWrites.merge(session.id(), changed, (prev, next) -> {
+            if (prev == ALL_ATTRIBUTES || next == ALL_ATTRIBUTES) {
+                return ALL_ATTRIBUTES;
+            }
+            prev.addAll(next);
+            return prev;
+        });
+        // evicted while the request was using it, flush writes from the near cache
+        sessionMap.putIfAbsent(session.id(), session);
+        this.touch(session.id());
+    }
+
+    /**
+     * Drop the sessions unused for idleSeconds from the near cache, their next
+     * request reads them from the SessionStore. Sessions with pending changes
+     * are kept until they are flushed.
+     *
+     * @param idleSeconds seconds since the last use
+     */
+    public void evictIdle(long idleSeconds) {
+        if (null == sessionStore) {
+            return;
+        }
+        long now = Instant.now().getEpochSecond();
+        accessTimes.forEach((id, accessed) -> {
+            if (now - accessed >= idleSeconds && !pendingWrites.containsKey(id) && accessTimes.remove(id, accessed)) {
+                sessionMap.remove(id);
+            }
+        });
+    }
+
+    private void touch(String id) {
+        accessTimes.put(id, Instant.now().getEpochSecond());
+    }
+
+    /**
+     * Write the pending session changes to the SessionStore
+     */
+    public void flush() {
+        if (null == sessionStore) {
+            return;
+        }
+        for (String id : pendingWrites.keySet()) {
+            Set<String> changed = pendingWrites.remove(id);
+            Session session = sessionMap.get(id);
+            if (null == changed || null == session) {
+                continue;
+            }
+            try {
+                sessionStore.write(session, changed == ALL_ATTRIBUTES ? null : changed);
+            } catch (Exception e) {
+                log.error("Write session {} error", id, e);
+            }
+        }
+        sessionStore.flush();
+    }
+
+    /**
+     * Flush and close the SessionStore
+     */
+    public void close() {
+        if (null == sessionStore) {
+            return;
+        }
+        this.flush();
+        sessionStore.close();
+    }
+
     /**
      * Clean all session instances
      */
     public void clear() {
         sessionMap.clear();
+        pendingWrites.clear();
+        accessTimes.clear();
     }
 
     /**
@@ -86,6 +227,14 @@ public class SessionManager {
     public void destroySession(Session session) {
         session.attributes().clear();
         sessionMap.remove(session.id());
+        if (null != sessionStore) {
+            pendingWrites.remove(session.id());
+            accessTimes.remove(session.id());
+            sessionStore.delete(session.id());
+        }
+        if (!eventManager.hasListeners(EventType.SESSION_DESTROY)) {
+            return;
+        }
 
         Event event = new Event();
         event.attribute("session", session);
@@ -97,4 +246,8 @@ public class SessionManager {
         return sessionMap;
     }
 
+    public SessionStore sessionStore() {
+        return sessionStore;
+    }
+
 }
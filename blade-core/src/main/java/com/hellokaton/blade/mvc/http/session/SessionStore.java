@@ -0,0 +1,52 @@
+package com.hellokaton.blade.mvc.http.session;
+
+import com.hellokaton.blade.mvc.http.Session;
+
+import java.util.Set;
+
+/**
+ * SessionStore
+ * <p>
+ * Persistent storage behind the {@link SessionManager}, which keeps the live
+ * sessions in memory as a near cache and only consults the store on a miss.
+ * Writes are batched by the SessionManager and handed over in {@link #write}.
+ */
+public interface SessionStore {
+
+    /**
+     * Load a stored session
+     *
+     * @param id session id
+     * @return session instance, null if the session is not stored
+     */
+    Session read(String id);
+
+    /**
+     * Store a session, only the attributes in changedAttributes have to be written,
+     * an attribute that is missing from the session has been removed.
+     *
+     * @param session           session instance
+     * @param changedAttributes modified attribute names, null means all of them
+     */
+    void write(Session session, Set<String> changedAttributes);
+
+    /**
+     * Remove a stored session
+     *
+     * @param id session id
+     */
+    void delete(String id);
+
+    /**
+     * Called after each write-behind batch
+     */
+    default void flush() {
+    }
+
+    /**
+     * Release the store resources when the server stops
+     */
+    default void close() {
+    }
+
+}
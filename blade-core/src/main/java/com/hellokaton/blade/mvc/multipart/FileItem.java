@@ -1,17 +1,29 @@
 package com.hellokaton.blade.mvc.multipart;
 
 
+import io.netty.handler.codec.http.multipart.FileUpload;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 
 /**
  * HTTP multipart/form-data Request
+ * <p>
+ * An uploaded file is written to the upload directory while the request body
+ * arrives, the temp file is deleted when the request ends unless it has been
+ * moved with {@link #moveTo(Path)}.
  *
  * @author <a href="mailto:hellokaton@gmail.com" target="_blank">hellokaton</a>
  * @since 1.5
@@ -55,6 +67,38 @@ public class FileItem {
     private transient File file;
     private transient byte[] data;
 
+    /**
+     * The netty upload owning the temp file, null if the item was not decoded from a request
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient FileUpload upload;
+
+    /**
+     * Create a file item of a completed netty upload, the upload keeps owning the temp file
+     *
+     * @param upload netty http file upload
+     * @return file item
+     * @throws IOException reading an in memory upload failed
+     */
+    public static FileItem of(FileUpload upload) throws IOException {
+        FileItem fileItem = new FileItem();
+        fileItem.setName(upload.getName());
+        fileItem.setFileName(upload.getFilename());
+        fileItem.setContentType(upload.getContentType());
+        fileItem.setLength(upload.length());
+        if (upload.isInMemory()) {
+            fileItem.setInMemory(true);
+            fileItem.setData(upload.get());
+        } else {
+            fileItem.setFile(upload.getFile());
+            fileItem.setPath(upload.getFile().getPath());
+            fileItem.setInMemory(false);
+            fileItem.upload = upload;
+        }
+        return fileItem;
+    }
+
     public String extName() {
         return fileName.substring(fileName.lastIndexOf("."));
     }
@@ -74,8 +118,21 @@ public class FileItem {
         this.moveTo(Paths.get(newFile.getPath()));
     }
 
+    /**
+     * Move the file to newFile, a temp file of the same file system is renamed, not copied
+     *
+     * @param newFile target path, an existing file is replaced
+     * @throws IOException move failed
+     */
     public void moveTo(Path newFile) throws IOException {
-        if (null != file) {
+        if (null != upload) {
+            Files.deleteIfExists(newFile);
+            if (!upload.renameTo(newFile.toFile())) {
+                throw new IOException("Move " + file + " to " + newFile + " failed");
+            }
+            this.file = newFile.toFile();
+            this.path = file.getPath();
+        } else if (null != file) {
             Path tmpPath = Paths.get(file.getPath());
             Files.move(tmpPath, newFile, StandardCopyOption.REPLACE_EXISTING);
         } else {
@@ -90,6 +147,11 @@ public class FileItem {
         if (null == this.file) {
             return null;
         }
+        if (null != upload) {
+            // the upload deletes its temp file when the request ends
+            this.data = Files.readAllBytes(file.toPath());
+            return this.data;
+        }
         Path tmpPath = Paths.get(file.getPath());
         try {
             this.data = Files.readAllBytes(file.toPath());
@@ -99,4 +161,53 @@ public class FileItem {
         }
     }
 
+    /**
+     * @return path of the file, null when the content is in memory
+     */
+    public Path toPath() {
+        return null != file ? file.toPath() : null;
+    }
+
+    /**
+     * Open the file for reading
+     *
+     * @return read only channel of the file
+     * @throws IOException the content is in memory or the file can not be opened
+     */
+    public FileChannel openChannel() throws IOException {
+        if (null == file) {
+            throw new IOException("File item " + name + " is in memory");
+        }
+        return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    }
+
+    /**
+     * Write the content to target, a file is transferred by the file system
+     * without passing through the heap when the target allows it
+     *
+     * @param target channel to write to
+     * @return number of bytes written
+     * @throws IOException write failed
+     */
+    public long transferTo(WritableByteChannel target) throws IOException {
+        if (null == file) {
+            if (null == data) {
+                return 0;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+            return data.length;
+        }
+        try (FileChannel channel = openChannel()) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+            return size;
+        }
+    }
+
 }
\ No newline at end of file
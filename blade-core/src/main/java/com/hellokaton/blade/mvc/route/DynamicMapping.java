@@ -17,6 +17,14 @@ public interface DynamicMapping {
 
     Route findRoute(String httpMethod, String path);
 
+    /**
+     * Whether any http method has a route on the path, tells a 405 from a 404
+     * after {@link #findRoute} misses
+     */
+    default boolean hasPath(String path) {
+        return false;
+    }
+
     void clear();
 
 }
@@ -10,6 +10,7 @@ import com.hellokaton.blade.mvc.ui.ResponseType;
 import lombok.extern.slf4j.Slf4j;
 
 import java.lang.reflect.Method;
+import java.util.List;
 
 /**
  * Route builder
@@ -87,6 +88,19 @@ public class RouteBuilder {
         }
     }
 
+    /**
+     * Add the routes of a controller resolved by the component index
+     *
+     * @param controller controller instance
+     * @param routes     routes without target
+     */
+    public void addRouter(Object controller, List<Route> routes) {
+        for (Route route : routes) {
+            route.setTarget(controller);
+            routeMatcher.addRoute(route);
+        }
+    }
+
     private void parseRoute(RouteStruct routeStruct) {
         // build multiple route
         HttpMethod methodType = routeStruct.getMethod();
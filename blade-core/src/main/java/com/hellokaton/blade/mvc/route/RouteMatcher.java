@@ -3,6 +3,7 @@ package com.hellokaton.blade.mvc.route;
 import com.hellokaton.blade.ioc.annotation.Order;
 import com.hellokaton.blade.kit.*;
 import com.hellokaton.blade.mvc.RouteContext;
+import com.hellokaton.blade.mvc.handler.RouteActionArguments;
 import com.hellokaton.blade.mvc.handler.RouteHandler;
 import com.hellokaton.blade.mvc.hook.WebHook;
 import com.hellokaton.blade.mvc.hook.WebHookOptions;
@@ -94,6 +95,7 @@ public class RouteMatcher {
                 afterHooks.add(entry);
             }
         } else {
+            RouteActionArguments.prepare(method);
             this.routes.put(key, route);
         }
         return route;
@@ -142,6 +144,16 @@ public class RouteMatcher {
         return routeMapping.findRoute(httpMethod, path);
     }
 
+    /**
+     * Whether the path has a route for some http method,
+     * a lookupRoute miss on such a path is a 405 rather than a 404
+     *
+     * @param path request path
+     */
+    public boolean hasPath(String path) {
+        return routeMapping.hasPath(path);
+    }
+
     private String cleanPathVariable(String pathVariable) {
         if (pathVariable.contains(".")) {
             return pathVariable.substring(0, pathVariable.indexOf('.'));
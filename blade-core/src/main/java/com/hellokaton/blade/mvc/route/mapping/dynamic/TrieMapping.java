@@ -197,6 +197,27 @@ public class TrieMapping implements DynamicMapping {
     @Override
     public Route findRoute(String httpMethod, String path) {
         HttpMethod requestMethod = HttpMethod.valueOf(httpMethod);
+        Match match = findNode(path);
+        if (null == match) {
+            return null;
+        }
+        Route selectedRoute = match.node.selectRoute(requestMethod);
+        if (selectedRoute == null) {
+            return null;
+        }
+        Route route = new Route(selectedRoute);
+        if (null != match.uriVariables) {
+            route.setPathParams(match.uriVariables);
+        }
+        return route;
+    }
+
+    @Override
+    public boolean hasPath(String path) {
+        return null != findNode(path);
+    }
+
+    private Match findNode(String path) {
         Map<String, String> uriVariables = null;
         Iterator<String> partIter = partIter(path);
         Node prev = root;
@@ -237,20 +258,22 @@ public class TrieMapping implements DynamicMapping {
 
         if (prev.isEnd() &&
                 (!partIter.hasNext() || prev.getType() == NodeType.WILD)) {
-            Route selectedRoute = prev.selectRoute(requestMethod);
-            if (selectedRoute == null) {
-                return null;
-            }
-            Route route = new Route(selectedRoute);
-            if (null != uriVariables) {
-                route.setPathParams(uriVariables);
-            }
-            return route;
+            return new Match(prev, uriVariables);
         }
-
         return null;
     }
 
+    private static class Match {
+
+        private final Node node;
+        private final Map<String, String> uriVariables;
+
+        private Match(Node node, Map<String, String> uriVariables) {
+            this.node = node;
+            this.uriVariables = uriVariables;
+        }
+    }
+
     protected Iterator<String> partIter(String path) {
         return new Iterator<String>() {
             private int start = 1;
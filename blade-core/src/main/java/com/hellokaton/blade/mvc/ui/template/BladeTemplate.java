@@ -32,6 +32,7 @@ public class BladeTemplate {
 
     private final String str;
     private final Map<String, Object> arguments = new HashMap<>();
+    private Map<String, Object> scope;
 
     private BladeTemplate(String str) {
         this.str = str;
@@ -105,6 +106,17 @@ public class BladeTemplate {
         return this;
     }
 
+    /**
+     * Values looked up before the arguments, read when formatting instead of copied
+     *
+     * @param scope such as the session attributes
+     * @return this template
+     */
+    public BladeTemplate scope(Map<String, Object> scope) {
+        this.scope = scope;
+        return this;
+    }
+
     public BladeTemplate args(Object... args) {
         if (args.length % 2 == 1)
             throw UncheckedTemplateException.invalidNumberOfArguments(args.length);
@@ -198,7 +210,7 @@ public class BladeTemplate {
         // Object name is the parameter that should be found in the map.
         // If it's followed by points, the points remain in the "param" buffer.
         final String objectName  = takeUntilDotOrEnd(param);
-        final Object objectValue = arguments.get(objectName);
+        final Object objectValue = argument(objectName);
 
         Object toAppend;
         if (param.length() != 0) {
@@ -216,6 +228,16 @@ public class BladeTemplate {
 
     }
 
+    private Object argument(String name) {
+        if (null != scope) {
+            Object value = scope.get(name);
+            if (null != value || scope.containsKey(name)) {
+                return value;
+            }
+        }
+        return arguments.get(name);
+    }
+
     private static Object evaluateIfArray(Object o) {
         if (null != o && o.getClass().isArray())
             return arrayToString(o);
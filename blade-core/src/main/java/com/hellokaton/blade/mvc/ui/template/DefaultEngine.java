@@ -23,7 +23,7 @@ import java.util.Map;
 @Slf4j
 public class DefaultEngine implements TemplateEngine {
 
-    public  static       String TEMPLATE_PATH = "templates";
+    public  static       String TEMPLATE_PATH = BladeConst.DEFAULT_TEMPLATE_PATH;
     private static final String PATH_SEPARATOR = "/";
 
     @Override
@@ -63,11 +63,13 @@ public class DefaultEngine implements TemplateEngine {
             attributes.putAll(reqAttrs);
             attributes.putAll(modelAndView.getModel());
 
+            BladeTemplate template = BladeTemplate.template(body, attributes);
             Session session = request.session();
             if (null != session) {
-                attributes.putAll(session.attributes());
+                // read in place, session attributes take precedence
+                template.scope(session.attributes());
             }
-            String result = BladeTemplate.template(body, attributes).fmt();
+            String result = template.fmt();
             writer.write(result);
         } catch (Exception e) {
             log.warn("View path is: {}", viewPath);
@@ -0,0 +1,64 @@
+package com.hellokaton.blade.options;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * How an event listener is invoked, the default is synchronously on the thread
+ * that fires the event.
+ */
+@Getter
+@Setter
+public class EventOptions {
+
+    public static final int DEFAULT_MAX_PENDING = 1024;
+
+    /**
+     * Deliver events on the event executor, one at a time and in order
+     */
+    private boolean async;
+
+    /**
+     * Deliver only the latest of the events fired while the listener was busy,
+     * a {@link com.hellokaton.blade.event.BatchEventListener} receives all of them at once
+     */
+    private boolean coalesce;
+
+    /**
+     * Events waiting for an async listener, beyond that the event is discarded,
+     * a coalescing listener drops its oldest event instead
+     */
+    private int maxPending = DEFAULT_MAX_PENDING;
+
+    /**
+     * On overflow the caller waits for room instead of discarding the event. Callers
+     * on a netty event loop or an event thread never wait, they still discard
+     */
+    private boolean blockOnOverflow;
+
+    public static EventOptions create() {
+        return new EventOptions();
+    }
+
+    public EventOptions async() {
+        this.async = true;
+        return this;
+    }
+
+    public EventOptions coalesce() {
+        this.async = true;
+        this.coalesce = true;
+        return this;
+    }
+
+    public EventOptions maxPending(int maxPending) {
+        this.maxPending = maxPending;
+        return this;
+    }
+
+    public EventOptions blockOnOverflow() {
+        this.blockOnOverflow = true;
+        return this;
+    }
+
+}
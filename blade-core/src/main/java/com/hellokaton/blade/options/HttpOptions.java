@@ -1,10 +1,13 @@
 package com.hellokaton.blade.options;
 
+import com.hellokaton.blade.kit.IdGenerator;
 import com.hellokaton.blade.mvc.http.HttpSession;
 import com.hellokaton.blade.mvc.http.Session;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.*;
+
 @Getter
 @Setter
 public class HttpOptions {
@@ -12,6 +15,15 @@ public class HttpOptions {
     public static final int DEFAULT_MAX_CONTENT_SIZE = 20971520; // 20MB
     public static final int DEFAULT_SESSION_TIMEOUT = 7200; // 2 hour
     public static final String DEFAULT_SESSION_KEY = "SESSION";
+    public static final int DEFAULT_MAX_INITIAL_LINE_LENGTH = 4096;
+    public static final int DEFAULT_MAX_HEADER_SIZE = 8192;
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+    public static final int DEFAULT_COMPRESSION_LEVEL = 6;
+    public static final Set<String> DEFAULT_INCOMPRESSIBLE_TYPES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "image/png", "image/jpeg", "image/gif", "image/webp", "image/avif", "video/*", "audio/*",
+            "font/woff", "font/woff2", "application/zip", "application/gzip", "application/x-gzip",
+            "application/x-bzip2", "application/x-7z-compressed", "application/x-rar-compressed",
+            "application/pdf", "application/octet-stream")));
 
     /**
      * Maximum length of the requested content.
@@ -20,6 +32,22 @@ public class HttpOptions {
     private int maxContentSize = DEFAULT_MAX_CONTENT_SIZE;
 
     private boolean enableGzip;
+
+    /**
+     * Responses smaller than this many bytes are sent uncompressed
+     */
+    private int compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+
+    /**
+     * Gzip and deflate level, 1 is the fastest and 9 the smallest
+     */
+    private int compressionLevel = DEFAULT_COMPRESSION_LEVEL;
+
+    /**
+     * Content types sent uncompressed, such as image/png, or video/* for a whole type
+     */
+    private Set<String> incompressibleTypes = new HashSet<>(DEFAULT_INCOMPRESSIBLE_TYPES);
+
     private boolean enableSession;
     private boolean enableRequestCost;
 
@@ -34,6 +62,77 @@ public class HttpOptions {
      */
     private Class<? extends Session> sessionType = HttpSession.class;
 
+    /**
+     * Secrets of the stateless cookie session. The first one encrypts new cookies,
+     * the others are still accepted, which allows rotating secrets.
+     * <p>
+     * When set, the whole session is stored in the client cookie instead of the server.
+     */
+    private List<String> sessionSecrets;
+
+    /**
+     * Generates the session id, the default is {@link IdGenerator#get()}
+     */
+    private IdGenerator sessionIdGenerator = IdGenerator.get();
+
+    /**
+     * Seconds without reading from a connection before it is closed, 0 disables
+     */
+    private int readIdleTimeout;
+
+    /**
+     * Seconds without writing to a connection before it is closed, 0 disables
+     */
+    private int writeIdleTimeout;
+
+    /**
+     * Concurrent connections, further connections get a 503 and are closed. 0 is unlimited
+     */
+    private int maxConnections;
+
+    /**
+     * Concurrent connections of one client address, 0 is unlimited
+     */
+    private int maxConnectionsPerIp;
+
+    /**
+     * Longest request line, a longer one gets a 414
+     */
+    private int maxInitialLineLength = DEFAULT_MAX_INITIAL_LINE_LENGTH;
+
+    /**
+     * Largest request header block, a larger one gets a 431
+     */
+    private int maxHeaderSize = DEFAULT_MAX_HEADER_SIZE;
+
+    /**
+     * Milliseconds a request has until its response is built. A request still
+     * queued then skips its route, otherwise a timer answers with a 504 as soon
+     * as the event loop is free and the late response is discarded. 0 disables
+     */
+    private int requestTimeout;
+
+    /**
+     * Request timeout by route path, e.g. /users/:id, overrides requestTimeout
+     */
+    private Map<String, Integer> routeTimeouts = new HashMap<>(4);
+
+    /**
+     * Directory of the uploaded temp files, null is the system temp directory
+     */
+    private String uploadDir;
+
+    /**
+     * Largest multipart part in bytes, a larger one gets a 413. -1 is unlimited
+     */
+    private long maxFileSize = -1;
+
+    /**
+     * Largest multipart request body in bytes, a larger one gets a 413.
+     * -1 uses maxContentSize
+     */
+    private long maxMultipartSize = -1;
+
     public static HttpOptions create() {
         return new HttpOptions();
     }
@@ -43,6 +142,17 @@ public class HttpOptions {
         return this;
     }
 
+    public HttpOptions compression(int compressionThreshold, int compressionLevel) {
+        this.compressionThreshold = compressionThreshold;
+        this.compressionLevel = compressionLevel;
+        return this;
+    }
+
+    public HttpOptions incompressibleTypes(String... contentTypes) {
+        this.incompressibleTypes.addAll(Arrays.asList(contentTypes));
+        return this;
+    }
+
     public HttpOptions enableSession() {
         this.enableSession = true;
         return enableSession(DEFAULT_SESSION_KEY);
@@ -59,4 +169,53 @@ public class HttpOptions {
         return this;
     }
 
+    public HttpOptions enableCookieSession(String... sessionSecrets) {
+        this.enableSession = true;
+        this.sessionSecrets = Arrays.asList(sessionSecrets);
+        return this;
+    }
+
+    public HttpOptions idleTimeout(int readIdleTimeout, int writeIdleTimeout) {
+        this.readIdleTimeout = readIdleTimeout;
+        this.writeIdleTimeout = writeIdleTimeout;
+        return this;
+    }
+
+    public HttpOptions maxConnections(int maxConnections, int maxConnectionsPerIp) {
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerIp = maxConnectionsPerIp;
+        return this;
+    }
+
+    public HttpOptions upload(String uploadDir, long maxFileSize, long maxMultipartSize) {
+        this.uploadDir = uploadDir;
+        this.maxFileSize = maxFileSize;
+        this.maxMultipartSize = maxMultipartSize;
+        return this;
+    }
+
+    public HttpOptions requestTimeout(int requestTimeout) {
+        this.requestTimeout = requestTimeout;
+        return this;
+    }
+
+    public HttpOptions requestTimeout(String routePath, int requestTimeout) {
+        this.routeTimeouts.put(routePath, requestTimeout);
+        return this;
+    }
+
+    /**
+     * @return request timeout of the route in milliseconds, 0 if it has none
+     */
+    public int requestTimeout(String routePath) {
+        if (routeTimeouts.isEmpty()) {
+            return requestTimeout;
+        }
+        return routeTimeouts.getOrDefault(routePath, requestTimeout);
+    }
+
+    public boolean isCookieSession() {
+        return enableSession && null != sessionSecrets && !sessionSecrets.isEmpty();
+    }
+
 }
@@ -0,0 +1,62 @@
+package com.hellokaton.blade.options;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Options of the {@link com.hellokaton.blade.mvc.hook.ResponseCache} hook
+ */
+@Getter
+@Setter
+public class ResponseCacheOptions {
+
+    public static final long DEFAULT_MAX_BYTES = 64 * 1024 * 1024;
+    public static final int DEFAULT_MAX_ENTRY_BYTES = 1024 * 1024;
+    public static final int DEFAULT_TTL_SECONDS = 60;
+
+    /**
+     * Total bytes of the cached responses, the least recently used are evicted beyond it
+     */
+    private long maxBytes = DEFAULT_MAX_BYTES;
+
+    /**
+     * Bodies larger than this are not cached
+     */
+    private int maxEntryBytes = DEFAULT_MAX_ENTRY_BYTES;
+
+    private int ttlSeconds = DEFAULT_TTL_SECONDS;
+
+    /**
+     * Request headers that are part of the cache key, such as Accept-Language
+     */
+    private Set<String> varyHeaders = new LinkedHashSet<>();
+
+    public static ResponseCacheOptions create() {
+        return new ResponseCacheOptions();
+    }
+
+    public ResponseCacheOptions maxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        return this;
+    }
+
+    public ResponseCacheOptions maxEntryBytes(int maxEntryBytes) {
+        this.maxEntryBytes = maxEntryBytes;
+        return this;
+    }
+
+    public ResponseCacheOptions ttlSeconds(int ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+        return this;
+    }
+
+    public ResponseCacheOptions vary(String... headers) {
+        this.varyHeaders.addAll(Arrays.asList(headers));
+        return this;
+    }
+
+}
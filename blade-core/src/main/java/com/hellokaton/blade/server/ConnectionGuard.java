@@ -0,0 +1,227 @@
+package com.hellokaton.blade.server;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.TooLongHttpHeaderException;
+import io.netty.handler.codec.http.TooLongHttpLineException;
+import io.netty.handler.timeout.IdleState;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.AttributeKey;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * First handler of every connection: counts the open connections and turns away
+ * the ones above the global or per address limit with a 503 before any
+ * decoding happens. The nested handlers close idle connections and answer
+ * requests the decoder rejected.
+ */
+@Slf4j
+@ChannelHandler.Sharable
+class ConnectionGuard extends ChannelInboundHandlerAdapter {
+
+    private static final AttributeKey<InetAddress> ADDRESS = AttributeKey.valueOf("blade.guard.address");
+
+    private static final ByteBuf SERVICE_UNAVAILABLE = Unpooled.unreleasableBuffer(Unpooled.directBuffer().writeBytes(
+            ("HTTP/1.1 503 Service Unavailable\r\n" +
+                    "Content-Length: 0\r\n" +
+                    "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII)).asReadOnly());
+
+    private static final InetAddress UNKNOWN = InetAddress.getLoopbackAddress();
+
+    private final int maxConnections;
+    private final int maxConnectionsPerIp;
+    private final boolean plaintext;
+    private final ServerCounters counters;
+    private final Map<InetAddress, Integer> connectionsPerIp = new ConcurrentHashMap<>();
+
+    ConnectionGuard(int maxConnections, int maxConnectionsPerIp, boolean plaintext, ServerCounters counters) {
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerIp = maxConnectionsPerIp;
+        this.plaintext = plaintext;
+        this.counters = counters;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        int active = counters.activeConnections.incrementAndGet();
+        if (maxConnections > 0 && active > maxConnections) {
+            counters.activeConnections.decrementAndGet();
+            this.reject(ctx, "max connections " + maxConnections);
+            return;
+        }
+        if (maxConnectionsPerIp > 0) {
+            InetAddress address = address(ctx.channel().remoteAddress());
+            if (!this.acquire(address)) {
+                counters.activeConnections.decrementAndGet();
+                this.reject(ctx, "max connections per ip " + maxConnectionsPerIp);
+                return;
+            }
+            ctx.channel().attr(ADDRESS).set(address);
+        }
+        counters.acceptedConnections.increment();
+        ctx.channel().closeFuture().addListener(future -> this.release(ctx));
+        super.channelActive(ctx);
+    }
+
+    private void reject(ChannelHandlerContext ctx, String reason) {
+        counters.rejectedConnections.increment();
+        if (log.isDebugEnabled()) {
+            log.debug("Reject connection {}, {}", ctx.channel().remoteAddress(), reason);
+        }
+        ctx.channel().config().setAutoRead(false);
+        if (plaintext) {
+            ctx.writeAndFlush(SERVICE_UNAVAILABLE.duplicate()).addListener(ChannelFutureListener.CLOSE);
+        } else {
+            ctx.close();
+        }
+    }
+
+    private boolean acquire(InetAddress address) {
+        boolean[] acquired = new boolean[1];
+        connectionsPerIp.compute(address, (key, count) -> {
+            int current = null == count ? 0 : count;
+            if (current >= maxConnectionsPerIp) {
+                return count;
+            }
+            acquired[0] = true;
+            return current + 1;
+        });
+        return acquired[0];
+    }
+
+    private void release(ChannelHandlerContext ctx) {
+        counters.activeConnections.decrementAndGet();
+        InetAddress address = ctx.channel().attr(ADDRESS).get();
+        if (null != address) {
+            connectionsPerIp.computeIfPresent(address, (key, count) -> count <= 1 ? null : count - 1);
+        }
+    }
+
+    private static InetAddress address(SocketAddress socketAddress) {
+        if (socketAddress instanceof InetSocketAddress && null != ((InetSocketAddress) socketAddress).getAddress()) {
+            return ((InetSocketAddress) socketAddress).getAddress();
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * Closes the connection when the IdleStateHandler reports it idle. Read idle
+     * is suspended while a request is being handled and counts from its response
+     */
+    @ChannelHandler.Sharable
+    static final class IdleCloser extends ChannelInboundHandlerAdapter {
+
+        private static final AttributeKey<Requests> REQUESTS = AttributeKey.valueOf("blade.guard.requests");
+
+        private final ServerCounters counters;
+        private final long readIdleNanos;
+
+        IdleCloser(ServerCounters counters, long readIdleNanos) {
+            this.counters = counters;
+            this.readIdleNanos = readIdleNanos;
+        }
+
+        static void requestStarted(Channel channel) {
+            Requests requests = channel.attr(REQUESTS).get();
+            if (null == requests) {
+                requests = new Requests();
+                channel.attr(REQUESTS).set(requests);
+            }
+            requests.active++;
+        }
+
+        static void requestFinished(Channel channel) {
+            Requests requests = channel.attr(REQUESTS).get();
+            if (null != requests && requests.active > 0) {
+                requests.active--;
+                requests.finishedNanos = System.nanoTime();
+            }
+        }
+
+        private boolean isHandlingRequest(Channel channel) {
+            Requests requests = channel.attr(REQUESTS).get();
+            return null != requests
+                    && (requests.active > 0 || System.nanoTime() - requests.finishedNanos < readIdleNanos);
+        }
+
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+            if (evt instanceof IdleStateEvent) {
+                if (((IdleStateEvent) evt).state() == IdleState.READER_IDLE && isHandlingRequest(ctx.channel())) {
+                    return;
+                }
+                counters.idleClosedConnections.increment();
+                if (log.isDebugEnabled()) {
+                    log.debug("Close idle connection {}, {}", ctx.channel().remoteAddress(), ((IdleStateEvent) evt).state());
+                }
+                ctx.close();
+                return;
+            }
+            super.userEventTriggered(ctx, evt);
+        }
+
+        /**
+         * Requests of a connection, only touched on its event loop
+         */
+        private static final class Requests {
+            private int active;
+            private long finishedNanos;
+        }
+    }
+
+    /**
+     * Answers requests that failed to decode, e.g. above the line or header
+     * size limit, and closes the connection
+     */
+    @ChannelHandler.Sharable
+    static final class BadRequestHandler extends ChannelInboundHandlerAdapter {
+
+        private final ServerCounters counters;
+
+        BadRequestHandler(ServerCounters counters) {
+            this.counters = counters;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            if (!(msg instanceof FullHttpRequest) || ((FullHttpRequest) msg).decoderResult().isSuccess()) {
+                super.channelRead(ctx, msg);
+                return;
+            }
+            Throwable cause = ((FullHttpRequest) msg).decoderResult().cause();
+            ReferenceCountUtil.release(msg);
+            counters.badRequests.increment();
+
+            StatusResponse statusResponse = StatusResponse.BAD_REQUEST;
+            if (cause instanceof TooLongHttpLineException) {
+                statusResponse = StatusResponse.URI_TOO_LONG;
+            } else if (cause instanceof TooLongHttpHeaderException) {
+                statusResponse = StatusResponse.HEADER_FIELDS_TOO_LARGE;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Bad request from {}: {}", ctx.channel().remoteAddress(), String.valueOf(cause));
+            }
+            FullHttpResponse response = statusResponse.newResponse(false);
+            response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+}
@@ -0,0 +1,160 @@
+package com.hellokaton.blade.server;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.MessageToByteEncoder;
+
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Gzip or deflate encoder of one response body, running on a deflater taken
+ * from the {@link DeflaterPool} and given back when the body is finished.
+ * <p>
+ * Each written chunk is sync flushed, the trailer is written on close.
+ */
+final class DeflateEncoder extends MessageToByteEncoder<ByteBuf> {
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+    private static final int GZIP_TRAILER_LENGTH = 8;
+
+    private final DeflaterPool pool;
+    private final boolean gzip;
+    private final ServerCounters counters;
+    private final CRC32 crc;
+
+    private Deflater deflater;
+    private boolean headerWritten;
+    private boolean finished;
+    private long nanos;
+
+    DeflateEncoder(DeflaterPool pool, boolean gzip, ServerCounters counters) {
+        this.pool = pool;
+        this.gzip = gzip;
+        this.counters = counters;
+        this.crc = gzip ? new CRC32() : null;
+    }
+
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, ByteBuf msg, boolean preferDirect) {
+        // the deflater writes into the backing array, sized like JdkZlibEncoder
+        int size = (int) Math.ceil(msg.readableBytes() * 1.001) + 12;
+        if (gzip && !headerWritten) {
+            size += GZIP_HEADER.length;
+        }
+        return ctx.alloc().heapBuffer(size);
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ByteBuf in, ByteBuf out) {
+        if (finished) {
+            out.writeBytes(in);
+            return;
+        }
+        long start = System.nanoTime();
+        this.writeHeader(out);
+        int len = in.readableBytes();
+        if (len == 0) {
+            return;
+        }
+        byte[] input;
+        int offset;
+        if (in.hasArray()) {
+            input = in.array();
+            offset = in.arrayOffset() + in.readerIndex();
+        } else {
+            input = new byte[len];
+            in.getBytes(in.readerIndex(), input);
+            offset = 0;
+        }
+        in.skipBytes(len);
+        if (gzip) {
+            crc.update(input, offset, len);
+        }
+        Deflater deflater = this.deflater();
+        deflater.setInput(input, offset, len);
+        for (; ; ) {
+            deflate(deflater, out, Deflater.SYNC_FLUSH);
+            if (!out.isWritable()) {
+                out.ensureWritable(out.writerIndex());
+            } else if (deflater.needsInput()) {
+                break;
+            }
+        }
+        nanos += System.nanoTime() - start;
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) {
+        if (!finished) {
+            ctx.writeAndFlush(this.finish(ctx));
+        }
+        ctx.close(promise);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        // a response aborted before its trailer was written
+        if (null != deflater) {
+            pool.release(deflater, gzip);
+            deflater = null;
+        }
+    }
+
+    private ByteBuf finish(ChannelHandlerContext ctx) {
+        long start = System.nanoTime();
+        finished = true;
+        ByteBuf footer = ctx.alloc().heapBuffer(64);
+        this.writeHeader(footer);
+        Deflater deflater = this.deflater();
+        deflater.finish();
+        while (!deflater.finished()) {
+            deflate(deflater, footer, Deflater.NO_FLUSH);
+            if (!footer.isWritable()) {
+                footer.ensureWritable(footer.writerIndex());
+            }
+        }
+        long bytesIn = deflater.getBytesRead();
+        long bytesOut = deflater.getBytesWritten();
+        if (gzip) {
+            footer.writeIntLE((int) crc.getValue());
+            footer.writeIntLE((int) bytesIn);
+            bytesOut += GZIP_HEADER.length + GZIP_TRAILER_LENGTH;
+        }
+        this.deflater = null;
+        pool.release(deflater, gzip);
+
+        if (null != counters) {
+            counters.compressedResponses.increment();
+            counters.compressionBytesIn.add(bytesIn);
+            counters.compressionBytesOut.add(bytesOut);
+            counters.compressionNanos.add(nanos + System.nanoTime() - start);
+        }
+        return footer;
+    }
+
+    private void writeHeader(ByteBuf out) {
+        if (gzip && !headerWritten) {
+            out.writeBytes(GZIP_HEADER);
+            headerWritten = true;
+        }
+    }
+
+    private Deflater deflater() {
+        if (null == deflater) {
+            deflater = pool.acquire(gzip);
+        }
+        return deflater;
+    }
+
+    private static void deflate(Deflater deflater, ByteBuf out, int flush) {
+        int numBytes;
+        do {
+            int writerIndex = out.writerIndex();
+            numBytes = deflater.deflate(out.array(), out.arrayOffset() + writerIndex, out.writableBytes(), flush);
+            out.writerIndex(writerIndex + numBytes);
+        } while (numBytes > 0);
+    }
+
+}
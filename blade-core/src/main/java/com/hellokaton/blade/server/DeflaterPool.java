@@ -0,0 +1,68 @@
+package com.hellokaton.blade.server;
+
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.util.ArrayDeque;
+import java.util.zip.Deflater;
+
+/**
+ * Deflaters kept per event loop thread, so a compressed response takes an idle
+ * one instead of allocating the native zlib stream of a new one.
+ */
+final class DeflaterPool {
+
+    /**
+     * Idle deflaters kept per thread and format, further ones are ended
+     */
+    private static final int MAX_IDLE = 16;
+
+    private final int level;
+    private final FastThreadLocal<ArrayDeque<Deflater>> gzip = new FastThreadLocal<ArrayDeque<Deflater>>() {
+        @Override
+        protected ArrayDeque<Deflater> initialValue() {
+            return new ArrayDeque<>(MAX_IDLE);
+        }
+    };
+    private final FastThreadLocal<ArrayDeque<Deflater>> zlib = new FastThreadLocal<ArrayDeque<Deflater>>() {
+        @Override
+        protected ArrayDeque<Deflater> initialValue() {
+            return new ArrayDeque<>(MAX_IDLE);
+        }
+    };
+
+    DeflaterPool(int level) {
+        this.level = level;
+    }
+
+    int level() {
+        return level;
+    }
+
+    /**
+     * @param nowrap true for the raw deflate stream of gzip, false for the zlib
+     *               stream of the deflate encoding
+     */
+    Deflater acquire(boolean nowrap) {
+        Deflater deflater = idle(nowrap).pollFirst();
+        return null != deflater ? deflater : new Deflater(level, nowrap);
+    }
+
+    void release(Deflater deflater, boolean nowrap) {
+        deflater.reset();
+        ArrayDeque<Deflater> idle = idle(nowrap);
+        if (idle.size() < MAX_IDLE) {
+            idle.offerFirst(deflater);
+        } else {
+            deflater.end();
+        }
+    }
+
+    int idleCount(boolean nowrap) {
+        return idle(nowrap).size();
+    }
+
+    private ArrayDeque<Deflater> idle(boolean nowrap) {
+        return nowrap ? gzip.get() : zlib.get();
+    }
+
+}
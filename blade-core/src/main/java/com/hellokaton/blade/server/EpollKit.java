@@ -2,9 +2,14 @@ package com.hellokaton.blade.server;
 
 import com.hellokaton.blade.kit.NamedThreadFactory;
 import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
 import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
 import lombok.var;
 
+import java.net.SocketAddress;
+import java.util.function.IntConsumer;
+
 /**
  * Epoll kit
  * <p>
@@ -15,10 +20,17 @@ import lombok.var;
  */
 class EpollKit {
 
-    static NettyServerGroup group(int threadCount, int workers) {
+    static NettyServerGroup group(int threadCount, int workers, IntConsumer workerStart) {
         var bossGroup   = new EpollEventLoopGroup(threadCount, new NamedThreadFactory("epoll-boss@"));
-        var workerGroup = new EpollEventLoopGroup(workers, new NamedThreadFactory("epoll-worker@"));
-        return NettyServerGroup.builder().boosGroup(bossGroup).workerGroup(workerGroup).socketChannel(EpollServerSocketChannel.class).build();
+        var workerGroup = new EpollEventLoopGroup(workers, new NamedThreadFactory("epoll-worker@", workerStart));
+        return NettyServerGroup.builder().boosGroup(bossGroup).workerGroup(workerGroup)
+                .socketChannel(EpollServerSocketChannel.class)
+                .domainSocketChannel(EpollServerDomainSocketChannel.class)
+                .build();
+    }
+
+    static SocketAddress domainSocketAddress(String path) {
+        return new DomainSocketAddress(path);
     }
 
 }
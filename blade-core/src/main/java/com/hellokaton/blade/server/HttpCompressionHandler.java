@@ -0,0 +1,105 @@
+package com.hellokaton.blade.server;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.Brotli;
+import io.netty.handler.codec.compression.CompressionOptions;
+import io.netty.handler.codec.compression.StandardCompressionOptions;
+import io.netty.handler.codec.http.*;
+
+import java.util.Set;
+
+/**
+ * Response compression of the http server.
+ * <p>
+ * Unlike the plain {@link HttpContentCompressor} it leaves alone:
+ * <ul>
+ *     <li>bodies smaller than the threshold</li>
+ *     <li>content types that are compressed already, such as images and archives</li>
+ *     <li>streamed responses, such as file downloads written as file regions</li>
+ *     <li>responses with a Content-Encoding, where identity is how a route opts out</li>
+ * </ul>
+ * Gzip and deflate run on deflaters pooled per event loop, brotli is offered when
+ * the optional brotli4j codec is on the classpath.
+ */
+final class HttpCompressionHandler extends HttpContentCompressor {
+
+    private static final String IDENTITY = "identity";
+
+    private final int threshold;
+    private final Set<String> incompressibleTypes;
+    private final DeflaterPool deflaterPool;
+    private final ServerCounters counters;
+
+    private ChannelHandlerContext ctx;
+
+    HttpCompressionHandler(int threshold, Set<String> incompressibleTypes,
+                           DeflaterPool deflaterPool, ServerCounters counters) {
+        super(threshold, compressionOptions(deflaterPool.level()));
+        this.threshold = threshold;
+        this.incompressibleTypes = incompressibleTypes;
+        this.deflaterPool = deflaterPool;
+        this.counters = counters;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+        super.handlerAdded(ctx);
+    }
+
+    @Override
+    protected Result beginEncode(HttpResponse response, String acceptEncoding) throws Exception {
+        HttpHeaders headers = response.headers();
+        String contentEncoding = headers.get(HttpHeaderNames.CONTENT_ENCODING);
+        if (null != contentEncoding) {
+            if (IDENTITY.equalsIgnoreCase(contentEncoding)) {
+                headers.remove(HttpHeaderNames.CONTENT_ENCODING);
+            }
+            return null;
+        }
+        if (!(response instanceof FullHttpResponse)
+                || ((FullHttpResponse) response).content().readableBytes() < threshold
+                || isIncompressible(incompressibleTypes, headers.get(HttpHeaderNames.CONTENT_TYPE))) {
+            return null;
+        }
+
+        String encoding = determineEncoding(acceptEncoding);
+        if (null == encoding) {
+            return null;
+        }
+        boolean gzip = HttpHeaderValues.GZIP.contentEqualsIgnoreCase(encoding);
+        if (!gzip && !HttpHeaderValues.DEFLATE.contentEqualsIgnoreCase(encoding)) {
+            return super.beginEncode(response, acceptEncoding);
+        }
+        return new Result(encoding, new EmbeddedChannel(ctx.channel().id(),
+                ctx.channel().metadata().hasDisconnect(), ctx.channel().config(),
+                new DeflateEncoder(deflaterPool, gzip, counters)));
+    }
+
+    /**
+     * @param incompressibleTypes mime types, or a whole type such as video/*
+     */
+    static boolean isIncompressible(Set<String> incompressibleTypes, String contentType) {
+        if (null == contentType || incompressibleTypes.isEmpty()) {
+            return false;
+        }
+        int end = contentType.indexOf(';');
+        String mimeType = (end < 0 ? contentType : contentType.substring(0, end)).trim().toLowerCase();
+        if (incompressibleTypes.contains(mimeType)) {
+            return true;
+        }
+        int slash = mimeType.indexOf('/');
+        return slash > 0 && incompressibleTypes.contains(mimeType.substring(0, slash + 1) + "*");
+    }
+
+    private static CompressionOptions[] compressionOptions(int level) {
+        CompressionOptions gzip = StandardCompressionOptions.gzip(level, 15, 8);
+        CompressionOptions deflate = StandardCompressionOptions.deflate(level, 15, 8);
+        if (Brotli.isAvailable()) {
+            return new CompressionOptions[]{StandardCompressionOptions.brotli(), gzip, deflate};
+        }
+        return new CompressionOptions[]{gzip, deflate};
+    }
+
+}
@@ -15,34 +15,51 @@
  */
 package com.hellokaton.blade.server;
 
+import com.hellokaton.blade.EnvironmentSnapshot;
 import com.hellokaton.blade.exception.BladeException;
+import com.hellokaton.blade.exception.MethodNotAllowedException;
 import com.hellokaton.blade.exception.NotFoundException;
 import com.hellokaton.blade.kit.BladeCache;
-import com.hellokaton.blade.kit.LRUSet;
+import com.hellokaton.blade.kit.IOKit;
 import com.hellokaton.blade.mvc.WebContext;
+import com.hellokaton.blade.mvc.HttpConst;
+import com.hellokaton.blade.mvc.handler.DefaultExceptionHandler;
 import com.hellokaton.blade.mvc.handler.ExceptionHandler;
+import com.hellokaton.blade.mvc.http.BodyWriter;
+import com.hellokaton.blade.mvc.http.ByteBody;
 import com.hellokaton.blade.mvc.http.HttpMethod;
 import com.hellokaton.blade.mvc.http.HttpRequest;
 import com.hellokaton.blade.mvc.http.HttpResponse;
+import com.hellokaton.blade.mvc.http.RawBody;
 import com.hellokaton.blade.mvc.http.Request;
+import com.hellokaton.blade.mvc.http.Response;
+import com.hellokaton.blade.mvc.http.StaticFileBody;
+import com.hellokaton.blade.mvc.http.ViewBody;
 import com.hellokaton.blade.mvc.route.Route;
 import com.hellokaton.blade.mvc.route.RouteMatcher;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.ReferenceCountUtil;
 import io.netty.util.concurrent.FastThreadLocal;
 import lombok.extern.slf4j.Slf4j;
 
+import java.nio.channels.FileChannel;
 import java.time.Instant;
-import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import static com.hellokaton.blade.kit.BladeKit.log200AndCost;
+import static com.hellokaton.blade.kit.BladeKit.log404;
+import static com.hellokaton.blade.kit.BladeKit.log405;
 import static com.hellokaton.blade.kit.BladeKit.log500;
 import static com.hellokaton.blade.mvc.BladeConst.*;
 import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
@@ -59,22 +76,46 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<HttpRequest>
 
     public static final FastThreadLocal<WebContext> WEB_CONTEXT_THREAD_LOCAL = new FastThreadLocal<>();
 
+    /**
+     * Releases a body that will not be written
+     */
+    private static final BodyWriter DISCARD_BODY = new BodyWriter() {
+
+        @Override
+        public io.netty.handler.codec.http.HttpResponse onView(ViewBody body) {
+            return null;
+        }
+
+        @Override
+        public io.netty.handler.codec.http.HttpResponse onStatic(StaticFileBody body) {
+            return null;
+        }
+
+        @Override
+        public io.netty.handler.codec.http.HttpResponse onRawBody(RawBody body) {
+            ReferenceCountUtil.release(body.httpResponse());
+            return null;
+        }
+
+        @Override
+        public io.netty.handler.codec.http.HttpResponse onByteBuf(ByteBuf byteBuf) {
+            ReferenceCountUtil.release(byteBuf);
+            return null;
+        }
+
+        @Override
+        public io.netty.handler.codec.http.HttpResponse onByteBuf(String fileName, FileChannel channel) {
+            IOKit.closeQuietly(channel);
+            return null;
+        }
+    };
+
     static final StaticFileHandler staticFileHandler = new StaticFileHandler(WebContext.blade());
 
     static final RouteMatcher routeMatcher = WebContext.blade().routeMatcher();
 
     private final RouteMethodHandler routeHandler = new RouteMethodHandler();
-    private final Set<String> notStaticUri = new LRUSet<>(128);
-
-    private boolean recordRequestLog() {
-        return WebContext.blade().environment()
-                .getBoolean(ENV_KEY_REQUEST_LOG, true);
-    }
-
-    private boolean enablePerformance() {
-        return WebContext.blade().environment()
-                .getBoolean(ENV_KEY_PERFORMANCE, false);
-    }
+    private final StaticPaths staticPaths = StaticPaths.compile(WebContext.blade().staticOptions().getPaths());
 
     @Override
     public void channelReadComplete(ChannelHandlerContext ctx) {
@@ -84,14 +125,16 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<HttpRequest>
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, HttpRequest httpRequest) {
         CompletableFuture<HttpRequest> future = CompletableFuture.completedFuture(httpRequest);
+        Deadline deadline = new Deadline(System.nanoTime());
+        ConnectionGuard.IdleCloser.requestStarted(ctx.channel());
 
         Executor executor = ctx.executor();
 
         future.thenApplyAsync(req -> buildWebContext(ctx, req), executor)
-                .thenApplyAsync(this::executeLogic, executor)
-                .thenApplyAsync(this::buildResponse, executor)
-                .exceptionally(this::handleException)
-                .thenAcceptAsync(msg -> writeResponse(ctx, future, msg), ctx.channel().eventLoop());
+                .thenApplyAsync(webContext -> executeLogic(webContext, deadline), executor)
+                .thenApplyAsync(webContext -> buildResponse(webContext, deadline), executor)
+                .exceptionally(e -> handleException(e, deadline))
+                .thenAcceptAsync(msg -> writeResponse(ctx, future, httpRequest, msg, deadline), ctx.channel().eventLoop());
     }
 
     private WebContext buildWebContext(ChannelHandlerContext ctx,
@@ -99,12 +142,25 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<HttpRequest>
         return WebContext.create(req, new HttpResponse(), ctx);
     }
 
-    private void writeResponse(ChannelHandlerContext ctx, CompletableFuture<HttpRequest> future, io.netty.handler.codec.http.HttpResponse msg) {
-        ctx.writeAndFlush(msg);
+    private void writeResponse(ChannelHandlerContext ctx, CompletableFuture<HttpRequest> future,
+                               HttpRequest httpRequest, io.netty.handler.codec.http.HttpResponse msg,
+                               Deadline deadline) {
+        // the timer has answered with a 504 already
+        if (deadline.expired) {
+            return;
+        }
+        // static and file bodies have already written themselves
+        if (null != msg) {
+            ctx.writeAndFlush(msg).addListener(f -> httpRequest.cleanup());
+        } else {
+            httpRequest.cleanup();
+        }
+        ConnectionGuard.IdleCloser.requestFinished(ctx.channel());
         future.complete(null);
     }
 
-    private io.netty.handler.codec.http.HttpResponse handleException(Throwable e) {
+    private io.netty.handler.codec.http.HttpResponse handleException(Throwable e, Deadline deadline) {
+        deadline.cancel();
         Request request = WebContext.request();
         String method = request.method();
         String uri = request.uri();
@@ -122,12 +178,66 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<HttpRequest>
         return routeHandler.handleResponse(WebContext.get());
     }
 
-    private io.netty.handler.codec.http.HttpResponse buildResponse(WebContext webContext) {
+    io.netty.handler.codec.http.HttpResponse buildResponse(WebContext webContext, Deadline deadline) {
+        deadline.cancel();
+        if (deadline.expired) {
+            return null;
+        }
         WebContext.set(webContext);
         return routeHandler.handleResponse(webContext);
     }
 
-    private WebContext executeLogic(WebContext webContext) {
+    /**
+     * Arms the request timeout of the route. Routes run on the event loop and can
+     * not be interrupted, so the timer fires once the loop is free again and
+     * answers with a 504 unless the response has been built by then
+     *
+     * @return false when the deadline passed while the request was queued
+     */
+    boolean startDeadline(WebContext webContext, Deadline deadline) {
+        int timeout = WebContext.blade().httpOptions().requestTimeout(webContext.getRoute().getPath());
+        if (timeout <= 0) {
+            return true;
+        }
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeout) - (System.nanoTime() - deadline.startNanos);
+        if (remaining <= 0) {
+            return false;
+        }
+        deadline.timer = webContext.getChannelHandlerContext().executor()
+                .schedule(() -> this.expire(webContext, deadline), remaining, TimeUnit.NANOSECONDS);
+        return true;
+    }
+
+    private void expire(WebContext webContext, Deadline deadline) {
+        deadline.timer = null;
+        deadline.expired = true;
+        WebContext.set(webContext);
+        this.replaceWithTimeout(webContext);
+
+        ChannelHandlerContext ctx = webContext.getChannelHandlerContext();
+        HttpRequest httpRequest = (HttpRequest) webContext.getRequest();
+        ctx.writeAndFlush(routeHandler.handleResponse(webContext)).addListener(f -> httpRequest.cleanup());
+        ConnectionGuard.IdleCloser.requestFinished(ctx.channel());
+    }
+
+    /**
+     * The late body is released and replaced by a 504, which is written like a
+     * route response so the session cookie is kept
+     */
+    private void replaceWithTimeout(WebContext webContext) {
+        Request request = webContext.getRequest();
+        Response response = webContext.getResponse();
+        WebContext.blade().serverCounters().timedOutRequests.increment();
+        log.warn("{}  {}\t{}", BladeCache.getPaddingMethod(request.method()), request.uri(), "missed the request timeout");
+
+        response.body().write(DISCARD_BODY);
+        FullHttpResponse timeout = StatusResponse.GATEWAY_TIMEOUT.newResponse(acceptJson(request));
+        response.status(timeout.status().code());
+        response.contentType(timeout.headers().get(HttpHeaderNames.CONTENT_TYPE));
+        response.body(ByteBody.of(timeout.content()));
+    }
+
+    private WebContext executeLogic(WebContext webContext, Deadline deadline) {
         try {
             WebContext.set(webContext);
             Request request = webContext.getRequest();
@@ -144,15 +254,37 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<HttpRequest>
             if (null != route) {
                 webContext.setRoute(route);
             } else {
-                throw new NotFoundException(uri);
+                boolean methodNotAllowed = routeMatcher.hasPath(uri);
+                if (!useStatusResponse()) {
+                    throw methodNotAllowed ? new MethodNotAllowedException(method.name() + " " + uri) : new NotFoundException(uri);
+                }
+                String paddingMethod = BladeCache.getPaddingMethod(method.name());
+                StatusResponse statusResponse;
+                if (methodNotAllowed) {
+                    log405(log, paddingMethod, uri);
+                    statusResponse = StatusResponse.METHOD_NOT_ALLOWED;
+                } else {
+                    log404(log, paddingMethod, uri);
+                    statusResponse = StatusResponse.NOT_FOUND;
+                }
+                Response response = webContext.getResponse();
+                response.status(statusResponse == StatusResponse.NOT_FOUND ? NotFoundException.STATUS : MethodNotAllowedException.STATUS);
+                response.body(new RawBody(statusResponse.newResponse(acceptJson(request))));
+                return webContext;
+            }
+            if (!this.startDeadline(webContext, deadline)) {
+                // not worth running the route any more
+                this.replaceWithTimeout(webContext);
+                return webContext;
             }
             routeHandler.handle(webContext);
 
-            if (enablePerformance()) {
+            EnvironmentSnapshot snapshot = WebContext.blade().snapshot();
+            if (snapshot.isPerformance()) {
                 return webContext;
             }
 
-            if (recordRequestLog()) {
+            if (snapshot.isRequestLog()) {
                 long cost = log200AndCost(log, start, BladeCache.getPaddingMethod(method.name()), uri);
                 request.attribute(REQUEST_COST_TIME_ATTR, cost);
             }
@@ -162,6 +294,24 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<HttpRequest>
         }
     }
 
+    /**
+     * Misses skip the exception handler unless the application customized
+     * the handler or the 404 page
+     */
+    private boolean useStatusResponse() {
+        ExceptionHandler exceptionHandler = WebContext.blade().exceptionHandler();
+        return null != exceptionHandler && exceptionHandler.getClass() == DefaultExceptionHandler.class
+                && null == WebContext.blade().snapshot().getPage404();
+    }
+
+    private boolean acceptJson(Request request) {
+        String accept = request.header(HttpConst.HEADER_ACCEPT);
+        if (accept.isEmpty()) {
+            return request.isJsonRequest();
+        }
+        return accept.contains("json") && !accept.contains("html");
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
         if (!ExceptionHandler.isResetByPeer(cause)) {
@@ -172,21 +322,31 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<HttpRequest>
     }
 
     private boolean isStaticFile(HttpMethod method, String uri) {
-        if (!HttpMethod.GET.equals(method) || notStaticUri.contains(uri)) {
+        if (!HttpMethod.GET.equals(method)) {
             return false;
         }
+        return FAVICON_PATH.equals(uri) || staticPaths.matches(uri);
+    }
 
-        if (FAVICON_PATH.equals(uri)) {
-            return true;
-        }
+    /**
+     * Request timeout state of one request, only touched on its event loop
+     */
+    static final class Deadline {
 
-        Set<String> paths = WebContext.blade().staticOptions().getPaths();
-        if (paths.stream().noneMatch(s -> s.equals(uri) || uri.startsWith(s))) {
-            notStaticUri.add(uri);
-            return false;
+        private final long startNanos;
+        private ScheduledFuture<?> timer;
+        private boolean expired;
+
+        Deadline(long startNanos) {
+            this.startNanos = startNanos;
         }
 
-        return true;
+        private void cancel() {
+            if (null != timer) {
+                timer.cancel(false);
+                timer = null;
+            }
+        }
     }
 
 }
\ No newline at end of file
@@ -7,24 +7,34 @@ import com.hellokaton.blade.options.CorsOptions;
 import com.hellokaton.blade.options.HttpOptions;
 import com.hellokaton.blade.options.StaticOptions;
 import com.hellokaton.blade.server.decode.FullHttpRequestDecode;
+import com.hellokaton.blade.mvc.http.HttpRequest;
 import com.hellokaton.blade.server.decode.HttpObjectAggregatorDecode;
+import com.hellokaton.blade.server.decode.MultipartRequestDecode;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.codec.http.HttpContentCompressor;
 import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectDecoder;
 import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.codec.http.HttpServerExpectContinueHandler;
 import io.netty.handler.codec.http.cors.CorsConfig;
 import io.netty.handler.codec.http.cors.CorsConfigBuilder;
 import io.netty.handler.codec.http.cors.CorsHandler;
+import io.netty.handler.codec.http.multipart.HttpDataFactory;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.AsciiString;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import static com.hellokaton.blade.mvc.BladeConst.*;
 
@@ -32,44 +42,83 @@ import static com.hellokaton.blade.mvc.BladeConst.*;
  * HttpServerInitializer
  */
 @Slf4j
-public class HttpServerInitializer extends ChannelInitializer<SocketChannel> {
+public class HttpServerInitializer extends ChannelInitializer<Channel> {
 
     private final HttpServerHandler httpServerHandler;
     private final SslContext sslCtx;
+    private final List<Supplier<? extends ChannelHandler>> channelHandlers;
     private CorsConfig corsConfig;
     private int maxContentSize;
     private boolean enableGzip;
+    private DeflaterPool deflaterPool;
+    private int compressionThreshold;
+    private Set<String> incompressibleTypes;
+    private int readIdleTimeout;
+    private int writeIdleTimeout;
+    private int maxInitialLineLength;
+    private int maxHeaderSize;
+    private long maxMultipartSize;
+    private HttpDataFactory httpDataFactory;
+    private final ServerCounters serverCounters;
+    private final ConnectionGuard connectionGuard;
+    private final ConnectionGuard.IdleCloser idleCloser;
+    private final ConnectionGuard.BadRequestHandler badRequestHandler;
 
     public static volatile String date = DateKit.gmtDate(LocalDateTime.now());
 
+    /**
+     * {@link #date} as the Date header value of the responses, encoded once per second
+     */
+    static volatile AsciiString dateHeader = AsciiString.cached(date);
+
 
     public HttpServerInitializer(SslContext sslCtx, Blade blade, ScheduledExecutorService service) {
         this.sslCtx = sslCtx;
         this.httpServerHandler = new HttpServerHandler();
+        this.channelHandlers = blade.channelHandlers();
         this.mergeCorsConfig(blade.corsOptions());
         this.mergeStaticOptions(blade.staticOptions(), blade.environment());
         this.mergeHttpOptions(blade.httpOptions(), blade.environment());
-        service.scheduleWithFixedDelay(() -> date = DateKit.gmtDate(LocalDateTime.now()), 1000, 1000, TimeUnit.MILLISECONDS);
+        this.serverCounters = blade.serverCounters();
+        this.connectionGuard = new ConnectionGuard(blade.httpOptions().getMaxConnections(),
+                blade.httpOptions().getMaxConnectionsPerIp(), null == sslCtx, serverCounters);
+        this.idleCloser = new ConnectionGuard.IdleCloser(serverCounters, TimeUnit.SECONDS.toNanos(readIdleTimeout));
+        this.badRequestHandler = new ConnectionGuard.BadRequestHandler(serverCounters);
+        service.scheduleWithFixedDelay(HttpServerInitializer::updateDate, 1000, 1000, TimeUnit.MILLISECONDS);
     }
 
 
     @Override
-    protected void initChannel(SocketChannel ch) {
+    protected void initChannel(Channel ch) {
         ChannelPipeline pipeline = ch.pipeline();
         try {
+            pipeline.addLast(connectionGuard);
+            // responses written outside the read loop are flushed once per batch
+            pipeline.addLast(new FlushConsolidationHandler(
+                    FlushConsolidationHandler.DEFAULT_EXPLICIT_FLUSH_AFTER_FLUSHES, true));
             if (sslCtx != null) {
                 pipeline.addLast(sslCtx.newHandler(ch.alloc()));
             }
-            pipeline.addLast(new HttpServerCodec());
+            if (readIdleTimeout > 0 || writeIdleTimeout > 0) {
+                pipeline.addLast(new IdleStateHandler(readIdleTimeout, writeIdleTimeout, 0, TimeUnit.SECONDS));
+                pipeline.addLast(idleCloser);
+            }
+            pipeline.addLast(new HttpServerCodec(maxInitialLineLength, maxHeaderSize, HttpObjectDecoder.DEFAULT_MAX_CHUNK_SIZE));
+            pipeline.addLast(new MultipartRequestDecode(httpDataFactory, maxMultipartSize));
             pipeline.addLast(new HttpObjectAggregatorDecode(maxContentSize));
+            pipeline.addLast(badRequestHandler);
             pipeline.addLast(new HttpServerExpectContinueHandler());
 
             if (enableGzip) {
-                pipeline.addLast(new HttpContentCompressor());
+                pipeline.addLast(new HttpCompressionHandler(compressionThreshold, incompressibleTypes,
+                        deflaterPool, serverCounters));
             }
             if (null != corsConfig) {
                 pipeline.addLast(new CorsHandler(corsConfig));
             }
+            for (Supplier<? extends ChannelHandler> channelHandler : channelHandlers) {
+                pipeline.addLast(channelHandler.get());
+            }
             pipeline.addLast(new FullHttpRequestDecode());
             pipeline.addLast(new ChunkedWriteHandler());
             pipeline.addLast(httpServerHandler);
@@ -78,6 +127,12 @@ public class HttpServerInitializer extends ChannelInitializer<SocketChannel> {
         }
     }
 
+    private static void updateDate() {
+        String now = DateKit.gmtDate(LocalDateTime.now());
+        dateHeader = AsciiString.cached(now);
+        date = now;
+    }
+
     private void mergeCorsConfig(CorsOptions corsOptions) {
         if (null == corsOptions) {
             return;
@@ -152,6 +207,12 @@ public class HttpServerInitializer extends ChannelInitializer<SocketChannel> {
             this.enableGzip = environment.getBoolean(ENV_KEY_GZIP_ENABLE, false);
             httpOptions.setEnableGzip(enableGzip);
         }
+        httpOptions.setCompressionThreshold(this.compressionThreshold = mergeInt(environment, ENV_KEY_GZIP_THRESHOLD,
+                httpOptions.getCompressionThreshold(), HttpOptions.DEFAULT_COMPRESSION_THRESHOLD));
+        httpOptions.setCompressionLevel(mergeInt(environment, ENV_KEY_GZIP_LEVEL,
+                httpOptions.getCompressionLevel(), HttpOptions.DEFAULT_COMPRESSION_LEVEL));
+        this.incompressibleTypes = httpOptions.getIncompressibleTypes();
+        this.deflaterPool = new DeflaterPool(httpOptions.getCompressionLevel());
 
         boolean requestCost = httpOptions.isEnableRequestCost();
         if (requestCost) {
@@ -161,6 +222,37 @@ public class HttpServerInitializer extends ChannelInitializer<SocketChannel> {
             httpOptions.setEnableRequestCost(requestCost);
         }
 
+        httpOptions.setReadIdleTimeout(this.readIdleTimeout = mergeInt(environment, ENV_KEY_HTTP_READ_IDLE_TIMEOUT,
+                httpOptions.getReadIdleTimeout(), 0));
+        httpOptions.setWriteIdleTimeout(this.writeIdleTimeout = mergeInt(environment, ENV_KEY_HTTP_WRITE_IDLE_TIMEOUT,
+                httpOptions.getWriteIdleTimeout(), 0));
+        httpOptions.setMaxConnections(mergeInt(environment, ENV_KEY_HTTP_MAX_CONNECTIONS,
+                httpOptions.getMaxConnections(), 0));
+        httpOptions.setMaxConnectionsPerIp(mergeInt(environment, ENV_KEY_HTTP_MAX_CONNECTIONS_PER_IP,
+                httpOptions.getMaxConnectionsPerIp(), 0));
+        httpOptions.setMaxInitialLineLength(this.maxInitialLineLength = mergeInt(environment, ENV_KEY_HTTP_MAX_INITIAL_LINE_LENGTH,
+                httpOptions.getMaxInitialLineLength(), HttpOptions.DEFAULT_MAX_INITIAL_LINE_LENGTH));
+        httpOptions.setMaxHeaderSize(this.maxHeaderSize = mergeInt(environment, ENV_KEY_HTTP_MAX_HEADER_SIZE,
+                httpOptions.getMaxHeaderSize(), HttpOptions.DEFAULT_MAX_HEADER_SIZE));
+        httpOptions.setRequestTimeout(mergeInt(environment, ENV_KEY_HTTP_REQUEST_TIMEOUT,
+                httpOptions.getRequestTimeout(), 0));
+
+        String uploadDir = httpOptions.getUploadDir();
+        if (null != uploadDir) {
+            environment.set(ENV_KEY_HTTP_UPLOAD_DIR, uploadDir);
+        } else {
+            uploadDir = environment.getOrNull(ENV_KEY_HTTP_UPLOAD_DIR);
+            httpOptions.setUploadDir(uploadDir);
+        }
+        httpOptions.setMaxFileSize(mergeLong(environment, ENV_KEY_HTTP_MAX_FILE_SIZE,
+                httpOptions.getMaxFileSize(), -1));
+        httpOptions.setMaxMultipartSize(this.maxMultipartSize = mergeLong(environment, ENV_KEY_HTTP_MAX_MULTIPART_SIZE,
+                httpOptions.getMaxMultipartSize(), -1));
+        if (this.maxMultipartSize < 0) {
+            this.maxMultipartSize = this.maxContentSize;
+        }
+        this.httpDataFactory = HttpRequest.newHttpDataFactory(uploadDir, httpOptions.getMaxFileSize());
+
         boolean enableSession = httpOptions.isEnableSession();
         if (enableSession) {
             environment.set(ENV_KEY_SESSION_ENABLED, true);
@@ -170,4 +262,23 @@ public class HttpServerInitializer extends ChannelInitializer<SocketChannel> {
         }
     }
 
+    /**
+     * A value set on the options wins, otherwise the environment provides it
+     */
+    private static int mergeInt(Environment environment, String key, int value, int defaultValue) {
+        if (value != defaultValue) {
+            environment.set(key, value);
+            return value;
+        }
+        return environment.getInt(key, defaultValue);
+    }
+
+    private static long mergeLong(Environment environment, String key, long value, long defaultValue) {
+        if (value != defaultValue) {
+            environment.set(key, value);
+            return value;
+        }
+        return environment.getLong(key, defaultValue);
+    }
+
 }
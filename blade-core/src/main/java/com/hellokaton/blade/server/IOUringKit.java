@@ -0,0 +1,41 @@
+package com.hellokaton.blade.server;
+
+import com.hellokaton.blade.kit.NamedThreadFactory;
+import io.netty.channel.MultithreadEventLoopGroup;
+import io.netty.channel.socket.ServerSocketChannel;
+import lombok.var;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.IntConsumer;
+
+/**
+ * io_uring kit
+ * <p>
+ * The io_uring transport is an optional incubator module, it is loaded by
+ * reflection when netty-incubator-transport-native-io_uring is on the classpath.
+ */
+class IOUringKit {
+
+    private static final String PACKAGE = "io.netty.incubator.channel.uring.";
+
+    static boolean isAvailable() {
+        try {
+            Object obj = Class.forName(PACKAGE + "IOUring").getMethod("isAvailable").invoke(null);
+            return Boolean.TRUE.equals(obj) && System.getProperty("os.name").toLowerCase().contains("linux");
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static NettyServerGroup group(int threadCount, int workers, IntConsumer workerStart) throws ReflectiveOperationException {
+        Constructor<?> constructor = Class.forName(PACKAGE + "IOUringEventLoopGroup")
+                .getConstructor(int.class, ThreadFactory.class);
+        var bossGroup = (MultithreadEventLoopGroup) constructor.newInstance(threadCount, new NamedThreadFactory("io_uring-boss@"));
+        var workerGroup = (MultithreadEventLoopGroup) constructor.newInstance(workers, new NamedThreadFactory("io_uring-worker@", workerStart));
+        var socketChannel = (Class<? extends ServerSocketChannel>) Class.forName(PACKAGE + "IOUringServerSocketChannel");
+        return NettyServerGroup.builder().boosGroup(bossGroup).workerGroup(workerGroup).socketChannel(socketChannel).build();
+    }
+
+}
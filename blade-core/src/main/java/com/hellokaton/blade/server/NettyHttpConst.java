@@ -1,5 +1,8 @@
 package com.hellokaton.blade.server;
 
+import com.hellokaton.blade.mvc.HttpConst;
+import io.netty.util.AsciiString;
+
 /**
  * Http headers const
  *
@@ -12,4 +15,14 @@ public interface NettyHttpConst {
     char CHAR_SLASH = '/';
     char CHAR_POINT = '.';
 
+    AsciiString SERVER_VALUE = AsciiString.cached(HttpConst.HEADER_SERVER_VALUE);
+
+    AsciiString CONTENT_DISPOSITION = AsciiString.cached("Content-Disposition");
+
+    AsciiString CONTENT_TYPE_HTML = AsciiString.cached(HttpConst.CONTENT_TYPE_HTML);
+    AsciiString CONTENT_TYPE_XML = AsciiString.cached(HttpConst.CONTENT_TYPE_XML);
+    AsciiString CONTENT_TYPE_JSON = AsciiString.cached(HttpConst.CONTENT_TYPE_JSON);
+    AsciiString CONTENT_TYPE_TEXT = AsciiString.cached(HttpConst.CONTENT_TYPE_TEXT);
+    AsciiString CONTENT_TYPE_STREAM = AsciiString.cached(HttpConst.CONTENT_TYPE_STREAM);
+
 }
@@ -17,10 +17,12 @@ package com.hellokaton.blade.server;
 
 import com.hellokaton.blade.Blade;
 import com.hellokaton.blade.Environment;
+import com.hellokaton.blade.EnvironmentSnapshot;
 import com.hellokaton.blade.annotation.Path;
 import com.hellokaton.blade.annotation.URLPattern;
 import com.hellokaton.blade.event.Event;
 import com.hellokaton.blade.event.EventType;
+import com.hellokaton.blade.ioc.ComponentIndex;
 import com.hellokaton.blade.ioc.DynamicContext;
 import com.hellokaton.blade.ioc.Ioc;
 import com.hellokaton.blade.ioc.annotation.Bean;
@@ -37,6 +39,7 @@ import com.hellokaton.blade.mvc.handler.DefaultExceptionHandler;
 import com.hellokaton.blade.mvc.handler.ExceptionHandler;
 import com.hellokaton.blade.mvc.hook.WebHook;
 import com.hellokaton.blade.mvc.http.session.SessionCleaner;
+import com.hellokaton.blade.mvc.http.session.SessionManager;
 import com.hellokaton.blade.mvc.route.RouteBuilder;
 import com.hellokaton.blade.mvc.route.RouteMatcher;
 import com.hellokaton.blade.mvc.ui.template.DefaultEngine;
@@ -52,20 +55,28 @@ import com.hellokaton.blade.watcher.EnvironmentWatcher;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
 import io.netty.channel.epoll.EpollChannelOption;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.ResourceLeakDetector;
 import lombok.extern.slf4j.Slf4j;
 import lombok.var;
 
 import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -84,13 +95,21 @@ import static com.hellokaton.blade.mvc.BladeConst.*;
 @Slf4j
 public class NettyServer implements Server {
 
+    /**
+     * Every class that parseAndCreate registers carries one of these annotations
+     */
+    private static final Set<Class<? extends Annotation>> SCAN_ANNOTATIONS = new HashSet<>(
+            Arrays.asList(Bean.class, Value.class, Path.class, Configuration.class));
+
     private Blade blade;
     private Environment environment;
     private EventLoopGroup bossGroup;
     private EventLoop scheduleEventLoop;
     private EventLoopGroup workerGroup;
-    private Channel channel;
+    private final List<Channel> channels = new ArrayList<>(2);
+    private String unixSocket;
     private RouteBuilder routeBuilder;
+    private ComponentIndex componentIndex;
     private List<BladeLoader> loaders;
     private final List<TaskStruct> taskStruts = new ArrayList<>();
 
@@ -98,6 +117,12 @@ public class NettyServer implements Server {
     private static final int DEFAULT_ACCEPT_THREAD_COUNT = 1;
     private static final int DEFAULT_IO_THREAD_COUNT = 0;
 
+    /**
+     * File type bits of the unix mode, and the type of a socket
+     */
+    private static final int S_IFMT = 0170000;
+    private static final int S_IFSOCK = 0140000;
+
     private volatile boolean stopped;
 
     @Override
@@ -134,11 +159,26 @@ public class NettyServer implements Server {
     }
 
     private void sessionCleaner() {
-        if (null != blade.sessionManager()) {
+        SessionManager sessionManager = blade.sessionManager();
+        // cookie sessions keep no server-side state
+        if (blade.httpOptions().isCookieSession() || StringKit.isNotBlank(environment.get(ENV_KEY_SESSION_SECRETS, null))) {
+            return;
+        }
+        if (null != sessionManager) {
             scheduleEventLoop.
-                    scheduleWithFixedDelay(new SessionCleaner(blade.sessionManager()),
+                    scheduleWithFixedDelay(new SessionCleaner(sessionManager),
                             1000, 1000, TimeUnit.MILLISECONDS);
         }
+        if (null != sessionManager && null != sessionManager.sessionStore()) {
+            int flushInterval = blade.snapshot().getSessionFlushInterval();
+            int nearCacheIdle = blade.snapshot().getSessionNearCacheIdle();
+            scheduleEventLoop.
+                    scheduleWithFixedDelay(() -> {
+                                sessionManager.flush();
+                                sessionManager.evictIdle(nearCacheIdle);
+                            },
+                            flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        }
     }
 
     private void initIoc() {
@@ -146,10 +186,20 @@ public class NettyServer implements Server {
 
         routeBuilder = new RouteBuilder(routeMatcher);
 
+        if (environment.getBoolean(ENV_KEY_APP_COMPONENT_INDEX, true)) {
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            componentIndex = ComponentIndex.load(null != classLoader ? classLoader : NettyServer.class.getClassLoader());
+        }
+
+        String scanIndex = environment.get(ENV_KEY_APP_SCAN_INDEX, null);
         blade.scanPackages().stream()
-                .flatMap(DynamicContext::recursionFindClasses)
-                .map(ClassInfo::getClazz)
-                .filter(ReflectKit::isNormalClass)
+                .flatMap(packageName -> {
+                    if (null != componentIndex && componentIndex.covers(packageName)) {
+                        return componentIndex.classes(packageName).stream();
+                    }
+                    return DynamicContext.findAnnotatedClasses(packageName, scanIndex, SCAN_ANNOTATIONS)
+                            .map(ClassInfo::getClazz);
+                })
                 .forEach(this::parseAndCreate);
 
         routeMatcher.register();
@@ -165,9 +215,16 @@ public class NettyServer implements Server {
 
         if (BladeKit.isNotEmpty(beanDefines)) {
             beanDefines.forEach(b -> {
-                IocKit.initInjection(ioc, b);
-                IocKit.injectionValue(environment, b);
-                List<TaskStruct> cronExpressions = BladeKit.getTasks(b.getType(), environment);
+                List<TaskStruct> cronExpressions;
+                if (null != componentIndex && componentIndex.contains(b.getType())) {
+                    IocKit.initInjection(ioc, b, componentIndex.injectFields(b.getType()));
+                    IocKit.injectionValue(environment, b, componentIndex.valueFields(b.getType()));
+                    cronExpressions = BladeKit.getTasks(b.getType(), componentIndex.scheduleMethods(b.getType()), environment);
+                } else {
+                    IocKit.initInjection(ioc, b);
+                    IocKit.injectionValue(environment, b);
+                    cronExpressions = BladeKit.getTasks(b.getType(), environment);
+                }
                 if (null != cronExpressions) {
                     taskStruts.addAll(cronExpressions);
                 }
@@ -198,41 +255,36 @@ public class NettyServer implements Server {
         int acceptThreadCount = environment.getInt(ENV_KEY_NETTY_ACCEPT_THREAD_COUNT, DEFAULT_ACCEPT_THREAD_COUNT);
         int ioThreadCount = environment.getInt(ENV_KEY_NETTY_IO_THREAD_COUNT, DEFAULT_IO_THREAD_COUNT);
 
-        // enable epoll
-        if (BladeKit.epollIsAvailable()) {
-            log.info("{}Use EpollEventLoopGroup", getStartedSymbol());
-            bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
-
-            NettyServerGroup nettyServerGroup = EpollKit.group(acceptThreadCount, ioThreadCount);
-            this.bossGroup = nettyServerGroup.getBoosGroup();
-            this.workerGroup = nettyServerGroup.getWorkerGroup();
-            bootstrap.group(bossGroup, workerGroup).channel(nettyServerGroup.getSocketChannel());
-        } else {
-            log.info("{}Use NioEventLoopGroup", getStartedSymbol());
-
-            this.bossGroup = new NioEventLoopGroup(acceptThreadCount, new NamedThreadFactory("boss@"));
-            this.workerGroup = new NioEventLoopGroup(ioThreadCount, new NamedThreadFactory("worker@"));
-            bootstrap.group(bossGroup, workerGroup).channel(NioServerSocketChannel.class);
+        EnvironmentSnapshot snapshot = blade.snapshot();
+        String unixSocket = snapshot.getUnixSocket();
+        String transportName = snapshot.getTransport();
+        Transport transport = Transport.select(transportName, StringKit.isNotBlank(unixSocket));
+        if (!Transport.AUTO.equalsIgnoreCase(transportName) && transport != Transport.of(transportName)) {
+            log.warn("{}Transport {} is not available, fall back to {}", getStartedSymbol(), transportName, transport);
         }
+        NettyServerGroup nettyServerGroup = transport.group(acceptThreadCount, ioThreadCount, blade.workerThreadHook());
+        this.bossGroup = nettyServerGroup.getBoosGroup();
+        this.workerGroup = nettyServerGroup.getWorkerGroup();
+        log.info("{}Use {}", getStartedSymbol(), workerGroup.getClass().getSimpleName());
 
         scheduleEventLoop = new DefaultEventLoop();
 
-        Boolean tcpNodeLay = environment.getBoolean(ENV_KEY_NETTY_TCP_NODELAY, true);
-        bootstrap.childOption(ChannelOption.TCP_NODELAY, tcpNodeLay);
-
-        Boolean soKeepAlive = environment.getBoolean(ENV_KEY_NETTY_SO_KEEPALIVE, true);
-        bootstrap.childOption(ChannelOption.SO_KEEPALIVE, soKeepAlive);
-
-        environment.getInt(ENV_KEY_NETTY_SO_BACKLOG).ifPresent(backLog -> {
-            bootstrap.option(ChannelOption.SO_BACKLOG, backLog);
-        });
+        if (-1 != snapshot.getSoBacklog()) {
+            bootstrap.option(ChannelOption.SO_BACKLOG, snapshot.getSoBacklog());
+        }
 
+        // one initializer serves every listener
         bootstrap.childHandler(new HttpServerInitializer(sslCtx, blade, scheduleEventLoop));
 
         String address = environment.get(ENV_KEY_SERVER_ADDRESS, DEFAULT_SERVER_ADDRESS);
         Integer port = environment.getInt(ENV_KEY_SERVER_PORT, DEFAULT_SERVER_PORT);
 
-        channel = bootstrap.bind(address, port).sync().channel();
+        channels.addAll(this.bindTcp(bootstrap, transport, nettyServerGroup, address, port));
+
+        if (StringKit.isNotBlank(unixSocket)) {
+            channels.add(this.bindUnixSocket(bootstrap, nettyServerGroup, unixSocket));
+            this.unixSocket = unixSocket;
+        }
 
         String appName = environment.get(ENV_KEY_APP_NAME, "Blade");
         String url = Ansi.BgRed.and(Ansi.Black).format(" %s:%d ", address, port);
@@ -240,11 +292,100 @@ public class NettyServer implements Server {
 
         log.info("{}{} initialize successfully, Time elapsed: {} ms", getStartedSymbol(), appName, (System.currentTimeMillis() - startMs));
         log.info("{}Blade start with {}", getStartedSymbol(), url);
+        if (StringKit.isNotBlank(unixSocket)) {
+            log.info("{}Blade listen on unix socket {}", getStartedSymbol(), unixSocket);
+        }
         log.info("{}Open browser access {}://{}:{} ⚡\r\n", getStartedSymbol(), protocol, address.replace(DEFAULT_SERVER_ADDRESS, LOCAL_IP_ADDRESS), port);
 
         blade.eventManager().fireEvent(EventType.SERVER_STARTED, new Event().attribute("blade", blade));
     }
 
+    /**
+     * With reuse port on epoll every worker event loop accepts on a server channel
+     * of its own bound to the same port, the kernel spreads the connections
+     * across their accept queues and each connection stays on the loop that
+     * accepted it.
+     */
+    private List<Channel> bindTcp(ServerBootstrap bootstrap, Transport transport, NettyServerGroup nettyServerGroup,
+                                  String address, int port) throws InterruptedException {
+        var tcpBootstrap = bootstrap.clone().channel(nettyServerGroup.getSocketChannel());
+
+        EnvironmentSnapshot snapshot = blade.snapshot();
+        tcpBootstrap.childOption(ChannelOption.TCP_NODELAY, snapshot.isTcpNoDelay());
+        tcpBootstrap.childOption(ChannelOption.SO_KEEPALIVE, snapshot.isSoKeepAlive());
+
+        boolean reusePort = snapshot.isReusePort();
+        int tcpFastOpen = snapshot.getTcpFastOpen();
+        int tcpDeferAccept = snapshot.getTcpDeferAccept();
+
+        if (transport == Transport.EPOLL) {
+            tcpBootstrap.option(EpollChannelOption.SO_REUSEPORT, reusePort);
+            if (-1 != tcpFastOpen) {
+                tcpBootstrap.option(ChannelOption.TCP_FASTOPEN, tcpFastOpen);
+            }
+            if (-1 != tcpDeferAccept) {
+                tcpBootstrap.option(EpollChannelOption.TCP_DEFER_ACCEPT, tcpDeferAccept);
+            }
+        } else if (reusePort || -1 != tcpFastOpen || -1 != tcpDeferAccept) {
+            log.warn("{}{}, {} and {} need the epoll transport, ignored", getStartedSymbol(),
+                    ENV_KEY_NETTY_REUSE_PORT, ENV_KEY_NETTY_TCP_FASTOPEN, ENV_KEY_NETTY_TCP_DEFER_ACCEPT);
+        }
+
+        List<Channel> tcpChannels = new ArrayList<>();
+        if (reusePort && transport == Transport.EPOLL) {
+            for (EventExecutor executor : workerGroup) {
+                EventLoop eventLoop = (EventLoop) executor;
+                tcpChannels.add(tcpBootstrap.clone().group(eventLoop, eventLoop).bind(address, port).sync().channel());
+            }
+            log.info("{}Accept on {} reuse port channels", getStartedSymbol(), tcpChannels.size());
+        } else {
+            tcpChannels.add(tcpBootstrap.group(bossGroup, workerGroup).bind(address, port).sync().channel());
+        }
+        return tcpChannels;
+    }
+
+    private Channel bindUnixSocket(ServerBootstrap bootstrap, NettyServerGroup nettyServerGroup, String path) throws Exception {
+        if (null == nettyServerGroup.getDomainSocketChannel()) {
+            throw new IllegalStateException("Unix socket " + path + " needs the epoll transport, " + ENV_KEY_NETTY_TRANSPORT + "=epoll");
+        }
+        // a socket file left behind by a previous process fails the bind
+        deleteSocketFile(path);
+        return bootstrap.clone().group(bossGroup, workerGroup).channel(nettyServerGroup.getDomainSocketChannel())
+                .bind(EpollKit.domainSocketAddress(path)).sync().channel();
+    }
+
+    /**
+     * Delete the socket file at the path. Any other file there is kept, binding
+     * over it would lose its content
+     *
+     * @return false when there is no file
+     */
+    static boolean deleteSocketFile(String path) throws IOException {
+        java.nio.file.Path file = Paths.get(path);
+        int mode;
+        try {
+            mode = (Integer) Files.getAttribute(file, "unix:mode", LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        if ((mode & S_IFMT) != S_IFSOCK) {
+            throw new IllegalStateException("Unix socket " + path + " is an existing file that is not a socket");
+        }
+        // the closing server channel may have deleted it already
+        return Files.deleteIfExists(file);
+    }
+
+    private void deleteUnixSocket() {
+        if (null == unixSocket) {
+            return;
+        }
+        try {
+            deleteSocketFile(unixSocket);
+        } catch (Exception e) {
+            log.warn("{}Delete unix socket {} failed", getStartedSymbol(), unixSocket, e);
+        }
+    }
+
     private void startTask() {
         if (taskStruts.isEmpty()) {
             return;
@@ -303,7 +444,11 @@ public class NettyServer implements Server {
                 blade.register(clazz);
             }
             Object controller = blade.getBean(clazz);
-            routeBuilder.addRouter(clazz, controller);
+            if (null != componentIndex && componentIndex.contains(clazz)) {
+                routeBuilder.addRouter(controller, componentIndex.routes(clazz));
+            } else {
+                routeBuilder.addRouter(clazz, controller);
+            }
         }
         if (null != clazz.getAnnotation(Configuration.class) && clazz.getMethods().length > 0) {
             Object config = ReflectKit.newInstance(clazz);
@@ -361,7 +506,7 @@ public class NettyServer implements Server {
         // print banner text
         this.printBanner();
 
-        String templatePath = environment.get(ENV_KEY_TEMPLATE_PATH, "templates");
+        String templatePath = blade.snapshot().getTemplatePath();
         if (templatePath.charAt(0) == NettyHttpConst.CHAR_SLASH) {
             templatePath = templatePath.substring(1);
         }
@@ -369,6 +514,13 @@ public class NettyServer implements Server {
             templatePath = templatePath.substring(0, templatePath.length() - 1);
         }
         DefaultEngine.TEMPLATE_PATH = templatePath;
+
+        if (environment.getBoolean(ENV_KEY_APP_I18N_PRELOAD, true)) {
+            List<Locale> locales = I18nKit.preload();
+            if (!locales.isEmpty()) {
+                log.info("{}Load i18n locales: {}", getStartedSymbol(), locales);
+            }
+        }
     }
 
     private void shutdownHook() {
@@ -393,6 +545,11 @@ public class NettyServer implements Server {
             if (this.workerGroup != null) {
                 this.workerGroup.shutdownGracefully();
             }
+            this.deleteUnixSocket();
+            if (null != blade.sessionManager()) {
+                blade.sessionManager().close();
+            }
+            blade.eventManager().shutdown();
             log.info("{}Blade shutdown successful", getStartedSymbol());
         } catch (Exception e) {
             log.error("Blade shutdown error", e);
@@ -414,6 +571,14 @@ public class NettyServer implements Server {
             if (this.workerGroup != null) {
                 this.workerGroup.shutdownGracefully().sync();
             }
+            this.deleteUnixSocket();
+            if (null != blade.sessionManager()) {
+                blade.sessionManager().close();
+            }
+            blade.eventManager().shutdown();
+            if (!blade.eventManager().awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("{}Async event listeners are still running", getStartedSymbol());
+            }
             log.info("{}Blade shutdown successful", getStartedSymbol());
         } catch (Exception e) {
             log.error("Blade shutdown error", e);
@@ -422,7 +587,9 @@ public class NettyServer implements Server {
 
     @Override
     public void join() throws InterruptedException {
-        channel.closeFuture().sync();
+        for (Channel channel : channels) {
+            channel.closeFuture().sync();
+        }
     }
 
     /**
@@ -1,6 +1,7 @@
 package com.hellokaton.blade.server;
 
 import io.netty.channel.MultithreadEventLoopGroup;
+import io.netty.channel.ServerChannel;
 import io.netty.channel.socket.ServerSocketChannel;
 import lombok.Builder;
 import lombok.Getter;
@@ -16,6 +17,10 @@ import lombok.Getter;
 public class NettyServerGroup {
 
     private final Class<? extends ServerSocketChannel> socketChannel;
+    /**
+     * Unix domain socket server channel, null when the transport has none
+     */
+    private final Class<? extends ServerChannel>       domainSocketChannel;
     private final MultithreadEventLoopGroup            boosGroup;
     private final MultithreadEventLoopGroup            workerGroup;
 }
@@ -11,8 +11,8 @@ import com.hellokaton.blade.mvc.RouteContext;
 import com.hellokaton.blade.mvc.WebContext;
 import com.hellokaton.blade.mvc.handler.RequestHandler;
 import com.hellokaton.blade.mvc.handler.RouteHandler;
+import com.hellokaton.blade.mvc.handler.SessionHandler;
 import com.hellokaton.blade.mvc.hook.WebHook;
-import com.hellokaton.blade.mvc.http.Cookie;
 import com.hellokaton.blade.mvc.http.HttpMethod;
 import com.hellokaton.blade.mvc.http.*;
 import com.hellokaton.blade.mvc.route.Route;
@@ -22,12 +22,14 @@ import com.hellokaton.blade.mvc.route.RouteMatcher;
 import com.hellokaton.blade.mvc.ui.ModelAndView;
 import com.hellokaton.blade.mvc.ui.ResponseType;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.DefaultFileRegion;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.*;
+import io.netty.util.AsciiString;
 import lombok.extern.slf4j.Slf4j;
 import lombok.var;
 
@@ -35,7 +37,9 @@ import java.io.IOException;
 import java.io.StringWriter;
 import java.lang.reflect.Method;
 import java.nio.channels.FileChannel;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -53,6 +57,25 @@ import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 @Slf4j
 public class RouteMethodHandler implements RequestHandler {
 
+    /**
+     * Header names and values most responses carry, pre-encoded so that
+     * the encoder copies their bytes instead of converting chars.
+     */
+    private static final Map<String, AsciiString> HEADER_NAMES = new HashMap<>();
+    private static final Map<String, AsciiString> HEADER_VALUES = new HashMap<>();
+
+    static {
+        for (String name : new String[]{HttpConst.HEADER_CONTENT_TYPE, HttpConst.HEADER_LOCATION,
+                "Cache-Control", "Expires", "Last-Modified", "ETag", "Vary"}) {
+            HEADER_NAMES.put(name, AsciiString.cached(name));
+        }
+        HEADER_NAMES.put(NettyHttpConst.CONTENT_DISPOSITION.toString(), NettyHttpConst.CONTENT_DISPOSITION);
+        for (AsciiString value : new AsciiString[]{NettyHttpConst.CONTENT_TYPE_HTML, NettyHttpConst.CONTENT_TYPE_XML,
+                NettyHttpConst.CONTENT_TYPE_JSON, NettyHttpConst.CONTENT_TYPE_TEXT, NettyHttpConst.CONTENT_TYPE_STREAM}) {
+            HEADER_VALUES.put(value.toString(), value);
+        }
+    }
+
     private final RouteMatcher routeMatcher = WebContext.blade().routeMatcher();
     private final boolean hasBeforeHook = routeMatcher.hasBeforeHook();
     private final boolean hasAfterHook = routeMatcher.hasAfterHook();
@@ -72,22 +95,56 @@ public class RouteMethodHandler implements RequestHandler {
         context.initRoute(route);
 
         // execution middleware
-        if (routeMatcher.middlewareCount() > 0 && !invokeMiddleware(routeMatcher.getMiddlewareEntries(), context)) {
-            return;
+        List<WebHook> middleware = Collections.emptyList();
+        if (routeMatcher.middlewareCount() > 0) {
+            middleware = new ArrayList<>(routeMatcher.middlewareCount());
+            if (!invokeMiddleware(routeMatcher.getMiddlewareEntries(), context, middleware)) {
+                abortMiddleware(middleware, context, null);
+                return;
+            }
         }
-        context.injectParameters();
 
-        // web hook before
-        if (hasBeforeHook && !invokeHook(routeMatcher.getBeforeEntries(uri), context)) {
-            return;
+        try {
+            context.injectParameters();
+
+            // web hook before
+            if (hasBeforeHook && !invokeHook(routeMatcher.getBeforeEntries(uri), context)) {
+                abortMiddleware(middleware, context, null);
+                return;
+            }
+
+            // execute
+            this.routeHandle(context);
+
+            // webHook
+            if (hasAfterHook) {
+                this.invokeHook(routeMatcher.getAfterEntries(uri), context);
+            }
+        } catch (Exception e) {
+            abortMiddleware(middleware, context, e);
+            throw e;
         }
 
-        // execute
-        this.routeHandle(context);
+        // middleware after, in reverse order
+        for (int i = middleware.size() - 1; i >= 0; i--) {
+            try {
+                middleware.get(i).after(context);
+            } catch (Exception e) {
+                log.warn("SelectiveMiddleware: exception invoking middleware {}", middleware.get(i), e);
+            }
+        }
+    }
 
-        // webHook
-        if (hasAfterHook) {
-            this.invokeHook(routeMatcher.getAfterEntries(uri), context);
+    /**
+     * Abort the middleware whose before ran, in reverse order
+     */
+    private void abortMiddleware(List<WebHook> middleware, RouteContext context, Exception cause) {
+        for (int i = middleware.size() - 1; i >= 0; i--) {
+            try {
+                middleware.get(i).abort(context, cause);
+            } catch (Exception e) {
+                log.warn("SelectiveMiddleware: exception aborting middleware {}", middleware.get(i), e);
+            }
         }
     }
 
@@ -96,18 +153,18 @@ public class RouteMethodHandler implements RequestHandler {
         Response response = webContext.getResponse();
         ChannelHandlerContext context = webContext.getChannelHandlerContext();
 
-        Session session = request.session();
-        if (null != session) {
-            Cookie cookie = new Cookie();
-            cookie.name(WebContext.blade().httpOptions().getSessionKey());
-            cookie.value(session.id());
-            cookie.httpOnly(true);
-            cookie.secure(request.isSecure());
-            response.cookie(cookie);
+        SessionHandler sessionHandler = WebContext.blade().sessionHandler();
+        if (null != sessionHandler) {
+            sessionHandler.handleResponse(request, response);
         }
 
         return response.body().write(new BodyWriter() {
 
+            @Override
+            public ByteBufAllocator allocator() {
+                return context.alloc();
+            }
+
             @Override
             public HttpResponse onByteBuf(ByteBuf byteBuf) {
                 return createResponseByByteBuf(response, byteBuf);
@@ -120,7 +177,10 @@ public class RouteMethodHandler implements RequestHandler {
                     WebContext.blade().templateEngine().render(body.modelAndView(), sw);
                     Objects.requireNonNull(WebContext.response())
                             .contentType(HttpConst.CONTENT_TYPE_HTML);
-                    return this.onByteBuf(Unpooled.copiedBuffer(sw.toString().getBytes(StandardCharsets.UTF_8)));
+                    StringBuffer html = sw.getBuffer();
+                    ByteBuf byteBuf = context.alloc().buffer(ByteBufUtil.utf8Bytes(html));
+                    ByteBufUtil.writeUtf8(byteBuf, html);
+                    return this.onByteBuf(byteBuf);
                 } catch (Exception e) {
                     log.error("Render view error", e);
                 }
@@ -149,9 +209,7 @@ public class RouteMethodHandler implements RequestHandler {
 
                 httpResponse.headers().set(TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
                 setDefaultHeaders(httpResponse.headers());
-                for (Map.Entry<String, String> next : response.headers().entrySet()) {
-                    httpResponse.headers().set(next.getKey(), next.getValue());
-                }
+                setHeaders(httpResponse.headers(), response.headers());
                 if (request.keepAlive()) {
                     httpResponse.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
                 }
@@ -183,25 +241,31 @@ public class RouteMethodHandler implements RequestHandler {
     }
 
     private void setDefaultHeaders(HttpHeaders headers) {
-        headers.set(HttpHeaderNames.DATE, HttpServerInitializer.date);
-        headers.set(HttpHeaderNames.SERVER, HttpConst.HEADER_SERVER_VALUE);
+        headers.set(HttpHeaderNames.DATE, HttpServerInitializer.dateHeader);
+        headers.set(HttpHeaderNames.SERVER, NettyHttpConst.SERVER_VALUE);
     }
 
-    private FullHttpResponse createResponseByByteBuf(Response response, ByteBuf byteBuf) {
-        Map<String, String> headers = response.headers();
+    private void setHeaders(HttpHeaders headers, Map<String, String> responseHeaders) {
+        for (Map.Entry<String, String> next : responseHeaders.entrySet()) {
+            String name = next.getKey();
+            String value = next.getValue();
+            AsciiString asciiName = HEADER_NAMES.get(name);
+            AsciiString asciiValue = null != value ? HEADER_VALUES.get(value) : null;
+            headers.set(null != asciiName ? asciiName : name, null != asciiValue ? asciiValue : value);
+        }
+    }
 
+    private FullHttpResponse createResponseByByteBuf(Response response, ByteBuf byteBuf) {
         var httpResponse = new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.valueOf(response.statusCode()), byteBuf);
 
-        httpResponse.headers().set(HttpHeaderNames.CONTENT_LENGTH, httpResponse.content().readableBytes());
+        httpResponse.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, httpResponse.content().readableBytes());
         setDefaultHeaders(httpResponse.headers());
 
         if (response.cookiesRaw().size() > 0) {
             this.appendCookie(response, httpResponse);
         }
 
-        for (Map.Entry<String, String> next : headers.entrySet()) {
-            httpResponse.headers().set(next.getKey(), next.getValue());
-        }
+        setHeaders(httpResponse.headers(), response.headers());
         return httpResponse;
     }
 
@@ -366,7 +430,13 @@ public class RouteMethodHandler implements RequestHandler {
         return true;
     }
 
-    private boolean invokeMiddleware(List<HookEntry> entries, RouteContext context) throws BladeException {
+    /**
+     * Invoke the before of the middleware matching the request
+     *
+     * @param invoked collects the middleware whose before returned true
+     * @return false if one interrupted the request
+     */
+    private boolean invokeMiddleware(List<HookEntry> entries, RouteContext context, List<WebHook> invoked) throws BladeException {
         if (entries == null || entries.isEmpty()) {
             return true;
         }
@@ -384,10 +454,13 @@ public class RouteMethodHandler implements RequestHandler {
                 continue;
             }
             Route route = entry.getRoute();
-            WebHook webHook = (WebHook) WebContext.blade().ioc().getBean(route.getTargetType());
+            // the target type is the WebHook interface, shared by every middleware
+            WebHook webHook = (WebHook) (null != route.getTarget() ? route.getTarget()
+                    : WebContext.blade().ioc().getBean(route.getTargetType()));
             try {
                 boolean flag = webHook.before(context);
                 if (!flag) return false;
+                invoked.add(webHook);
             } catch (Exception e) {
                 log.warn("SelectiveMiddleware: exception invoking middleware {}", route, e);
             }
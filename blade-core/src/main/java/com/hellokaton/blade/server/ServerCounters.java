@@ -0,0 +1,100 @@
+package com.hellokaton.blade.server;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connection and request counters of the http server, see {@code Blade#serverCounters()}
+ */
+public class ServerCounters {
+
+    final AtomicInteger activeConnections = new AtomicInteger();
+    final LongAdder acceptedConnections = new LongAdder();
+    final LongAdder rejectedConnections = new LongAdder();
+    final LongAdder idleClosedConnections = new LongAdder();
+    final LongAdder badRequests = new LongAdder();
+    final LongAdder timedOutRequests = new LongAdder();
+    final LongAdder compressedResponses = new LongAdder();
+    final LongAdder compressionBytesIn = new LongAdder();
+    final LongAdder compressionBytesOut = new LongAdder();
+    final LongAdder compressionNanos = new LongAdder();
+
+    /**
+     * Connections currently open
+     */
+    public int activeConnections() {
+        return activeConnections.get();
+    }
+
+    public long acceptedConnections() {
+        return acceptedConnections.sum();
+    }
+
+    /**
+     * Connections closed by the connection limits
+     */
+    public long rejectedConnections() {
+        return rejectedConnections.sum();
+    }
+
+    /**
+     * Connections closed by the idle timeouts
+     */
+    public long idleClosedConnections() {
+        return idleClosedConnections.sum();
+    }
+
+    /**
+     * Requests that could not be decoded or exceeded the line and header limits
+     */
+    public long badRequests() {
+        return badRequests.sum();
+    }
+
+    /**
+     * Responses replaced by a 504 because the route missed its deadline
+     */
+    public long timedOutRequests() {
+        return timedOutRequests.sum();
+    }
+
+    /**
+     * Responses compressed with gzip or deflate
+     */
+    public long compressedResponses() {
+        return compressedResponses.sum();
+    }
+
+    public long compressionBytesIn() {
+        return compressionBytesIn.sum();
+    }
+
+    public long compressionBytesOut() {
+        return compressionBytesOut.sum();
+    }
+
+    /**
+     * Compressed size relative to the original size, 1 when nothing was compressed
+     */
+    public double compressionRatio() {
+        long bytesIn = compressionBytesIn();
+        return bytesIn == 0 ? 1 : (double) compressionBytesOut() / bytesIn;
+    }
+
+    /**
+     * Time spent compressing, in nanoseconds
+     */
+    public long compressionNanos() {
+        return compressionNanos.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "ServerCounters(active=" + activeConnections() + ", accepted=" + acceptedConnections() +
+                ", rejected=" + rejectedConnections() + ", idleClosed=" + idleClosedConnections() +
+                ", badRequests=" + badRequests() + ", timedOut=" + timedOutRequests() +
+                ", compressed=" + compressedResponses() + ", compressionRatio=" + String.format("%.3f", compressionRatio()) +
+                ", compressionMillis=" + compressionNanos() / 1_000_000 + ")";
+    }
+
+}
@@ -25,6 +25,7 @@ import com.hellokaton.blade.mvc.WebContext;
 import com.hellokaton.blade.mvc.handler.RequestHandler;
 import com.hellokaton.blade.mvc.http.Request;
 import com.hellokaton.blade.mvc.route.Route;
+import com.hellokaton.blade.options.HttpOptions;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
@@ -115,7 +116,7 @@ public class StaticFileHandler implements RequestHandler {
         }
 
         if (FAVICON_PATH.equals(uri)) {
-            String dir = WebContext.blade().getEnv(ENV_KEY_FAVICON_DIR, "/static");
+            String dir = WebContext.blade().snapshot().getFaviconDir();
             uri = dir + uri;
         }
 
@@ -179,7 +180,7 @@ public class StaticFileHandler implements RequestHandler {
         setContentTypeHeader(httpResponse, file);
         setDateAndCacheHeaders(httpResponse, file);
 
-        if (request.useGZIP()) {
+        if (request.useGZIP() && isCompressible(file, httpResponse)) {
             File output = new File(file.getPath() + ".gz");
             IOKit.compressGZIP(file, output);
             file = output;
@@ -608,6 +609,12 @@ public class StaticFileHandler implements RequestHandler {
         response.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
     }
 
+    private static boolean isCompressible(File file, HttpResponse response) {
+        HttpOptions httpOptions = WebContext.blade().httpOptions();
+        return file.length() >= httpOptions.getCompressionThreshold() && !HttpCompressionHandler.isIncompressible(
+                httpOptions.getIncompressibleTypes(), response.headers().get(HttpHeaderNames.CONTENT_TYPE));
+    }
+
     private void setGzip(HttpResponse response) {
         response.headers().set(HttpHeaderNames.CONTENT_ENCODING, HttpHeaderValues.GZIP);
     }
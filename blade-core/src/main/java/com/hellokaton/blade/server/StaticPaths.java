@@ -0,0 +1,95 @@
+package com.hellokaton.blade.server;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The static path prefixes compiled into a trie.
+ * <p>
+ * A uri is static when one of the prefixes starts it, the match walks the uri
+ * once and stops at the first prefix end or the first character no prefix
+ * continues with. The trie is immutable, event loops share it without a lock
+ * and without a cache of previous answers.
+ */
+final class StaticPaths {
+
+    private final Node root;
+
+    private StaticPaths(Node root) {
+        this.root = root;
+    }
+
+    static StaticPaths compile(Collection<String> prefixes) {
+        Builder root = new Builder();
+        for (String prefix : prefixes) {
+            Builder node = root;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.children.computeIfAbsent(prefix.charAt(i), key -> new Builder());
+            }
+            node.terminal = true;
+        }
+        return new StaticPaths(root.build());
+    }
+
+    /**
+     * @param uri request uri
+     * @return whether a static prefix starts the uri
+     */
+    boolean matches(String uri) {
+        Node node = root;
+        for (int i = 0; ; i++) {
+            if (node.terminal) {
+                return true;
+            }
+            if (i == uri.length()) {
+                return false;
+            }
+            node = node.child(uri.charAt(i));
+            if (null == node) {
+                return false;
+            }
+        }
+    }
+
+    private static final class Node {
+
+        private final boolean terminal;
+        private final char[] keys;
+        private final Node[] children;
+
+        Node(boolean terminal, char[] keys, Node[] children) {
+            this.terminal = terminal;
+            this.keys = keys;
+            this.children = children;
+        }
+
+        Node child(char c) {
+            char[] keys = this.keys;
+            if (keys.length == 1) {
+                return keys[0] == c ? children[0] : null;
+            }
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+    }
+
+    private static final class Builder {
+
+        private final Map<Character, Builder> children = new TreeMap<>();
+        private boolean terminal;
+
+        Node build() {
+            char[] keys = new char[children.size()];
+            Node[] nodes = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, Builder> entry : children.entrySet()) {
+                keys[i] = entry.getKey();
+                nodes[i++] = entry.getValue().build();
+            }
+            return new Node(terminal, keys, nodes);
+        }
+    }
+
+}
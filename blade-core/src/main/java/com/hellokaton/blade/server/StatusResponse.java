@@ -0,0 +1,59 @@
+package com.hellokaton.blade.server;
+
+import com.hellokaton.blade.mvc.ui.HtmlCreator;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import java.nio.charset.StandardCharsets;
+
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+
+/**
+ * Pre-encoded error response, the body is encoded once and every response
+ * shares it through a duplicate, so an unmatched request costs no rendering.
+ */
+final class StatusResponse {
+
+    static final StatusResponse NOT_FOUND = new StatusResponse(HttpResponseStatus.NOT_FOUND);
+    static final StatusResponse METHOD_NOT_ALLOWED = new StatusResponse(HttpResponseStatus.METHOD_NOT_ALLOWED);
+    static final StatusResponse BAD_REQUEST = new StatusResponse(HttpResponseStatus.BAD_REQUEST);
+    static final StatusResponse URI_TOO_LONG = new StatusResponse(HttpResponseStatus.REQUEST_URI_TOO_LONG);
+    static final StatusResponse HEADER_FIELDS_TOO_LARGE = new StatusResponse(HttpResponseStatus.REQUEST_HEADER_FIELDS_TOO_LARGE);
+    static final StatusResponse GATEWAY_TIMEOUT = new StatusResponse(HttpResponseStatus.GATEWAY_TIMEOUT);
+
+    private final HttpResponseStatus status;
+    private final ByteBuf html;
+    private final ByteBuf json;
+
+    private StatusResponse(HttpResponseStatus status) {
+        this.status = status;
+
+        HtmlCreator htmlCreator = new HtmlCreator();
+        htmlCreator.center("<h1>" + status.code() + " " + status.reasonPhrase() + "</h1>");
+        htmlCreator.hr();
+        this.html = encode(htmlCreator.html());
+        this.json = encode("{\"msg\":\"" + status.reasonPhrase() + "\",\"code\":" + status.code() + "}");
+    }
+
+    private static ByteBuf encode(String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        return Unpooled.unreleasableBuffer(Unpooled.directBuffer(bytes.length).writeBytes(bytes).asReadOnly());
+    }
+
+    FullHttpResponse newResponse(boolean json) {
+        ByteBuf content = json ? this.json.duplicate() : this.html.duplicate();
+        FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, status, content, false);
+        HttpHeaders headers = response.headers();
+        headers.set(HttpHeaderNames.CONTENT_TYPE, json ? NettyHttpConst.CONTENT_TYPE_JSON : NettyHttpConst.CONTENT_TYPE_HTML);
+        headers.setInt(HttpHeaderNames.CONTENT_LENGTH, content.readableBytes());
+        headers.set(HttpHeaderNames.DATE, HttpServerInitializer.dateHeader);
+        headers.set(HttpHeaderNames.SERVER, NettyHttpConst.SERVER_VALUE);
+        return response;
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.hellokaton.blade.server;
+
+import com.hellokaton.blade.kit.BladeKit;
+import com.hellokaton.blade.kit.NamedThreadFactory;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+
+import java.util.Locale;
+import java.util.function.IntConsumer;
+
+/**
+ * Netty transports the server can run on, from the most to the least preferred.
+ * <p>
+ * The native ones are only used when the platform supports them: io_uring needs
+ * the incubator module and a recent linux kernel, epoll needs linux. Unix domain
+ * socket listeners need epoll.
+ */
+public enum Transport {
+
+    IO_URING, EPOLL, NIO;
+
+    public static final String AUTO = "auto";
+
+    public boolean isAvailable() {
+        switch (this) {
+            case IO_URING:
+                return IOUringKit.isAvailable();
+            case EPOLL:
+                return BladeKit.epollIsAvailable();
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * @param workerStart runs on each worker thread when it starts, may be null
+     */
+    NettyServerGroup group(int threadCount, int workers, IntConsumer workerStart) throws ReflectiveOperationException {
+        switch (this) {
+            case IO_URING:
+                return IOUringKit.group(threadCount, workers, workerStart);
+            case EPOLL:
+                return EpollKit.group(threadCount, workers, workerStart);
+            default:
+                return NettyServerGroup.builder()
+                        .boosGroup(new NioEventLoopGroup(threadCount, new NamedThreadFactory("boss@")))
+                        .workerGroup(new NioEventLoopGroup(workers, new NamedThreadFactory("worker@", workerStart)))
+                        .socketChannel(NioServerSocketChannel.class)
+                        .build();
+        }
+    }
+
+    /**
+     * @param name io_uring, epoll or nio, case insensitive. null or auto is the
+     *             most preferred transport
+     */
+    public static Transport of(String name) {
+        if (null == name || AUTO.equalsIgnoreCase(name)) {
+            return IO_URING;
+        }
+        return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+
+    /**
+     * The named transport, or the next available one when the platform lacks it
+     */
+    public static Transport select(String name) {
+        return select(of(name));
+    }
+
+    /**
+     * Like {@link #select(String)}, auto prefers epoll when the server also listens on a
+     * unix domain socket, the other transports have no domain socket channel
+     */
+    public static Transport select(String name, boolean domainSocket) {
+        if (domainSocket && (null == name || AUTO.equalsIgnoreCase(name))) {
+            return select(EPOLL);
+        }
+        return select(name);
+    }
+
+    private static Transport select(Transport preferred) {
+        for (Transport transport : values()) {
+            if (transport.ordinal() >= preferred.ordinal() && transport.isAvailable()) {
+                return transport;
+            }
+        }
+        return NIO;
+    }
+
+}
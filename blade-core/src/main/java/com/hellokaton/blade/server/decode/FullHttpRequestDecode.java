@@ -32,7 +32,7 @@ public class FullHttpRequestDecode extends SimpleChannelInboundHandler<FullHttpR
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest fullHttpRequest) {
-        String address = ctx.channel().remoteAddress().toString();
+        String address = String.valueOf(ctx.channel().remoteAddress());
         HttpRequest httpRequest = new HttpRequest(address, fullHttpRequest);
         ctx.fireChannelRead(httpRequest);
     }
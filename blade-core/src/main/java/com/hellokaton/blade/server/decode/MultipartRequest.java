@@ -0,0 +1,30 @@
+package com.hellokaton.blade.server.decode;
+
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.EmptyHttpHeaders;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.multipart.HttpPostMultipartRequestDecoder;
+
+/**
+ * A multipart request decoded while its body arrived, the content is empty and
+ * the parts are held by the decoder.
+ */
+public class MultipartRequest extends DefaultFullHttpRequest {
+
+    private final HttpPostMultipartRequestDecoder decoder;
+
+    MultipartRequest(HttpRequest request, HttpPostMultipartRequestDecoder decoder) {
+        super(request.protocolVersion(), request.method(), request.uri(), Unpooled.EMPTY_BUFFER,
+                request.headers(), EmptyHttpHeaders.INSTANCE);
+        this.decoder = decoder;
+    }
+
+    /**
+     * @return the decoder holding the parts, it must be destroyed when the request ends
+     */
+    public HttpPostMultipartRequestDecoder decoder() {
+        return decoder;
+    }
+
+}
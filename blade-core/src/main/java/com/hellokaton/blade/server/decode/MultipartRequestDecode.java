@@ -0,0 +1,148 @@
+package com.hellokaton.blade.server.decode;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.*;
+import io.netty.handler.codec.http.multipart.HttpDataFactory;
+import io.netty.handler.codec.http.multipart.HttpPostMultipartRequestDecoder;
+import io.netty.handler.codec.http.multipart.HttpPostRequestDecoder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+
+import static io.netty.handler.codec.http.HttpHeaderNames.CONNECTION;
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_LENGTH;
+
+/**
+ * Decodes multipart/form-data requests while the body arrives.
+ * <p>
+ * The chunks are handed to the multipart decoder as they are read, file parts
+ * are written to the upload directory instead of being aggregated in memory.
+ * A request larger than maxMultipartSize, or a part larger than the limit of
+ * the data factory, gets a 413 and the connection is closed. Other requests
+ * pass through to the aggregator.
+ */
+@Slf4j
+public class MultipartRequestDecode extends ChannelInboundHandlerAdapter {
+
+    private static final FullHttpResponse CONTINUE = new DefaultFullHttpResponse(
+            HttpVersion.HTTP_1_1, HttpResponseStatus.CONTINUE, Unpooled.EMPTY_BUFFER);
+    private static final FullHttpResponse TOO_LARGE_CLOSE = new DefaultFullHttpResponse(
+            HttpVersion.HTTP_1_1, HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE, Unpooled.EMPTY_BUFFER);
+    private static final FullHttpResponse BAD_REQUEST_CLOSE = new DefaultFullHttpResponse(
+            HttpVersion.HTTP_1_1, HttpResponseStatus.BAD_REQUEST, Unpooled.EMPTY_BUFFER);
+
+    static {
+        TOO_LARGE_CLOSE.headers().set(CONTENT_LENGTH, 0);
+        TOO_LARGE_CLOSE.headers().set(CONNECTION, HttpHeaderValues.CLOSE);
+        BAD_REQUEST_CLOSE.headers().set(CONTENT_LENGTH, 0);
+        BAD_REQUEST_CLOSE.headers().set(CONNECTION, HttpHeaderValues.CLOSE);
+    }
+
+    private final HttpDataFactory factory;
+    private final long maxMultipartSize;
+
+    private HttpRequest request;
+    private HttpPostMultipartRequestDecoder decoder;
+    private long received;
+    private boolean discarding;
+
+    public MultipartRequestDecode(HttpDataFactory factory, long maxMultipartSize) {
+        this.factory = factory;
+        this.maxMultipartSize = maxMultipartSize;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof HttpRequest && !(msg instanceof FullHttpRequest)
+                && HttpPostRequestDecoder.isMultipart((HttpRequest) msg)) {
+            this.startRequest(ctx, (HttpRequest) msg);
+            return;
+        }
+        if (msg instanceof HttpContent && (null != decoder || discarding)) {
+            HttpContent content = (HttpContent) msg;
+            try {
+                if (discarding) {
+                    discarding = !(content instanceof LastHttpContent);
+                } else {
+                    this.offer(ctx, content);
+                }
+            } finally {
+                content.release();
+            }
+            return;
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    private void startRequest(ChannelHandlerContext ctx, HttpRequest head) {
+        if (HttpUtil.getContentLength(head, -1L) > maxMultipartSize) {
+            this.reject(ctx, head.uri(), TOO_LARGE_CLOSE);
+            return;
+        }
+        if (HttpUtil.is100ContinueExpected(head)) {
+            ctx.writeAndFlush(CONTINUE.retainedDuplicate());
+            head.headers().remove(HttpHeaderNames.EXPECT);
+        }
+        try {
+            this.decoder = new HttpPostMultipartRequestDecoder(factory, head);
+        } catch (HttpPostRequestDecoder.ErrorDataDecoderException e) {
+            log.warn("Request [{}] multipart decode failed: {}", head.uri(), e.getMessage());
+            this.reject(ctx, head.uri(), BAD_REQUEST_CLOSE);
+            return;
+        }
+        this.request = head;
+        this.received = 0;
+    }
+
+    private void offer(ChannelHandlerContext ctx, HttpContent content) {
+        received += content.content().readableBytes();
+        if (received > maxMultipartSize) {
+            this.reject(ctx, request.uri(), TOO_LARGE_CLOSE);
+            return;
+        }
+        try {
+            decoder.offer(content);
+        } catch (HttpPostRequestDecoder.ErrorDataDecoderException e) {
+            log.warn("Request [{}] multipart decode failed: {}", request.uri(), e.getMessage());
+            // a part over the size limit of the data factory fails with an IOException
+            this.reject(ctx, request.uri(), e.getCause() instanceof IOException ? TOO_LARGE_CLOSE : BAD_REQUEST_CLOSE);
+            return;
+        }
+        if (content instanceof LastHttpContent) {
+            MultipartRequest multipartRequest = new MultipartRequest(request, decoder);
+            this.request = null;
+            this.decoder = null;
+            ctx.fireChannelRead(multipartRequest);
+        }
+    }
+
+    private void reject(ChannelHandlerContext ctx, String uri, FullHttpResponse response) {
+        log.info("Request [{}] rejected with {}.", uri, response.status());
+        this.destroy();
+        this.discarding = true;
+        ctx.writeAndFlush(response.retainedDuplicate()).addListener(ChannelFutureListener.CLOSE);
+    }
+
+    private void destroy() {
+        if (null != decoder) {
+            decoder.destroy();
+            decoder = null;
+        }
+        request = null;
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        this.destroy();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        this.destroy();
+    }
+
+}
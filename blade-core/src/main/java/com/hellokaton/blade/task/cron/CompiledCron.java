@@ -0,0 +1,351 @@
+package com.hellokaton.blade.task.cron;
+
+import java.time.*;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@link CronExpression} compiled to bit masks.
+ * <p>
+ * Every field is a bit set (seconds and minutes in 60 bits, hours in 24, days of
+ * month in 31, months in 12), the days of a month matching the day rule are
+ * computed as one mask from the weekday of the first day. The next fire time is
+ * found field by field with {@link Long#numberOfTrailingZeros(long)} on plain
+ * date arithmetic, no Calendar is involved.
+ * <p>
+ * Daylight saving time: a local time inside a gap fires shifted forward by the
+ * length of the gap. A local time repeated by an overlap fires once, with the
+ * earlier offset, unless the hour field is a wildcard: like Vixie cron, such a
+ * schedule fires with both offsets and keeps firing while the wall clock repeats
+ * an hour.
+ */
+public final class CompiledCron {
+
+    private static final int FIRST_YEAR = 1970;
+    private static final long ALL_HOURS = (1L << 24) - 1;
+
+    private final ZoneId zoneId;
+    private final ZoneRules rules;
+    private final ZoneOffset fixedOffset;
+
+    private final long seconds;
+    private final long minutes;
+    private final long hours;
+    private final long daysOfMonth;
+    private final long months;
+    private final int daysOfWeek;
+    private final BitSet years;
+    private final int maxYear;
+
+    /**
+     * Fire again when an overlap repeats a matching local time
+     */
+    private final boolean repeatInOverlap;
+
+    /**
+     * Days of a 31 days month matching the days of week, by weekday of the first day
+     */
+    private final long[] weekdayMasks = new long[7];
+
+    private final boolean dayOfMonthRule;
+    private final int firstDayOfMonth;
+    private final int firstDayOfWeek;
+    private final boolean lastDayOfMonth;
+    private final int lastDayOffset;
+    private final boolean nearestWeekday;
+    private final boolean lastDayOfWeek;
+    private final int nthDayOfWeek;
+
+    CompiledCron(CronExpression expression, ZoneId zoneId) {
+        this.zoneId = zoneId;
+        this.rules = zoneId.getRules();
+        this.fixedOffset = rules.isFixedOffset() ? rules.getOffset(Instant.EPOCH) : null;
+
+        this.seconds = mask(expression.seconds, 0, 59);
+        this.minutes = mask(expression.minutes, 0, 59);
+        this.hours = mask(expression.hours, 0, 23);
+        this.repeatInOverlap = hours == ALL_HOURS;
+        this.daysOfMonth = mask(expression.daysOfMonth, 1, 31);
+        this.months = mask(expression.months, 1, 12);
+        this.daysOfWeek = (int) mask(expression.daysOfWeek, 1, 7);
+
+        this.maxYear = CronExpression.MAX_YEAR;
+        this.years = new BitSet(maxYear + 1);
+        for (Integer year : expression.years) {
+            if (year >= FIRST_YEAR && year <= maxYear) {
+                years.set(year);
+            }
+        }
+
+        this.dayOfMonthRule = !expression.daysOfMonth.contains(CronExpression.NO_SPEC);
+        this.firstDayOfMonth = Long.numberOfTrailingZeros(daysOfMonth);
+        this.firstDayOfWeek = Integer.numberOfTrailingZeros(daysOfWeek);
+        this.lastDayOfMonth = expression.lastdayOfMonth;
+        this.lastDayOffset = expression.lastdayOffset;
+        this.nearestWeekday = expression.nearestWeekday;
+        this.lastDayOfWeek = expression.lastdayOfWeek;
+        this.nthDayOfWeek = expression.nthdayOfWeek;
+
+        for (int firstWeekday = 1; firstWeekday <= 7; firstWeekday++) {
+            long mask = 0;
+            for (int day = 1; day <= 31; day++) {
+                if ((daysOfWeek & 1 << weekday(firstWeekday, day)) != 0) {
+                    mask |= 1L << day;
+                }
+            }
+            weekdayMasks[firstWeekday - 1] = mask;
+        }
+    }
+
+    private static long mask(Set<Integer> values, int min, int max) {
+        long mask = 0;
+        for (Integer value : values) {
+            if (value >= min && value <= max) {
+                mask |= 1L << value;
+            }
+        }
+        return mask;
+    }
+
+    public ZoneId getZoneId() {
+        return zoneId;
+    }
+
+    /**
+     * @param afterMillis epoch millis
+     * @return the first fire time in epoch millis after the given time, -1 if there is none
+     */
+    public long next(long afterMillis) {
+        long start = Math.floorDiv(afterMillis, 1000) + 1;
+        if (null != fixedOffset) {
+            long local = this.nextLocal(start + fixedOffset.getTotalSeconds());
+            return local < 0 ? -1 : (local - fixedOffset.getTotalSeconds()) * 1000;
+        }
+        long next = this.nextEpochSecond(start, start + rules.getOffset(Instant.ofEpochSecond(start)).getTotalSeconds());
+
+        if (!repeatInOverlap) {
+            return next < 0 ? -1 : next * 1000;
+        }
+        // the wall clock repeats local times earlier than the start once the overlap begins
+        ZoneOffsetTransition transition = rules.nextTransition(Instant.ofEpochSecond(start));
+        if (null != transition && transition.isOverlap() && (next < 0 || transition.toEpochSecond() <= next)) {
+            long local = this.nextLocal(transition.getDateTimeAfter().toEpochSecond(ZoneOffset.UTC));
+            if (local >= 0 && local < transition.getDateTimeBefore().toEpochSecond(ZoneOffset.UTC)) {
+                long repeated = local - transition.getOffsetAfter().getTotalSeconds();
+                next = next < 0 ? repeated : Math.min(next, repeated);
+            }
+        }
+        return next < 0 ? -1 : next * 1000;
+    }
+
+    /**
+     * First fire time in epoch seconds at or after the start, searching from the local time
+     */
+    private long nextEpochSecond(long start, long local) {
+        while ((local = this.nextLocal(local)) >= 0) {
+            LocalDateTime dateTime = LocalDateTime.ofEpochSecond(local, 0, ZoneOffset.UTC);
+            List<ZoneOffset> offsets = rules.getValidOffsets(dateTime);
+            if (offsets.size() == 1) {
+                long epochSecond = local - offsets.get(0).getTotalSeconds();
+                if (epochSecond >= start) {
+                    return epochSecond;
+                }
+            } else {
+                ZoneOffsetTransition transition = rules.getTransition(dateTime);
+                // a gap shifts the local time forward, an overlap fires with the earlier offset first
+                long earlier = local - transition.getOffsetBefore().getTotalSeconds();
+                if (earlier >= start) {
+                    return earlier;
+                }
+                long later = local - transition.getOffsetAfter().getTotalSeconds();
+                if (repeatInOverlap && transition.isOverlap() && later >= start) {
+                    return later;
+                }
+            }
+            local++;
+        }
+        return -1;
+    }
+
+    /**
+     * Computes the next fire times in one pass
+     *
+     * @param afterMillis epoch millis
+     * @param fireTimes   receives the following fire times in epoch millis
+     * @return how many fire times were written, less than the array length when the expression ends
+     */
+    public int next(long afterMillis, long[] fireTimes) {
+        int count = 0;
+        long time = afterMillis;
+        while (count < fireTimes.length && (time = this.next(time)) >= 0) {
+            fireTimes[count++] = time;
+        }
+        return count;
+    }
+
+    public ZonedDateTime next(ZonedDateTime after) {
+        long next = this.next(after.toInstant().toEpochMilli());
+        return next < 0 ? null : Instant.ofEpochMilli(next).atZone(zoneId);
+    }
+
+    /**
+     * First matching local time at or after the local epoch second, -1 if there is none
+     */
+    private long nextLocal(long localSecond) {
+        long epochDay = Math.floorDiv(localSecond, 86400);
+        int secondOfDay = (int) Math.floorMod(localSecond, 86400);
+
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        int year = date.getYear();
+        int month = date.getMonthValue();
+        int day = date.getDayOfMonth();
+        int hour = secondOfDay / 3600;
+        int minute = secondOfDay / 60 % 60;
+        int second = secondOfDay % 60;
+
+        while (year <= maxYear) {
+            if (!years.get(year)) {
+                year = years.nextSetBit(year);
+                if (year < 0) {
+                    return -1;
+                }
+                month = 1;
+                day = 1;
+                hour = minute = second = 0;
+            }
+            int next = next(months, month);
+            if (next < 0) {
+                year++;
+                month = day = 1;
+                hour = minute = second = 0;
+                continue;
+            }
+            if (next != month) {
+                month = next;
+                day = 1;
+                hour = minute = second = 0;
+            }
+            next = next(this.dayMask(year, month), day);
+            if (next < 0) {
+                month++;
+                day = 1;
+                hour = minute = second = 0;
+                continue;
+            }
+            if (next != day) {
+                day = next;
+                hour = minute = second = 0;
+            }
+            next = next(hours, hour);
+            if (next < 0) {
+                day++;
+                hour = minute = second = 0;
+                continue;
+            }
+            if (next != hour) {
+                hour = next;
+                minute = second = 0;
+            }
+            next = next(minutes, minute);
+            if (next < 0) {
+                hour++;
+                minute = second = 0;
+                continue;
+            }
+            if (next != minute) {
+                minute = next;
+                second = 0;
+            }
+            next = next(seconds, second);
+            if (next < 0) {
+                minute++;
+                second = 0;
+                continue;
+            }
+            return epochDay(year, month, day) * 86400 + hour * 3600 + minute * 60 + next;
+        }
+        return -1;
+    }
+
+    /**
+     * Days of the month matching the day of month or day of week rule
+     */
+    private long dayMask(int year, int month) {
+        int length = lengthOfMonth(year, month);
+        int firstWeekday = (int) Math.floorMod(epochDay(year, month, 1) + 4, 7) + 1;
+        if (dayOfMonthRule) {
+            if (lastDayOfMonth || nearestWeekday) {
+                int day = lastDayOfMonth ? length - lastDayOffset : firstDayOfMonth;
+                if (day < 1 || day > length) {
+                    return 0;
+                }
+                if (nearestWeekday) {
+                    day = nearestWeekday(day, weekday(firstWeekday, day), length);
+                }
+                return 1L << day;
+            }
+            return daysOfMonth & (-1L >>> (63 - length));
+        }
+        if (lastDayOfWeek || nthDayOfWeek != 0) {
+            int first = 1 + Math.floorMod(firstDayOfWeek - firstWeekday, 7);
+            int day = lastDayOfWeek ? first + (length - first) / 7 * 7 : first + (nthDayOfWeek - 1) * 7;
+            return day <= length ? 1L << day : 0;
+        }
+        return weekdayMasks[firstWeekday - 1] & (-1L >>> (63 - length));
+    }
+
+    private static int nearestWeekday(int day, int weekday, int length) {
+        if (weekday == 7) {
+            return day == 1 ? day + 2 : day - 1;
+        }
+        if (weekday == 1) {
+            return day == length ? day - 2 : day + 1;
+        }
+        return day;
+    }
+
+    /**
+     * Day of week of the day, 1 is Sunday like the cron expression
+     */
+    private static int weekday(int firstWeekday, int day) {
+        return (firstWeekday - 1 + day - 1) % 7 + 1;
+    }
+
+    private static int next(long mask, int from) {
+        if (from > 63) {
+            return -1;
+        }
+        long bits = mask & (-1L << from);
+        return bits == 0 ? -1 : Long.numberOfTrailingZeros(bits);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return Year.isLeap(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Days since 1970-01-01 of a proleptic gregorian date
+     */
+    private static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+}
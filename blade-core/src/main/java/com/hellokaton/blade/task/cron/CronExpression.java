@@ -245,6 +245,8 @@ public final class CronExpression implements Serializable, Cloneable {
     protected transient int     lastdayOffset    = 0;
     protected transient boolean expressionParsed = false;
 
+    private transient volatile CompiledCron compiled;
+
     public static final int MAX_YEAR = LocalDateTime.now().getYear() + 100;
 
     /**
@@ -318,7 +320,23 @@ public final class CronExpression implements Serializable, Cloneable {
      * @return the next valid date/time
      */
     public Date getNextValidTimeAfter(Date date) {
-        return getTimeAfter(date);
+        long next = compile().next(date.getTime());
+        return next < 0 ? null : new Date(next);
+    }
+
+    /**
+     * Returns the compiled form of this expression in its time zone, which
+     * computes fire times without {@link Calendar}.
+     *
+     * @return the compiled expression
+     */
+    public CompiledCron compile() {
+        CompiledCron compiled = this.compiled;
+        if (compiled == null) {
+            compiled = new CompiledCron(this, getTimeZone().toZoneId());
+            this.compiled = compiled;
+        }
+        return compiled;
     }
 
     /**
@@ -376,6 +394,7 @@ public final class CronExpression implements Serializable, Cloneable {
      */
     public void setTimeZone(TimeZone timeZone) {
         this.timeZone = timeZone;
+        this.compiled = null;
     }
 
     /**
@@ -1135,6 +1154,10 @@ public final class CronExpression implements Serializable, Cloneable {
     //
     ////////////////////////////////////////////////////////////////////////////
 
+    /**
+     * Calendar based computation of the next fire time, see {@link #compile()}
+     * for the faster one used by {@link #getNextValidTimeAfter(Date)}.
+     */
     public Date getTimeAfter(Date afterTime) {
 
         // Computation is based on Gregorian year only.
@@ -17,7 +17,6 @@ package com.hellokaton.blade.task.cron;
 
 import com.hellokaton.blade.task.Task;
 
-import java.util.Date;
 import java.util.concurrent.*;
 
 /**
@@ -30,6 +29,11 @@ import java.util.concurrent.*;
  */
 public class CronThreadPoolExecutor extends ScheduledThreadPoolExecutor implements CronExecutorService {
 
+    /**
+     * Fire times computed at once for a task
+     */
+    private static final int FIRE_TIME_BATCH = 16;
+
     public CronThreadPoolExecutor(int corePoolSize, ThreadFactory threadFactory) {
         super(corePoolSize, threadFactory);
     }
@@ -37,21 +41,31 @@ public class CronThreadPoolExecutor extends ScheduledThreadPoolExecutor implemen
     @Override
     public ScheduledFuture<?> submit(Task task) {
         if (task == null) throw new NullPointerException();
-        CronExpression expression = task.getCronExpression();
+        CompiledCron cron = task.getCronExpression().compile();
         Runnable scheduleTask = () -> {
-            Date now  = new Date();
-            Date time = expression.getNextValidTimeAfter(now);
+            long[] fireTimes = new long[FIRE_TIME_BATCH];
+            int    count     = 0;
+            int    index     = 0;
+            long   now       = System.currentTimeMillis();
             try {
-                while (time != null) {
-                    if (!task.isRunning()) {
-                        break;
+                while (task.isRunning()) {
+                    if (index == count) {
+                        count = cron.next(now, fireTimes);
+                        index = 0;
+                        if (count == 0) {
+                            break;
+                        }
+                    }
+                    long time = fireTimes[index++];
+                    if (time <= now) {
+                        // the clock has moved past this fire time
+                        continue;
                     }
-                    CronThreadPoolExecutor.this.schedule(task.getTask(), time.getTime() - now.getTime(), TimeUnit.MILLISECONDS);
-                    while (now.before(time)) {
-                        Thread.sleep(time.getTime() - now.getTime());
-                        now = new Date();
+                    CronThreadPoolExecutor.this.schedule(task.getTask(), time - now, TimeUnit.MILLISECONDS);
+                    while (now < time) {
+                        Thread.sleep(time - now);
+                        now = System.currentTimeMillis();
                     }
-                    time = expression.getNextValidTimeAfter(now);
                 }
             } catch (RejectedExecutionException | CancellationException e) {
                 // Occurs if executor was already shutdown when schedule() is called
@@ -0,0 +1,110 @@
+package com.hellokaton.blade.validator;
+
+import com.hellokaton.blade.kit.BladeKit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Validates the fields of a bean with a fixed list of validations.
+ * <p>
+ * The field names are resolved from the getters once, when the validation is
+ * built, a test only calls the getters and the field validations in order.
+ * <pre>
+ * Validation&lt;Topic&gt; validation = BeanValidation.of(Topic.class)
+ *         .field(Topic::getTitle, Validators.length(3, 20))
+ *         .field(Topic::getEmail, Validators.isEmail())
+ *         .build();
+ *
+ * validation.test(topic).throwIfInvalid();
+ * </pre>
+ * A failed result carries the field name as code and "field message" as message.
+ */
+public final class BeanValidation<T> implements Validation<T> {
+
+    private final String[] names;
+    private final TypeFunction<T, Object>[] getters;
+    private final Validation<Object>[] validations;
+
+    private BeanValidation(String[] names, TypeFunction<T, Object>[] getters, Validation<Object>[] validations) {
+        this.names = names;
+        this.getters = getters;
+        this.validations = validations;
+    }
+
+    public static <T> Builder<T> of(Class<T> type) {
+        return new Builder<>();
+    }
+
+    @Override
+    public ValidationResult test(T param) {
+        if (null == param) {
+            return Validators.<T>notNull().test(null);
+        }
+        for (int i = 0; i < names.length; i++) {
+            ValidationResult result = validations[i].test(getters[i].apply(param));
+            if (!result.isValid()) {
+                return ValidationResult.fail(names[i], names[i] + " " + result.getMessage());
+            }
+        }
+        return ValidationResult.ok();
+    }
+
+    /**
+     * Validate every field
+     *
+     * @param param the bean
+     * @return the failed results, empty if the bean is valid
+     */
+    public List<ValidationResult> testAll(T param) {
+        List<ValidationResult> failures = new ArrayList<>(0);
+        if (null == param) {
+            failures.add(this.test(null));
+            return failures;
+        }
+        for (int i = 0; i < names.length; i++) {
+            ValidationResult result = validations[i].test(getters[i].apply(param));
+            if (!result.isValid()) {
+                failures.add(ValidationResult.fail(names[i], names[i] + " " + result.getMessage()));
+            }
+        }
+        return failures;
+    }
+
+    public static final class Builder<T> {
+
+        private final List<String> names = new ArrayList<>();
+        private final List<TypeFunction<T, Object>> getters = new ArrayList<>();
+        private final List<Validation<Object>> validations = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Validate a field
+         *
+         * @param getter     getter method reference of the field, such as User::getName
+         * @param validation validation of the field value
+         * @return this builder
+         */
+        @SuppressWarnings("unchecked")
+        public <R> Builder<T> field(TypeFunction<T, R> getter, Validation<R> validation) {
+            String name = BladeKit.getLambdaFieldName(getter);
+            if (null == name) {
+                throw new IllegalArgumentException("Field name can not be resolved from " + getter);
+            }
+            names.add(name);
+            getters.add((TypeFunction<T, Object>) getter);
+            validations.add((Validation<Object>) validation);
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        public BeanValidation<T> build() {
+            return new BeanValidation<>(names.toArray(new String[0]),
+                    getters.toArray(new TypeFunction[0]),
+                    validations.toArray(new Validation[0]));
+        }
+    }
+
+}
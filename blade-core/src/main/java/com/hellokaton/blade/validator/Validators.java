@@ -22,6 +22,7 @@ import lombok.NoArgsConstructor;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.regex.Pattern;
 
 import static java.lang.String.format;
 
@@ -54,6 +55,7 @@ public final class Validators {
         I18N_MAP.put("CN_GREATER_THAN", "必须大于 %s");
         I18N_MAP.put("CN_IS_EMAIL", "不是一个合法的邮箱");
         I18N_MAP.put("CN_IS_URL", "不是一个合法的URL");
+        I18N_MAP.put("CN_MATCHES", "格式不正确");
 
         I18N_MAP.put("EN_NOT_NULL", "must not be null.");
         I18N_MAP.put("EN_NOT_EMPTY", "must not be empty.");
@@ -64,6 +66,7 @@ public final class Validators {
         I18N_MAP.put("EN_GREATER_THAN", "must be greater than %s.");
         I18N_MAP.put("EN_IS_EMAIL", "must be a email.");
         I18N_MAP.put("EN_IS_URL", "must be a url.");
+        I18N_MAP.put("EN_MATCHES", "has an invalid format.");
     }
 
     public static void useChinese() {
@@ -273,4 +276,36 @@ public final class Validators {
         return notEmpty().and(SimpleValidation.from(PatternKit::isURL, msg));
     }
 
+    /**
+     * Determine if the input parameter matches the regular expression. if yes, the check passes
+     *
+     * @param regex regular expression, compiled once when the validation is created
+     * @return Validation
+     */
+    public static Validation<String> matches(String regex) {
+        return matches(regex, I18N_MAP.get(i18nPrefix + "MATCHES"));
+    }
+
+    /**
+     * Determine if the input parameter matches the regular expression. if yes, the check passes
+     *
+     * @param regex regular expression, compiled once when the validation is created
+     * @param msg   error message after verification failed
+     * @return Validation
+     */
+    public static Validation<String> matches(String regex, String msg) {
+        return matches(PatternKit.compile(regex), msg);
+    }
+
+    /**
+     * Determine if the input parameter matches the pattern. if yes, the check passes
+     *
+     * @param pattern compiled regular expression
+     * @param msg     error message after verification failed
+     * @return Validation
+     */
+    public static Validation<String> matches(Pattern pattern, String msg) {
+        return notEmpty().and(SimpleValidation.from(s -> PatternKit.isMatch(pattern, s), msg));
+    }
+
 }
@@ -0,0 +1,81 @@
+package benchmark;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.hellokaton.blade.event.EventManager;
+import com.hellokaton.blade.mvc.http.HttpSession;
+import com.hellokaton.blade.mvc.http.Session;
+import com.hellokaton.blade.mvc.http.session.FileSessionStore;
+import com.hellokaton.blade.mvc.http.session.SessionManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Persist a million changed sessions: write-behind commits them all and
+ * flushes once, write-through flushes the store after every commit.
+ */
+@BenchmarkOptions(warmupRounds = 1, benchmarkRounds = 3)
+public class FileSessionStoreBenchMark {
+
+    private static final int SESSIONS = 1_000_000;
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    private Path directory;
+    private FileSessionStore store;
+    private SessionManager sessionManager;
+
+    @Before
+    public void before() throws IOException {
+        directory = Files.createTempDirectory("blade-sessions");
+        store = new FileSessionStore(directory);
+        sessionManager = new SessionManager(new EventManager(), store);
+    }
+
+    @After
+    public void after() throws IOException {
+        store.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void writeBehind() {
+        for (int i = 0; i < SESSIONS; i++) {
+            sessionManager.commit(newSession(i));
+        }
+        sessionManager.flush();
+    }
+
+    @Test
+    public void writeThrough() {
+        for (int i = 0; i < SESSIONS; i++) {
+            sessionManager.commit(newSession(i));
+            sessionManager.flush();
+        }
+    }
+
+    private Session newSession(int i) {
+        long now = Instant.now().getEpochSecond();
+        HttpSession session = new HttpSession();
+        session.id("s" + i);
+        session.created(now);
+        session.expired(now + 60);
+        session.attribute("user", "blade");
+        sessionManager.createSession(session);
+        return session;
+    }
+
+}
@@ -0,0 +1,69 @@
+package benchmark;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.hellokaton.blade.kit.IdGenerator;
+import com.hellokaton.blade.kit.UUID;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Compare UUID.UU32 (shared SecureRandom behind UUID.randomUUID) with the
+ * per thread SecureIdGenerator, single threaded and with 8 threads creating ids.
+ */
+@BenchmarkOptions(warmupRounds = 3, benchmarkRounds = 10)
+public class IdGeneratorBenchMark {
+
+    private static final int IDS = 100_000;
+    private static final int THREADS = 8;
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    @Test
+    public void uu32() {
+        for (int i = 0; i < IDS; i++) {
+            UUID.UU32();
+        }
+    }
+
+    @Test
+    public void idGenerator() {
+        IdGenerator idGenerator = IdGenerator.get();
+        for (int i = 0; i < IDS; i++) {
+            idGenerator.nextId();
+        }
+    }
+
+    @Test
+    public void uu32Concurrent() throws InterruptedException {
+        concurrent(UUID::UU32);
+    }
+
+    @Test
+    public void idGeneratorConcurrent() throws InterruptedException {
+        concurrent(IdGenerator.get()::nextId);
+    }
+
+    private static void concurrent(Supplier<String> supplier) throws InterruptedException {
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch latch = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            executorService.submit(() -> {
+                for (int i = 0; i < IDS / THREADS; i++) {
+                    supplier.get();
+                }
+                latch.countDown();
+            });
+        }
+        latch.await();
+        executorService.shutdown();
+    }
+
+}
@@ -0,0 +1,88 @@
+package benchmark;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.hellokaton.blade.mvc.HttpConst;
+import com.hellokaton.blade.server.NettyHttpConst;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.*;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.nio.charset.StandardCharsets;
+
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+
+/**
+ * Compare the previous response write path (unpooled heap copies, String headers,
+ * flush per response) with the pooled one used by RouteMethodHandler.
+ */
+@BenchmarkOptions(warmupRounds = 5, benchmarkRounds = 50)
+public class ResponseWriteBenchMark {
+
+    private static final int PIPELINED = 16;
+
+    private static final String BODY;
+
+    static {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 64; i++) {
+            sb.append("{\"id\":").append(i).append(",\"name\":\"blade-").append(i).append("\"},");
+        }
+        BODY = sb.append("{}]").toString();
+    }
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    @Test
+    public void unpooledCopiedFlushEach() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseEncoder());
+        for (int i = 0; i < 1000; i++) {
+            for (int j = 0; j < PIPELINED; j++) {
+                ByteBuf body = Unpooled.copiedBuffer(BODY.getBytes(StandardCharsets.UTF_8));
+                FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.OK, body);
+                response.headers().set(HttpHeaderNames.CONTENT_LENGTH, body.readableBytes());
+                response.headers().set(HttpHeaderNames.SERVER, HttpConst.HEADER_SERVER_VALUE);
+                response.headers().set(HttpConst.HEADER_CONTENT_TYPE, HttpConst.CONTENT_TYPE_JSON);
+                channel.writeAndFlush(response);
+            }
+            drain(channel);
+        }
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void pooledAsciiBatchFlush() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseEncoder());
+        channel.config().setAllocator(PooledByteBufAllocator.DEFAULT);
+        for (int i = 0; i < 1000; i++) {
+            for (int j = 0; j < PIPELINED; j++) {
+                ByteBuf body = channel.alloc().buffer(ByteBufUtil.utf8Bytes(BODY));
+                ByteBufUtil.writeUtf8(body, BODY);
+                FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.OK, body);
+                response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, body.readableBytes());
+                response.headers().set(HttpHeaderNames.SERVER, NettyHttpConst.SERVER_VALUE);
+                response.headers().set(HttpHeaderNames.CONTENT_TYPE, NettyHttpConst.CONTENT_TYPE_JSON);
+                channel.write(response);
+            }
+            channel.flush();
+            drain(channel);
+        }
+        channel.finishAndReleaseAll();
+    }
+
+    private void drain(EmbeddedChannel channel) {
+        Object msg;
+        while ((msg = channel.readOutbound()) != null) {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+}
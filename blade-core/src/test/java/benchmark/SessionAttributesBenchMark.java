@@ -0,0 +1,75 @@
+package benchmark;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.hellokaton.blade.mvc.http.SessionAttributes;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Compare a synchronized HashMap with SessionAttributes shared by 8 threads,
+ * one write for every 16 reads, with 4 (array) and 32 (map) attributes.
+ */
+@BenchmarkOptions(warmupRounds = 3, benchmarkRounds = 10)
+public class SessionAttributesBenchMark {
+
+    private static final int OPERATIONS = 1_000_000;
+    private static final int THREADS = 8;
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    @Test
+    public void synchronizedMapSmall() throws InterruptedException {
+        concurrent(Collections.synchronizedMap(new HashMap<>()), 4);
+    }
+
+    @Test
+    public void sessionAttributesSmall() throws InterruptedException {
+        concurrent(new SessionAttributes(), 4);
+    }
+
+    @Test
+    public void synchronizedMapLarge() throws InterruptedException {
+        concurrent(Collections.synchronizedMap(new HashMap<>()), 32);
+    }
+
+    @Test
+    public void sessionAttributesLarge() throws InterruptedException {
+        concurrent(new SessionAttributes(), 32);
+    }
+
+    private static void concurrent(Map<String, Object> attributes, int size) throws InterruptedException {
+        String[] names = new String[size];
+        for (int i = 0; i < size; i++) {
+            names[i] = "attribute" + i;
+            attributes.put(names[i], i);
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch latch = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            executorService.submit(() -> {
+                for (int i = 0; i < OPERATIONS / THREADS; i++) {
+                    String name = names[i % size];
+                    if ((i & 15) == 0) {
+                        attributes.put(name, i);
+                    } else {
+                        attributes.get(name);
+                    }
+                }
+                latch.countDown();
+            });
+        }
+        latch.await();
+        executorService.shutdown();
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.hellokaton.blade;
+
+import com.hellokaton.blade.mvc.BladeConst;
+import com.hellokaton.blade.options.HttpOptions;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EnvironmentSnapshotTest {
+
+    @Test
+    public void testDefaults() {
+        EnvironmentSnapshot snapshot = EnvironmentSnapshot.of(Environment.empty());
+        assertTrue(snapshot.isDevMode());
+        assertTrue(snapshot.isRequestLog());
+        assertFalse(snapshot.isPerformance());
+        assertNull(snapshot.getPage404());
+        assertEquals("/static", snapshot.getFaviconDir());
+        assertEquals(HttpOptions.DEFAULT_MAX_CONTENT_SIZE, snapshot.getMaxContentSize());
+        assertEquals(BladeConst.DEFAULT_SERVER_PORT, snapshot.getServerPort());
+        assertEquals(-1, snapshot.getSoBacklog());
+        assertEquals(HttpOptions.DEFAULT_COMPRESSION_THRESHOLD, snapshot.getGzipThreshold());
+        assertEquals(HttpOptions.DEFAULT_COMPRESSION_LEVEL, snapshot.getGzipLevel());
+        assertNull(snapshot.getUploadDir());
+        assertNull(snapshot.getUnixSocket());
+        assertEquals("auto", snapshot.getTransport());
+        assertFalse(snapshot.isReusePort());
+        assertEquals(-1, snapshot.getTcpFastOpen());
+        assertEquals(-1, snapshot.getTcpDeferAccept());
+        assertEquals(-1, snapshot.getMaxFileSize());
+        assertEquals(-1, snapshot.getMaxMultipartSize());
+        assertEquals(BladeConst.DEFAULT_SESSION_NEAR_CACHE_IDLE, snapshot.getSessionNearCacheIdle());
+        assertEquals(BladeConst.DEFAULT_TEMPLATE_PATH, snapshot.getTemplatePath());
+    }
+
+    @Test
+    public void testParsedValues() {
+        Environment environment = Environment.empty()
+                .set(BladeConst.ENV_KEY_PERFORMANCE, true)
+                .set(BladeConst.ENV_KEY_SERVER_PORT, 8080)
+                .set(BladeConst.ENV_KEY_PAGE_404, "404.html")
+                .set(BladeConst.ENV_KEY_GZIP_THRESHOLD, 2048)
+                .set(BladeConst.ENV_KEY_GZIP_LEVEL, 9)
+                .set(BladeConst.ENV_KEY_HTTP_UPLOAD_DIR, "/tmp/uploads")
+                .set(BladeConst.ENV_KEY_SERVER_UNIX_SOCKET, "/tmp/blade.sock")
+                .set(BladeConst.ENV_KEY_NETTY_TRANSPORT, "epoll")
+                .set(BladeConst.ENV_KEY_NETTY_REUSE_PORT, true)
+                .set(BladeConst.ENV_KEY_NETTY_TCP_FASTOPEN, 256)
+                .set(BladeConst.ENV_KEY_NETTY_TCP_DEFER_ACCEPT, 5)
+                .set(BladeConst.ENV_KEY_HTTP_MAX_FILE_SIZE, 10485760L)
+                .set(BladeConst.ENV_KEY_HTTP_MAX_MULTIPART_SIZE, 52428800L);
+        EnvironmentSnapshot snapshot = EnvironmentSnapshot.of(environment);
+        assertTrue(snapshot.isPerformance());
+        assertEquals(8080, snapshot.getServerPort());
+        assertEquals("404.html", snapshot.getPage404());
+        assertEquals(2048, snapshot.getGzipThreshold());
+        assertEquals(9, snapshot.getGzipLevel());
+        assertEquals("/tmp/uploads", snapshot.getUploadDir());
+        assertEquals("/tmp/blade.sock", snapshot.getUnixSocket());
+        assertEquals("epoll", snapshot.getTransport());
+        assertTrue(snapshot.isReusePort());
+        assertEquals(256, snapshot.getTcpFastOpen());
+        assertEquals(5, snapshot.getTcpDeferAccept());
+        assertEquals(10485760L, snapshot.getMaxFileSize());
+        assertEquals(52428800L, snapshot.getMaxMultipartSize());
+    }
+
+    @Test
+    public void testRebuildOnChange() {
+        Blade blade = Blade.create();
+        EnvironmentSnapshot snapshot = blade.snapshot();
+        assertSame(snapshot, blade.snapshot());
+
+        blade.setEnv(BladeConst.ENV_KEY_REQUEST_LOG, false);
+        EnvironmentSnapshot changed = blade.snapshot();
+        assertNotSame(snapshot, changed);
+        assertFalse(changed.isRequestLog());
+
+        blade.environment(Environment.empty().set(BladeConst.ENV_KEY_DEV_MODE, false));
+        assertFalse(blade.snapshot().isDevMode());
+        assertFalse(blade.devMode());
+        assertTrue(blade.snapshot().isRequestLog());
+    }
+
+}
@@ -31,6 +31,10 @@ public class EnvironmentTest {
         assertEquals("jack", environment.get("name").get());
 
         assertNotNull(environment.props());
+
+        // a copy, writes go through set
+        environment.props().setProperty("name", "rose");
+        assertEquals("jack", environment.get("name").get());
     }
 
     @Test
@@ -1,8 +1,19 @@
 package com.hellokaton.blade.event;
 
 import com.hellokaton.blade.Blade;
+import com.hellokaton.blade.ioc.annotation.Order;
+import com.hellokaton.blade.options.EventOptions;
+import io.netty.channel.DefaultEventLoop;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
 /**
  * @author biezhi
  * @date 2017/9/19
@@ -16,4 +27,223 @@ public class EventManagerTest {
         eventManager.fireEvent(EventType.SERVER_STARTED, new Event().attribute("blade", Blade.create()));
     }
 
+    @Order(1)
+    static class First implements EventListener {
+        private final List<String> calls;
+
+        First(List<String> calls) {
+            this.calls = calls;
+        }
+
+        @Override
+        public void trigger(Event e) {
+            calls.add("first");
+        }
+    }
+
+    @Test
+    public void testOrder() {
+        List<String> calls = new CopyOnWriteArrayList<>();
+        EventManager eventManager = new EventManager();
+        assertFalse(eventManager.hasListeners(EventType.SESSION_CREATED));
+
+        eventManager.addEventListener(EventType.SESSION_CREATED, e -> calls.add("second"));
+        eventManager.addEventListener(EventType.SESSION_CREATED, new First(calls));
+        eventManager.addEventListener(EventType.SESSION_CREATED, e -> calls.add("third"));
+        assertTrue(eventManager.hasListeners(EventType.SESSION_CREATED));
+
+        eventManager.fireEvent(EventType.SESSION_CREATED, new Event());
+        assertArrayEquals(new String[]{"first", "second", "third"}, calls.toArray());
+    }
+
+    @Test
+    public void testAsync() throws Exception {
+        EventManager eventManager = new EventManager(2);
+        Thread caller = Thread.currentThread();
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(100);
+        eventManager.addEventListener(EventType.SESSION_DESTROY, e -> {
+            assertNotSame(caller, Thread.currentThread());
+            received.add((Integer) e.attribute("n"));
+            latch.countDown();
+        }, EventOptions.create().async());
+
+        for (int i = 0; i < 100; i++) {
+            eventManager.fireEvent(EventType.SESSION_DESTROY, new Event().attribute("n", i));
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, (int) received.get(i));
+        }
+        eventManager.shutdown();
+    }
+
+    @Test
+    public void testCoalesce() throws Exception {
+        EventManager eventManager = new EventManager(1);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Object> latest = new CopyOnWriteArrayList<>();
+        List<Integer> batches = new CopyOnWriteArrayList<>();
+
+        eventManager.addEventListener(EventType.ENVIRONMENT_CHANGED, e -> {
+            if ("block".equals(e.attribute("n"))) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                }
+            }
+            latest.add(e.attribute("n"));
+        }, EventOptions.create().coalesce());
+        eventManager.addEventListener(EventType.ENVIRONMENT_CHANGED,
+                (BatchEventListener) events -> batches.add(events.size()), EventOptions.create().coalesce());
+
+        eventManager.fireEvent(EventType.ENVIRONMENT_CHANGED, new Event().attribute("n", "block"));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 10; i++) {
+            eventManager.fireEvent(EventType.ENVIRONMENT_CHANGED, new Event().attribute("n", i));
+        }
+        release.countDown();
+        eventManager.shutdown();
+        assertTrue(eventManager.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals("block", latest.get(0));
+        assertEquals(9, latest.get(latest.size() - 1));
+        assertTrue(latest.size() <= 3);
+        assertEquals(11, batches.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    public void testOverflowBlocksCaller() throws Exception {
+        EventManager eventManager = new EventManager(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        eventManager.addEventListener(EventType.SOURCE_CHANGED, e -> {
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+            threads.add(Thread.currentThread());
+            received.add((Integer) e.attribute("n"));
+        }, EventOptions.create().async().maxPending(2).blockOnOverflow());
+
+        Thread caller = new Thread(() -> {
+            for (int i = 0; i < 5; i++) {
+                eventManager.fireEvent(EventType.SOURCE_CHANGED, new Event().attribute("n", i));
+            }
+        });
+        caller.start();
+        // one event is being delivered, two are pending, the fourth waits for room
+        for (int i = 0; i < 500 && caller.getState() != Thread.State.WAITING; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(Thread.State.WAITING, caller.getState());
+        assertTrue(received.isEmpty());
+
+        release.countDown();
+        caller.join(5000);
+        assertFalse(caller.isAlive());
+        eventManager.shutdown();
+        assertTrue(eventManager.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), received);
+        assertFalse(threads.contains(caller));
+    }
+
+    @Test
+    public void testOverflowRejectedOnEventThread() throws Exception {
+        EventManager eventManager = new EventManager(2);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch fired = new CountDownLatch(1);
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        eventManager.addEventListener(EventType.SOURCE_CHANGED, e -> {
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+            received.add((Integer) e.attribute("n"));
+        }, EventOptions.create().async().maxPending(1).blockOnOverflow());
+        // an async listener firing into the full listener must not wait for it
+        eventManager.addEventListener(EventType.SESSION_CREATED, e -> {
+            for (int i = 1; i < 4; i++) {
+                eventManager.fireEvent(EventType.SOURCE_CHANGED, new Event().attribute("n", i));
+            }
+            fired.countDown();
+        }, EventOptions.create().async());
+
+        eventManager.fireEvent(EventType.SOURCE_CHANGED, new Event().attribute("n", 0));
+        eventManager.fireEvent(EventType.SESSION_CREATED, new Event());
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        release.countDown();
+        eventManager.shutdown();
+        assertTrue(eventManager.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(0, (int) received.get(0));
+        assertTrue(received.size() < 4);
+        assertEquals(4 - received.size(), eventManager.dropped());
+    }
+
+    @Test
+    public void testOverflowDiscards() throws Exception {
+        EventManager eventManager = new EventManager(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch delivering = new CountDownLatch(1);
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        eventManager.addEventListener(EventType.SOURCE_CHANGED, e -> {
+            delivering.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+            received.add((Integer) e.attribute("n"));
+        }, EventOptions.create().async().maxPending(2));
+
+        eventManager.fireEvent(EventType.SOURCE_CHANGED, new Event().attribute("n", 0));
+        assertTrue(delivering.await(5, TimeUnit.SECONDS));
+        // two are pending, the others are discarded rather than waiting
+        for (int i = 1; i < 5; i++) {
+            eventManager.fireEvent(EventType.SOURCE_CHANGED, new Event().attribute("n", i));
+        }
+        assertEquals(2, eventManager.dropped());
+
+        release.countDown();
+        eventManager.shutdown();
+        assertTrue(eventManager.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(0, 1, 2), received);
+    }
+
+    @Test
+    public void testNeverBlocksEventLoop() throws Exception {
+        EventManager eventManager = new EventManager(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch delivering = new CountDownLatch(1);
+        eventManager.addEventListener(EventType.SESSION_CREATED, e -> {
+            delivering.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+        }, EventOptions.create().async().maxPending(1).blockOnOverflow());
+
+        eventManager.fireEvent(EventType.SESSION_CREATED, new Event());
+        assertTrue(delivering.await(5, TimeUnit.SECONDS));
+        DefaultEventLoop eventLoop = new DefaultEventLoop();
+        try {
+            eventLoop.submit(() -> {
+                for (int i = 0; i < 3; i++) {
+                    eventManager.fireEvent(EventType.SESSION_CREATED, new Event());
+                }
+            }).get(1, TimeUnit.SECONDS);
+        } finally {
+            eventLoop.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+        }
+        assertEquals(2, eventManager.dropped());
+
+        release.countDown();
+        eventManager.shutdown();
+        assertTrue(eventManager.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
 }
@@ -2,7 +2,7 @@ package com.hellokaton.blade.exception;
 
 import org.junit.Test;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 /**
  * @author biezhi
@@ -31,4 +31,16 @@ public class NotFoundExceptionTest {
         }
     }
 
+    @Test
+    public void testStackless() {
+        assertEquals(0, new NotFoundException("/hello").getStackTrace().length);
+        assertEquals(0, new MethodNotAllowedException("GET /hello").getStackTrace().length);
+
+        Exception cause = new IllegalStateException("error");
+        BladeException wrapper = BladeException.wrapper(cause);
+        assertEquals(0, wrapper.getStackTrace().length);
+        assertSame(cause, wrapper.getCause());
+        assertTrue(cause.getStackTrace().length > 0);
+    }
+
 }
@@ -0,0 +1,192 @@
+package com.hellokaton.blade.ioc;
+
+import com.hellokaton.blade.annotation.Path;
+import com.hellokaton.blade.ioc.bean.ClassInfo;
+import com.hellokaton.blade.ioc.bean.Scanner;
+import com.hellokaton.blade.ioc.reader.AsmClassReader;
+import com.hellokaton.blade.types.controller.IndexController;
+import com.hellokaton.blade.types.controller.UserService;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class AsmClassReaderTest {
+
+    private static final String PACKAGE_NAME = "com.hellokaton.blade.types.controller";
+
+    @Test
+    public void testReadAnnotatedClasses() {
+        Set<ClassInfo> classInfos = new AsmClassReader().readClasses(Scanner.builder()
+                .packageName(PACKAGE_NAME).recursive(true)
+                .annotations(Collections.singleton(Path.class)).build());
+
+        assertEquals(1, classInfos.size());
+        assertEquals(IndexController.class, classInfos.iterator().next().getClazz());
+    }
+
+    @Test
+    public void testReadAllClasses() {
+        Set<ClassInfo> classInfos = new AsmClassReader().readClasses(Scanner.builder()
+                .packageName(PACKAGE_NAME).recursive(true).build());
+
+        Set<Class<?>> classes = classInfos.stream().map(ClassInfo::getClazz).collect(Collectors.toSet());
+        assertEquals(2, classes.size());
+        assertTrue(classes.containsAll(Arrays.asList(IndexController.class, UserService.class)));
+
+        assertFalse(new AsmClassReader().readClasses(Scanner.builder()
+                .packageName("org.slf4j").recursive(true).build()).isEmpty());
+    }
+
+    @Test
+    public void testScanIndex() throws Exception {
+        java.nio.file.Path directory = Files.createTempDirectory("blade-scan");
+        java.nio.file.Path jar = directory.resolve("controller.jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            String dir = "";
+            for (String name : PACKAGE_NAME.split("\\.")) {
+                dir += name + "/";
+                out.putNextEntry(new JarEntry(dir));
+                out.closeEntry();
+            }
+            for (Class<?> clazz : Arrays.asList(IndexController.class, UserService.class)) {
+                out.putNextEntry(new JarEntry(resourceName(clazz)));
+                out.write(classBytes(clazz));
+                out.closeEntry();
+            }
+        }
+        java.nio.file.Path indexDirectory = Files.createDirectory(directory.resolve("index"));
+        Scanner scanner = Scanner.builder().packageName(PACKAGE_NAME).recursive(true)
+                .annotations(Collections.singleton(Path.class)).build();
+
+        Set<ClassInfo> classInfos = readWith(jar, new AsmClassReader(indexDirectory), scanner);
+        assertEquals(IndexController.class, classInfos.iterator().next().getClazz());
+        File[] indexFiles = indexDirectory.toFile().listFiles();
+        assertNotNull(indexFiles);
+        assertEquals(1, indexFiles.length);
+
+        // an unchanged jar is answered from the index
+        Files.write(indexFiles[0].toPath(), Arrays.asList("# blade scan index v1", UserService.class.getName()),
+                StandardCharsets.UTF_8);
+        classInfos = readWith(jar, new AsmClassReader(indexDirectory), scanner);
+        assertEquals(UserService.class, classInfos.iterator().next().getClazz());
+
+        // class directories are not indexed
+        new AsmClassReader(indexDirectory).readClasses(scanner);
+        assertEquals(1, indexDirectory.toFile().listFiles().length);
+
+        delete(directory);
+    }
+
+    @Test
+    public void testReadNewerClassFileVersion() throws Exception {
+        java.nio.file.Path directory = Files.createTempDirectory("blade-scan");
+        for (Class<?> clazz : Arrays.asList(IndexController.class, UserService.class)) {
+            byte[] bytes = classBytes(clazz);
+            // major version 63, a Java 19 class file
+            bytes[6] = 0;
+            bytes[7] = 63;
+            java.nio.file.Path file = directory.resolve(resourceName(clazz));
+            Files.createDirectories(file.getParent());
+            Files.write(file, bytes);
+        }
+
+        Set<ClassInfo> classInfos = readWith(directory, new AsmClassReader(), Scanner.builder()
+                .packageName(PACKAGE_NAME).recursive(true)
+                .annotations(Collections.singleton(Path.class)).build());
+
+        assertEquals(1, classInfos.size());
+        assertEquals(IndexController.class, classInfos.iterator().next().getClazz());
+
+        delete(directory);
+    }
+
+    @Test
+    public void testScanClassCompiledForJava17() throws Exception {
+        // jdk17/RecordController.class: "@Path public record RecordController(String name) {}"
+        // in the controller package, compiled with javac --release 17
+        java.nio.file.Path directory = Files.createTempDirectory("blade-scan");
+        java.nio.file.Path jar = directory.resolve("record.jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar));
+             InputStream in = AsmClassReaderTest.class.getResourceAsStream("/jdk17/RecordController.class")) {
+            String dir = "";
+            for (String name : PACKAGE_NAME.split("\\.")) {
+                dir += name + "/";
+                out.putNextEntry(new JarEntry(dir));
+                out.closeEntry();
+            }
+            out.putNextEntry(new JarEntry(dir + "RecordController.class"));
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            out.closeEntry();
+        }
+        java.nio.file.Path indexDirectory = Files.createDirectory(directory.resolve("index"));
+        readWith(jar, new AsmClassReader(indexDirectory), Scanner.builder()
+                .packageName(PACKAGE_NAME).recursive(true)
+                .annotations(Collections.singleton(Path.class)).build());
+
+        // the header is matched without loading the class, which this JVM may not support
+        File[] indexFiles = indexDirectory.toFile().listFiles();
+        assertNotNull(indexFiles);
+        assertEquals(Arrays.asList("# blade scan index v1", PACKAGE_NAME + ".RecordController"),
+                Files.readAllLines(indexFiles[0].toPath(), StandardCharsets.UTF_8));
+
+        delete(directory);
+    }
+
+    /**
+     * Read the classes with only the given classpath entry visible to the scan,
+     * the classes themselves still come from the test classpath
+     */
+    private static Set<ClassInfo> readWith(java.nio.file.Path classpath, AsmClassReader reader, Scanner scanner)
+            throws IOException {
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{classpath.toUri().toURL()},
+                AsmClassReaderTest.class.getClassLoader()) {
+            @Override
+            public Enumeration<URL> getResources(String name) throws IOException {
+                return findResources(name);
+            }
+        }) {
+            Thread.currentThread().setContextClassLoader(classLoader);
+            return reader.readClasses(scanner);
+        } finally {
+            Thread.currentThread().setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    private static String resourceName(Class<?> clazz) {
+        return clazz.getName().replace('.', '/') + ".class";
+    }
+
+    private static byte[] classBytes(Class<?> clazz) throws Exception {
+        return Files.readAllBytes(Paths.get(clazz.getClassLoader().getResource(resourceName(clazz)).toURI()));
+    }
+
+    private static void delete(java.nio.file.Path directory) throws IOException {
+        try (Stream<java.nio.file.Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).map(java.nio.file.Path::toFile).forEach(File::delete);
+        }
+    }
+
+}
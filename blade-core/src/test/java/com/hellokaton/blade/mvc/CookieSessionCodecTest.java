@@ -0,0 +1,83 @@
+package com.hellokaton.blade.mvc;
+
+import com.hellokaton.blade.mvc.http.HttpSession;
+import com.hellokaton.blade.mvc.http.Session;
+import com.hellokaton.blade.mvc.http.session.CookieSessionCodec;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class CookieSessionCodecTest {
+
+    @Test
+    public void testEncodeDecode() {
+        CookieSessionCodec codec = new CookieSessionCodec(Collections.singletonList("secret"));
+        Session session = newSession();
+        session.attribute("user", "blade");
+        session.attribute("uid", 1024L);
+        session.attribute("admin", true);
+        session.attribute("tags", new java.util.ArrayList<>(Arrays.asList("a", "b")));
+
+        String cookieValue = codec.encode(session);
+        assertNotNull(cookieValue);
+        assertTrue(codec.isPrimaryKey(cookieValue));
+
+        Session decoded = codec.decode(cookieValue, HttpSession.class);
+        assertNotNull(decoded);
+        assertEquals(session.id(), decoded.id());
+        assertEquals(session.expired(), decoded.expired());
+        assertEquals("blade", decoded.attribute("user"));
+        assertEquals(Long.valueOf(1024L), decoded.attribute("uid"));
+        assertEquals(Boolean.TRUE, decoded.attribute("admin"));
+        assertEquals(Arrays.asList("a", "b"), decoded.attribute("tags"));
+        assertTrue(((HttpSession) decoded).drainChangedAttributes().isEmpty());
+    }
+
+    @Test
+    public void testRejectTampered() {
+        CookieSessionCodec codec = new CookieSessionCodec(Collections.singletonList("secret"));
+        String cookieValue = codec.encode(newSession());
+        char last = cookieValue.charAt(cookieValue.length() - 2);
+        String tampered = cookieValue.substring(0, cookieValue.length() - 2)
+                + (last == 'A' ? 'B' : 'A') + cookieValue.charAt(cookieValue.length() - 1);
+
+        assertNull(codec.decode(tampered, HttpSession.class));
+        assertNull(codec.decode("garbage", HttpSession.class));
+        assertNull(new CookieSessionCodec(Collections.singletonList("other")).decode(cookieValue, HttpSession.class));
+    }
+
+    @Test
+    public void testKeyRotation() {
+        CookieSessionCodec oldCodec = new CookieSessionCodec(Collections.singletonList("old"));
+        CookieSessionCodec codec = new CookieSessionCodec(Arrays.asList("new", "old"));
+        String cookieValue = oldCodec.encode(newSession());
+
+        assertNotNull(codec.decode(cookieValue, HttpSession.class));
+        assertFalse(codec.isPrimaryKey(cookieValue));
+        assertTrue(codec.isPrimaryKey(codec.encode(newSession())));
+    }
+
+    @Test
+    public void testTooLarge() {
+        CookieSessionCodec codec = new CookieSessionCodec(Collections.singletonList("secret"));
+        Session session = newSession();
+        char[] chars = new char[CookieSessionCodec.MAX_COOKIE_SIZE];
+        Arrays.fill(chars, 'x');
+        session.attribute("large", new String(chars));
+        assertNull(codec.encode(session));
+    }
+
+    private Session newSession() {
+        long now = Instant.now().getEpochSecond();
+        HttpSession session = new HttpSession();
+        session.id("session-id");
+        session.created(now);
+        session.expired(now + 60);
+        return session;
+    }
+
+}
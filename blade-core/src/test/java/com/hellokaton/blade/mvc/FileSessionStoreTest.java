@@ -0,0 +1,180 @@
+package com.hellokaton.blade.mvc;
+
+import com.hellokaton.blade.event.EventManager;
+import com.hellokaton.blade.mvc.http.HttpSession;
+import com.hellokaton.blade.mvc.http.Session;
+import com.hellokaton.blade.mvc.http.session.FileSessionStore;
+import com.hellokaton.blade.mvc.http.session.SessionManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class FileSessionStoreTest {
+
+    private Path directory;
+    private final List<FileSessionStore> stores = new ArrayList<>();
+
+    @Before
+    public void before() throws IOException {
+        directory = Files.createTempDirectory("blade-sessions");
+    }
+
+    @After
+    public void after() throws IOException {
+        stores.forEach(FileSessionStore::close);
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testRestoreAfterRestart() throws IOException {
+        SessionManager sessionManager = new SessionManager(new EventManager(), open());
+        Session session = newSession("s1");
+        sessionManager.createSession(session);
+        session.attribute("user", "blade");
+        session.attribute("count", 1);
+        sessionManager.commit(session);
+        sessionManager.close();
+
+        FileSessionStore store = open();
+        assertEquals(1, store.size());
+
+        sessionManager = new SessionManager(new EventManager(), store);
+        Session restored = sessionManager.getSession("s1");
+        assertNotNull(restored);
+        assertEquals("blade", restored.attribute("user"));
+        assertEquals(Integer.valueOf(1), restored.attribute("count"));
+        assertEquals(session.expired(), restored.expired());
+        assertSame(restored, sessionManager.getSession("s1"));
+        store.close();
+    }
+
+    @Test
+    public void testWriteOnlyChangedAttributes() throws IOException {
+        FileSessionStore store = open();
+        SessionManager sessionManager = new SessionManager(new EventManager(), store);
+        Session session = newSession("s2");
+        session.attribute("a", "1");
+        session.attribute("b", "2");
+        sessionManager.createSession(session);
+        sessionManager.commit(session);
+        sessionManager.flush();
+        long size = Files.size(directory.resolve(FileSessionStore.LOG_FILE_NAME));
+
+        session.removeAttribute("a");
+        sessionManager.commit(session);
+        sessionManager.flush();
+        long grown = Files.size(directory.resolve(FileSessionStore.LOG_FILE_NAME)) - size;
+        // only the remove record, the expiry did not move and "b" is not written again
+        assertTrue(grown > 0 && grown < 50);
+        store.close();
+
+        Session restored = open().read("s2");
+        assertNull(restored.attribute("a"));
+        assertEquals("2", restored.attribute("b"));
+    }
+
+    @Test
+    public void testSkipUnchangedSession() throws IOException {
+        SessionManager sessionManager = new SessionManager(new EventManager(), open());
+        Session session = newSession("s5");
+        sessionManager.createSession(session);
+        sessionManager.flush();
+        Path logPath = directory.resolve(FileSessionStore.LOG_FILE_NAME);
+        long size = Files.size(logPath);
+
+        sessionManager.commit(session);
+        sessionManager.flush();
+        assertEquals(size, Files.size(logPath));
+
+        // a renewal writes the meta record only
+        session.expired(session.expired() + 60);
+        sessionManager.commit(session);
+        sessionManager.flush();
+        assertTrue(Files.size(logPath) > size);
+        sessionManager.close();
+    }
+
+    @Test
+    public void testEvictIdle() throws IOException {
+        SessionManager sessionManager = new SessionManager(new EventManager(), open());
+        Session session = newSession("s6");
+        session.attribute("user", "blade");
+        sessionManager.createSession(session);
+
+        // pending changes keep it in the near cache
+        sessionManager.evictIdle(0);
+        assertSame(session, sessionManager.sessionMap().get("s6"));
+
+        sessionManager.flush();
+        sessionManager.evictIdle(0);
+        assertNull(sessionManager.sessionMap().get("s6"));
+
+        Session restored = sessionManager.getSession("s6");
+        assertNotSame(session, restored);
+        assertEquals("blade", restored.attribute("user"));
+        assertSame(restored, sessionManager.sessionMap().get("s6"));
+
+        sessionManager.evictIdle(60);
+        assertSame(restored, sessionManager.sessionMap().get("s6"));
+        sessionManager.close();
+    }
+
+    @Test
+    public void testDestroySession() throws IOException {
+        SessionManager sessionManager = new SessionManager(new EventManager(), open());
+        Session session = newSession("s3");
+        sessionManager.createSession(session);
+        sessionManager.flush();
+        sessionManager.destroySession(session);
+        sessionManager.close();
+
+        assertNull(open().read("s3"));
+    }
+
+    @Test
+    public void testDropTruncatedRecord() throws IOException {
+        SessionManager sessionManager = new SessionManager(new EventManager(), open());
+        sessionManager.createSession(newSession("s4"));
+        sessionManager.close();
+
+        Path logPath = directory.resolve(FileSessionStore.LOG_FILE_NAME);
+        long size = Files.size(logPath);
+        try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+        FileSessionStore store = open();
+        assertEquals(0, store.size());
+        store.close();
+    }
+
+    private FileSessionStore open() throws IOException {
+        FileSessionStore store = new FileSessionStore(directory);
+        stores.add(store);
+        return store;
+    }
+
+    private Session newSession(String id) {
+        long now = Instant.now().getEpochSecond();
+        HttpSession session = new HttpSession();
+        session.id(id);
+        session.created(now);
+        session.expired(now + 60);
+        return session;
+    }
+
+}
@@ -150,6 +150,25 @@ public class HttpRequestTest extends BaseTestCase {
         assertEquals(firefoxUA, request.userAgent());
     }
 
+    @Test
+    public void testUseGZIP() {
+        Request mockRequest = mockHttpRequest("GET");
+        WebContext.blade().httpOptions().enableGzip();
+        Map<String, List<String>> headers = new HashMap<>();
+        when(mockRequest.headers()).thenReturn(headers);
+        Request request = new HttpRequest(mockRequest);
+
+        headers.put("Accept-Encoding", Collections.singletonList("br, gzip;q=0.8"));
+        assertTrue(request.useGZIP());
+        headers.put("Accept-Encoding", Collections.singletonList("*"));
+        assertTrue(request.useGZIP());
+        headers.put("Accept-Encoding", Collections.singletonList("*, gzip;q=0"));
+        assertFalse(request.useGZIP());
+        headers.put("Accept-Encoding", Collections.singletonList("x-gzip, deflate"));
+        assertFalse(request.useGZIP());
+        WebContext.blade().httpOptions().setEnableGzip(false);
+    }
+
     @Test
     public void testProtocol() {
         Request mockRequest = mockHttpRequest("GET");
@@ -0,0 +1,99 @@
+package com.hellokaton.blade.mvc;
+
+import com.hellokaton.blade.mvc.http.HttpSession;
+import com.hellokaton.blade.mvc.http.SessionAttributes;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SessionAttributesTest {
+
+    @Test
+    public void testSmallAndLarge() {
+        SessionAttributes attributes = new SessionAttributes();
+        for (int i = 0; i < 20; i++) {
+            attributes.put("k" + i, i);
+            assertEquals(i + 1, attributes.size());
+        }
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, attributes.get("k" + i));
+        }
+        attributes.put("k3", null);
+        assertTrue(attributes.containsKey("k3"));
+        assertNull(attributes.get("k3"));
+        assertNull(attributes.remove("k3"));
+        assertFalse(attributes.containsKey("k3"));
+        assertEquals(19, attributes.entrySet().size());
+
+        attributes.clear();
+        assertTrue(attributes.isEmpty());
+    }
+
+    @Test
+    public void testVersions() {
+        SessionAttributes attributes = new SessionAttributes();
+        assertEquals(0, attributes.version());
+        attributes.put("a", 1);
+        attributes.put("b", 2);
+        long version = attributes.version();
+        assertEquals(2, version);
+        assertEquals(1, attributes.version("a"));
+        assertEquals(0, attributes.version("c"));
+
+        attributes.put("a", 3);
+        attributes.remove("b");
+        attributes.remove("c");
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")), attributes.changedSince(version));
+        assertTrue(attributes.changedSince(attributes.version()).isEmpty());
+
+        attributes.put("b", 4);
+        assertEquals(new HashSet<>(Arrays.asList("b")), attributes.changedSince(attributes.version() - 1));
+    }
+
+    @Test
+    public void testDrainChangedAttributes() {
+        HttpSession session = new HttpSession();
+        session.attributes().put("loaded", true);
+        session.markPersisted();
+        assertTrue(session.drainChangedAttributes().isEmpty());
+
+        session.attribute("user", "blade");
+        session.removeAttribute("loaded");
+        assertEquals(new HashSet<>(Arrays.asList("user", "loaded")), session.drainChangedAttributes());
+        assertTrue(session.drainChangedAttributes().isEmpty());
+    }
+
+    @Test
+    public void testConcurrentWrites() throws Exception {
+        SessionAttributes attributes = new SessionAttributes();
+        int threads = 8;
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            executorService.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    attributes.put("t" + id + "-" + (i % 4), i);
+                    attributes.get("t" + ((id + 1) % threads) + "-0");
+                }
+                latch.countDown();
+            });
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        executorService.shutdown();
+
+        assertEquals(threads * 4, attributes.size());
+        assertEquals(threads * 1000, attributes.version());
+        for (int t = 0; t < threads; t++) {
+            assertEquals(999, attributes.get("t" + t + "-3"));
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.hellokaton.blade.mvc.handler;
+
+import com.hellokaton.blade.mvc.Person;
+import com.hellokaton.blade.mvc.http.Request;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ModelBinderTest {
+
+    @Test
+    public void testBind() {
+        Map<String, List<String>> params = new HashMap<>();
+        params.put("name", Collections.singletonList("jack"));
+        params.put("age", Collections.singletonList("22"));
+        params.put("text", Collections.singletonList(" "));
+
+        Person person = ModelBinder.of(Person.class).bind(params, null);
+        assertEquals("jack", person.getName());
+        assertEquals(22, person.getAge());
+        assertNull(person.getText());
+    }
+
+    @Test
+    public void testBindPrefix() {
+        Map<String, List<String>> params = new HashMap<>();
+        params.put("name", Collections.singletonList("jack"));
+        params.put("person[name]", Collections.singletonList("rose"));
+        params.put("person[age]", Collections.singletonList("18"));
+
+        Person person = ModelBinder.of(Person.class).bind(params, "person");
+        assertEquals("rose", person.getName());
+        assertEquals(18, person.getAge());
+    }
+
+    public static class Account {
+
+        private final String name;
+        private final int level;
+
+        public Account() {
+            this.name = null;
+            this.level = 0;
+        }
+    }
+
+    @Test
+    public void testBindFinalFields() {
+        Map<String, List<String>> params = new HashMap<>();
+        params.put("name", Collections.singletonList("jack"));
+        params.put("level", Collections.singletonList("3"));
+
+        Account account = ModelBinder.of(Account.class).bind(params, null);
+        assertEquals("jack", account.name);
+        assertEquals(3, account.level);
+    }
+
+    @Test
+    public void testPrepareWithoutMethod() {
+        RouteActionArguments.prepare(null);
+    }
+
+    @Test
+    public void testParseModel() {
+        Map<String, List<String>> params = new HashMap<>();
+        params.put("name", Collections.singletonList("jack"));
+        Request request = mock(Request.class);
+        when(request.queryParams()).thenReturn(params);
+
+        Person person = RouteActionArguments.parseModel(Person.class, request, null);
+        assertEquals("jack", person.getName());
+        assertSame(ModelBinder.of(Person.class), ModelBinder.of(Person.class));
+    }
+
+}
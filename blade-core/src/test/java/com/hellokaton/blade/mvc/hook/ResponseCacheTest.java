@@ -0,0 +1,186 @@
+package com.hellokaton.blade.mvc.hook;
+
+import com.hellokaton.blade.mvc.RouteContext;
+import com.hellokaton.blade.mvc.http.*;
+import com.hellokaton.blade.options.ResponseCacheOptions;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpResponse;
+import org.junit.Test;
+
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ResponseCacheTest {
+
+    private static RouteContext context(String method, String url, String... headers) {
+        Map<String, List<String>> headerMap = new HashMap<>();
+        for (int i = 0; i < headers.length; i += 2) {
+            headerMap.put(headers[i], Collections.singletonList(headers[i + 1]));
+        }
+        Request mockRequest = mock(Request.class);
+        when(mockRequest.method()).thenReturn(method);
+        when(mockRequest.url()).thenReturn(url);
+        when(mockRequest.headers()).thenReturn(headerMap);
+        when(mockRequest.attributes()).thenReturn(new HashMap<>());
+        return new RouteContext(new com.hellokaton.blade.mvc.http.HttpRequest(mockRequest),
+                new com.hellokaton.blade.mvc.http.HttpResponse());
+    }
+
+    private static boolean run(ResponseCache cache, RouteContext context, String text) {
+        if (!cache.before(context)) {
+            return false;
+        }
+        context.text(text);
+        cache.after(context);
+        return true;
+    }
+
+    private static String body(Response response) {
+        StringBuilder out = new StringBuilder();
+        response.body().write(new BodyWriter() {
+            @Override
+            public HttpResponse onView(ViewBody body) {
+                return null;
+            }
+
+            @Override
+            public HttpResponse onStatic(StaticFileBody body) {
+                return null;
+            }
+
+            @Override
+            public HttpResponse onRawBody(RawBody body) {
+                return null;
+            }
+
+            @Override
+            public HttpResponse onByteBuf(ByteBuf byteBuf) {
+                out.append(byteBuf.toString(StandardCharsets.UTF_8));
+                byteBuf.release();
+                return null;
+            }
+
+            @Override
+            public HttpResponse onByteBuf(String fileName, FileChannel channel) {
+                return null;
+            }
+        });
+        return out.toString();
+    }
+
+    @Test
+    public void testHit() {
+        ResponseCache cache = new ResponseCache();
+        RouteContext first = context("GET", "/articles?page=1");
+        assertTrue(run(cache, first, "articles"));
+        assertEquals("articles", body(first.response()));
+        String etag = first.response().headers().get("ETag");
+        assertNotNull(etag);
+
+        RouteContext second = context("GET", "/articles?page=1");
+        assertFalse(run(cache, second, "changed"));
+        assertEquals(200, second.response().statusCode());
+        assertEquals("articles", body(second.response()));
+        assertEquals(etag, second.response().headers().get("ETag"));
+        assertEquals(first.response().contentType(), second.response().contentType());
+
+        assertTrue(run(cache, context("GET", "/articles?page=2"), "page 2"));
+        assertEquals(1, cache.hits());
+        assertEquals(2, cache.misses());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testNotModified() {
+        ResponseCache cache = new ResponseCache();
+        RouteContext first = context("GET", "/a");
+        run(cache, first, "a");
+        String etag = first.response().headers().get("ETag");
+
+        RouteContext second = context("GET", "/a", "If-None-Match", "\"other\", W/" + etag);
+        assertFalse(run(cache, second, "a"));
+        assertEquals(304, second.response().statusCode());
+        assertEquals("", body(second.response()));
+        assertEquals(etag, second.response().headers().get("ETag"));
+
+        RouteContext third = context("GET", "/a", "If-None-Match", "\"other\"");
+        assertFalse(run(cache, third, "a"));
+        assertEquals(200, third.response().statusCode());
+    }
+
+    @Test
+    public void testVary() {
+        ResponseCache cache = new ResponseCache(ResponseCacheOptions.create().vary("Accept-Language"));
+        run(cache, context("GET", "/a", "Accept-Language", "en"), "hello");
+        run(cache, context("GET", "/a", "Accept-Language", "zh"), "你好");
+
+        RouteContext zh = context("GET", "/a", "Accept-Language", "zh");
+        assertFalse(run(cache, zh, "other"));
+        assertEquals("你好", body(zh.response()));
+
+        RouteContext varied = context("GET", "/b");
+        cache.before(varied);
+        varied.text("b");
+        varied.response().header("Vary", "Cookie");
+        cache.after(varied);
+        assertTrue(run(cache, context("GET", "/b"), "b"));
+    }
+
+    @Test
+    public void testNotCacheable() {
+        ResponseCache cache = new ResponseCache();
+        run(cache, context("POST", "/a"), "a");
+        assertTrue(run(cache, context("GET", "/a", "Authorization", "Basic YTpi"), "a"));
+
+        RouteContext withCookie = context("GET", "/a");
+        cache.before(withCookie);
+        withCookie.text("a");
+        withCookie.response().cookie("uid", "1");
+        cache.after(withCookie);
+
+        RouteContext privateResponse = context("GET", "/a");
+        cache.before(privateResponse);
+        privateResponse.text("a");
+        privateResponse.response().header("Cache-Control", "private, max-age=60");
+        cache.after(privateResponse);
+
+        RouteContext notFound = context("GET", "/a");
+        cache.before(notFound);
+        notFound.response().status(404);
+        notFound.text("not found");
+        cache.after(notFound);
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testExpired() throws Exception {
+        ResponseCache cache = new ResponseCache(ResponseCacheOptions.create().ttlSeconds(0));
+        run(cache, context("GET", "/a"), "a");
+        assertTrue(run(cache, context("GET", "/a"), "a"));
+        assertEquals(0, cache.hits());
+    }
+
+    @Test
+    public void testStoreEviction() {
+        ResponseCacheStore store = new ResponseCacheStore(4096);
+        for (int i = 0; i < 10; i++) {
+            String key = "/" + i;
+            store.put(key, new CachedResponse(key, 200, Collections.emptyMap(), new byte[1000], "\"" + i + "\"", Long.MAX_VALUE), i);
+            assertTrue(store.weight() <= 4096);
+        }
+        assertNull(store.get("/0", 10));
+        assertNotNull(store.get("/9", 10));
+
+        store.put("/expired", new CachedResponse("/expired", 200, Collections.emptyMap(), new byte[10], "\"e\"", 20), 10);
+        assertNull(store.get("/expired", 20));
+        store.clear();
+        assertEquals(0, store.weight());
+    }
+
+}
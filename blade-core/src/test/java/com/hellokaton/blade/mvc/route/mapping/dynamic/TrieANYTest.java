@@ -218,4 +218,18 @@ public class TrieANYTest {
 //        System.out.println(trieMapping.findRoute("GET", "/users/abcd/abcd/efef"));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testHasPath() {
+        TrieMapping trieMapping = initMapping(Arrays.asList(
+                MethodAndPath.of(HttpMethod.GET, "/users/:id"),
+                MethodAndPath.of(HttpMethod.POST, "/users"))
+        );
+
+        assertNull(trieMapping.findRoute("DELETE", "/users/10"));
+        assertTrue(trieMapping.hasPath("/users/10"));
+        assertNull(trieMapping.findRoute("GET", "/users"));
+        assertTrue(trieMapping.hasPath("/users"));
+        assertFalse(trieMapping.hasPath("/orders"));
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.hellokaton.blade.server;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.timeout.IdleStateEvent;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class ConnectionGuardTest {
+
+    private static String readAll(EmbeddedChannel channel) {
+        StringBuilder out = new StringBuilder();
+        ByteBuf buf;
+        while ((buf = channel.readOutbound()) != null) {
+            out.append(buf.toString(StandardCharsets.US_ASCII));
+            buf.release();
+        }
+        return out.toString();
+    }
+
+    @Test
+    public void testMaxConnections() {
+        ServerCounters counters = new ServerCounters();
+        ConnectionGuard guard = new ConnectionGuard(1, 0, true, counters);
+
+        EmbeddedChannel first = new EmbeddedChannel(guard, new ChannelInboundHandlerAdapter());
+        assertTrue(first.isActive());
+        assertEquals(1, counters.activeConnections());
+
+        EmbeddedChannel second = new EmbeddedChannel(guard, new ChannelInboundHandlerAdapter());
+        assertTrue(readAll(second).startsWith("HTTP/1.1 503"));
+        assertFalse(second.isOpen());
+        assertEquals(1, counters.rejectedConnections());
+
+        first.close();
+        assertEquals(0, counters.activeConnections());
+        EmbeddedChannel third = new EmbeddedChannel(guard, new ChannelInboundHandlerAdapter());
+        assertTrue(third.isOpen());
+        assertEquals(2, counters.acceptedConnections());
+        third.close();
+    }
+
+    @Test
+    public void testMaxConnectionsPerIp() {
+        ServerCounters counters = new ServerCounters();
+        ConnectionGuard guard = new ConnectionGuard(0, 2, false, counters);
+
+        EmbeddedChannel first = new EmbeddedChannel(guard, new ChannelInboundHandlerAdapter());
+        EmbeddedChannel second = new EmbeddedChannel(guard, new ChannelInboundHandlerAdapter());
+        EmbeddedChannel third = new EmbeddedChannel(guard, new ChannelInboundHandlerAdapter());
+        assertTrue(first.isOpen());
+        assertTrue(second.isOpen());
+        // without plaintext http the connection is closed without a response
+        assertFalse(third.isOpen());
+        assertNull(third.readOutbound());
+        assertEquals(1, counters.rejectedConnections());
+
+        second.close();
+        EmbeddedChannel fourth = new EmbeddedChannel(guard, new ChannelInboundHandlerAdapter());
+        assertTrue(fourth.isOpen());
+        first.close();
+        fourth.close();
+        assertEquals(0, counters.activeConnections());
+    }
+
+    @Test
+    public void testIdleClose() {
+        ServerCounters counters = new ServerCounters();
+        EmbeddedChannel channel = new EmbeddedChannel(new ConnectionGuard.IdleCloser(counters, 0));
+        channel.pipeline().fireUserEventTriggered(IdleStateEvent.READER_IDLE_STATE_EVENT);
+        assertFalse(channel.isOpen());
+        assertEquals(1, counters.idleClosedConnections());
+    }
+
+    @Test
+    public void testReadIdleSuspendedDuringRequest() {
+        ServerCounters counters = new ServerCounters();
+        EmbeddedChannel channel = new EmbeddedChannel(new ConnectionGuard.IdleCloser(counters, 0));
+        ConnectionGuard.IdleCloser.requestStarted(channel);
+        channel.pipeline().fireUserEventTriggered(IdleStateEvent.READER_IDLE_STATE_EVENT);
+        assertTrue(channel.isOpen());
+
+        ConnectionGuard.IdleCloser.requestFinished(channel);
+        channel.pipeline().fireUserEventTriggered(IdleStateEvent.READER_IDLE_STATE_EVENT);
+        assertFalse(channel.isOpen());
+        assertEquals(1, counters.idleClosedConnections());
+    }
+
+    @Test
+    public void testUriTooLong() {
+        ServerCounters counters = new ServerCounters();
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpServerCodec(32, 8192, 8192),
+                new HttpObjectAggregator(1024), new ConnectionGuard.BadRequestHandler(counters));
+        channel.writeInbound(Unpooled.copiedBuffer("GET /a-very-long-uri-over-the-line-limit HTTP/1.1\r\n\r\n",
+                StandardCharsets.US_ASCII));
+        assertTrue(readAll(channel).startsWith("HTTP/1.1 414"));
+        assertFalse(channel.isOpen());
+        assertEquals(1, counters.badRequests());
+    }
+
+    @Test
+    public void testHeaderTooLarge() {
+        ServerCounters counters = new ServerCounters();
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpServerCodec(4096, 64, 8192),
+                new HttpObjectAggregator(1024), new ConnectionGuard.BadRequestHandler(counters));
+        StringBuilder request = new StringBuilder("GET / HTTP/1.1\r\n");
+        for (int i = 0; i < 10; i++) {
+            request.append("X-Header-").append(i).append(": value\r\n");
+        }
+        channel.writeInbound(Unpooled.copiedBuffer(request.append("\r\n"), StandardCharsets.US_ASCII));
+        assertTrue(readAll(channel).startsWith("HTTP/1.1 431"));
+        assertEquals(1, counters.badRequests());
+    }
+
+}
@@ -0,0 +1,137 @@
+package com.hellokaton.blade.server;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.*;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.Assert.*;
+
+public class HttpCompressionHandlerTest {
+
+    private static final String BODY = String.join(",", Collections.nCopies(200, "{\"name\":\"blade\"}"));
+
+    private final ServerCounters counters = new ServerCounters();
+    private final DeflaterPool deflaterPool = new DeflaterPool(6);
+
+    private EmbeddedChannel channel() {
+        return new EmbeddedChannel(new HttpCompressionHandler(1024,
+                Collections.singleton("image/png"), deflaterPool, counters));
+    }
+
+    private static HttpResponse send(EmbeddedChannel channel, String acceptEncoding, FullHttpResponse response) {
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+        request.headers().set(HttpHeaderNames.ACCEPT_ENCODING, acceptEncoding);
+        channel.writeInbound(request);
+        ((FullHttpRequest) channel.readInbound()).release();
+        channel.writeOutbound(response);
+        return channel.readOutbound();
+    }
+
+    private static byte[] content(EmbeddedChannel channel, HttpResponse head) {
+        ByteBuf out = Unpooled.buffer();
+        if (head instanceof FullHttpResponse) {
+            out.writeBytes(((FullHttpResponse) head).content());
+            ((FullHttpResponse) head).release();
+        }
+        Object msg;
+        while (null != (msg = channel.readOutbound())) {
+            out.writeBytes(((HttpContent) msg).content());
+            ((HttpContent) msg).release();
+        }
+        byte[] bytes = ByteBufUtil.getBytes(out);
+        out.release();
+        return bytes;
+    }
+
+    private static FullHttpResponse response(String contentType, String body) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                Unpooled.copiedBuffer(body, StandardCharsets.UTF_8));
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
+        return response;
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[4096];
+        int n;
+        while ((n = in.read(buf)) > 0) {
+            out.write(buf, 0, n);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testGzip() throws IOException {
+        EmbeddedChannel channel = channel();
+        for (int i = 0; i < 2; i++) {
+            HttpResponse head = send(channel, "gzip, deflate", response("application/json", BODY));
+            assertEquals("gzip", head.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+            byte[] compressed = content(channel, head);
+            assertTrue(compressed.length < BODY.length() / 10);
+            assertEquals(BODY, read(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+            // the deflater went back to the pool and is reused
+            assertEquals(1, deflaterPool.idleCount(true));
+        }
+        assertEquals(2, counters.compressedResponses());
+        assertEquals(BODY.length() * 2L, counters.compressionBytesIn());
+        assertTrue(counters.compressionRatio() < 0.1);
+        assertTrue(counters.compressionNanos() > 0);
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testDeflate() throws IOException {
+        EmbeddedChannel channel = channel();
+        HttpResponse head = send(channel, "deflate", response("text/html", BODY));
+        assertEquals("deflate", head.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+        assertEquals(BODY, read(new InflaterInputStream(new ByteArrayInputStream(content(channel, head)))));
+        assertEquals(1, deflaterPool.idleCount(false));
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testSkipped() {
+        EmbeddedChannel channel = channel();
+        HttpResponse small = send(channel, "gzip", response("application/json", "{\"name\":\"blade\"}"));
+        assertFalse(small.headers().contains(HttpHeaderNames.CONTENT_ENCODING));
+        assertEquals("{\"name\":\"blade\"}", new String(content(channel, small), StandardCharsets.UTF_8));
+
+        HttpResponse image = send(channel, "gzip", response("image/png", BODY));
+        assertFalse(image.headers().contains(HttpHeaderNames.CONTENT_ENCODING));
+        assertEquals(BODY.length(), content(channel, image).length);
+
+        FullHttpResponse optOut = response("application/json", BODY);
+        optOut.headers().set(HttpHeaderNames.CONTENT_ENCODING, "identity");
+        HttpResponse identity = send(channel, "gzip", optOut);
+        assertFalse(identity.headers().contains(HttpHeaderNames.CONTENT_ENCODING));
+        assertEquals(BODY.length(), content(channel, identity).length);
+
+        HttpResponse notAccepted = send(channel, "br", response("application/json", BODY));
+        assertFalse(notAccepted.headers().contains(HttpHeaderNames.CONTENT_ENCODING));
+        content(channel, notAccepted);
+
+        assertEquals(0, counters.compressedResponses());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testIncompressible() {
+        assertTrue(HttpCompressionHandler.isIncompressible(Collections.singleton("video/*"), "video/mp4"));
+        assertTrue(HttpCompressionHandler.isIncompressible(Collections.singleton("image/png"), "IMAGE/PNG; q=1"));
+        assertFalse(HttpCompressionHandler.isIncompressible(Collections.singleton("image/png"), "image/svg+xml"));
+        assertFalse(HttpCompressionHandler.isIncompressible(Collections.singleton("video/*"), null));
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.hellokaton.blade.server;
+
+import com.hellokaton.blade.Blade;
+import com.hellokaton.blade.mvc.WebContext;
+import com.hellokaton.blade.mvc.http.ByteBody;
+import com.hellokaton.blade.mvc.http.HttpMethod;
+import com.hellokaton.blade.mvc.http.HttpRequest;
+import com.hellokaton.blade.mvc.http.HttpResponse;
+import com.hellokaton.blade.mvc.route.Route;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class HttpServerHandlerTest {
+
+    private Blade blade;
+    private EmbeddedChannel channel;
+
+    @Before
+    public void before() {
+        blade = Blade.create().http(options -> options.enableSession().requestTimeout(50));
+        WebContext.init(blade, "/");
+        channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+    }
+
+    @After
+    public void after() {
+        WebContext.remove();
+        channel.finishAndReleaseAll();
+    }
+
+    private WebContext webContext(ByteBuf body) {
+        HttpRequest request = new HttpRequest("/127.0.0.1:10086",
+                new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, io.netty.handler.codec.http.HttpMethod.GET, "/slow"));
+        WebContext webContext = WebContext.create(request, new HttpResponse(), channel.pipeline().firstContext());
+        webContext.setRoute(Route.builder().httpMethod(HttpMethod.GET).path("/slow").build());
+        webContext.getResponse().body(ByteBody.of(body));
+        return webContext;
+    }
+
+    @Test
+    public void testRequestTimeout() throws Exception {
+        ByteBuf late = Unpooled.copiedBuffer("late", StandardCharsets.UTF_8);
+        WebContext webContext = webContext(late);
+        HttpServerHandler handler = new HttpServerHandler();
+        HttpServerHandler.Deadline deadline = new HttpServerHandler.Deadline(System.nanoTime());
+        assertTrue(handler.startDeadline(webContext, deadline));
+
+        Thread.sleep(60);
+        channel.runScheduledPendingTasks();
+        FullHttpResponse response = channel.readOutbound();
+
+        assertEquals(504, response.status().code());
+        assertTrue(response.content().toString(StandardCharsets.UTF_8).contains("504"));
+        // the route body is released, the new session still gets its cookie
+        assertEquals(0, late.refCnt());
+        assertNotNull(response.headers().get(HttpHeaderNames.SET_COOKIE));
+        assertEquals(1, blade.serverCounters().timedOutRequests());
+        response.release();
+
+        // the late result is discarded
+        assertNull(handler.buildResponse(webContext, deadline));
+    }
+
+    @Test
+    public void testRequestTimeoutWhileQueued() {
+        long startNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(100);
+        ByteBuf body = Unpooled.copiedBuffer("queued", StandardCharsets.UTF_8);
+        assertFalse(new HttpServerHandler().startDeadline(webContext(body), new HttpServerHandler.Deadline(startNanos)));
+        body.release();
+    }
+
+    @Test
+    public void testWithinRequestTimeout() throws Exception {
+        ByteBuf body = Unpooled.copiedBuffer("fast", StandardCharsets.UTF_8);
+        WebContext webContext = webContext(body);
+        HttpServerHandler handler = new HttpServerHandler();
+        HttpServerHandler.Deadline deadline = new HttpServerHandler.Deadline(System.nanoTime());
+        assertTrue(handler.startDeadline(webContext, deadline));
+        FullHttpResponse response = (FullHttpResponse) handler.buildResponse(webContext, deadline);
+
+        assertEquals(200, response.status().code());
+        assertEquals("fast", response.content().toString(StandardCharsets.UTF_8));
+        response.release();
+
+        // the timer is cancelled with the response
+        Thread.sleep(60);
+        channel.runScheduledPendingTasks();
+        assertNull(channel.readOutbound());
+        assertEquals(0, blade.serverCounters().timedOutRequests());
+    }
+
+}
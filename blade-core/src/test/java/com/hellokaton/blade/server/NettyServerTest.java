@@ -0,0 +1,66 @@
+package com.hellokaton.blade.server;
+
+import com.hellokaton.blade.Blade;
+import com.hellokaton.blade.mvc.BladeConst;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.unix.DomainSocketAddress;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class NettyServerTest {
+
+    @Test
+    public void testKeepOtherFiles() throws Exception {
+        Path file = Files.createTempFile("blade", ".sock");
+        try {
+            NettyServer.deleteSocketFile(file.toString());
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(Files.exists(file));
+        } finally {
+            Files.delete(file);
+        }
+        assertFalse(NettyServer.deleteSocketFile(file.toString()));
+    }
+
+    @Test
+    public void testBindUnixSocket() throws Exception {
+        Assume.assumeTrue("needs the epoll native library", Transport.EPOLL.isAvailable());
+
+        Path dir = Files.createTempDirectory("blade");
+        Path socket = dir.resolve("blade.sock");
+
+        Blade blade = Blade.create().listen(10089);
+        blade.setEnv(BladeConst.ENV_KEY_SERVER_UNIX_SOCKET, socket.toString());
+        NettyServer server = new NettyServer();
+        EventLoopGroup group = new EpollEventLoopGroup(1);
+        try {
+            server.start(blade);
+            int mode = (Integer) Files.getAttribute(socket, "unix:mode", LinkOption.NOFOLLOW_LINKS);
+            assertEquals(0140000, mode & 0170000);
+
+            Channel client = new Bootstrap().group(group).channel(EpollDomainSocketChannel.class)
+                    .handler(new ChannelInboundHandlerAdapter())
+                    .connect(new DomainSocketAddress(socket.toString())).sync().channel();
+            assertTrue(client.isActive());
+            client.close().sync();
+        } finally {
+            server.stopAndWait();
+            group.shutdownGracefully().sync();
+        }
+        assertFalse(Files.exists(socket, LinkOption.NOFOLLOW_LINKS));
+        Files.delete(dir);
+    }
+
+}
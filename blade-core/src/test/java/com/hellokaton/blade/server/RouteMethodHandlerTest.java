@@ -0,0 +1,117 @@
+package com.hellokaton.blade.server;
+
+import com.hellokaton.blade.Blade;
+import com.hellokaton.blade.mvc.RouteContext;
+import com.hellokaton.blade.mvc.WebContext;
+import com.hellokaton.blade.mvc.hook.WebHook;
+import com.hellokaton.blade.mvc.http.HttpRequest;
+import com.hellokaton.blade.mvc.http.HttpResponse;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RouteMethodHandlerTest {
+
+    private final List<String> events = new ArrayList<>();
+
+    private Blade blade;
+    private EmbeddedChannel channel;
+
+    private class RecordingMiddleware implements WebHook {
+
+        private final String name;
+        private final boolean proceed;
+
+        RecordingMiddleware(String name, boolean proceed) {
+            this.name = name;
+            this.proceed = proceed;
+        }
+
+        @Override
+        public boolean before(RouteContext context) {
+            events.add("before " + name);
+            return proceed;
+        }
+
+        @Override
+        public boolean after(RouteContext context) {
+            events.add("after " + name);
+            return true;
+        }
+
+        @Override
+        public void abort(RouteContext context, Exception cause) {
+            events.add("abort " + name + (null == cause ? "" : " " + cause.getMessage()));
+        }
+    }
+
+    @Before
+    public void before() {
+        blade = Blade.create();
+        blade.get("/ok", ctx -> {
+            events.add("route");
+            ctx.text("ok");
+        });
+        blade.get("/fail", ctx -> {
+            events.add("route");
+            throw new IllegalStateException("failed");
+        });
+        channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+    }
+
+    @After
+    public void after() {
+        WebContext.remove();
+        channel.finishAndReleaseAll();
+    }
+
+    private void handle(String path) throws Exception {
+        WebContext.init(blade, "/");
+        blade.routeMatcher().register();
+        HttpRequest request = new HttpRequest("/127.0.0.1:10086",
+                new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, path));
+        WebContext webContext = WebContext.create(request, new HttpResponse(), channel.pipeline().firstContext());
+        webContext.setRoute(blade.routeMatcher().lookupRoute("GET", path));
+        new RouteMethodHandler().handle(webContext);
+    }
+
+    @Test
+    public void testMiddlewareAfterInReverseOrder() throws Exception {
+        // distinct instances, each middleware is resolved from its own route target
+        blade.use(new RecordingMiddleware("a", true), new RecordingMiddleware("b", true));
+        handle("/ok");
+        assertEquals(Arrays.asList("before a", "before b", "route", "after b", "after a"), events);
+    }
+
+    @Test
+    public void testMiddlewareAbortedWhenInterrupted() throws Exception {
+        blade.use(new RecordingMiddleware("a", true), new RecordingMiddleware("b", false),
+                new RecordingMiddleware("c", true));
+        handle("/ok");
+        assertEquals(Arrays.asList("before a", "before b", "abort a"), events);
+    }
+
+    @Test
+    public void testMiddlewareAbortedWhenRouteFails() {
+        blade.use(new RecordingMiddleware("a", true), new RecordingMiddleware("b", true));
+        try {
+            handle("/fail");
+            fail();
+        } catch (Exception e) {
+            assertEquals("failed", e.getMessage());
+        }
+        assertEquals(Arrays.asList("before a", "before b", "route", "abort b failed", "abort a failed"), events);
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.hellokaton.blade.server;
+
+import com.hellokaton.blade.options.StaticOptions;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class StaticPathsTest {
+
+    @Test
+    public void testDefaultStatics() {
+        StaticPaths staticPaths = StaticPaths.compile(StaticOptions.DEFAULT_STATICS);
+        assertTrue(staticPaths.matches("/favicon.ico"));
+        assertTrue(staticPaths.matches("/robots.txt"));
+        assertTrue(staticPaths.matches("/static"));
+        assertTrue(staticPaths.matches("/static/app.js"));
+        assertTrue(staticPaths.matches("/staticfile"));
+        assertTrue(staticPaths.matches("/webjars/jquery.js"));
+
+        assertFalse(staticPaths.matches("/"));
+        assertFalse(staticPaths.matches(""));
+        assertFalse(staticPaths.matches("/stat"));
+        assertFalse(staticPaths.matches("/webjars"));
+        assertFalse(staticPaths.matches("/users/1"));
+    }
+
+    @Test
+    public void testNestedPrefixes() {
+        StaticPaths staticPaths = StaticPaths.compile(Arrays.asList("/assets/img", "/assets", "/a/b/c"));
+        assertTrue(staticPaths.matches("/assets/css/site.css"));
+        assertTrue(staticPaths.matches("/assets/img/logo.png"));
+        assertTrue(staticPaths.matches("/a/b/c/d"));
+        assertFalse(staticPaths.matches("/a/b"));
+        assertFalse(staticPaths.matches("/asset"));
+    }
+
+    @Test
+    public void testEmpty() {
+        assertFalse(StaticPaths.compile(Collections.emptySet()).matches("/static"));
+        assertTrue(StaticPaths.compile(Collections.singleton("")).matches("/anything"));
+    }
+
+}
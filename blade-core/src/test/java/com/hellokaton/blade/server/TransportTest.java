@@ -0,0 +1,65 @@
+package com.hellokaton.blade.server;
+
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.EventExecutor;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TransportTest {
+
+    @Test
+    public void testOf() {
+        assertEquals(Transport.IO_URING, Transport.of(null));
+        assertEquals(Transport.IO_URING, Transport.of("auto"));
+        assertEquals(Transport.IO_URING, Transport.of("io-uring"));
+        assertEquals(Transport.EPOLL, Transport.of(" Epoll "));
+        assertEquals(Transport.NIO, Transport.of("nio"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknown() {
+        Transport.of("kqueue2");
+    }
+
+    @Test
+    public void testFallback() {
+        // the io_uring incubator module is not a dependency
+        assertFalse(Transport.IO_URING.isAvailable());
+        assertNotEquals(Transport.IO_URING, Transport.select("io_uring"));
+        assertTrue(Transport.select("io_uring").isAvailable());
+        assertEquals(Transport.select("epoll"), Transport.select(null));
+        assertEquals(Transport.NIO, Transport.select("nio"));
+    }
+
+    @Test
+    public void testSelectForDomainSocket() {
+        assertEquals(Transport.select("epoll"), Transport.select("auto", true));
+        assertEquals(Transport.select("epoll"), Transport.select(null, true));
+        assertEquals(Transport.NIO, Transport.select("nio", true));
+        assertEquals(Transport.select("auto"), Transport.select("auto", false));
+    }
+
+    @Test
+    public void testNioGroup() throws Exception {
+        Set<Integer> started = ConcurrentHashMap.newKeySet();
+        NettyServerGroup group = Transport.NIO.group(1, 2, started::add);
+        assertEquals(NioServerSocketChannel.class, group.getSocketChannel());
+        assertNull(group.getDomainSocketChannel());
+        assertEquals(2, group.getWorkerGroup().executorCount());
+        // worker threads start with their first task
+        for (EventExecutor executor : group.getWorkerGroup()) {
+            executor.submit(() -> {}).sync();
+        }
+        assertEquals(new HashSet<>(Arrays.asList(0, 1)), started);
+        group.getBoosGroup().shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        group.getWorkerGroup().shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+    }
+
+}
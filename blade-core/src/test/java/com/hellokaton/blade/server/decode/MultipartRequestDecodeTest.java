@@ -0,0 +1,150 @@
+package com.hellokaton.blade.server.decode;
+
+import com.hellokaton.blade.mvc.http.HttpRequest;
+import com.hellokaton.blade.mvc.multipart.FileItem;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.multipart.Attribute;
+import io.netty.handler.codec.http.multipart.FileUpload;
+import io.netty.handler.codec.http.multipart.HttpPostMultipartRequestDecoder;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class MultipartRequestDecodeTest {
+
+    private static final String BOUNDARY = "----blade";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File uploadDir;
+    private byte[] fileContent;
+
+    @Before
+    public void before() throws Exception {
+        uploadDir = folder.newFolder("upload");
+        fileContent = new byte[40 * 1024];
+        for (int i = 0; i < fileContent.length; i++) {
+            fileContent[i] = (byte) ('a' + i % 26);
+        }
+    }
+
+    private byte[] request() throws Exception {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(("--" + BOUNDARY + "\r\n" +
+                "Content-Disposition: form-data; name=\"title\"\r\n\r\n" +
+                "hello\r\n" +
+                "--" + BOUNDARY + "\r\n" +
+                "Content-Disposition: form-data; name=\"file\"; filename=\"a.txt\"\r\n" +
+                "Content-Type: text/plain\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        body.write(fileContent);
+        body.write(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+
+        ByteArrayOutputStream request = new ByteArrayOutputStream();
+        request.write(("POST /upload HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Content-Type: multipart/form-data; boundary=" + BOUNDARY + "\r\n" +
+                "Content-Length: " + body.size() + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        body.writeTo(request);
+        return request.toByteArray();
+    }
+
+    private static void writeInChunks(EmbeddedChannel channel, byte[] bytes) {
+        for (int i = 0; i < bytes.length && channel.isOpen(); i += 4096) {
+            channel.writeInbound(Unpooled.wrappedBuffer(Arrays.copyOfRange(bytes, i, Math.min(bytes.length, i + 4096))));
+        }
+    }
+
+    private static String readAll(EmbeddedChannel channel) {
+        StringBuilder out = new StringBuilder();
+        Object msg;
+        while ((msg = channel.readOutbound()) != null) {
+            if (msg instanceof ByteBuf) {
+                out.append(((ByteBuf) msg).toString(StandardCharsets.US_ASCII));
+                ((ByteBuf) msg).release();
+            }
+        }
+        return out.toString();
+    }
+
+    @Test
+    public void testStreamToDisk() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpServerCodec(),
+                new MultipartRequestDecode(HttpRequest.newHttpDataFactory(uploadDir.getPath(), -1), 1024 * 1024));
+        writeInChunks(channel, request());
+
+        MultipartRequest request = channel.readInbound();
+        assertNotNull(request);
+        assertEquals(0, request.content().readableBytes());
+
+        HttpPostMultipartRequestDecoder decoder = request.decoder();
+        assertEquals("hello", ((Attribute) decoder.getBodyHttpData("title")).getValue());
+        FileUpload upload = (FileUpload) decoder.getBodyHttpData("file");
+        assertFalse(upload.isInMemory());
+        assertEquals(uploadDir, upload.getFile().getParentFile());
+
+        FileItem fileItem = FileItem.of(upload);
+        assertEquals(fileContent.length, fileItem.getLength());
+        assertArrayEquals(fileContent, fileItem.byteArray());
+
+        Path target = folder.getRoot().toPath().resolve("a.txt");
+        fileItem.moveTo(target);
+        assertEquals(target, fileItem.toPath());
+
+        decoder.destroy();
+        assertArrayEquals(fileContent, Files.readAllBytes(target));
+        assertEquals(0, uploadDir.list().length);
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testCleanup() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpServerCodec(),
+                new MultipartRequestDecode(HttpRequest.newHttpDataFactory(uploadDir.getPath(), -1), 1024 * 1024));
+        writeInChunks(channel, request());
+
+        MultipartRequest request = channel.readInbound();
+        assertEquals(1, uploadDir.list().length);
+        request.decoder().destroy();
+        assertEquals(0, uploadDir.list().length);
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testMaxMultipartSize() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpServerCodec(),
+                new MultipartRequestDecode(HttpRequest.newHttpDataFactory(uploadDir.getPath(), -1), 1024));
+        writeInChunks(channel, request());
+
+        assertNull(channel.readInbound());
+        assertTrue(readAll(channel).startsWith("HTTP/1.1 413"));
+        assertFalse(channel.isOpen());
+        assertEquals(0, uploadDir.list().length);
+    }
+
+    @Test
+    public void testMaxFileSize() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpServerCodec(),
+                new MultipartRequestDecode(HttpRequest.newHttpDataFactory(uploadDir.getPath(), 16 * 1024), 1024 * 1024));
+        writeInChunks(channel, request());
+
+        assertNull(channel.readInbound());
+        assertTrue(readAll(channel).startsWith("HTTP/1.1 413"));
+        assertFalse(channel.isOpen());
+        assertEquals(0, uploadDir.list().length);
+    }
+
+}
@@ -0,0 +1,189 @@
+package com.hellokaton.blade.task;
+
+import com.hellokaton.blade.task.cron.CompiledCron;
+import com.hellokaton.blade.task.cron.CronExpression;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class CompiledCronTest {
+
+    private static final String[] EXPRESSIONS = {
+            "* * * * * ?",
+            "0 0/5 * * * ?",
+            "10 15 3 * * ?",
+            "0 0 12 ? * MON-FRI",
+            "0 30 22-2 * * ?",
+            "15,45 10-20/3 8 1,15,31 * ?",
+            "0 0 0 29 2 ?",
+            "0 0 9 L * ?",
+            "0 0 9 L-3 * ?",
+            "0 0 9 LW * ?",
+            "0 0 9 15W * ?",
+            "0 0 9 1W * ?",
+            "0 0 9 ? * 6L",
+            "0 0 9 ? * 2#3",
+            "0 0 9 ? * 6#5",
+            "0 0 0 1 JAN-MAR ? 2030-2032",
+            "0 0 0 ? * SUN",
+            "59 59 23 31 12 ?"
+    };
+
+    @Test
+    public void testSameAsCalendar() throws Exception {
+        Random random = new Random(42);
+        long from = ZonedDateTime.of(2022, 1, 1, 0, 0, 0, 0, ZoneId.of("UTC")).toInstant().toEpochMilli();
+        for (String zone : new String[]{"UTC", "Asia/Shanghai"}) {
+            for (String expression : EXPRESSIONS) {
+                CronExpression cronExpression = new CronExpression(expression);
+                cronExpression.setTimeZone(TimeZone.getTimeZone(zone));
+                for (int i = 0; i < 200; i++) {
+                    Date after = new Date(from + (long) (random.nextDouble() * 10 * 365 * 86400_000L));
+                    assertEquals(expression + " after " + after,
+                            cronExpression.getTimeAfter(after), cronExpression.getNextValidTimeAfter(after));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSequence() throws Exception {
+        CronExpression cronExpression = new CronExpression("0 0/20 * * * ?");
+        cronExpression.setTimeZone(TimeZone.getTimeZone("UTC"));
+        CompiledCron cron = cronExpression.compile();
+
+        long after = ZonedDateTime.of(2022, 6, 1, 23, 30, 0, 0, ZoneId.of("UTC")).toInstant().toEpochMilli();
+        long[] fireTimes = new long[4];
+        assertEquals(4, cron.next(after, fireTimes));
+        assertEquals(after + 10 * 60_000, fireTimes[0]);
+        assertEquals(after + 30 * 60_000, fireTimes[1]);
+        assertEquals(after + 50 * 60_000, fireTimes[2]);
+        assertEquals(after + 70 * 60_000, fireTimes[3]);
+
+        CronExpression once = new CronExpression("0 0 0 1 1 ? 2030");
+        once.setTimeZone(TimeZone.getTimeZone("UTC"));
+        assertEquals(1, once.compile().next(after, fireTimes));
+        assertEquals(-1, once.compile().next(fireTimes[0]));
+    }
+
+    @Test
+    public void testDaylightSaving() throws Exception {
+        ZoneId berlin = ZoneId.of("Europe/Berlin");
+        CronExpression cronExpression = new CronExpression("0 30 2 * * ?");
+        cronExpression.setTimeZone(TimeZone.getTimeZone(berlin));
+        CompiledCron cron = cronExpression.compile();
+
+        // 2022-03-27 02:00 jumps to 03:00, 02:30 fires at 03:30
+        ZonedDateTime next = cron.next(ZonedDateTime.of(2022, 3, 27, 0, 0, 0, 0, berlin));
+        assertEquals(ZonedDateTime.of(2022, 3, 27, 3, 30, 0, 0, berlin), next);
+        assertEquals(ZonedDateTime.of(2022, 3, 28, 2, 30, 0, 0, berlin), cron.next(next));
+
+        // 2022-10-30 03:00 goes back to 02:00, the fixed 02:30 fires once with the earlier offset
+        next = cron.next(ZonedDateTime.of(2022, 10, 30, 0, 0, 0, 0, berlin));
+        assertEquals(ZonedDateTime.of(2022, 10, 30, 2, 30, 0, 0, berlin).withEarlierOffsetAtOverlap(), next);
+        assertEquals(ZonedDateTime.of(2022, 10, 31, 2, 30, 0, 0, berlin), cron.next(next));
+
+        // a wildcard hour fires with both offsets
+        CronExpression everyHour = new CronExpression("0 30 * * * ?");
+        everyHour.setTimeZone(TimeZone.getTimeZone(berlin));
+        next = everyHour.compile().next(ZonedDateTime.of(2022, 10, 30, 2, 0, 0, 0, berlin).withEarlierOffsetAtOverlap());
+        assertEquals(ZonedDateTime.of(2022, 10, 30, 2, 30, 0, 0, berlin).withEarlierOffsetAtOverlap(), next);
+        next = everyHour.compile().next(next);
+        assertEquals(ZonedDateTime.of(2022, 10, 30, 2, 30, 0, 0, berlin).withLaterOffsetAtOverlap(), next);
+
+        CronExpression everyQuarter = new CronExpression("0 0/15 * * * ?");
+        everyQuarter.setTimeZone(TimeZone.getTimeZone(berlin));
+        ZonedDateTime secondPass = ZonedDateTime.of(2022, 10, 30, 2, 5, 0, 0, berlin).withLaterOffsetAtOverlap();
+        assertEquals(ZonedDateTime.of(2022, 10, 30, 2, 15, 0, 0, berlin).withLaterOffsetAtOverlap(),
+                everyQuarter.compile().next(secondPass));
+        ZonedDateTime firstPass = ZonedDateTime.of(2022, 10, 30, 2, 50, 0, 0, berlin).withEarlierOffsetAtOverlap();
+        assertEquals(ZonedDateTime.of(2022, 10, 30, 2, 0, 0, 0, berlin).withLaterOffsetAtOverlap(),
+                everyQuarter.compile().next(firstPass));
+    }
+
+    @Test
+    public void testFixedTimeOnceInOverlap() throws Exception {
+        ZoneId newYork = ZoneId.of("America/New_York");
+        CronExpression cronExpression = new CronExpression("0 30 1 * * ?");
+        cronExpression.setTimeZone(TimeZone.getTimeZone(newYork));
+        CompiledCron cron = cronExpression.compile();
+
+        // 2022-11-06 02:00 goes back to 01:00, the daily job runs once, at 01:30 EDT
+        ZonedDateTime next = cron.next(ZonedDateTime.of(2022, 11, 6, 0, 0, 0, 0, newYork));
+        assertEquals(ZonedDateTime.of(2022, 11, 6, 1, 30, 0, 0, newYork).withEarlierOffsetAtOverlap(), next);
+        assertEquals(ZoneOffset.ofHours(-4), next.getOffset());
+        assertEquals(ZonedDateTime.of(2022, 11, 7, 1, 30, 0, 0, newYork), cron.next(next));
+
+        // a search starting inside the repeated hour does not fire it again
+        ZonedDateTime secondPass = ZonedDateTime.of(2022, 11, 6, 1, 10, 0, 0, newYork).withLaterOffsetAtOverlap();
+        assertEquals(ZonedDateTime.of(2022, 11, 7, 1, 30, 0, 0, newYork), cron.next(secondPass));
+    }
+
+    @Test
+    public void testOverlapKeepsFiring() throws Exception {
+        for (String zone : new String[]{"Europe/Berlin", "America/New_York"}) {
+            ZoneId zoneId = ZoneId.of(zone);
+            CronExpression cronExpression = new CronExpression("0 */5 * * * ?");
+            cronExpression.setTimeZone(TimeZone.getTimeZone(zoneId));
+            CompiledCron cron = cronExpression.compile();
+
+            ZoneOffsetTransition transition = zoneId.getRules()
+                    .nextTransition(ZonedDateTime.of(2022, 9, 1, 0, 0, 0, 0, zoneId).toInstant());
+            assertTrue(transition.isOverlap());
+            // every five minutes of real time, two hours around the transition
+            long expected = transition.toEpochSecond() * 1000 - 3600_000;
+            long time = expected - 1;
+            for (int i = 0; i < 24; i++) {
+                time = cron.next(time);
+                assertEquals(zone + " fire " + i, expected, time);
+                expected += 300_000;
+            }
+        }
+    }
+
+    @Test
+    public void testSameAsCalendarInDaylightSavingZones() throws Exception {
+        Random random = new Random(42);
+        long from = ZonedDateTime.of(2022, 1, 1, 0, 0, 0, 0, ZoneId.of("UTC")).toInstant().toEpochMilli();
+        for (String zone : new String[]{"Europe/Berlin", "America/New_York"}) {
+            ZoneRules rules = ZoneId.of(zone).getRules();
+            for (String expression : EXPRESSIONS) {
+                CronExpression cronExpression = new CronExpression(expression);
+                cronExpression.setTimeZone(TimeZone.getTimeZone(zone));
+                for (int i = 0; i < 200; i++) {
+                    Date after = new Date(from + (long) (random.nextDouble() * 10 * 365 * 86400_000L));
+                    Date expected = cronExpression.getTimeAfter(after);
+                    Date actual = cronExpression.getNextValidTimeAfter(after);
+                    // Calendar skips local times in a gap and the first pass of an overlap
+                    if (nearTransition(rules, expected) || nearTransition(rules, actual)) {
+                        continue;
+                    }
+                    assertEquals(zone + " " + expression + " after " + after, expected, actual);
+                }
+            }
+        }
+    }
+
+    private static boolean nearTransition(ZoneRules rules, Date date) {
+        if (null == date) {
+            return false;
+        }
+        Instant instant = date.toInstant();
+        ZoneOffsetTransition previous = rules.previousTransition(instant.plusSeconds(1));
+        ZoneOffsetTransition next = rules.nextTransition(instant);
+        return (null != previous && Duration.between(previous.getInstant(), instant).toDays() < 2)
+                || (null != next && Duration.between(instant, next.getInstant()).toDays() < 2);
+    }
+
+}
@@ -75,6 +75,40 @@ public class ValidatorTest {
         TopicValidator.valid(topic);
     }
 
+    @Test
+    public void testMatches() {
+        assertTrue(Validators.matches("[a-z]+").test("hello").isValid());
+        Assert.assertFalse(Validators.matches("[a-z]+").test("Hello").isValid());
+        Assert.assertFalse(Validators.matches("[a-z]+", "lower case only").test("").isValid());
+        Assert.assertEquals("lower case only", Validators.matches("[a-z]+", "lower case only").test("1").getMessage());
+    }
+
+    @Test
+    public void testBeanValidation() {
+        BeanValidation<Topic> validation = BeanValidation.of(Topic.class)
+                .field(Topic::getTitle, length(3, 20))
+                .field(Topic::getEmail, isEmail())
+                .field(Topic::getRange, Validators.range(10, 20))
+                .build();
+
+        Topic topic = new Topic();
+        topic.setTitle("hello");
+        topic.setEmail("123@gmail.com");
+        topic.setRange(15);
+        assertTrue(validation.test(topic).isValid());
+        assertTrue(validation.testAll(topic).isEmpty());
+
+        topic.setEmail("hello");
+        topic.setRange(30);
+        ValidationResult result = validation.test(topic);
+        Assert.assertFalse(result.isValid());
+        Assert.assertEquals("email", result.getCode());
+        Assert.assertEquals("email 不是一个合法的邮箱", result.getMessage());
+        Assert.assertEquals(2, validation.testAll(topic).size());
+
+        Assert.assertFalse(validation.test(null).isValid());
+    }
+
     static class TopicValidator {
         public static void valid(Topic param) {
             Validators.notNull().test(param).throwIfInvalid("topic");
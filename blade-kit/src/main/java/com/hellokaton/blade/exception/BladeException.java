@@ -46,8 +46,26 @@ public class BladeException extends RuntimeException {
         this.name = name;
     }
 
+    /**
+     * @param writableStackTrace false for exceptions used as control flow, which skip
+     *                           the costly stack trace capture
+     */
+    protected BladeException(int status, String name, String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+        this.status = status;
+        this.name = name;
+    }
+
+    private BladeException(Throwable cause, boolean writableStackTrace) {
+        super(null == cause ? null : cause.toString(), cause, false, writableStackTrace);
+    }
+
+    /**
+     * Wrap a checked exception, the wrapper itself carries no stack trace,
+     * the cause keeps its own.
+     */
     public static BladeException wrapper(Exception e) {
-        return new BladeException(e);
+        return new BladeException(e, false);
     }
 
 }
@@ -0,0 +1,237 @@
+package com.hellokaton.blade.kit;
+
+import com.hellokaton.blade.asm.MethodAccess;
+import com.hellokaton.blade.exception.BeanCopyException;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Copies the properties of one class to another, compiled once per class pair.
+ * <p>
+ * A property is a field of the destination class with a field of the same name in
+ * the source class, a public getter on the source and a public setter on the
+ * destination. The pairs are resolved when the copier is created and called
+ * through {@link MethodAccess}, a copy does no lookup and no reflection. Null
+ * values are not copied, numeric values are converted when the setter takes
+ * another numeric type than the source field.
+ */
+public final class BeanCopier {
+
+    private static final Map<Class<?>, Map<Class<?>, BeanCopier>> COPIERS = new ConcurrentHashMap<>();
+
+    private final Property[] properties;
+
+    private BeanCopier(Property[] properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Get the copier of a class pair, the first call compiles it
+     *
+     * @param source source class
+     * @param dest   destination class
+     * @return the copier
+     */
+    public static BeanCopier of(Class<?> source, Class<?> dest) {
+        Map<Class<?>, BeanCopier> copiers = COPIERS.get(source);
+        if (null == copiers) {
+            copiers = COPIERS.computeIfAbsent(source, key -> new ConcurrentHashMap<>());
+        }
+        BeanCopier copier = copiers.get(dest);
+        if (null == copier) {
+            copier = copiers.computeIfAbsent(dest, key -> compile(source, key));
+        }
+        return copier;
+    }
+
+    public void copy(Object source, Object dest) {
+        try {
+            for (Property property : properties) {
+                Object value = property.get(source);
+                if (null != value) {
+                    property.set(dest, value);
+                }
+            }
+        } catch (BeanCopyException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BeanCopyException(e);
+        }
+    }
+
+    private static BeanCopier compile(Class<?> source, Class<?> dest) {
+        List<Field> sourceFields = fields(source);
+        Accessor sourceAccessor = new Accessor(source);
+        Accessor destAccessor = new Accessor(dest);
+
+        List<Property> properties = new ArrayList<>();
+        for (Field destField : fields(dest)) {
+            Field sourceField = findField(sourceFields, destField.getName());
+            if (null == sourceField) {
+                continue;
+            }
+            Property property = property(sourceAccessor, sourceField, destAccessor, destField);
+            if (null != property) {
+                properties.add(property);
+            }
+        }
+        return new BeanCopier(properties.toArray(new Property[0]));
+    }
+
+    private static Property property(Accessor sourceAccessor, Field sourceField, Accessor destAccessor, Field destField) {
+        String name = sourceField.getName();
+        String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        Class<?> sourceType = sourceField.getType();
+
+        Method getter = ReflectKit.getMethod(sourceAccessor.type, "get" + suffix);
+        if (null == getter && sourceType == boolean.class) {
+            getter = ReflectKit.getMethod(sourceAccessor.type, "is" + suffix);
+        }
+        if (null == getter || getter.getReturnType() == void.class) {
+            return null;
+        }
+
+        Class<?> convertTo = null;
+        Method setter = ReflectKit.getMethod(destAccessor.type, "set" + suffix, sourceType);
+        if (null == setter && destField.getType() != sourceType) {
+            Class<?> destType = destField.getType();
+            Class<?> boxedSource = boxed(sourceType);
+            Class<?> boxedDest = boxed(destType);
+            if (boxedSource == boxedDest) {
+                setter = ReflectKit.getMethod(destAccessor.type, "set" + suffix, destType);
+            } else if (Number.class.isAssignableFrom(boxedSource) && Number.class.isAssignableFrom(boxedDest)) {
+                setter = ReflectKit.getMethod(destAccessor.type, "set" + suffix, destType);
+                convertTo = boxedDest;
+            }
+        }
+        if (null == setter) {
+            return null;
+        }
+        return new Property(sourceAccessor, sourceAccessor.index(getter), getter,
+                destAccessor, destAccessor.index(setter), setter, convertTo);
+    }
+
+    private static List<Field> fields(Class<?> type) {
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> cls = type; null != cls && cls != Object.class; cls = cls.getSuperclass()) {
+            for (Field field : cls.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+
+    private static Field findField(List<Field> fields, String name) {
+        for (Field field : fields) {
+            if (field.getName().equals(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    private static Class<?> boxed(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        if (type == int.class) return Integer.class;
+        if (type == long.class) return Long.class;
+        if (type == double.class) return Double.class;
+        if (type == float.class) return Float.class;
+        if (type == short.class) return Short.class;
+        if (type == byte.class) return Byte.class;
+        if (type == boolean.class) return Boolean.class;
+        if (type == char.class) return Character.class;
+        return type;
+    }
+
+    private static Object convert(Number value, Class<?> type) {
+        if (type == Integer.class) return value.intValue();
+        if (type == Long.class) return value.longValue();
+        if (type == Double.class) return value.doubleValue();
+        if (type == Float.class) return value.floatValue();
+        if (type == Short.class) return value.shortValue();
+        if (type == Byte.class) return value.byteValue();
+        return value;
+    }
+
+    /**
+     * Calls the public methods of a class through MethodAccess, classes it can not
+     * generate an accessor for (such as private classes) fall back to reflection.
+     */
+    private static final class Accessor {
+
+        private final Class<?> type;
+        private final MethodAccess methodAccess;
+
+        Accessor(Class<?> type) {
+            this.type = type;
+            MethodAccess methodAccess = null;
+            if (!Modifier.isPrivate(type.getModifiers())) {
+                try {
+                    methodAccess = MethodAccess.get(type);
+                } catch (RuntimeException | LinkageError e) {
+                    // reflection
+                }
+            }
+            this.methodAccess = methodAccess;
+        }
+
+        int index(Method method) {
+            if (null == methodAccess) {
+                method.setAccessible(true);
+                return -1;
+            }
+            return methodAccess.getIndex(method.getName(), method.getParameterTypes());
+        }
+    }
+
+    private static final class Property {
+
+        private final MethodAccess getterAccess;
+        private final int getterIndex;
+        private final Method getter;
+        private final MethodAccess setterAccess;
+        private final int setterIndex;
+        private final Method setter;
+        private final Class<?> convertTo;
+
+        Property(Accessor source, int getterIndex, Method getter,
+                 Accessor dest, int setterIndex, Method setter, Class<?> convertTo) {
+            this.getterAccess = source.methodAccess;
+            this.getterIndex = getterIndex;
+            this.getter = getter;
+            this.setterAccess = dest.methodAccess;
+            this.setterIndex = setterIndex;
+            this.setter = setter;
+            this.convertTo = convertTo;
+        }
+
+        Object get(Object source) throws Exception {
+            if (null != getterAccess) {
+                return getterAccess.invoke(source, getterIndex);
+            }
+            return getter.invoke(source);
+        }
+
+        void set(Object dest, Object value) throws Exception {
+            if (null != convertTo) {
+                value = convert((Number) value, convertTo);
+            }
+            if (null != setterAccess) {
+                setterAccess.invoke(dest, setterIndex, value);
+            } else {
+                setter.invoke(dest, value);
+            }
+        }
+    }
+
+}
@@ -19,6 +19,7 @@ import lombok.experimental.UtilityClass;
 
 import javax.crypto.Cipher;
 import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.io.File;
 import java.io.FileInputStream;
@@ -60,6 +61,12 @@ public class EncryptKit {
     private static       String AES_Transformation = "AES/ECB/NoPadding";
     private static final String AES_Algorithm      = "AES";
 
+    /**
+     * AES-GCM认证加密, 128位认证标签
+     */
+    private static final String AES_GCM_Transformation = "AES/GCM/NoPadding";
+    private static final int    AES_GCM_TAG_BITS       = 128;
+
     /**
      * MD5加密
      *
@@ -669,6 +676,47 @@ public class EncryptKit {
         return desTemplate(data, key, AES_Algorithm, AES_Transformation, false);
     }
 
+    /**
+     * AES-GCM加密, 密文末尾附带认证标签
+     *
+     * @param data 明文
+     * @param key  16、24、32字节秘钥
+     * @param iv   12字节初始向量, 同一秘钥下不可重复
+     * @param aad  附加认证数据, 可为null
+     * @return 密文, 失败返回null
+     */
+    public static byte[] encryptAESGCM(byte[] data, byte[] key, byte[] iv, byte[] aad) {
+        return gcmTemplate(data, key, iv, aad, true);
+    }
+
+    /**
+     * AES-GCM解密并校验认证标签
+     *
+     * @param data 密文
+     * @param key  16、24、32字节秘钥
+     * @param iv   加密时使用的初始向量
+     * @param aad  加密时使用的附加认证数据, 可为null
+     * @return 明文, 密文被篡改或秘钥错误时返回null
+     */
+    public static byte[] decryptAESGCM(byte[] data, byte[] key, byte[] iv, byte[] aad) {
+        return gcmTemplate(data, key, iv, aad, false);
+    }
+
+    private static byte[] gcmTemplate(byte[] data, byte[] key, byte[] iv, byte[] aad, boolean isEncrypt) {
+        if (data == null || key == null || key.length == 0 || iv == null || iv.length == 0) return null;
+        try {
+            Cipher cipher = Cipher.getInstance(AES_GCM_Transformation);
+            cipher.init(isEncrypt ? Cipher.ENCRYPT_MODE : Cipher.DECRYPT_MODE,
+                    new SecretKeySpec(key, AES_Algorithm), new GCMParameterSpec(AES_GCM_TAG_BITS, iv));
+            if (aad != null) {
+                cipher.updateAAD(aad);
+            }
+            return cipher.doFinal(data);
+        } catch (GeneralSecurityException e) {
+            return null;
+        }
+    }
+
     /**
      * DES加密模板
      *
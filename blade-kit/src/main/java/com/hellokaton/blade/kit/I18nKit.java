@@ -3,9 +3,7 @@ package com.hellokaton.blade.kit;
 import lombok.experimental.UtilityClass;
 
 import java.text.MessageFormat;
-import java.util.Locale;
-import java.util.Map;
-import java.util.ResourceBundle;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
@@ -26,6 +24,10 @@ import java.util.regex.Pattern;
  * public String getConfig(String key) {
  * return I18nUtils.getInstance(new Locale("zh","CN")).get(key);
  * }
+ * <p>
+ * Lookups never lock: bundles are loaded once into immutable holders, {@link #preload()}
+ * registers every i18n bundle of the classpath up front, and the locale picked for an
+ * Accept-Language header is remembered per header value.
  *
  * @author <a href="mailto:chenchen_839@126.com" target="_blank">ccqy66</a>
  * @Date: 2018/1/8
@@ -33,34 +35,113 @@ import java.util.regex.Pattern;
 @UtilityClass
 public class I18nKit {
 
+    private static final String PREFIX = "i18n_";
+    private static final int MAX_ACCEPT_LANGUAGE_CACHE = 1024;
+
     private static Map<String, ResourceHolder> CACHE = new ConcurrentHashMap<>();
+    private static Map<Locale, ResourceHolder> LOCALE_CACHE = new ConcurrentHashMap<>();
+    private static Map<String, Optional<ResourceHolder>> ACCEPT_LANGUAGE_CACHE = new ConcurrentHashMap<>();
+    private static volatile List<Locale> preloadedLocales;
     private static Pattern pattern = Pattern.compile("_");
 
-    public static synchronized ResourceHolder getInstance(String baseName) {
-        return createResourceHolder(baseName, null);
+    public static ResourceHolder getInstance(String baseName) {
+        ResourceHolder holder = CACHE.get(baseName);
+        if (null != holder) {
+            return holder;
+        }
+        return CACHE.computeIfAbsent(baseName, name -> {
+            Tuple2<String, Locale> localeModel = toLocaleModel(name, null);
+            return new ResourceHolder(ResourceBundle.getBundle(localeModel._1(), localeModel._2()), localeModel._2());
+        });
     }
 
-    public static synchronized ResourceHolder getInstance(Locale locale) {
-        return createResourceHolder(null, locale);
+    public static ResourceHolder getInstance(Locale locale) {
+        ResourceHolder holder = LOCALE_CACHE.get(locale);
+        if (null != holder) {
+            return holder;
+        }
+        return LOCALE_CACHE.computeIfAbsent(locale, key -> {
+            Tuple2<String, Locale> localeModel = toLocaleModel(null, key);
+            return CACHE.computeIfAbsent(localeModel._1(),
+                    name -> new ResourceHolder(ResourceBundle.getBundle(name, key), key));
+        });
     }
 
-    private static ResourceHolder createResourceHolder(String baseName, Locale locale) {
-        Tuple2<String, Locale> localeModel = toLocaleModel(baseName, locale);
-        ResourceHolder holder = CACHE.get(localeModel._1());
+    /**
+     * Load every i18n_{language}[_{country}].properties on the classpath
+     *
+     * @return the locales that have a bundle
+     */
+    public static List<Locale> preload() {
+        List<Locale> locales = preloadedLocales;
+        if (null != locales) {
+            return locales;
+        }
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (null == classLoader) {
+            classLoader = I18nKit.class.getClassLoader();
+        }
+        Set<String> probed = new HashSet<>();
+        locales = new ArrayList<>();
+        for (Locale locale : Locale.getAvailableLocales()) {
+            if (StringKit.isEmpty(locale.getLanguage()) || StringKit.isNotEmpty(locale.getVariant())
+                    || StringKit.isNotEmpty(locale.getScript())) {
+                continue;
+            }
+            String baseName = toLocaleModel(null, locale)._1();
+            if (probed.add(baseName) && null != classLoader.getResource(baseName + ".properties")) {
+                getInstance(locale);
+                locales.add(locale);
+            }
+        }
+        preloadedLocales = Collections.unmodifiableList(locales);
+        return preloadedLocales;
+    }
+
+    /**
+     * Pick the bundle for an Accept-Language header value, the choice is cached per value
+     *
+     * @param acceptLanguage Accept-Language request header
+     * @return the best matching bundle, null if no bundle matches
+     */
+    public static ResourceHolder getInstanceByAcceptLanguage(String acceptLanguage) {
+        if (StringKit.isBlank(acceptLanguage)) {
+            return null;
+        }
+        Optional<ResourceHolder> holder = ACCEPT_LANGUAGE_CACHE.get(acceptLanguage);
         if (null != holder) {
-            return holder;
+            return holder.orElse(null);
+        }
+        holder = Optional.ofNullable(resolve(acceptLanguage));
+        if (ACCEPT_LANGUAGE_CACHE.size() < MAX_ACCEPT_LANGUAGE_CACHE) {
+            ACCEPT_LANGUAGE_CACHE.putIfAbsent(acceptLanguage, holder);
+        }
+        return holder.orElse(null);
+    }
+
+    private static ResourceHolder resolve(String acceptLanguage) {
+        List<Locale.LanguageRange> ranges;
+        try {
+            ranges = Locale.LanguageRange.parse(acceptLanguage);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        List<Locale> locales = preload();
+        Locale locale = Locale.lookup(ranges, locales);
+        if (null == locale) {
+            // zh-TW falls back to a zh bundle
+            List<Locale> filtered = Locale.filter(ranges, locales, Locale.FilteringMode.AUTOSELECT_FILTERING);
+            locale = filtered.isEmpty() ? null : filtered.get(0);
         }
-        holder = new ResourceHolder(ResourceBundle.getBundle(localeModel._1(), localeModel._2()));
-        CACHE.putIfAbsent(localeModel._1(), holder);
-        return holder;
+        return null != locale ? getInstance(locale) : null;
     }
 
     public static Tuple2<String, Locale> toLocaleModel(String baseName, Locale locale) {
         if (StringKit.isBlank(baseName)) {
             if (StringKit.isEmpty(locale.getCountry())) {
-                return new Tuple2<>("i18n_" + locale.getLanguage(), locale);
+                return new Tuple2<>(PREFIX + locale.getLanguage(), locale);
             }
-            return new Tuple2<>("i18n_" + locale.getLanguage() + "_" + locale.getCountry(), locale);
+            return new Tuple2<>(PREFIX + locale.getLanguage() + "_" + locale.getCountry(), locale);
         } else {
             String[] baseNames = pattern.split(baseName);
             if (baseNames != null && baseNames.length == 3) {
@@ -72,26 +153,148 @@ public class I18nKit {
     }
 
     public static class ResourceHolder {
-        private ResourceBundle resourceBundle;
+
+        private final Locale locale;
+        private final Map<String, Object> resources;
+        private final Map<String, Message> messages;
 
         public ResourceHolder(ResourceBundle resourceBundle) {
-            this.resourceBundle = resourceBundle;
+            this(resourceBundle, resourceBundle.getLocale());
+        }
+
+        public ResourceHolder(ResourceBundle resourceBundle, Locale locale) {
+            this.locale = locale;
+            Map<String, Object> resources = new HashMap<>();
+            Map<String, Message> messages = new HashMap<>();
+            for (String key : resourceBundle.keySet()) {
+                Object value = resourceBundle.getObject(key);
+                resources.put(key, value);
+                if (value instanceof String) {
+                    messages.put(key, Message.compile((String) value));
+                }
+            }
+            this.resources = resources;
+            this.messages = messages;
+        }
+
+        public Locale getLocale() {
+            return locale;
         }
 
         public String get(String key) {
-            return resourceBundle.getString(key);
+            Object value = getObject(key);
+            if (!(value instanceof String)) {
+                throw new ClassCastException("Resource " + key + " is not a string");
+            }
+            return (String) value;
         }
 
         public Object getObject(String key) {
-            return resourceBundle.getObject(key);
+            Object value = resources.get(key);
+            if (null == value) {
+                throw new MissingResourceException("Can't find resource for key " + key, getClass().getName(), key);
+            }
+            return value;
         }
 
         public boolean containsKey(String key) {
-            return resourceBundle.containsKey(key);
+            return resources.containsKey(key);
         }
 
         public String format(String key, String... params) {
-            return MessageFormat.format(resourceBundle.getString(key), params);
+            Message message = messages.get(key);
+            if (null == message) {
+                return MessageFormat.format(get(key), (Object[]) params);
+            }
+            return message.format((Object[]) params);
+        }
+    }
+
+    /**
+     * A message pattern split into literal text and argument indexes. Patterns with
+     * formatted arguments such as {0,number} keep using MessageFormat.
+     */
+    static final class Message {
+
+        private final String pattern;
+        private final String[] literals;
+        private final int[] arguments;
+
+        private Message(String pattern, String[] literals, int[] arguments) {
+            this.pattern = pattern;
+            this.literals = literals;
+            this.arguments = arguments;
+        }
+
+        static Message compile(String pattern) {
+            List<String> literals = new ArrayList<>();
+            List<Integer> arguments = new ArrayList<>();
+            StringBuilder literal = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c == '\'') {
+                    if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '\'') {
+                        literal.append('\'');
+                        i++;
+                    } else {
+                        quoted = !quoted;
+                    }
+                } else if (quoted) {
+                    literal.append(c);
+                } else if (c == '{') {
+                    int end = pattern.indexOf('}', i);
+                    int argument = end > i + 1 ? parseIndex(pattern, i + 1, end) : -1;
+                    if (argument < 0) {
+                        return new Message(pattern, null, null);
+                    }
+                    literals.add(literal.toString());
+                    literal.setLength(0);
+                    arguments.add(argument);
+                    i = end;
+                } else {
+                    literal.append(c);
+                }
+            }
+            literals.add(literal.toString());
+            int[] indexes = new int[arguments.size()];
+            for (int i = 0; i < indexes.length; i++) {
+                indexes[i] = arguments.get(i);
+            }
+            return new Message(pattern, literals.toArray(new String[0]), indexes);
+        }
+
+        private static int parseIndex(String pattern, int start, int end) {
+            int index = 0;
+            for (int i = start; i < end; i++) {
+                char c = pattern.charAt(i);
+                if (c < '0' || c > '9' || index > 1000) {
+                    return -1;
+                }
+                index = index * 10 + (c - '0');
+            }
+            return index;
+        }
+
+        String format(Object... params) {
+            if (null == literals) {
+                return MessageFormat.format(pattern, params);
+            }
+            if (arguments.length == 0) {
+                return literals[0];
+            }
+            StringBuilder result = new StringBuilder(pattern.length() + 16 * arguments.length);
+            for (int i = 0; i < arguments.length; i++) {
+                result.append(literals[i]);
+                int argument = arguments[i];
+                if (null == params || argument >= params.length) {
+                    result.append('{').append(argument).append('}');
+                } else {
+                    result.append(params[argument]);
+                }
+            }
+            return result.append(literals[arguments.length]).toString();
         }
     }
+
 }
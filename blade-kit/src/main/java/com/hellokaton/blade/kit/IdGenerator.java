@@ -0,0 +1,39 @@
+package com.hellokaton.blade.kit;
+
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+/**
+ * Generates identifiers for sessions, websocket connections and tokens.
+ * <p>
+ * The default implementation is {@link SecureIdGenerator}, another one can be
+ * registered in META-INF/services/com.hellokaton.blade.kit.IdGenerator.
+ */
+public interface IdGenerator {
+
+    /**
+     * @return a new unique and unpredictable id
+     */
+    String nextId();
+
+    /**
+     * @return the generator registered through ServiceLoader, or {@link SecureIdGenerator}
+     */
+    static IdGenerator get() {
+        return Holder.INSTANCE;
+    }
+
+    final class Holder {
+
+        private static final IdGenerator INSTANCE = load();
+
+        private Holder() {
+        }
+
+        private static IdGenerator load() {
+            Iterator<IdGenerator> iterator = ServiceLoader.load(IdGenerator.class).iterator();
+            return iterator.hasNext() ? iterator.next() : new SecureIdGenerator();
+        }
+    }
+
+}
@@ -1,20 +1,46 @@
 package com.hellokaton.blade.kit;
 
+import lombok.extern.slf4j.Slf4j;
+
 import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 
+@Slf4j
 public class NamedThreadFactory implements ThreadFactory {
 
     private final String prefix;
-    private final LongAdder threadNumber = new LongAdder();
+    private final IntConsumer onStart;
+    private final AtomicInteger threadNumber = new AtomicInteger();
 
     public NamedThreadFactory(String prefix) {
+        this(prefix, null);
+    }
+
+    /**
+     * @param onStart runs on each new thread before its task, with the index of
+     *                the thread starting at 0. E.g. pins the thread to a cpu with
+     *                an affinity library. An exception it throws is logged and
+     *                the thread runs its task anyway
+     */
+    public NamedThreadFactory(String prefix, IntConsumer onStart) {
         this.prefix = prefix;
+        this.onStart = onStart;
     }
 
     @Override
     public Thread newThread(Runnable runnable) {
-        threadNumber.add(1);
-        return new Thread(runnable, prefix + "thread-" + threadNumber.intValue());
+        int index = threadNumber.getAndIncrement();
+        if (null == onStart) {
+            return new Thread(runnable, prefix + "thread-" + (index + 1));
+        }
+        return new Thread(() -> {
+            try {
+                onStart.accept(index);
+            } catch (Exception e) {
+                log.error("Thread start hook of {} failed", Thread.currentThread().getName(), e);
+            }
+            runnable.run();
+        }, prefix + "thread-" + (index + 1));
     }
-}
\ No newline at end of file
+}
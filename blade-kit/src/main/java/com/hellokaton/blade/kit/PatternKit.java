@@ -2,12 +2,18 @@ package com.hellokaton.blade.kit;
 
 import lombok.experimental.UtilityClass;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 /**
  * Regular utility class
  * <p>
  * Provide verification email, phone number, phone number, id number, number, etc.
+ * <p>
+ * The built-in patterns are compiled once, IP addresses are checked by a scanner,
+ * and the patterns passed to {@link #isMatch(String, CharSequence)} are kept in a
+ * bounded cache.
  *
  * @author <a href="mailto:hellokaton@gmail.com" target="_blank">hellokaton</a>
  * @since 1.0
@@ -16,10 +22,32 @@ import java.util.regex.Pattern;
 public class PatternKit {
 
     private static final String EMAIL_REGEX  = "(?:[a-z0-9!#$%&'*+/=?^_`{|}~-]+(?:\\.[a-z0-9!#$%&'*+/=?^_`{|}~-]+)*|\"(?:[\\x01-\\x08\\x0b\\x0c\\x0e-\\x1f\\x21\\x23-\\x5b\\x5d-\\x7f]|\\\\[\\x01-\\x09\\x0b\\x0c\\x0e-\\x7f])*\")@(?:(?:[a-z0-9](?:[a-z0-9-]*[a-z0-9])?\\.)+[a-z0-9](?:[a-z0-9-]*[a-z0-9])?|\\[(?:(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)\\.){3}(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?|[a-z0-9-]*[a-z0-9]:(?:[\\x01-\\x08\\x0b\\x0c\\x0e-\\x1f\\x21-\\x5a\\x53-\\x7f]|\\\\[\\x01-\\x09\\x0b\\x0c\\x0e-\\x7f])+)\\])";
-    private static final String IP_REGEX     = "^(?:(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)\\.){3}(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)$";
     private static final String URL_REGEX    = "^(https?|ftp|file)://[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*[-a-zA-Z0-9+&@#/%=~_|]";
     private static final String MOBILE_REGEX = "^(13[0-9]|14[57]|15[012356789]|17[0678]|18[0-9])[0-9]{8}$";
 
+    /**
+     * Patterns passed as strings are cached up to this count, then compiled per call
+     */
+    private static final int MAX_CACHED_PATTERNS = 256;
+
+    private static final Map<String, Pattern> PATTERN_CACHE = new ConcurrentHashMap<>();
+
+    private static final Pattern EMAIL       = Pattern.compile(EMAIL_REGEX);
+    private static final Pattern URL         = Pattern.compile(URL_REGEX);
+    private static final Pattern MOBILE      = Pattern.compile(MOBILE_REGEX);
+    private static final Pattern ID_CARD_18  = Pattern.compile("^[1-9]\\d{5}[1-9]\\d{3}((0\\d)|(1[0-2]))(([0|1|2]\\d)|3[0-1])\\d{3}([0-9Xx])$");
+    private static final Pattern ID_CARD_15  = Pattern.compile("^[1-9]\\\\d{7}((0\\\\d)|(1[0-2]))(([0|1|2]\\\\d)|3[0-1])\\\\d{3}$");
+    private static final Pattern IMAGE       = Pattern.compile("(.*?)(?i)(jpg|jpeg|png|gif|bmp|webp)");
+    private static final Pattern PHONE       = Pattern.compile("(\\+\\d+)?(\\d{3,4}\\-?)?\\d{7,8}$");
+    private static final Pattern DIGIT       = Pattern.compile("\\-?[1-9]\\d+");
+    private static final Pattern DECIMALS    = Pattern.compile("\\-?[1-9]\\d+(\\.\\d+)?");
+    private static final Pattern BLANK_SPACE = Pattern.compile("\\s+");
+    private static final Pattern CHINESE     = Pattern.compile("^[\u4E00-\u9FA5]+$");
+    private static final Pattern REAL_NAME   = Pattern.compile("^[A-Za-z0-9\\s\u4E00-\u9FA5]+$");
+    private static final Pattern NUMBER      = Pattern.compile("^[1-9]\\d*$");
+    private static final Pattern BIRTHDAY    = Pattern.compile("^(\\d{4})-(\\d{2})-(\\d{2})$");
+    private static final Pattern POSTCODE    = Pattern.compile("[1-9]\\d{5}");
+
     /**
      * Validation Email
      *
@@ -27,7 +55,7 @@ public class PatternKit {
      * @return verify that success returns true, and the failure returns false.
      */
     public static boolean isEmail(String email) {
-        return isMatch(EMAIL_REGEX, email);
+        return isMatch(EMAIL, email);
     }
 
     /**
@@ -37,8 +65,7 @@ public class PatternKit {
      * @return verify that success returns true, and the failure returns false.
      */
     public static boolean isIdCard18(String idCard) {
-        String regex = "^[1-9]\\d{5}[1-9]\\d{3}((0\\d)|(1[0-2]))(([0|1|2]\\d)|3[0-1])\\d{3}([0-9Xx])$";
-        return isMatch(regex, idCard);
+        return isMatch(ID_CARD_18, idCard);
     }
 
     /**
@@ -48,8 +75,7 @@ public class PatternKit {
      * @return verify that success returns true, and the failure returns false.
      */
     public static boolean isIdCard15(String idCard) {
-        String regex = "^[1-9]\\\\d{7}((0\\\\d)|(1[0-2]))(([0|1|2]\\\\d)|3[0-1])\\\\d{3}$";
-        return isMatch(regex, idCard);
+        return isMatch(ID_CARD_15, idCard);
     }
 
     /**
@@ -60,8 +86,7 @@ public class PatternKit {
      */
     public static boolean isImage(String suffix) {
         if (null != suffix && !"".equals(suffix) && suffix.contains(".")) {
-            String regex = "(.*?)(?i)(jpg|jpeg|png|gif|bmp|webp)";
-            return isMatch(regex, suffix);
+            return isMatch(IMAGE, suffix);
         }
         return false;
     }
@@ -78,7 +103,7 @@ public class PatternKit {
      * @return verify that success returns true, and the failure returns false.
      */
     public static boolean isMobile(String mobile) {
-        return isMatch(MOBILE_REGEX, mobile);
+        return isMatch(MOBILE, mobile);
     }
 
     /**
@@ -93,7 +118,7 @@ public class PatternKit {
      * @return verify that success returns true, and the failure returns false.
      */
     public static boolean isPhone(String phone) {
-        return isMatch("(\\+\\d+)?(\\d{3,4}\\-?)?\\d{7,8}$", phone);
+        return isMatch(PHONE, phone);
     }
 
     /**
@@ -103,8 +128,7 @@ public class PatternKit {
      * @return verify that success returns true, and the failure returns false.
      */
     public static boolean isDigit(String digit) {
-        String regex = "\\-?[1-9]\\d+";
-        return isMatch(regex, digit);
+        return isMatch(DIGIT, digit);
     }
 
     /**
@@ -114,8 +138,7 @@ public class PatternKit {
      * @return verify that success returns true, and the failure returns false.
      */
     public static boolean isDecimals(String decimals) {
-        String regex = "\\-?[1-9]\\d+(\\.\\d+)?";
-        return isMatch(regex, decimals);
+        return isMatch(DECIMALS, decimals);
     }
 
     /**
@@ -125,8 +148,7 @@ public class PatternKit {
      * @return verify that success returns true, and the failure returns false.
      */
     public static boolean isBlankSpace(String blankSpace) {
-        String regex = "\\s+";
-        return isMatch(regex, blankSpace);
+        return isMatch(BLANK_SPACE, blankSpace);
     }
 
     /**
@@ -136,8 +158,7 @@ public class PatternKit {
      * @return verify that success returns true, and the failure returns false.
      */
     public static boolean isChinese(String chinese) {
-        String regex = "^[\u4E00-\u9FA5]+$";
-        return isMatch(regex, chinese);
+        return isMatch(CHINESE, chinese);
     }
 
     /**
@@ -147,8 +168,7 @@ public class PatternKit {
      * @return verify that success returns true, and the failure returns false.
      */
     public static boolean isRealName(String chinese) {
-        String regex = "^[A-Za-z0-9\\s\u4E00-\u9FA5]+$";
-        return isMatch(regex, chinese);
+        return isMatch(REAL_NAME, chinese);
     }
 
     /**
@@ -158,8 +178,7 @@ public class PatternKit {
      * @return verify that success returns true, and the failure returns false.
      */
     public static boolean isNumber(String str) {
-        String regex = "^[1-9]\\d*$";
-        return isMatch(regex, str);
+        return isMatch(NUMBER, str);
     }
 
     /**
@@ -169,8 +188,7 @@ public class PatternKit {
      * @return verify that success returns true, and the failure returns false.
      */
     public static boolean isBirthday(String birthday) {
-        String regex = "^(\\d{4})-(\\d{2})-(\\d{2})$";
-        return isMatch(regex, birthday);
+        return isMatch(BIRTHDAY, birthday);
     }
 
     /**
@@ -180,7 +198,7 @@ public class PatternKit {
      * @return verify that success returns true, and the failure returns false.
      */
     public static boolean isURL(String url) {
-        return isMatch(URL_REGEX, url);
+        return isMatch(URL, url);
     }
 
     /**
@@ -190,8 +208,7 @@ public class PatternKit {
      * @return verify that success returns true, and the failure returns false.
      */
     public static boolean isPostcode(String postcode) {
-        String regex = "[1-9]\\d{5}";
-        return isMatch(regex, postcode);
+        return isMatch(POSTCODE, postcode);
     }
 
     /**
@@ -201,7 +218,29 @@ public class PatternKit {
      * @return {@code true}: matching<br>{@code false}: mismatching
      */
     public static boolean isIpAddress(String ipAddress) {
-        return isMatch(IP_REGEX, ipAddress);
+        if (null == ipAddress || ipAddress.length() < 7 || ipAddress.length() > 15) {
+            return false;
+        }
+        int segments = 0;
+        int digits = 0;
+        int value = 0;
+        for (int i = 0, len = ipAddress.length(); i < len; i++) {
+            char c = ipAddress.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > 3) {
+                    return false;
+                }
+                value = value * 10 + (c - '0');
+            } else if (c == '.') {
+                if (digits == 0 || value > 255 || ++segments > 3) {
+                    return false;
+                }
+                digits = value = 0;
+            } else {
+                return false;
+            }
+        }
+        return segments == 3 && digits > 0 && value <= 255;
     }
 
     /**
@@ -212,7 +251,36 @@ public class PatternKit {
      * @return {@code true}: matching<br>{@code false}: mismatching
      */
     public static boolean isMatch(final String regex, final CharSequence input) {
-        return input != null && input.length() > 0 && Pattern.matches(regex, input);
+        return input != null && input.length() > 0 && compile(regex).matcher(input).matches();
+    }
+
+    /**
+     * Determines whether the compiled pattern is matched.
+     *
+     * @param pattern compiled regular expression
+     * @param input   the string to match.
+     * @return {@code true}: matching<br>{@code false}: mismatching
+     */
+    public static boolean isMatch(final Pattern pattern, final CharSequence input) {
+        return input != null && input.length() > 0 && pattern.matcher(input).matches();
+    }
+
+    /**
+     * Compile a regular expression, the first patterns are kept and reused.
+     *
+     * @param regex regular expression
+     * @return compiled pattern
+     */
+    public static Pattern compile(final String regex) {
+        Pattern pattern = PATTERN_CACHE.get(regex);
+        if (null != pattern) {
+            return pattern;
+        }
+        pattern = Pattern.compile(regex);
+        if (PATTERN_CACHE.size() < MAX_CACHED_PATTERNS) {
+            PATTERN_CACHE.putIfAbsent(regex, pattern);
+        }
+        return pattern;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,98 @@
+package com.hellokaton.blade.kit;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Id generator with a CSPRNG per thread.
+ * <p>
+ * {@code UUID.randomUUID()} draws every id from one shared SecureRandom. Here each
+ * thread owns a SHA1PRNG seeded from the system source, pulls random bytes in
+ * blocks and reseeds after {@link #RESEED_BYTES}. An id holds 128 random bits
+ * encoded like {@link UUID#UU32()}, 26 chars of [0-9a-v].
+ */
+public class SecureIdGenerator implements IdGenerator {
+
+    public static final int ID_LENGTH = 26;
+
+    static final int RESEED_BYTES = 1 << 20;
+
+    private static final int BUFFER_SIZE = 512;
+    private static final int SEED_SIZE = 32;
+    private static final char[] ALPHABET = "0123456789abcdefghijklmnopqrstuv".toCharArray();
+
+    private static final SecureRandom SEED_SOURCE = new SecureRandom();
+
+    private final ThreadLocal<State> state = ThreadLocal.withInitial(State::new);
+
+    @Override
+    public String nextId() {
+        State state = this.state.get();
+        long high = state.nextLong();
+        long low = state.nextLong();
+
+        char[] chars = state.chars;
+        encode(high, chars, 0);
+        encode(low, chars, 13);
+        return new String(chars);
+    }
+
+    /**
+     * 64 bits as 13 base32 chars, the first char holds the top 4 bits
+     */
+    private static void encode(long value, char[] chars, int offset) {
+        for (int i = 12; i >= 0; i--) {
+            chars[offset + i] = ALPHABET[(int) value & 31];
+            value >>>= 5;
+        }
+    }
+
+    private static final class State {
+
+        private final SecureRandom random = newRandom();
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private final char[] chars = new char[ID_LENGTH];
+        private int position = BUFFER_SIZE;
+        private int generated;
+
+        private long nextLong() {
+            if (position + 8 > BUFFER_SIZE) {
+                this.refill();
+            }
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (buffer[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        private void refill() {
+            generated += BUFFER_SIZE;
+            if (generated >= RESEED_BYTES) {
+                random.setSeed(seed());
+                generated = 0;
+            }
+            random.nextBytes(buffer);
+            position = 0;
+        }
+
+        private static SecureRandom newRandom() {
+            SecureRandom random;
+            try {
+                random = SecureRandom.getInstance("SHA1PRNG");
+            } catch (NoSuchAlgorithmException e) {
+                random = new SecureRandom();
+            }
+            // seeding before the first use replaces the self seeding
+            random.setSeed(seed());
+            return random;
+        }
+
+        private static byte[] seed() {
+            byte[] seed = new byte[SEED_SIZE];
+            SEED_SOURCE.nextBytes(seed);
+            return seed;
+        }
+    }
+
+}
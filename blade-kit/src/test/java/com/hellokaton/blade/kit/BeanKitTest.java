@@ -2,6 +2,7 @@ package com.hellokaton.blade.kit;
 
 import com.hellokaton.blade.kit.model.MyPerson;
 import com.hellokaton.blade.kit.model.Person;
+import lombok.Data;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -25,4 +26,48 @@ public class BeanKitTest {
         Assert.assertNotNull(myPerson.getName());
     }
 
+    @Test
+    public void testCopierCached() {
+        Assert.assertSame(BeanCopier.of(Person.class, MyPerson.class), BeanCopier.of(Person.class, MyPerson.class));
+    }
+
+    @Test
+    public void testCopyConvert() {
+        Person source = new Person("jack", null, 22);
+        Account account = BeanKit.copy(source, Account.class);
+        Assert.assertEquals("jack", account.getName());
+        Assert.assertEquals(Long.valueOf(22), account.getAge());
+        Assert.assertEquals("unchanged", account.getText());
+
+        Counter counter = new Counter();
+        counter.setAge(7L);
+        Person person = BeanKit.copy(counter, Person.class);
+        Assert.assertEquals(7, person.getAge());
+    }
+
+    @Test
+    public void testCopyPrivateClass() {
+        Hidden hidden = new Hidden();
+        hidden.setName("rose");
+        Person person = BeanKit.copy(hidden, Person.class);
+        Assert.assertEquals("rose", person.getName());
+    }
+
+    @Data
+    public static class Account {
+        private String name;
+        private String text = "unchanged";
+        private Long   age;
+    }
+
+    @Data
+    public static class Counter {
+        private long age;
+    }
+
+    @Data
+    private static class Hidden {
+        private String name;
+    }
+
 }
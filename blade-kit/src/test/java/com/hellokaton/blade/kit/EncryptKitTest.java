@@ -316,6 +316,21 @@ public class EncryptKitTest {
         );
     }
 
+    @Test
+    public void testAESGCM() throws Exception {
+        byte[] iv = ConvertKit.hexString2Bytes("000102030405060708090a0b");
+        byte[] aad = "kid".getBytes();
+        byte[] data = "blade".getBytes();
+
+        byte[] encrypted = EncryptKit.encryptAESGCM(data, bytesKeyAES, iv, aad);
+        Assert.assertEquals(data.length + 16, encrypted.length);
+        TestCase.assertTrue(Arrays.equals(data, EncryptKit.decryptAESGCM(encrypted, bytesKeyAES, iv, aad)));
+
+        Assert.assertNull(EncryptKit.decryptAESGCM(encrypted, bytesKeyAES, iv, "other".getBytes()));
+        encrypted[0] ^= 1;
+        Assert.assertNull(EncryptKit.decryptAESGCM(encrypted, bytesKeyAES, iv, aad));
+    }
+
     @Test
     public void encryptMD5File() throws Exception {
         String fileMd5 = "7f138a09169b250e9dcb378140907378";
@@ -4,6 +4,8 @@ import org.junit.Test;
 
 import java.util.Locale;
 
+import static org.junit.Assert.*;
+
 /**
  * Created with IntelliJ IDEA.
  * User: chenchen42
@@ -22,4 +24,25 @@ public class I18NKitTest {
         String name = I18nKit.getInstance(new Locale("zh","CN")).get("name");
         assert name.equals("ccqy66");
     }
+
+    @Test
+    public void testFormat() {
+        I18nKit.ResourceHolder holder = I18nKit.getInstance(Locale.US);
+        assertSame(holder, I18nKit.getInstance(Locale.US));
+        assertEquals("Hello blade, it's 2022", holder.format("welcome", "blade", "2022"));
+        assertEquals("{0} is blade", holder.format("quoted", "blade"));
+        assertEquals("Hello blade, it's {1}", holder.format("welcome", "blade"));
+    }
+
+    @Test
+    public void testAcceptLanguage() {
+        assertTrue(I18nKit.preload().contains(Locale.US));
+        assertTrue(I18nKit.preload().contains(Locale.CHINA));
+
+        assertEquals(Locale.CHINA, I18nKit.getInstanceByAcceptLanguage("zh-CN,zh;q=0.9,en;q=0.8").getLocale());
+        assertEquals(Locale.US, I18nKit.getInstanceByAcceptLanguage("fr-FR, en-US;q=0.5").getLocale());
+        assertEquals(Locale.US, I18nKit.getInstanceByAcceptLanguage("en").getLocale());
+        assertNull(I18nKit.getInstanceByAcceptLanguage("fr-FR"));
+        assertNull(I18nKit.getInstanceByAcceptLanguage(""));
+    }
 }
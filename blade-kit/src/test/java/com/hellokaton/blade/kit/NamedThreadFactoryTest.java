@@ -0,0 +1,48 @@
+package com.hellokaton.blade.kit;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NamedThreadFactoryTest {
+
+    @Test
+    public void testName() {
+        NamedThreadFactory threadFactory = new NamedThreadFactory("worker@");
+        assertEquals("worker@thread-1", threadFactory.newThread(() -> {}).getName());
+        assertEquals("worker@thread-2", threadFactory.newThread(() -> {}).getName());
+    }
+
+    @Test
+    public void testOnStart() throws Exception {
+        Map<Integer, String> started = new ConcurrentHashMap<>();
+        NamedThreadFactory threadFactory = new NamedThreadFactory("worker@",
+                index -> started.put(index, Thread.currentThread().getName()));
+        for (int i = 0; i < 3; i++) {
+            Thread thread = threadFactory.newThread(() -> {});
+            thread.start();
+            thread.join();
+        }
+        assertEquals(3, started.size());
+        assertEquals("worker@thread-1", started.get(0));
+        assertEquals("worker@thread-3", started.get(2));
+    }
+
+    @Test
+    public void testFailingOnStart() throws Exception {
+        NamedThreadFactory threadFactory = new NamedThreadFactory("worker@", index -> {
+            throw new IllegalStateException("no such cpu");
+        });
+        AtomicBoolean ran = new AtomicBoolean();
+        Thread thread = threadFactory.newThread(() -> ran.set(true));
+        thread.start();
+        thread.join();
+        assertTrue(ran.get());
+    }
+
+}
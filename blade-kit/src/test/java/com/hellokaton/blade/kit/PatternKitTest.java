@@ -39,6 +39,16 @@ public class PatternKitTest {
     public void testIp() {
         Assert.assertEquals(true, PatternKit.isIpAddress("192.168.1.1"));
         Assert.assertEquals(false, PatternKit.isIpAddress("256.255.255.0"));
+        Assert.assertEquals(true, PatternKit.isIpAddress("0.0.0.0"));
+        Assert.assertEquals(true, PatternKit.isIpAddress("255.255.255.255"));
+        Assert.assertEquals(true, PatternKit.isIpAddress("010.001.1.09"));
+        Assert.assertEquals(false, PatternKit.isIpAddress("1.2.3"));
+        Assert.assertEquals(false, PatternKit.isIpAddress("1.2.3.4.5"));
+        Assert.assertEquals(false, PatternKit.isIpAddress("1..2.3"));
+        Assert.assertEquals(false, PatternKit.isIpAddress("1.2.3.4."));
+        Assert.assertEquals(false, PatternKit.isIpAddress("1.2.3.0256"));
+        Assert.assertEquals(false, PatternKit.isIpAddress("a.b.c.d"));
+        Assert.assertEquals(false, PatternKit.isIpAddress(null));
     }
 
     @Test
@@ -101,4 +111,13 @@ public class PatternKitTest {
         Assert.assertEquals(false, PatternKit.isImage("g.txt"));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testCompile() {
+        Assert.assertSame(PatternKit.compile("[a-z]+\\d"), PatternKit.compile("[a-z]+\\d"));
+        Assert.assertEquals(true, PatternKit.isMatch("[a-z]+\\d", "abc1"));
+        Assert.assertEquals(false, PatternKit.isMatch("[a-z]+\\d", "abc"));
+        Assert.assertEquals(false, PatternKit.isMatch("[a-z]+\\d", ""));
+        Assert.assertEquals(true, PatternKit.isMatch(PatternKit.compile("\\d+"), "123"));
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.hellokaton.blade.kit;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class SecureIdGeneratorTest {
+
+    @Test
+    public void testFormat() {
+        String id = IdGenerator.get().nextId();
+        assertEquals(SecureIdGenerator.ID_LENGTH, id.length());
+        assertTrue(id.matches("[0-9a-v]+"));
+        assertNotNull(UUID.fromUU32(id));
+    }
+
+    @Test
+    public void testUniqueAcrossThreads() throws Exception {
+        SecureIdGenerator generator = new SecureIdGenerator();
+        Set<String> ids = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        int threads = 4;
+        int count = SecureIdGenerator.RESEED_BYTES / 16 + 1000;
+
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            executorService.submit(() -> {
+                for (int j = 0; j < count / threads; j++) {
+                    ids.add(generator.nextId());
+                }
+                latch.countDown();
+            });
+        }
+        latch.await();
+        executorService.shutdown();
+        assertEquals(count / threads * threads, ids.size());
+    }
+
+}
@@ -0,0 +1,266 @@
+package com.hellokaton.blade.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Writes the component index read by {@code com.hellokaton.blade.ioc.ComponentIndex}.
+ * <p>
+ * Add blade-processor to the compile classpath (or the annotation processor path)
+ * and the application starts from the index instead of scanning its packages.
+ * The index is rebuilt from the classes compiled in one javac run, so it is only
+ * trusted inside jars, class directories are still scanned.
+ */
+public class ComponentIndexProcessor extends AbstractProcessor {
+
+    public static final String LOCATION = "META-INF/blade/components.idx";
+
+    private static final String BEAN = "com.hellokaton.blade.ioc.annotation.Bean";
+    private static final String VALUE = "com.hellokaton.blade.ioc.annotation.Value";
+    private static final String INJECT = "com.hellokaton.blade.ioc.annotation.Inject";
+    private static final String INJECT_WITH = "com.hellokaton.blade.ioc.annotation.InjectWith";
+    private static final String CONFIGURATION = "com.hellokaton.blade.ioc.annotation.Configuration";
+    private static final String PATH = "com.hellokaton.blade.annotation.Path";
+    private static final String SCHEDULE = "com.hellokaton.blade.task.annotation.Schedule";
+    private static final String ROUTE_PACKAGE = "com.hellokaton.blade.annotation.route.";
+
+    /**
+     * Same precedence as RouteStruct
+     */
+    private static final String[] ROUTE_ANNOTATIONS = {"ANY", "GET", "POST", "PUT", "DELETE"};
+
+    private static final List<String> COMPONENT_ANNOTATIONS = Arrays.asList(BEAN, VALUE, PATH, CONFIGURATION);
+
+    private final Map<String, List<String>> records = new TreeMap<>();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return new HashSet<>(COMPONENT_ANNOTATIONS);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            this.writeIndex();
+            return false;
+        }
+        for (String annotationName : COMPONENT_ANNOTATIONS) {
+            TypeElement annotation = processingEnv.getElementUtils().getTypeElement(annotationName);
+            if (null == annotation) {
+                continue;
+            }
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS || element.getModifiers().contains(Modifier.ABSTRACT)) {
+                    continue;
+                }
+                TypeElement type = (TypeElement) element;
+                String className = processingEnv.getElementUtils().getBinaryName(type).toString();
+                if (!records.containsKey(className)) {
+                    records.put(className, this.indexType(className, type));
+                }
+            }
+        }
+        return false;
+    }
+
+    private List<String> indexType(String className, TypeElement type) {
+        List<String> lines = new ArrayList<>();
+        lines.add(record("class", className));
+
+        Map<String, Object> path = this.annotationValues(type, PATH);
+        if (null != path) {
+            String nameSpace = (String) path.get("value");
+            String suffix = (String) path.get("suffix");
+            for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+                this.indexRoute(className, method, nameSpace, suffix, lines);
+            }
+        }
+
+        // same as IocKit#getInjectFields
+        List<VariableElement> fields = ElementFilter.fieldsIn(type.getEnclosedElements());
+        for (VariableElement field : fields) {
+            if (null != this.annotationValues(field, INJECT_WITH) || null != this.annotationValues(field, INJECT)) {
+                lines.add(record("inject", className, field.getSimpleName().toString()));
+            }
+        }
+
+        Map<String, Object> classValue = this.annotationValues(type, VALUE);
+        for (VariableElement field : fields) {
+            String fieldName = field.getSimpleName().toString();
+            if (null != classValue) {
+                lines.add(record("value", className, fieldName, classValue.get("name") + "." + fieldName));
+            } else {
+                Map<String, Object> value = this.annotationValues(field, VALUE);
+                if (null != value) {
+                    lines.add(record("value", className, fieldName, (String) value.get("name")));
+                }
+            }
+        }
+
+        Elements elements = processingEnv.getElementUtils();
+        for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+            if (method.getModifiers().contains(Modifier.PUBLIC) && null != this.annotationValues(method, SCHEDULE)) {
+                lines.add(record("schedule", className, method.getSimpleName().toString(), this.parameterTypes(method)));
+            }
+        }
+        return lines;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void indexRoute(String className, ExecutableElement method, String nameSpace, String suffix, List<String> lines) {
+        for (String routeAnnotation : ROUTE_ANNOTATIONS) {
+            Map<String, Object> route = this.annotationValues(method, ROUTE_PACKAGE + routeAnnotation);
+            if (null == route) {
+                continue;
+            }
+            String httpMethod = "ANY".equals(routeAnnotation) ? (String) route.get("method") : routeAnnotation;
+            String responseType = (String) route.get("responseType");
+            String parameterTypes = this.parameterTypes(method);
+            for (String value : (List<String>) route.get("value")) {
+                lines.add(record("route", className, method.getSimpleName().toString(), parameterTypes,
+                        httpMethod, responseType, routePath(value, nameSpace, suffix)));
+            }
+            return;
+        }
+    }
+
+    /**
+     * Same as RouteBuilder#getRoutePath
+     */
+    static String routePath(String value, String nameSpace, String suffix) {
+        String path = value.startsWith("/") ? value : "/" + value;
+        nameSpace = nameSpace.startsWith("/") ? nameSpace : "/" + nameSpace;
+        path = nameSpace + path;
+        path = path.replaceAll("[/]+", "/");
+        path = path.length() > 1 && path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+        path = path + suffix;
+        return path;
+    }
+
+    /**
+     * Annotation values with defaults, strings and enum constant names as String,
+     * arrays as List
+     */
+    private Map<String, Object> annotationValues(Element element, String annotationName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if (!annotationType.getQualifiedName().contentEquals(annotationName)) {
+                continue;
+            }
+            Map<String, Object> values = new HashMap<>();
+            processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).forEach((key, value) ->
+                    values.put(key.getSimpleName().toString(), toValue(value.getValue())));
+            return values;
+        }
+        return null;
+    }
+
+    private static Object toValue(Object value) {
+        if (value instanceof VariableElement) {
+            return ((VariableElement) value).getSimpleName().toString();
+        }
+        if (value instanceof List) {
+            List<Object> list = new ArrayList<>();
+            for (Object item : (List<?>) value) {
+                list.add(toValue(((AnnotationValue) item).getValue()));
+            }
+            return list;
+        }
+        return value;
+    }
+
+    private String parameterTypes(ExecutableElement method) {
+        StringJoiner joiner = new StringJoiner(",");
+        for (VariableElement parameter : method.getParameters()) {
+            joiner.add(this.className(parameter.asType()));
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * Class name accepted by Class.forName, primitive types by their keyword
+     */
+    private String className(TypeMirror type) {
+        Types types = processingEnv.getTypeUtils();
+        TypeMirror erasure = types.erasure(type);
+        if (erasure.getKind().isPrimitive()) {
+            return erasure.toString();
+        }
+        if (erasure.getKind() == TypeKind.ARRAY) {
+            return this.descriptor(erasure);
+        }
+        return processingEnv.getElementUtils().getBinaryName((TypeElement) types.asElement(erasure)).toString();
+    }
+
+    private String descriptor(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return "Z";
+            case BYTE:
+                return "B";
+            case CHAR:
+                return "C";
+            case SHORT:
+                return "S";
+            case INT:
+                return "I";
+            case LONG:
+                return "J";
+            case FLOAT:
+                return "F";
+            case DOUBLE:
+                return "D";
+            case ARRAY:
+                return "[" + this.descriptor(((ArrayType) type).getComponentType());
+            default:
+                return "L" + this.className(type) + ";";
+        }
+    }
+
+    private static String record(String... fields) {
+        return String.join("\t", fields);
+    }
+
+    private void writeIndex() {
+        if (records.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", LOCATION);
+            try (Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+                writer.write("# blade component index v1\n");
+                for (List<String> lines : records.values()) {
+                    for (String line : lines) {
+                        writer.write(line);
+                        writer.write('\n');
+                    }
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Write blade component index failed: " + e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,195 @@
+package com.hellokaton.blade.processor;
+
+import com.hellokaton.blade.ioc.ComponentIndex;
+import com.hellokaton.blade.mvc.http.HttpMethod;
+import com.hellokaton.blade.mvc.route.Route;
+import com.hellokaton.blade.mvc.ui.ResponseType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.tools.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class ComponentIndexProcessorTest {
+
+    private static final String CONTROLLER = "package demo;\n" +
+            "import com.hellokaton.blade.annotation.Path;\n" +
+            "import com.hellokaton.blade.annotation.route.*;\n" +
+            "import com.hellokaton.blade.ioc.annotation.*;\n" +
+            "import com.hellokaton.blade.mvc.http.HttpMethod;\n" +
+            "import com.hellokaton.blade.mvc.ui.ResponseType;\n" +
+            "import com.hellokaton.blade.task.annotation.Schedule;\n" +
+            "@Path(value = \"/users\", suffix = \".json\")\n" +
+            "public class UserController {\n" +
+            "    @Inject private UserService userService;\n" +
+            "    @Value(name = \"app.page-size\") private int pageSize;\n" +
+            "    @GET({\"/\", \"list\"}) public String list() { return \"\"; }\n" +
+            "    @POST(value = \"/:id\", responseType = ResponseType.JSON) public String save(Long id, String[] tags, int[][] matrix) { return \"\"; }\n" +
+            "    @ANY(method = HttpMethod.PUT) public void any() { }\n" +
+            "    @Schedule(cron = \"* * * * * ?\") public void clean() { }\n" +
+            "    public void helper() { }\n" +
+            "}\n";
+
+    private static final String SERVICE = "package demo;\n" +
+            "@com.hellokaton.blade.ioc.annotation.Bean\n" +
+            "public class UserService {\n" +
+            "}\n";
+
+    private static final String ABSTRACT = "package demo;\n" +
+            "@com.hellokaton.blade.ioc.annotation.Bean\n" +
+            "public abstract class AbstractService {\n" +
+            "}\n";
+
+    private Path output;
+
+    @Before
+    public void before() throws IOException {
+        output = Files.createTempDirectory("blade-processor");
+    }
+
+    @After
+    public void after() throws IOException {
+        try (Stream<Path> paths = Files.walk(output)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testGenerateIndex() throws Exception {
+        compile(source("demo.UserController", CONTROLLER), source("demo.UserService", SERVICE),
+                source("demo.AbstractService", ABSTRACT));
+
+        Path indexFile = output.resolve(ComponentIndexProcessor.LOCATION);
+        assertTrue(Files.exists(indexFile));
+        List<String> lines = Files.readAllLines(indexFile, StandardCharsets.UTF_8);
+        assertTrue(lines.contains("class\tdemo.UserService"));
+        assertFalse(lines.stream().anyMatch(line -> line.contains("AbstractService")));
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{output.toUri().toURL()}, getClass().getClassLoader())) {
+            ComponentIndex index = new ComponentIndex(classLoader);
+            try (Reader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+                index.read(reader);
+            }
+            assertTrue(index.hasPackage("demo"));
+            assertEquals(2, index.classes("demo").size());
+
+            Class<?> controller = classLoader.loadClass("demo.UserController");
+            assertTrue(index.contains(controller));
+
+            Map<String, Route> routes = index.routes(controller).stream()
+                    .collect(Collectors.toMap(route -> route.getHttpMethod() + " " + route.getPath(), route -> route));
+            assertEquals(new HashSet<>(Arrays.asList("GET /users.json", "GET /users/list.json",
+                    "POST /users/:id.json", "PUT /users.json")), routes.keySet());
+            Route save = routes.get("POST /users/:id.json");
+            assertEquals("save", save.getAction().getName());
+            assertEquals(ResponseType.JSON, save.getResponseType());
+            assertEquals(HttpMethod.PUT, routes.get("PUT /users.json").getHttpMethod());
+
+            List<Field> injectFields = index.injectFields(controller);
+            assertEquals(1, injectFields.size());
+            assertEquals("userService", injectFields.get(0).getName());
+
+            Map<Field, String> valueFields = index.valueFields(controller);
+            assertEquals(1, valueFields.size());
+            assertEquals("app.page-size", valueFields.values().iterator().next());
+
+            assertEquals("clean", index.scheduleMethods(controller).get(0).getName());
+        }
+    }
+
+    @Test
+    public void testRoutePath() {
+        assertEquals("/", ComponentIndexProcessor.routePath("/", "/", ""));
+        assertEquals("/a/b", ComponentIndexProcessor.routePath("b/", "a", ""));
+        assertEquals("/a/b.html", ComponentIndexProcessor.routePath("//b", "/a/", ".html"));
+    }
+
+    @Test
+    public void testCoversJarsOnly() throws Exception {
+        compile(source("demo.UserController", CONTROLLER), source("demo.UserService", SERVICE));
+
+        Path jar = Files.createTempFile("blade-processor", ".jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar));
+             Stream<Path> paths = Files.walk(output)) {
+            for (Path path : paths.filter(path -> !path.equals(output)).sorted().collect(Collectors.toList())) {
+                String name = output.relativize(path).toString().replace(File.separatorChar, '/');
+                out.putNextEntry(new JarEntry(Files.isDirectory(path) ? name + "/" : name));
+                if (!Files.isDirectory(path)) {
+                    Files.copy(path, out);
+                }
+                out.closeEntry();
+            }
+        }
+
+        try (URLClassLoader jarLoader = new URLClassLoader(new URL[]{jar.toUri().toURL()}, null);
+             URLClassLoader directoryLoader = new URLClassLoader(new URL[]{output.toUri().toURL()}, null);
+             URLClassLoader bothLoader = new URLClassLoader(new URL[]{jar.toUri().toURL(), output.toUri().toURL()}, null)) {
+            assertTrue(ComponentIndex.load(jarLoader).covers("demo"));
+            assertFalse(ComponentIndex.load(jarLoader).covers("other"));
+
+            // a class directory may carry the partial index of an incremental compile
+            ComponentIndex directoryIndex = ComponentIndex.load(directoryLoader);
+            assertTrue(directoryIndex.hasPackage("demo"));
+            assertFalse(directoryIndex.covers("demo"));
+            assertFalse(ComponentIndex.load(bothLoader).covers("demo"));
+        } finally {
+            Files.delete(jar);
+        }
+    }
+
+    private void compile(JavaFileObject... sources) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            fileManager.setLocation(StandardLocation.CLASS_OUTPUT, Collections.singletonList(output.toFile()));
+            fileManager.setLocation(StandardLocation.CLASS_PATH, classpath());
+
+            DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    null, null, Arrays.asList(sources));
+            task.setProcessors(Collections.singletonList(new ComponentIndexProcessor()));
+            assertTrue(diagnostics.getDiagnostics().toString(), task.call());
+        }
+    }
+
+    private static List<File> classpath() {
+        List<File> files = new ArrayList<>();
+        for (String path : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            files.add(new File(path));
+        }
+        ClassLoader classLoader = ComponentIndexProcessorTest.class.getClassLoader();
+        if (classLoader instanceof URLClassLoader) {
+            for (URL url : ((URLClassLoader) classLoader).getURLs()) {
+                files.add(new File(url.getFile()));
+            }
+        }
+        return files;
+    }
+
+    private static JavaFileObject source(String className, String code) {
+        return new SimpleJavaFileObject(URI.create("string:///" + className.replace('.', '/') + ".java"),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+
+}
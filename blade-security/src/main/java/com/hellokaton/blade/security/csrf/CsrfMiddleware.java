@@ -1,5 +1,6 @@
 package com.hellokaton.blade.security.csrf;
 
+import com.hellokaton.blade.kit.IdGenerator;
 import com.hellokaton.blade.kit.StringKit;
 import com.hellokaton.blade.mvc.RouteContext;
 import com.hellokaton.blade.mvc.hook.WebHook;
@@ -121,6 +122,7 @@ public class CsrfMiddleware implements WebHook {
     protected String genToken(Request request) {
         JwtBuilder jwtBuilder = Jwts.builder()
                 .setClaims(Collections.singletonMap(JWT_SID_KEY, request.session().id()))
+                .setId(IdGenerator.get().nextId())
                 .signWith(secretKey);
 
         return jwtBuilder.compact();
@@ -1,6 +1,8 @@
 package com.hellokaton.blade.websocket;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelFutureListener;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 import lombok.Getter;
 import lombok.experimental.Accessors;
@@ -16,6 +18,8 @@ public class WebSocketContext {
     private WebSocketSession      session;
     @Getter
     private String                message;
+    @Getter
+    private ByteBuf               binary;
     private WebSocketHandler      handler;
 
     public WebSocketContext(WebSocketSession session,WebSocketHandler handler) {
@@ -26,6 +30,19 @@ public class WebSocketContext {
         this(session,handler);
         this.message = message;
     }
+    public WebSocketContext(WebSocketSession session,WebSocketHandler handler,ByteBuf binary) {
+        this(session,handler);
+        this.binary = binary;
+    }
+
+    /**
+     * get a path variable of the endpoint, e.g. room of /chat/:room
+     * @param name variable name
+     * @return the value, null if the endpoint has no such variable
+     */
+    public String pathParam(String name) {
+        return session.pathParams().get(name);
+    }
 
     /**
      * post a message
@@ -35,12 +52,61 @@ public class WebSocketContext {
         session.handlerContext().writeAndFlush(new TextWebSocketFrame(value));
     }
 
+    /**
+     * post a binary message, the buffer is released once written
+     * @param value
+     */
+    public void message(ByteBuf value) {
+        session.handlerContext().writeAndFlush(new BinaryWebSocketFrame(value));
+    }
+
+    /**
+     * Whether the connection accepts more messages without queueing them,
+     * false while the client reads slower than the server writes
+     */
+    public boolean isWritable() {
+        return session.handlerContext().channel().isWritable();
+    }
+
+    /**
+     * join a broadcast group
+     * @param group group name
+     */
+    public void join(String group) {
+        WebSocketGroup.of(group).add(session);
+    }
+
+    /**
+     * leave a broadcast group
+     * @param group group name
+     */
+    public void leave(String group) {
+        WebSocketGroup webSocketGroup = WebSocketGroup.get(group);
+        if (null != webSocketGroup) {
+            webSocketGroup.remove(session);
+        }
+    }
+
+    /**
+     * post a message to every session of a group
+     * @param group group name
+     * @param value message
+     */
+    public void broadcast(String group, String value) {
+        WebSocketGroup webSocketGroup = WebSocketGroup.get(group);
+        if (null != webSocketGroup) {
+            webSocketGroup.broadcast(value);
+        }
+    }
+
     /**
      * Allows the user to disconnect the websocket
      */
     public void disconnect(){
         session.handlerContext().disconnect().addListener(ChannelFutureListener.CLOSE);
-        handler.onDisConnect(this);
+        if (session.markClosed()) {
+            handler.onDisConnect(this);
+        }
     }
 
 }
@@ -0,0 +1,205 @@
+package com.hellokaton.blade.websocket;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A named set of websocket sessions receiving the same messages.
+ * <p>
+ * A broadcast encodes the message once into a pooled buffer, every channel
+ * writes a retained duplicate of it. Members are kept by event loop, so one
+ * task per event loop writes to all of its channels.
+ * A channel that is not writable is a slow consumer, the message is dropped
+ * for it, or the channel is closed when {@link SlowConsumer#CLOSE} is set.
+ * <p>
+ * A group obtained by {@link #of(String)} is unregistered when its last
+ * member leaves, and registered again when a member joins it later.
+ */
+@Slf4j
+public class WebSocketGroup {
+
+    public enum SlowConsumer {
+        DROP, CLOSE
+    }
+
+    private static final ConcurrentMap<String, WebSocketGroup> GROUPS = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final Map<EventLoop, Set<Channel>> members = new ConcurrentHashMap<>();
+    private final ChannelFutureListener remover = future -> this.remove(future.channel());
+    private final LongAdder dropped = new LongAdder();
+    private final boolean registered;
+    private volatile SlowConsumer slowConsumer = SlowConsumer.DROP;
+
+    public WebSocketGroup(String name) {
+        this(name, false);
+    }
+
+    private WebSocketGroup(String name, boolean registered) {
+        this.name = name;
+        this.registered = registered;
+    }
+
+    /**
+     * @return the group of the name, created if absent
+     */
+    public static WebSocketGroup of(String name) {
+        return GROUPS.computeIfAbsent(name, key -> new WebSocketGroup(key, true));
+    }
+
+    /**
+     * @return the group of the name, null if absent
+     */
+    public static WebSocketGroup get(String name) {
+        return GROUPS.get(name);
+    }
+
+    public static WebSocketGroup remove(String name) {
+        return GROUPS.remove(name);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public WebSocketGroup slowConsumer(SlowConsumer slowConsumer) {
+        this.slowConsumer = slowConsumer;
+        return this;
+    }
+
+    /**
+     * @return messages dropped for slow consumers
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    public boolean add(WebSocketSession session) {
+        Channel channel = session.handlerContext().channel();
+        if (!registered) {
+            return this.add(channel);
+        }
+        // serialized with the unregistering of an empty group on the same name
+        boolean[] added = new boolean[1];
+        GROUPS.compute(name, (key, group) -> {
+            WebSocketGroup target = null == group ? this : group;
+            added[0] = target.add(channel);
+            return target;
+        });
+        return added[0];
+    }
+
+    private boolean add(Channel channel) {
+        boolean[] added = new boolean[1];
+        members.compute(channel.eventLoop(), (loop, channels) -> {
+            if (null == channels) {
+                channels = ConcurrentHashMap.newKeySet();
+            }
+            added[0] = channels.add(channel);
+            return channels;
+        });
+        if (added[0]) {
+            // a closed channel leaves all of its groups
+            channel.closeFuture().addListener(remover);
+        }
+        return added[0];
+    }
+
+    public boolean remove(WebSocketSession session) {
+        Channel channel = session.handlerContext().channel();
+        channel.closeFuture().removeListener(remover);
+        return this.remove(channel);
+    }
+
+    private boolean remove(Channel channel) {
+        boolean[] removed = new boolean[1];
+        members.computeIfPresent(channel.eventLoop(), (loop, channels) -> {
+            removed[0] = channels.remove(channel);
+            return channels.isEmpty() ? null : channels;
+        });
+        if (removed[0] && registered && members.isEmpty()) {
+            GROUPS.computeIfPresent(name, (key, group) -> group == this && members.isEmpty() ? null : group);
+        }
+        return removed[0];
+    }
+
+    public boolean contains(WebSocketSession session) {
+        Channel channel = session.handlerContext().channel();
+        Set<Channel> channels = members.get(channel.eventLoop());
+        return null != channels && channels.contains(channel);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Set<Channel> channels : members.values()) {
+            size += channels.size();
+        }
+        return size;
+    }
+
+    /**
+     * Send a text message to every member
+     *
+     * @param text message
+     */
+    public void broadcast(String text) {
+        ByteBuf payload = ByteBufUtil.writeUtf8(PooledByteBufAllocator.DEFAULT, text);
+        try {
+            for (Map.Entry<EventLoop, Set<Channel>> entry : members.entrySet()) {
+                Set<Channel> channels = entry.getValue();
+                if (channels.isEmpty()) {
+                    continue;
+                }
+                EventLoop eventLoop = entry.getKey();
+                ByteBuf content = payload.retainedDuplicate();
+                if (eventLoop.inEventLoop()) {
+                    this.write(channels, content);
+                } else {
+                    eventLoop.execute(() -> this.write(channels, content));
+                }
+            }
+        } finally {
+            payload.release();
+        }
+    }
+
+    private void write(Set<Channel> channels, ByteBuf content) {
+        try {
+            for (Channel channel : channels) {
+                if (!channel.isActive()) {
+                    continue;
+                }
+                if (!channel.isWritable()) {
+                    this.slowConsumer(channel);
+                    continue;
+                }
+                channel.writeAndFlush(new TextWebSocketFrame(content.retainedDuplicate()), channel.voidPromise());
+            }
+        } finally {
+            content.release();
+        }
+    }
+
+    private void slowConsumer(Channel channel) {
+        dropped.increment();
+        if (slowConsumer == SlowConsumer.CLOSE) {
+            log.warn("WebSocket {} in group {} is not writable, closing it", channel.remoteAddress(), name);
+            channel.close();
+        } else if (log.isDebugEnabled()) {
+            log.debug("WebSocket {} in group {} is not writable, message dropped", channel.remoteAddress(), name);
+        }
+    }
+
+}
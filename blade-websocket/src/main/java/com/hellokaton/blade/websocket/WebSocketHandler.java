@@ -10,6 +10,13 @@ public interface WebSocketHandler {
 
     void onText(WebSocketContext ctx);
 
+    /**
+     * A binary message, {@link WebSocketContext#binary()} is released after this method
+     * returns, retain it to use it later
+     */
+    default void onBinary(WebSocketContext ctx) {
+    }
+
     void onDisConnect(WebSocketContext ctx);
 
 }
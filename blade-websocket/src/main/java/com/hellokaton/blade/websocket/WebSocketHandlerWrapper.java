@@ -1,23 +1,30 @@
 package com.hellokaton.blade.websocket;
 
 import com.hellokaton.blade.Blade;
+import com.hellokaton.blade.asm.MethodAccess;
+import com.hellokaton.blade.kit.BladeCache;
 import com.hellokaton.blade.kit.ReflectKit;
+import com.hellokaton.blade.websocket.annotaion.OnBinary;
 import com.hellokaton.blade.websocket.annotaion.OnClose;
 import com.hellokaton.blade.websocket.annotaion.OnMessage;
 import com.hellokaton.blade.websocket.annotaion.OnOpen;
-import io.netty.util.concurrent.FastThreadLocal;
 import lombok.extern.slf4j.Slf4j;
 
 import java.lang.annotation.Annotation;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
+ * Adapts a class annotated with @OnOpen / @OnMessage / @OnBinary / @OnClose
+ * methods to {@link WebSocketHandler}.
+ * <p>
+ * The methods are compiled once into invokers: the endpoint bean and the
+ * parameter values other than {@link WebSocketContext} are resolved when the
+ * wrapper is created, a message only fills in the context and calls the method
+ * through {@link MethodAccess}.
+ *
  * @author darren
  * @description
  * @date 2018/12/17 18:41
@@ -25,101 +32,136 @@ import java.util.stream.Stream;
 @Slf4j
 public final class WebSocketHandlerWrapper implements WebSocketHandler {
 
-    private final Map<String,Class<?>> handlers = new HashMap<>(4);
-    private final Map<String, Map<Class<? extends Annotation>, Method>> methodCache = new HashMap<>(4);
-    private final FastThreadLocal<String> path = new FastThreadLocal<>();
-    private final Blade blade;
-
-    public static WebSocketHandlerWrapper init(Blade blade) {
-        return new WebSocketHandlerWrapper(blade);
-    }
-
-    private WebSocketHandlerWrapper(Blade blade) {
-        this.blade = blade;
-    }
-
-    public void setPath(String path) {
-        this.path.set(path);
-    }
+    private final Class<?> handlerType;
+    private final Invoker onOpen;
+    private final Invoker onMessage;
+    private final Invoker onBinary;
+    private final Invoker onClose;
 
     /**
-     * add @WebSocket handler mapper
+     * wrap a @WebSocket handler class
      *
-     * @param path
-     * @param handler
+     * @param blade   blade instance, provides the handler bean and the parameter beans
+     * @param handler handler class
+     * @return handler wrapper
      */
-    public void wrapHandler(String path, Class<?> handler) {
+    public static WebSocketHandlerWrapper of(Blade blade, Class<?> handler) {
+        return new WebSocketHandlerWrapper(blade, handler);
+    }
+
+    private WebSocketHandlerWrapper(Blade blade, Class<?> handler) {
+        this.handlerType = handler;
         Method[] methods = handler.getMethods();
-        Map<Class<? extends Annotation>, Method> cache = new HashMap<>(3);
-        cacheMethod(cache, methods, OnOpen.class);
-        cacheMethod(cache, methods, OnMessage.class);
-        cacheMethod(cache, methods, OnClose.class);
-        if (cache.size() > 0) {
-            methodCache.put(path, cache);
-            handlers.put(path,handler);
-        } else {
-            throw new RuntimeException("Do not found any annotation of [@OnOpen / @OnMessage / @OnClose] in class: " + handler.getName());
+        Method open = findMethod(methods, OnOpen.class);
+        Method message = findMethod(methods, OnMessage.class);
+        Method binary = findMethod(methods, OnBinary.class);
+        Method close = findMethod(methods, OnClose.class);
+        if (null == open && null == message && null == binary && null == close) {
+            throw new RuntimeException("Do not found any annotation of [@OnOpen / @OnMessage / @OnBinary / @OnClose] in class: " + handler.getName());
+        }
+        Object target = blade.getBean(handler);
+        if (null == target) {
+            target = blade.ioc().addBean(handler);
         }
+        MethodAccess methodAccess = BladeCache.getMethodAccess(handler);
+        this.onOpen = Invoker.compile(blade, target, methodAccess, open);
+        this.onMessage = Invoker.compile(blade, target, methodAccess, message);
+        this.onBinary = Invoker.compile(blade, target, methodAccess, binary);
+        this.onClose = Invoker.compile(blade, target, methodAccess, close);
+    }
+
+    public Class<?> handlerType() {
+        return handlerType;
     }
 
-    private static void cacheMethod(Map<Class<? extends Annotation>, Method> cache, Method[] methods, Class<? extends Annotation> filter) {
+    private static Method findMethod(Method[] methods, Class<? extends Annotation> filter) {
         List<Method> methodList = Stream.of(methods)
                 .filter(method -> method.isAnnotationPresent(filter))
                 .collect(Collectors.toList());
-        if (methodList.size() == 1) {
-            cache.put(filter, methodList.get(0));
-        } else if (methodList.size() > 1) {
+        if (methodList.size() > 1) {
             throw new RuntimeException("Duplicate annotation @" + filter.getSimpleName() + " in class: " + methodList.get(0).getDeclaringClass().getName());
         }
+        return methodList.isEmpty() ? null : methodList.get(0);
     }
 
     @Override
     public void onConnect(WebSocketContext ctx) {
-        invoke(ctx, OnOpen.class);
+        invoke(onOpen, ctx);
     }
 
     @Override
     public void onText(WebSocketContext ctx) {
-        invoke(ctx, OnMessage.class);
+        invoke(onMessage, ctx);
+    }
+
+    @Override
+    public void onBinary(WebSocketContext ctx) {
+        invoke(onBinary, ctx);
     }
 
     @Override
     public void onDisConnect(WebSocketContext ctx) {
-        invoke(ctx, OnClose.class);
+        invoke(onClose, ctx);
+    }
+
+    private static void invoke(Invoker invoker, WebSocketContext ctx) {
+        if (null != invoker) {
+            invoker.invoke(ctx);
+        }
     }
 
     /**
-     * invoke target handler methods
-     *
-     * @param ctx   WebSocket context
-     * @param event WebSocket event type
+     * A handler method bound to its target and arguments
      */
-    private void invoke(WebSocketContext ctx, Class<? extends Annotation> event) {
-        Map<Class<? extends Annotation>, Method> methodCache = this.methodCache.get(path.get());
-        if (methodCache != null) {
-            Method method = methodCache.get(event);
-            if (method != null) {
-                Class<?>[] paramTypes = method.getParameterTypes();
-                Object[] param = new Object[paramTypes.length];
-                try {
-                    for (int i = 0; i < paramTypes.length; i++) {
-                        Class<?> paramType = paramTypes[i];
-                        if (paramType == WebSocketContext.class) {
-                            param[i] = ctx;
-                        } else {
-                            Object bean = this.blade.getBean(paramType);
-                            if (bean != null) {
-                                param[i] = bean;
-                            } else {
-                                param[i] = ReflectKit.newInstance(paramType);
-                            }
-                        }
-                    }
-                    method.invoke(blade.getBean(handlers.get(path.get())), param);
-                } catch (IllegalAccessException | InvocationTargetException e) {
-                    throw new RuntimeException(e);
+    private static final class Invoker {
+
+        private final Object target;
+        private final MethodAccess methodAccess;
+        private final int index;
+        private final Object[] arguments;
+        private final int[] contextIndexes;
+
+        private Invoker(Object target, MethodAccess methodAccess, int index, Object[] arguments, int[] contextIndexes) {
+            this.target = target;
+            this.methodAccess = methodAccess;
+            this.index = index;
+            this.arguments = arguments;
+            this.contextIndexes = contextIndexes;
+        }
+
+        static Invoker compile(Blade blade, Object target, MethodAccess methodAccess, Method method) {
+            if (null == method) {
+                return null;
+            }
+            Class<?>[] paramTypes = method.getParameterTypes();
+            Object[] arguments = new Object[paramTypes.length];
+            int[] contextIndexes = new int[paramTypes.length];
+            int contexts = 0;
+            for (int i = 0; i < paramTypes.length; i++) {
+                Class<?> paramType = paramTypes[i];
+                if (paramType == WebSocketContext.class) {
+                    contextIndexes[contexts++] = i;
+                } else {
+                    Object bean = blade.getBean(paramType);
+                    arguments[i] = null != bean ? bean : ReflectKit.newInstance(paramType);
                 }
             }
+            int index = methodAccess.getIndex(method.getName(), paramTypes);
+            int[] indexes = new int[contexts];
+            System.arraycopy(contextIndexes, 0, indexes, 0, contexts);
+            return new Invoker(target, methodAccess, index, arguments, indexes);
+        }
+
+        void invoke(WebSocketContext ctx) {
+            Object[] args = arguments;
+            if (contextIndexes.length > 0) {
+                args = arguments.clone();
+                for (int contextIndex : contextIndexes) {
+                    args[contextIndex] = ctx;
+                }
+            }
+            methodAccess.invoke(target, index, args);
         }
     }
+
 }
@@ -0,0 +1,74 @@
+package com.hellokaton.blade.websocket;
+
+import com.hellokaton.blade.Blade;
+import com.hellokaton.blade.ioc.bean.BeanDefine;
+import com.hellokaton.blade.kit.BladeKit;
+import com.hellokaton.blade.loader.BladeLoader;
+import com.hellokaton.blade.websocket.annotaion.WebSocket;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registers the WebSocket endpoints and the upgrade handler.
+ * <p>
+ * Beans annotated with {@link WebSocket} are found in the ioc container,
+ * handlers can also be added by path:
+ * <pre>
+ * Blade.create()
+ *      .addLoader(WebSocketLoader.create().handler("/chat/:room", new ChatHandler()))
+ *      .start();
+ * </pre>
+ */
+@Slf4j
+public class WebSocketLoader implements BladeLoader {
+
+    private final WebSocketMapping mapping = new WebSocketMapping();
+    private final List<String> paths = new ArrayList<>();
+    private WebSocketOptions options = WebSocketOptions.create();
+
+    public static WebSocketLoader create() {
+        return new WebSocketLoader();
+    }
+
+    public WebSocketLoader handler(@NonNull String path, @NonNull WebSocketHandler handler) {
+        this.mapping.add(path, handler);
+        this.paths.add(path);
+        return this;
+    }
+
+    public WebSocketLoader options(@NonNull WebSocketOptions options) {
+        this.options = options;
+        return this;
+    }
+
+    public WebSocketMapping mapping() {
+        return mapping;
+    }
+
+    @Override
+    public void load(Blade blade) {
+        for (BeanDefine beanDefine : new ArrayList<>(blade.ioc().getBeanDefines())) {
+            Class<?> type = beanDefine.getType();
+            WebSocket webSocket = type.getAnnotation(WebSocket.class);
+            if (null == webSocket) {
+                continue;
+            }
+            WebSocketHandler handler = beanDefine.getBean() instanceof WebSocketHandler
+                    ? (WebSocketHandler) beanDefine.getBean()
+                    : WebSocketHandlerWrapper.of(blade, type);
+            this.mapping.add(webSocket.value(), handler);
+            this.paths.add(webSocket.value());
+        }
+        if (mapping.isEmpty()) {
+            return;
+        }
+        paths.forEach(path -> BladeKit.logWebSocket(log, path));
+        WebSocketOptions webSocketOptions = this.options;
+        blade.addChannelHandler(() ->
+                new com.hellokaton.blade.websocket.netty.WebSocketHandler(mapping, webSocketOptions));
+    }
+
+}
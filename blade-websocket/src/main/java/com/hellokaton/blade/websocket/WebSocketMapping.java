@@ -0,0 +1,83 @@
+package com.hellokaton.blade.websocket;
+
+import com.hellokaton.blade.kit.PathKit;
+import com.hellokaton.blade.mvc.http.HttpMethod;
+import com.hellokaton.blade.mvc.route.Route;
+import com.hellokaton.blade.mvc.route.mapping.dynamic.TrieMapping;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * WebSocket endpoints by path, looked up in a {@link TrieMapping} when a
+ * connection asks for an upgrade. Endpoint paths accept the same :name
+ * variables and * wildcards as routes.
+ * <p>
+ * Endpoints are added while the application starts, lookups don't lock.
+ */
+public class WebSocketMapping {
+
+    private final TrieMapping trieMapping = new TrieMapping();
+    private final Map<String, WebSocketHandler> handlers = new LinkedHashMap<>(4);
+
+    public void add(String path, WebSocketHandler handler) {
+        String fixedPath = PathKit.fixPath(path);
+        if (handlers.containsKey(fixedPath)) {
+            throw new IllegalStateException("Duplicate WebSocket path: " + fixedPath);
+        }
+        Route route = new Route(HttpMethod.GET, fixedPath, handler, handler.getClass(), null, null);
+        trieMapping.addRoute(HttpMethod.GET, route, null);
+        handlers.put(fixedPath, handler);
+    }
+
+    /**
+     * @param uri request uri, the query string is ignored
+     * @return the endpoint with the path variables of the uri, null if no endpoint matches
+     */
+    public Endpoint find(String uri) {
+        int query = uri.indexOf('?');
+        String path = query < 0 ? uri : uri.substring(0, query);
+        Route route = trieMapping.findRoute(HttpMethod.GET.name(), path);
+        if (null == route) {
+            return null;
+        }
+        Map<String, String> pathParams = route.getPathParams();
+        return new Endpoint(route.getPath(), (WebSocketHandler) route.getTarget(),
+                null == pathParams ? Collections.emptyMap() : pathParams);
+    }
+
+    public Map<String, WebSocketHandler> handlers() {
+        return Collections.unmodifiableMap(handlers);
+    }
+
+    public boolean isEmpty() {
+        return handlers.isEmpty();
+    }
+
+    public static class Endpoint {
+
+        private final String path;
+        private final WebSocketHandler handler;
+        private final Map<String, String> pathParams;
+
+        Endpoint(String path, WebSocketHandler handler, Map<String, String> pathParams) {
+            this.path = path;
+            this.handler = handler;
+            this.pathParams = pathParams;
+        }
+
+        public String path() {
+            return path;
+        }
+
+        public WebSocketHandler handler() {
+            return handler;
+        }
+
+        public Map<String, String> pathParams() {
+            return pathParams;
+        }
+    }
+
+}
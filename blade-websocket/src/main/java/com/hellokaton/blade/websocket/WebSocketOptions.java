@@ -0,0 +1,67 @@
+package com.hellokaton.blade.websocket;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * WebSocket connection options
+ */
+@Getter
+@Setter
+public class WebSocketOptions {
+
+    public static final int DEFAULT_MAX_FRAME_SIZE = 65536;
+    public static final int DEFAULT_MAX_MESSAGE_SIZE = 1024 * 1024;
+    public static final int DEFAULT_WRITE_BUFFER_LOW_WATER_MARK = 32 * 1024;
+    public static final int DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK = 64 * 1024;
+
+    /**
+     * Maximum payload of one frame
+     */
+    private int maxFrameSize = DEFAULT_MAX_FRAME_SIZE;
+
+    /**
+     * Maximum size of a message aggregated from continuation frames,
+     * a larger message closes the connection with status 1009
+     */
+    private int maxMessageSize = DEFAULT_MAX_MESSAGE_SIZE;
+
+    /**
+     * Negotiate permessage-deflate when the client offers it
+     */
+    private boolean compression = true;
+    private int compressionLevel = 6;
+
+    /**
+     * Reads from the client pause while the pending writes are above the high
+     * water mark, and resume below the low water mark
+     */
+    private int writeBufferLowWaterMark = DEFAULT_WRITE_BUFFER_LOW_WATER_MARK;
+    private int writeBufferHighWaterMark = DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK;
+
+    public static WebSocketOptions create() {
+        return new WebSocketOptions();
+    }
+
+    public WebSocketOptions maxFrameSize(int maxFrameSize) {
+        this.maxFrameSize = maxFrameSize;
+        return this;
+    }
+
+    public WebSocketOptions maxMessageSize(int maxMessageSize) {
+        this.maxMessageSize = maxMessageSize;
+        return this;
+    }
+
+    public WebSocketOptions disableCompression() {
+        this.compression = false;
+        return this;
+    }
+
+    public WebSocketOptions writeBufferWaterMark(int low, int high) {
+        this.writeBufferLowWaterMark = low;
+        this.writeBufferHighWaterMark = high;
+        return this;
+    }
+
+}
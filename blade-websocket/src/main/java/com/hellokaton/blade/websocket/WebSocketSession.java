@@ -1,10 +1,15 @@
 package com.hellokaton.blade.websocket;
 
-import com.hellokaton.blade.kit.UUID;
+import com.hellokaton.blade.kit.IdGenerator;
 import io.netty.channel.ChannelHandlerContext;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.experimental.Accessors;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
  * @author biezhi,darren
  * @date 2017/10/30
@@ -15,9 +20,29 @@ public class WebSocketSession {
 
     private ChannelHandlerContext handlerContext;
     private String uuid;
+    private String path;
+    private Map<String, String> pathParams;
+
+    @Getter(AccessLevel.NONE)
+    private final AtomicBoolean closed = new AtomicBoolean();
 
     public WebSocketSession(ChannelHandlerContext handlerContext) {
+        this(handlerContext, null, Collections.emptyMap());
+    }
+
+    public WebSocketSession(ChannelHandlerContext handlerContext, String path, Map<String, String> pathParams) {
         this.handlerContext = handlerContext;
-        this.uuid = UUID.UU32();
+        this.uuid = IdGenerator.get().nextId();
+        this.path = path;
+        this.pathParams = pathParams;
+    }
+
+    /**
+     * Mark the session closed
+     *
+     * @return true only for the first call, onDisConnect is invoked once
+     */
+    public boolean markClosed() {
+        return closed.compareAndSet(false, true);
     }
 }
@@ -0,0 +1,12 @@
+package com.hellokaton.blade.websocket.annotaion;
+
+import java.lang.annotation.*;
+
+/**
+ * invoke websocketHandler onBinary method
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface OnBinary {
+}
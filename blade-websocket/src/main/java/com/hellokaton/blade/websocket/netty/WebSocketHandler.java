@@ -1,20 +1,41 @@
 package com.hellokaton.blade.websocket.netty;
 
-import com.hellokaton.blade.Blade;
 import com.hellokaton.blade.websocket.WebSocketContext;
-import com.hellokaton.blade.websocket.WebSocketHandlerWrapper;
+import com.hellokaton.blade.websocket.WebSocketMapping;
+import com.hellokaton.blade.websocket.WebSocketOptions;
 import com.hellokaton.blade.websocket.WebSocketSession;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.websocketx.*;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionData;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionUtil;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtension;
+import io.netty.handler.codec.http.websocketx.extensions.compression.PerMessageDeflateServerExtensionHandshaker;
 import io.netty.util.ReferenceCountUtil;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.concurrent.CompletableFuture;
+import java.util.Map;
 
 /**
  * Http Server Handler
+ * <p>
+ * Created for every connection, a request is upgraded when it asks for a
+ * WebSocket and its path matches an endpoint of the {@link WebSocketMapping},
+ * the endpoint handler stays bound to the channel. Other requests pass on.
+ * <p>
+ * Messages are dispatched on the channel's event loop. Continuation frames are
+ * aggregated up to {@link WebSocketOptions#getMaxMessageSize()}, permessage-deflate
+ * is negotiated when the client offers it, and reads pause while the client
+ * doesn't keep up with the writes.
  *
  * @author biezhi,darren
  * 2017/5/31,
@@ -25,20 +46,23 @@ public class WebSocketHandler extends SimpleChannelInboundHandler<Object> {
     private WebSocketServerHandshaker handshaker;
     private WebSocketSession session;
     private com.hellokaton.blade.websocket.WebSocketHandler handler;
-    private String uri;
-    private Blade blade;
+    private final WebSocketMapping mapping;
+    private final WebSocketOptions options;
 
+    public WebSocketHandler(WebSocketMapping mapping) {
+        this(mapping, WebSocketOptions.create());
+    }
 
-    public WebSocketHandler(Blade blade) {
-        this.blade = blade;
+    public WebSocketHandler(WebSocketMapping mapping, WebSocketOptions options) {
+        this.mapping = mapping;
+        this.options = options;
     }
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, Object msg) {
         if (msg instanceof HttpRequest) {
             handleHttpRequest(ctx, (HttpRequest) msg);
-        } else if (msg instanceof WebSocketFrame) {
-            initHandlerWrapper();
+        } else if (msg instanceof WebSocketFrame && null != this.session) {
             handleWebSocketFrame(ctx, (WebSocketFrame) msg);
         } else {
             ReferenceCountUtil.retain(msg);
@@ -51,21 +75,61 @@ public class WebSocketHandler extends SimpleChannelInboundHandler<Object> {
         ctx.flush();
     }
 
+    /**
+     * Stop reading a client that doesn't read its messages, resume when the
+     * pending writes are below the low water mark
+     */
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (null != this.session) {
+            ctx.channel().config().setAutoRead(ctx.channel().isWritable());
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (null != this.session && this.session.markClosed()) {
+            this.handler.onDisConnect(new WebSocketContext(this.session, this.handler));
+        }
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        if (null != this.handshaker && cause instanceof TooLongFrameException) {
+            log.warn("WebSocket {} message too large: {}", ctx.channel().remoteAddress(), cause.getMessage());
+            this.handshaker.close(ctx.channel(), new CloseWebSocketFrame(WebSocketCloseStatus.MESSAGE_TOO_BIG));
+            return;
+        }
+        super.exceptionCaught(ctx, cause);
+    }
+
     private void handleHttpRequest(ChannelHandlerContext ctx, HttpRequest req) {
-        if (isWebSocketRequest(req)) {
-            WebSocketServerHandshakerFactory wsFactory = new WebSocketServerHandshakerFactory(req.uri(), null, true);
+        WebSocketMapping.Endpoint endpoint = this.findEndpoint(req);
+        if (null != endpoint) {
+            WebSocketServerHandshakerFactory wsFactory = new WebSocketServerHandshakerFactory(req.uri(), null,
+                    true, options.getMaxFrameSize());
             this.handshaker = wsFactory.newHandshaker(req);
             if (this.handshaker == null) {
                 //Return that we need cannot not support the web socket version
                 WebSocketServerHandshakerFactory.sendUnsupportedVersionResponse(ctx.channel());
             } else {
-                this.handshaker.handshake(ctx.channel(), req);
-                this.session = new WebSocketSession(ctx);
-                this.uri = req.uri();
-                initHandlerWrapper();
-                //Allows the user to send messages in the event of onConnect
-                CompletableFuture.completedFuture(new WebSocketContext(this.session,this.handler))
-                        .thenAcceptAsync(this.handler::onConnect,ctx.executor());
+                WebSocketServerExtension extension = options.isCompression() ? this.negotiateDeflate(req) : null;
+                HttpHeaders responseHeaders = new DefaultHttpHeaders();
+                if (null != extension) {
+                    responseHeaders.set(HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS, extensionHeader(extension.newReponseData()));
+                }
+                this.handshaker.handshake(ctx.channel(), req, responseHeaders, ctx.channel().newPromise())
+                        .addListener((ChannelFutureListener) future -> {
+                            if (future.isSuccess()) {
+                                this.upgraded(ctx, extension);
+                                this.connected(ctx, endpoint);
+                            } else {
+                                log.warn("WebSocket {} handshake failed", ctx.channel().remoteAddress(), future.cause());
+                                ctx.close();
+                            }
+                        });
             }
         } else {
             ReferenceCountUtil.retain(req);
@@ -74,7 +138,61 @@ public class WebSocketHandler extends SimpleChannelInboundHandler<Object> {
     }
 
     /**
-     * Only supported TextWebSocketFrame
+     * The frame decoder is in place once the handshake response is written,
+     * the extension codec and the aggregator go between it and this handler
+     */
+    private void upgraded(ChannelHandlerContext ctx, WebSocketServerExtension extension) {
+        ChannelPipeline pipeline = ctx.pipeline();
+        if (null != extension) {
+            pipeline.addBefore(ctx.name(), "ws-extension-decoder", extension.newExtensionDecoder());
+            pipeline.addBefore(ctx.name(), "ws-extension-encoder", extension.newExtensionEncoder());
+        }
+        pipeline.addBefore(ctx.name(), "ws-aggregator", new WebSocketFrameAggregator(options.getMaxMessageSize()));
+        ctx.channel().config().setWriteBufferWaterMark(new WriteBufferWaterMark(
+                options.getWriteBufferLowWaterMark(), options.getWriteBufferHighWaterMark()));
+    }
+
+    /**
+     * The session is bound once the handshake response is written, so the
+     * user can send messages in onConnect
+     */
+    private void connected(ChannelHandlerContext ctx, WebSocketMapping.Endpoint endpoint) {
+        this.session = new WebSocketSession(ctx, endpoint.path(), endpoint.pathParams());
+        this.handler = endpoint.handler();
+        this.handler.onConnect(new WebSocketContext(this.session, this.handler));
+    }
+
+    private WebSocketServerExtension negotiateDeflate(HttpRequest req) {
+        String extensions = req.headers().get(HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS);
+        if (null == extensions) {
+            return null;
+        }
+        PerMessageDeflateServerExtensionHandshaker deflate = new PerMessageDeflateServerExtensionHandshaker(
+                options.getCompressionLevel(), false, PerMessageDeflateServerExtensionHandshaker.MAX_WINDOW_SIZE,
+                false, false);
+        for (WebSocketExtensionData data : WebSocketExtensionUtil.extractExtensions(extensions)) {
+            WebSocketServerExtension extension = deflate.handshakeExtension(data);
+            if (null != extension) {
+                return extension;
+            }
+        }
+        return null;
+    }
+
+    private static String extensionHeader(WebSocketExtensionData data) {
+        StringBuilder header = new StringBuilder(data.name());
+        for (Map.Entry<String, String> parameter : data.parameters().entrySet()) {
+            header.append("; ").append(parameter.getKey());
+            if (null != parameter.getValue()) {
+                header.append('=').append(parameter.getValue());
+            }
+        }
+        return header.toString();
+    }
+
+    /**
+     * Text and binary frames are passed to the handler on the event loop, the
+     * frame is released when the handler returns
      *
      * @param ctx
      * @param frame
@@ -82,35 +200,34 @@ public class WebSocketHandler extends SimpleChannelInboundHandler<Object> {
     private void handleWebSocketFrame(ChannelHandlerContext ctx, WebSocketFrame frame) {
         if (frame instanceof CloseWebSocketFrame) {
             this.handshaker.close(ctx.channel(), (CloseWebSocketFrame) frame.retain());
-            CompletableFuture.completedFuture(new WebSocketContext(this.session,this.handler))
-                    .thenAcceptAsync(this.handler::onDisConnect);
+            if (this.session.markClosed()) {
+                this.handler.onDisConnect(new WebSocketContext(this.session, this.handler));
+            }
             return;
         }
         if (frame instanceof PingWebSocketFrame) {
             ctx.channel().write(new PongWebSocketFrame(frame.content().retain()));
             return;
         }
-
-        if (!(frame instanceof TextWebSocketFrame)) {
+        if (frame instanceof PongWebSocketFrame) {
+            return;
+        }
+        if (frame instanceof TextWebSocketFrame) {
+            this.handler.onText(new WebSocketContext(this.session, this.handler, ((TextWebSocketFrame) frame).text()));
+        } else if (frame instanceof BinaryWebSocketFrame) {
+            this.handler.onBinary(new WebSocketContext(this.session, this.handler, frame.content()));
+        } else {
             throw new UnsupportedOperationException("unsupported frame type: " + frame.getClass().getName());
         }
-        CompletableFuture.completedFuture(new WebSocketContext(this.session,this.handler,((TextWebSocketFrame) frame).text()))
-                .thenAcceptAsync(this.handler::onText,ctx.executor());
     }
 
 
-    private boolean isWebSocketRequest(HttpRequest req){
-//        return req != null
-//                && (this.handler = this.blade.routeMatcher().getWebSocket(req.uri())) != null
-//                && req.decoderResult().isSuccess()
-//                && "websocket".equals(req.headers().get("Upgrade"));
-        return false;
-    }
-
-    private void initHandlerWrapper(){
-        if(this.handler != null && this.handler instanceof WebSocketHandlerWrapper){
-            ((WebSocketHandlerWrapper) this.handler).setPath(this.uri);
+    private WebSocketMapping.Endpoint findEndpoint(HttpRequest req) {
+        if (null != this.session || !req.decoderResult().isSuccess()
+                || !req.headers().containsValue(HttpHeaderNames.UPGRADE, HttpHeaderValues.WEBSOCKET, true)) {
+            return null;
         }
+        return this.mapping.find(req.uri());
     }
 
-}
\ No newline at end of file
+}
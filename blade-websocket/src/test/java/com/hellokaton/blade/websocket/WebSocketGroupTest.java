@@ -0,0 +1,102 @@
+package com.hellokaton.blade.websocket;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class WebSocketGroupTest {
+
+    private static WebSocketSession session(EmbeddedChannel channel) {
+        ChannelHandlerContext ctx = channel.pipeline().firstContext();
+        return new WebSocketSession(ctx);
+    }
+
+    @Test
+    public void testBroadcast() {
+        WebSocketGroup group = new WebSocketGroup("room");
+        EmbeddedChannel[] channels = new EmbeddedChannel[3];
+        for (int i = 0; i < channels.length; i++) {
+            channels[i] = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+            assertTrue(group.add(session(channels[i])));
+        }
+        assertEquals(3, group.size());
+
+        group.broadcast("hello blade");
+
+        ByteBuf shared = null;
+        for (EmbeddedChannel channel : channels) {
+            TextWebSocketFrame frame = channel.readOutbound();
+            assertEquals("hello blade", frame.text());
+            // every frame shares the payload encoded once
+            if (null == shared) {
+                shared = frame.content().unwrap();
+            } else {
+                assertSame(shared, frame.content().unwrap());
+            }
+            frame.release();
+        }
+        assertEquals(0, shared.refCnt());
+    }
+
+    @Test
+    public void testLeaveOnClose() {
+        WebSocketGroup group = new WebSocketGroup("room");
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        WebSocketSession session = session(channel);
+        group.add(session);
+        assertTrue(group.contains(session));
+
+        channel.close();
+        assertFalse(group.contains(session));
+        assertEquals(0, group.size());
+    }
+
+    @Test
+    public void testUnregisterWhenEmpty() {
+        WebSocketGroup group = WebSocketGroup.of("lobby");
+        EmbeddedChannel first = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        EmbeddedChannel second = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        group.add(session(first));
+        group.add(session(second));
+
+        first.close();
+        assertSame(group, WebSocketGroup.get("lobby"));
+        assertTrue(group.remove(session(second)));
+        assertNull(WebSocketGroup.get("lobby"));
+
+        // joining the unregistered instance registers it again
+        EmbeddedChannel third = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        assertTrue(group.add(session(third)));
+        assertSame(group, WebSocketGroup.get("lobby"));
+        third.close();
+        assertNull(WebSocketGroup.get("lobby"));
+    }
+
+    @Test
+    public void testSlowConsumer() {
+        WebSocketGroup group = new WebSocketGroup("room");
+        EmbeddedChannel fast = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        EmbeddedChannel slow = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        group.add(session(fast));
+        group.add(session(slow));
+        slow.unsafe().outboundBuffer().setUserDefinedWritability(1, false);
+
+        group.broadcast("hello");
+        TextWebSocketFrame frame = fast.readOutbound();
+        assertEquals("hello", frame.text());
+        frame.release();
+        assertNull(slow.readOutbound());
+        assertEquals(1, group.dropped());
+
+        group.slowConsumer(WebSocketGroup.SlowConsumer.CLOSE).broadcast("bye");
+        ((TextWebSocketFrame) fast.readOutbound()).release();
+        assertFalse(slow.isOpen());
+        assertEquals(1, group.size());
+    }
+
+}
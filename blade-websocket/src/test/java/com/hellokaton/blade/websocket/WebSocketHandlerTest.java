@@ -0,0 +1,268 @@
+package com.hellokaton.blade.websocket;
+
+import com.hellokaton.blade.Blade;
+import com.hellokaton.blade.websocket.annotaion.OnBinary;
+import com.hellokaton.blade.websocket.annotaion.OnMessage;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.websocketx.*;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketClientExtension;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionData;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionUtil;
+import io.netty.handler.codec.http.websocketx.extensions.compression.PerMessageDeflateClientExtensionHandshaker;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Frames after the upgrade, on an {@link EmbeddedChannel}
+ */
+public class WebSocketHandlerTest {
+
+    private static final String UPGRADE = "GET /ws HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            "Upgrade: websocket\r\n" +
+            "Connection: Upgrade\r\n" +
+            "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n" +
+            "Sec-WebSocket-Version: 13\r\n";
+
+    public static class EchoEndpoint {
+
+        static final List<String> EVENTS = new ArrayList<>();
+
+        @OnMessage
+        public void message(WebSocketContext ctx) {
+            EVENTS.add("text " + ctx.message());
+            ctx.message("echo " + ctx.message());
+        }
+
+        @OnBinary
+        public void binary(WebSocketContext ctx) {
+            EVENTS.add("binary " + ctx.binary().toString(StandardCharsets.UTF_8));
+            ctx.message(ctx.binary().retainedDuplicate());
+        }
+    }
+
+    @Before
+    public void before() {
+        EchoEndpoint.EVENTS.clear();
+    }
+
+    private static EmbeddedChannel upgrade(WebSocketOptions options, String headers) {
+        Blade blade = Blade.create();
+        WebSocketMapping mapping = new WebSocketMapping();
+        mapping.add("/ws", WebSocketHandlerWrapper.of(blade, EchoEndpoint.class));
+
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpServerCodec(), new HttpObjectAggregator(65536),
+                new com.hellokaton.blade.websocket.netty.WebSocketHandler(mapping, options));
+        channel.writeInbound(Unpooled.copiedBuffer(UPGRADE + headers + "\r\n", StandardCharsets.US_ASCII));
+        channel.runPendingTasks();
+        return channel;
+    }
+
+    private static String readResponse(EmbeddedChannel channel) {
+        StringBuilder out = new StringBuilder();
+        ByteBuf buf;
+        while ((buf = channel.readOutbound()) != null) {
+            out.append(buf.toString(StandardCharsets.ISO_8859_1));
+            buf.release();
+        }
+        return out.toString();
+    }
+
+    /**
+     * Encode frames the way a client does, masked and through the client extension encoder
+     */
+    private static ByteBuf clientFrames(ChannelHandler extensionEncoder, WebSocketFrame... frames) {
+        EmbeddedChannel client = null == extensionEncoder
+                ? new EmbeddedChannel(new WebSocket13FrameEncoder(true))
+                : new EmbeddedChannel(new WebSocket13FrameEncoder(true), extensionEncoder);
+        for (WebSocketFrame frame : frames) {
+            client.writeOutbound(frame);
+        }
+        ByteBuf bytes = Unpooled.buffer();
+        ByteBuf buf;
+        while ((buf = client.readOutbound()) != null) {
+            bytes.writeBytes(buf);
+            buf.release();
+        }
+        client.finishAndReleaseAll();
+        return bytes;
+    }
+
+    /**
+     * Decode the frames written by the server
+     */
+    private static List<WebSocketFrame> serverFrames(EmbeddedChannel channel, ChannelHandler extensionDecoder) {
+        EmbeddedChannel client = null == extensionDecoder
+                ? new EmbeddedChannel(new WebSocket13FrameDecoder(false, true, 65536))
+                : new EmbeddedChannel(new WebSocket13FrameDecoder(false, true, 65536), extensionDecoder);
+        ByteBuf buf;
+        while ((buf = channel.readOutbound()) != null) {
+            client.writeInbound(buf);
+        }
+        List<WebSocketFrame> frames = new ArrayList<>();
+        WebSocketFrame frame;
+        while ((frame = client.readInbound()) != null) {
+            frames.add(frame);
+        }
+        client.finishAndReleaseAll();
+        return frames;
+    }
+
+    @Test
+    public void testBinaryFrame() {
+        EmbeddedChannel channel = upgrade(WebSocketOptions.create(), "");
+        assertTrue(readResponse(channel).startsWith("HTTP/1.1 101"));
+
+        channel.writeInbound(clientFrames(null,
+                new BinaryWebSocketFrame(Unpooled.copiedBuffer("bytes", StandardCharsets.UTF_8))));
+        assertEquals("binary bytes", EchoEndpoint.EVENTS.get(0));
+
+        List<WebSocketFrame> frames = serverFrames(channel, null);
+        assertEquals(1, frames.size());
+        assertTrue(frames.get(0) instanceof BinaryWebSocketFrame);
+        assertEquals("bytes", frames.get(0).content().toString(StandardCharsets.UTF_8));
+        frames.forEach(WebSocketFrame::release);
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testAggregateContinuationFrames() {
+        EmbeddedChannel channel = upgrade(WebSocketOptions.create().maxMessageSize(16), "");
+        readResponse(channel);
+
+        channel.writeInbound(clientFrames(null,
+                new TextWebSocketFrame(false, 0, "hello "),
+                new ContinuationWebSocketFrame(true, 0, "world")));
+        assertEquals(1, EchoEndpoint.EVENTS.size());
+        assertEquals("text hello world", EchoEndpoint.EVENTS.get(0));
+        serverFrames(channel, null).forEach(WebSocketFrame::release);
+
+        // 18 bytes exceed the message limit, the connection closes with 1009
+        channel.writeInbound(clientFrames(null,
+                new TextWebSocketFrame(false, 0, "too large "),
+                new ContinuationWebSocketFrame(true, 0, "message!")));
+        assertEquals(1, EchoEndpoint.EVENTS.size());
+        List<WebSocketFrame> frames = serverFrames(channel, null);
+        assertEquals(1, frames.size());
+        assertTrue(frames.get(0) instanceof CloseWebSocketFrame);
+        assertEquals(WebSocketCloseStatus.MESSAGE_TOO_BIG.code(), ((CloseWebSocketFrame) frames.get(0)).statusCode());
+        frames.forEach(WebSocketFrame::release);
+        assertFalse(channel.isOpen());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testPerMessageDeflate() {
+        EmbeddedChannel channel = upgrade(WebSocketOptions.create(),
+                "Sec-WebSocket-Extensions: permessage-deflate; client_max_window_bits\r\n");
+        String response = readResponse(channel);
+        assertTrue(response.startsWith("HTTP/1.1 101"));
+        String extensions = null;
+        for (String line : response.split("\r\n")) {
+            if (line.toLowerCase().startsWith("sec-websocket-extensions:")) {
+                extensions = line.substring(line.indexOf(':') + 1).trim();
+            }
+        }
+        assertNotNull(extensions);
+        assertTrue(extensions.startsWith("permessage-deflate"));
+
+        WebSocketExtensionData data = WebSocketExtensionUtil.extractExtensions(extensions).get(0);
+        WebSocketClientExtension extension = new PerMessageDeflateClientExtensionHandshaker()
+                .handshakeExtension(data);
+        assertNotNull(extension);
+
+        String text = "compress me, compress me, compress me";
+        ByteBuf compressed = clientFrames(extension.newExtensionEncoder(), new TextWebSocketFrame(text));
+        // RSV1 marks a compressed message
+        assertEquals(0x40, compressed.getByte(0) & 0x40);
+        channel.writeInbound(compressed);
+        assertEquals("text " + text, EchoEndpoint.EVENTS.get(0));
+
+        List<WebSocketFrame> frames = serverFrames(channel, extension.newExtensionDecoder());
+        assertEquals(1, frames.size());
+        assertEquals("echo " + text, ((TextWebSocketFrame) frames.get(0)).text());
+        frames.forEach(WebSocketFrame::release);
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testNoDeflateWhenDisabled() {
+        EmbeddedChannel channel = upgrade(WebSocketOptions.create().disableCompression(),
+                "Sec-WebSocket-Extensions: permessage-deflate\r\n");
+        String response = readResponse(channel);
+        assertTrue(response.startsWith("HTTP/1.1 101"));
+        assertFalse(response.toLowerCase().contains("sec-websocket-extensions"));
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testFailedHandshakeNotConnected() {
+        List<String> events = new ArrayList<>();
+        WebSocketMapping mapping = new WebSocketMapping();
+        mapping.add("/ws", new WebSocketHandler() {
+            @Override
+            public void onConnect(WebSocketContext ctx) {
+                events.add("connect");
+            }
+
+            @Override
+            public void onText(WebSocketContext ctx) {
+            }
+
+            @Override
+            public void onDisConnect(WebSocketContext ctx) {
+                events.add("disconnect");
+            }
+        });
+        // the handshake response can't be written
+        ChannelOutboundHandlerAdapter reset = new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                ReferenceCountUtil.release(msg);
+                promise.setFailure(new IOException("connection reset"));
+            }
+        };
+        EmbeddedChannel channel = new EmbeddedChannel(reset, new HttpServerCodec(), new HttpObjectAggregator(65536),
+                new com.hellokaton.blade.websocket.netty.WebSocketHandler(mapping));
+        channel.writeInbound(Unpooled.copiedBuffer(UPGRADE + "\r\n", StandardCharsets.US_ASCII));
+        channel.runPendingTasks();
+
+        assertFalse(channel.isOpen());
+        assertTrue(events.isEmpty());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testPauseReadsWhileNotWritable() {
+        EmbeddedChannel channel = upgrade(WebSocketOptions.create().writeBufferWaterMark(16, 32), "");
+        readResponse(channel);
+        assertTrue(channel.config().isAutoRead());
+
+        // queued but not flushed, above the high water mark
+        channel.write(new TextWebSocketFrame("a message longer than the high water mark"));
+        assertFalse(channel.isWritable());
+        assertFalse(channel.config().isAutoRead());
+
+        channel.flush();
+        assertTrue(channel.isWritable());
+        assertTrue(channel.config().isAutoRead());
+        channel.finishAndReleaseAll();
+    }
+
+}
@@ -0,0 +1,149 @@
+package com.hellokaton.blade.websocket;
+
+import com.hellokaton.blade.Blade;
+import com.hellokaton.blade.websocket.annotaion.OnMessage;
+import com.hellokaton.blade.websocket.annotaion.OnOpen;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocket13FrameEncoder;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class WebSocketRoutingTest {
+
+    private static final String UPGRADE = "GET %s HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            "Upgrade: websocket\r\n" +
+            "Connection: Upgrade\r\n" +
+            "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n" +
+            "Sec-WebSocket-Version: 13\r\n\r\n";
+
+    public static class ChatEndpoint {
+
+        static final List<String> EVENTS = new ArrayList<>();
+
+        @OnOpen
+        public void open(WebSocketContext ctx) {
+            EVENTS.add("open " + ctx.pathParam("room"));
+        }
+
+        @OnMessage
+        public void message(WebSocketContext ctx, Blade blade) {
+            EVENTS.add(ctx.message() + " " + (null != blade));
+            ctx.message("echo " + ctx.message());
+        }
+    }
+
+    static class NoopHandler implements WebSocketHandler {
+
+        @Override
+        public void onConnect(WebSocketContext ctx) {
+        }
+
+        @Override
+        public void onText(WebSocketContext ctx) {
+        }
+
+        @Override
+        public void onDisConnect(WebSocketContext ctx) {
+        }
+    }
+
+    private static EmbeddedChannel channel(WebSocketMapping mapping) {
+        return new EmbeddedChannel(new HttpServerCodec(), new HttpObjectAggregator(65536),
+                new com.hellokaton.blade.websocket.netty.WebSocketHandler(mapping));
+    }
+
+    private static String readAll(EmbeddedChannel channel) {
+        StringBuilder out = new StringBuilder();
+        ByteBuf buf;
+        while ((buf = channel.readOutbound()) != null) {
+            out.append(buf.toString(StandardCharsets.ISO_8859_1));
+            buf.release();
+        }
+        return out.toString();
+    }
+
+    private static ByteBuf maskedFrame(String text) {
+        EmbeddedChannel client = new EmbeddedChannel(new WebSocket13FrameEncoder(true));
+        client.writeOutbound(new TextWebSocketFrame(text));
+        ByteBuf bytes = Unpooled.buffer();
+        ByteBuf buf;
+        while ((buf = client.readOutbound()) != null) {
+            bytes.writeBytes(buf);
+            buf.release();
+        }
+        return bytes;
+    }
+
+    @Test
+    public void testFind() {
+        WebSocketMapping mapping = new WebSocketMapping();
+        WebSocketHandler handler = new NoopHandler();
+        mapping.add("/chat/:room", handler);
+
+        WebSocketMapping.Endpoint endpoint = mapping.find("/chat/blade?token=1");
+        assertNotNull(endpoint);
+        assertSame(handler, endpoint.handler());
+        assertEquals("blade", endpoint.pathParams().get("room"));
+        assertNull(mapping.find("/chat"));
+        assertNull(mapping.find("/other/blade"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDuplicatePath() {
+        WebSocketMapping mapping = new WebSocketMapping();
+        mapping.add("/ws", new NoopHandler());
+        mapping.add("ws", new NoopHandler());
+    }
+
+    @Test
+    public void testUpgradeAndDispatch() {
+        ChatEndpoint.EVENTS.clear();
+        Blade blade = Blade.create();
+        blade.register(blade);
+        WebSocketMapping mapping = new WebSocketMapping();
+        mapping.add("/chat/:room", WebSocketHandlerWrapper.of(blade, ChatEndpoint.class));
+
+        EmbeddedChannel channel = channel(mapping);
+        channel.writeInbound(Unpooled.copiedBuffer(String.format(UPGRADE, "/chat/blade"), StandardCharsets.US_ASCII));
+        channel.runPendingTasks();
+        assertTrue(readAll(channel).startsWith("HTTP/1.1 101"));
+        assertEquals("open blade", ChatEndpoint.EVENTS.get(0));
+
+        channel.writeInbound(maskedFrame("hi"));
+        assertEquals("hi true", ChatEndpoint.EVENTS.get(1));
+        assertTrue(readAll(channel).endsWith("echo hi"));
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testPassOtherRequests() {
+        WebSocketMapping mapping = new WebSocketMapping();
+        mapping.add("/ws", new NoopHandler());
+        EmbeddedChannel channel = channel(mapping);
+
+        channel.writeInbound(Unpooled.copiedBuffer(String.format(UPGRADE, "/other"), StandardCharsets.US_ASCII));
+        FullHttpRequest upgradeRequest = channel.readInbound();
+        assertEquals("/other", upgradeRequest.uri());
+        upgradeRequest.release();
+
+        channel.writeInbound(Unpooled.copiedBuffer("GET /ws HTTP/1.1\r\nHost: localhost\r\n\r\n", StandardCharsets.US_ASCII));
+        FullHttpRequest request = channel.readInbound();
+        assertEquals("/ws", request.uri());
+        request.release();
+        assertEquals("", readAll(channel));
+        channel.finishAndReleaseAll();
+    }
+
+}